@@ -54,8 +54,16 @@ public abstract class EngineViewPrototype extends ViewPrototype {
 
     // information about this container
     protected final int side;
-    private boolean localMouseDown = false;
-    private static boolean globalMouseDown = false;
+    // the mouse state (read by the repaint actions while they wait)
+    private volatile boolean localMouseDown = false;
+    private static volatile boolean globalMouseDown = false;
+
+    // domains of the async actions of this view: the worlds can be refreshed concurrently
+    // with the other views, but rendering is done by one view at a time (shared jpct threads)
+    // Note: the textures are shared by all worlds, the refresh and the rendering synchronize
+    // the access with WorldManager.SHARED_SYNC
+    private final String[] worldDomains;
+    private final String[] renderDomains;
 
     // reference
     private final EngineViewPrototype thisInstance = this;
@@ -137,6 +145,16 @@ public abstract class EngineViewPrototype extends ViewPrototype {
                     asyncActionManager.addAsyncAction(this);
                 }
             }
+
+            @Override
+            public int getPriority() {
+                return PRIORITY_BACKGROUND;
+            }
+
+            @Override
+            public String[] getDomains() {
+                return worldDomains;
+            }
         });
 
         // only retrieve the changed voxels
@@ -161,6 +179,16 @@ public abstract class EngineViewPrototype extends ViewPrototype {
                     asyncActionManager.addAsyncAction(this);
                 }
             }
+
+            @Override
+            public int getPriority() {
+                return PRIORITY_BACKGROUND;
+            }
+
+            @Override
+            public String[] getDomains() {
+                return worldDomains;
+            }
         });
     }
 
@@ -214,8 +242,19 @@ public abstract class EngineViewPrototype extends ViewPrototype {
 
                 @Override
                 public boolean ready() {
+                    // Note: the mouse release wakes the waiting repaints
                     return !globalMouseDown || localMouseDown;
                 }
+
+                @Override
+                public int getPriority() {
+                    return PRIORITY_INTERACTIVE;
+                }
+
+                @Override
+                public String[] getDomains() {
+                    return renderDomains;
+                }
             });
         } else {
             container.bufferWorldRenderFlags();
@@ -400,6 +439,8 @@ public abstract class EngineViewPrototype extends ViewPrototype {
             side = -1;
         }
         this.side = side;
+        worldDomains = new String[] {"view" + side};
+        renderDomains = new String[] {"view" + side, "render"};
 
         // initialize the container
         container = new DrawContainer(side) {
@@ -444,6 +485,8 @@ public abstract class EngineViewPrototype extends ViewPrototype {
                     public void performAction() {
                         globalMouseDown = false;
                         localMouseDown = false;
+                        // the repaints of the other views are ready now
+                        asyncActionManager.recheckIdle();
                     }
                 });
             }
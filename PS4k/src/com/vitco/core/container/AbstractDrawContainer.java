@@ -246,8 +246,6 @@ public abstract class AbstractDrawContainer extends JPanel {
 
     // some buffers
     protected BufferedImage toDraw;
-    protected BufferedImage overlayBuffer;
-    protected Graphics2D overlayBufferGraphics;
 
     // ################################
     // some static variables
@@ -2,6 +2,7 @@ package com.vitco.core.container;
 
 import com.threed.jpct.*;
 import com.vitco.core.data.container.ExtendedVector;
+import com.vitco.core.world.WorldManager;
 import com.vitco.manager.async.AsyncAction;
 import com.vitco.settings.DynamicSettings;
 import com.vitco.settings.VitcoSettings;
@@ -16,6 +17,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 /**
  * Defines the final draw container that draws the rendering of animation and voxels.
@@ -764,20 +767,6 @@ public abstract class DrawContainer extends AbstractDrawContainer {
         gr.setColor(bgColor);
         gr.fillRect(0, 0, width, height);
         gr.dispose();
-        // the overlay
-        overlayBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        // draw the lines
-        overlayBufferGraphics = (Graphics2D)overlayBuffer.getGraphics();
-        // Anti-alias
-        overlayBufferGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                RenderingHints.VALUE_ANTIALIAS_ON);
-        // bg color to clear
-        overlayBufferGraphics.setBackground(new Color(0,0,0,0));
-        // set color
-        overlayBufferGraphics.setColor(VitcoSettings.GHOST_VOXEL_OVERLAY_LINE_COLOR);
-        overlayBufferGraphics.setStroke(
-                new BasicStroke(1f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_BEVEL,
-                        0, new float[]{4,5}, 2));
         hasResized = true;
     }
 
@@ -803,8 +792,10 @@ public abstract class DrawContainer extends AbstractDrawContainer {
         HackedFrameBuffer fb = new HackedFrameBuffer(getWidth()*2, getHeight()*2, FrameBuffer.SAMPLINGMODE_NORMAL);
         Config.useFramebufferWithAlpha = false;
         fb.clear(new Color(0, 0, 0, 0));
-        world.renderScene(fb);
-        world.draw(fb);
+        synchronized (WorldManager.SHARED_SYNC) {
+            world.renderScene(fb);
+            world.draw(fb);
+        }
         fb.update();
 
         int w = fb.getWidth() * 2;
@@ -854,8 +845,10 @@ public abstract class DrawContainer extends AbstractDrawContainer {
     public final BufferedImage getDepthImage() {
         HackedFrameBuffer fb = new HackedFrameBuffer(getWidth(), getHeight(), FrameBuffer.SAMPLINGMODE_OGSS);
         fb.clear();
-        world.renderScene(fb);
-        world.draw(fb);
+        synchronized (WorldManager.SHARED_SYNC) {
+            world.renderScene(fb);
+            world.draw(fb);
+        }
         fb.update();
         BufferedImage largeResult = new BufferedImage(fb.getWidth()*2, fb.getHeight()*2, BufferedImage.TYPE_INT_ARGB);
 
@@ -1014,15 +1007,18 @@ public abstract class DrawContainer extends AbstractDrawContainer {
             buffer.clear(bgColor);
             if (drawWorld) {
                 refreshVoxels(false);
-                world.renderScene(buffer);
-                if (useWireFrame) {
-                    world.drawWireframe(buffer, VitcoSettings.WIREFRAME_COLOR);
-                } else {
-                    world.draw(buffer);
-                    if (drawSelectedVoxels) { // only draw selected voxels if enables
-                        selectedVoxelsWorld.drawAsShiftedWireframe(buffer,
-                                VitcoSettings.SELECTED_VOXEL_WIREFRAME_COLOR,
-                                VitcoSettings.SELECTED_VOXEL_WIREFRAME_COLOR_SHIFTED);
+                // the textures are shared with the worlds of the other views
+                synchronized (WorldManager.SHARED_SYNC) {
+                    world.renderScene(buffer);
+                    if (useWireFrame) {
+                        world.drawWireframe(buffer, VitcoSettings.WIREFRAME_COLOR);
+                    } else {
+                        world.draw(buffer);
+                        if (drawSelectedVoxels) { // only draw selected voxels if enables
+                            selectedVoxelsWorld.drawAsShiftedWireframe(buffer,
+                                    VitcoSettings.SELECTED_VOXEL_WIREFRAME_COLOR,
+                                    VitcoSettings.SELECTED_VOXEL_WIREFRAME_COLOR_SHIFTED);
+                        }
                     }
                 }
             }
@@ -1088,20 +1084,76 @@ public abstract class DrawContainer extends AbstractDrawContainer {
         }
     }
 
+    // the amount of rendered ghost overlays that are cached (one per outline, i.e. per plane)
+    private static final int GHOST_OVERLAY_CACHE_SIZE = 4;
+    // the rendered ghost overlays by outline (least recently used first),
+    // they are only valid for the camera and size they were rendered with
+    private final LinkedHashMap<SimpleVector[][], BufferedImage> ghostOverlayCache =
+            new LinkedHashMap<SimpleVector[][], BufferedImage>(8, 0.75f, true);
+    // images of outdated ghost overlays that can be reused
+    private final ArrayList<BufferedImage> unusedGhostOverlays = new ArrayList<BufferedImage>();
+    // the rendered ghost overlay that is currently shown
+    private BufferedImage ghostOverlay = null;
+
+    // helper - obtain an image for a ghost overlay (reuses the least recently used image)
+    private BufferedImage createGhostOverlayImage() {
+        BufferedImage image = null;
+        if (!unusedGhostOverlays.isEmpty()) {
+            image = unusedGhostOverlays.remove(unusedGhostOverlays.size() - 1);
+        } else if (ghostOverlayCache.size() >= GHOST_OVERLAY_CACHE_SIZE) {
+            Iterator<BufferedImage> eldest = ghostOverlayCache.values().iterator();
+            image = eldest.next();
+            eldest.remove();
+        }
+        if (image == null || image.getWidth() != toDraw.getWidth() || image.getHeight() != toDraw.getHeight()) {
+            image = new BufferedImage(toDraw.getWidth(), toDraw.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+        return image;
+    }
+
+    // helper - render a ghost overlay
+    private void renderGhostOverlay(BufferedImage image, SimpleVector[][] outline) {
+        // draw the lines
+        Graphics2D gr = (Graphics2D) image.getGraphics();
+        // Anti-alias
+        gr.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        // bg color to clear
+        gr.setBackground(new Color(0,0,0,0));
+        gr.clearRect(0, 0, image.getWidth(), image.getHeight());
+        // set color
+        gr.setColor(VitcoSettings.GHOST_VOXEL_OVERLAY_LINE_COLOR);
+        gr.setStroke(
+                new BasicStroke(1f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_BEVEL,
+                        0, new float[]{4,5}, 2));
+        for (SimpleVector[] line : outline) {
+            SimpleVector p1 = convert3D2D(line[0]);
+            SimpleVector p2 = convert3D2D(line[1]);
+            gr.drawLine(Math.round(p1.x), Math.round(p1.y), Math.round(p2.x), Math.round(p2.y));
+        }
+        gr.dispose();
+    }
+
     // draw some ghosting lines (the voxel outline)
     private void drawGhostOverlay(Graphics2D g1, boolean cameraChanged, boolean hasResized) {
         boolean updated = updateGhostOverlay();
-        if (updated || cameraChanged || hasResized) {
-            // clear the previous drawings
-            overlayBufferGraphics.clearRect(0,0,overlayBuffer.getWidth(),overlayBuffer.getHeight());
-            // draw
-            for (SimpleVector[] line : getGhostOverlay()) {
-                SimpleVector p1 = convert3D2D(line[0]);
-                SimpleVector p2 = convert3D2D(line[1]);
-                overlayBufferGraphics.drawLine(Math.round(p1.x), Math.round(p1.y), Math.round(p2.x), Math.round(p2.y));
+        if (cameraChanged || hasResized) {
+            // the rendered overlays are outdated (the images are reused)
+            unusedGhostOverlays.addAll(ghostOverlayCache.values());
+            ghostOverlayCache.clear();
+            ghostOverlay = null;
+        }
+        if (updated || ghostOverlay == null) {
+            // the outline is only recomputed when it changed, so it identifies the rendered overlay
+            SimpleVector[][] outline = getGhostOverlay();
+            ghostOverlay = ghostOverlayCache.get(outline);
+            if (ghostOverlay == null) {
+                ghostOverlay = createGhostOverlayImage();
+                renderGhostOverlay(ghostOverlay, outline);
+                ghostOverlayCache.put(outline, ghostOverlay);
             }
         }
-        g1.drawImage(overlayBuffer, 0, 0, null);
+        g1.drawImage(ghostOverlay, 0, 0, null);
     }
 
 }
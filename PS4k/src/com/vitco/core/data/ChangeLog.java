@@ -0,0 +1,86 @@
+package com.vitco.core.data;
+
+import gnu.trove.procedure.TIntProcedure;
+
+/**
+ * Sequence numbered log of changed (packed) positions.
+ *
+ * Every entry gets the next sequence number. Consumers remember the sequence number
+ * they have read up to (their cursor) and obtain all entries that were added since.
+ * The entries are stored in a ring buffer that grows up to a maximum capacity, after
+ * that the oldest entries are overwritten. If the entries of a cursor are no longer
+ * available (or the log was reset), the consumer needs to do a full refresh.
+ */
+final class ChangeLog {
+
+    // the entries (index is sequence number & mask)
+    private int[] entries;
+    private int mask;
+
+    // the maximum capacity of the buffer
+    private final int maxCapacity;
+
+    // sequence number of the next entry
+    private long head = 0;
+    // sequence number of the oldest entry that is still available
+    private long tail = 0;
+
+    // constructor (capacities need to be a power of two)
+    ChangeLog(int initialCapacity, int maxCapacity) {
+        assert Integer.bitCount(initialCapacity) == 1 && Integer.bitCount(maxCapacity) == 1;
+        assert initialCapacity <= maxCapacity;
+        entries = new int[initialCapacity];
+        mask = initialCapacity - 1;
+        this.maxCapacity = maxCapacity;
+    }
+
+    // the sequence number of the next entry (use as cursor after reading)
+    public final long getSequence() {
+        return head;
+    }
+
+    // add an entry to the log
+    public final void add(int value) {
+        if (head - tail == entries.length) {
+            if (entries.length < maxCapacity) {
+                // grow the buffer (the entries keep their sequence number)
+                int[] newEntries = new int[entries.length << 1];
+                int newMask = newEntries.length - 1;
+                for (long seq = tail; seq < head; seq++) {
+                    newEntries[(int) (seq & newMask)] = entries[(int) (seq & mask)];
+                }
+                entries = newEntries;
+                mask = newMask;
+            } else {
+                // drop the oldest entry
+                tail++;
+            }
+        }
+        entries[(int) (head & mask)] = value;
+        head++;
+    }
+
+    // discard all entries, every cursor will require a full refresh
+    public final void reset() {
+        // skip a sequence number, so that cursors that were up to date are no longer available
+        head++;
+        tail = head;
+    }
+
+    // true if the entries since this cursor are still available
+    public final boolean isAvailable(long cursor) {
+        return cursor >= tail && cursor <= head;
+    }
+
+    // execute the procedure for all entries that were added since the cursor,
+    // returns false if these entries are no longer available (full refresh required)
+    public final boolean forEachSince(long cursor, TIntProcedure procedure) {
+        if (!isAvailable(cursor)) {
+            return false;
+        }
+        for (long seq = cursor; seq < head; seq++) {
+            procedure.execute(entries[(int) (seq & mask)]);
+        }
+        return true;
+    }
+}
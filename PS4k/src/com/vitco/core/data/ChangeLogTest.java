@@ -0,0 +1,57 @@
+package com.vitco.core.data;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.procedure.TIntProcedure;
+import org.junit.Test;
+
+/**
+ * Test the sequence numbered change log.
+ */
+public class ChangeLogTest {
+
+    // helper - read the entries since the cursor (null if not available)
+    private static TIntArrayList read(ChangeLog changeLog, long cursor) {
+        final TIntArrayList result = new TIntArrayList();
+        boolean available = changeLog.forEachSince(cursor, new TIntProcedure() {
+            @Override
+            public boolean execute(int value) {
+                result.add(value);
+                return true;
+            }
+        });
+        return available ? result : null;
+    }
+
+    @Test
+    public void testChangeLog() throws Exception {
+        ChangeLog changeLog = new ChangeLog(4, 16);
+        long start = changeLog.getSequence();
+        for (int i = 0; i < 10; i++) {
+            changeLog.add(i);
+        }
+        // the buffer grows while there is capacity left
+        TIntArrayList entries = read(changeLog, start);
+        assert entries != null && entries.size() == 10;
+        for (int i = 0; i < 10; i++) {
+            assert entries.get(i) == i;
+        }
+        long cursor = changeLog.getSequence();
+        assert read(changeLog, cursor).isEmpty();
+        changeLog.add(42);
+        assert read(changeLog, cursor).size() == 1 && read(changeLog, cursor).get(0) == 42;
+        // old entries are overwritten when the maximum capacity is reached
+        for (int i = 0; i < 16; i++) {
+            changeLog.add(i);
+        }
+        assert read(changeLog, start) == null;
+        assert read(changeLog, cursor) == null;
+        entries = read(changeLog, changeLog.getSequence() - 16);
+        assert entries != null && entries.size() == 16 && entries.get(15) == 15;
+        // nothing is available after a reset
+        cursor = changeLog.getSequence() - 1;
+        changeLog.reset();
+        assert read(changeLog, cursor) == null;
+        assert read(changeLog, cursor + 1) == null;
+        assert read(changeLog, changeLog.getSequence()).isEmpty();
+    }
+}
@@ -0,0 +1,202 @@
+package com.vitco.core.data;
+
+import com.vitco.core.data.container.Voxel;
+import com.vitco.core.data.container.VoxelLayer;
+import com.vitco.low.CubeIndexer;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntLongHashMap;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Finds the voxels that are connected to a start position and have the same color (and no texture).
+ *
+ * The positions are handled as (packed) position ids, the search expands one frontier (primitive list of
+ * position ids) at a time and the visited positions are kept in a sparse bitset. The voxels are looked up
+ * directly in the layer indices (the first layer that contains a position "wins"). Large frontiers are
+ * split into parts that are searched concurrently.
+ */
+final class FloodFill {
+
+    // frontier size from which the frontier is searched concurrently
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+    // amount of frontier positions that are searched by one task
+    private static final int TASK_SIZE = 1 << 11;
+
+    // the layers that are searched (in order)
+    private final VoxelLayer[] layers;
+    // the color of the connected voxels
+    private final Color color;
+    // the side (plane) the search is restricted to, -1 for no restriction
+    private final int side;
+
+    // visited positions (position id >> 6 -> bits of the 64 positions)
+    private final TIntLongHashMap visited = new TIntLongHashMap();
+
+    // constructor
+    FloodFill(List<VoxelLayer> layers, Color color, int side) {
+        this.layers = layers.toArray(new VoxelLayer[layers.size()]);
+        this.color = color;
+        this.side = side;
+    }
+
+    // helper - find the voxel that is shown at a position if it is connected
+    private Voxel getConnected(int posId) {
+        for (VoxelLayer layer : layers) {
+            Voxel voxel = layer.search(posId);
+            if (voxel != null) {
+                return voxel.getTexture() == null && voxel.getColor().equals(color) ? voxel : null;
+            }
+        }
+        return null;
+    }
+
+    // helper - true if the position was already visited
+    private boolean isVisited(int posId) {
+        return (visited.get(posId >> 6) & (1L << posId)) != 0;
+    }
+
+    // helper - mark a position as visited, returns false if it was already visited
+    private boolean visit(int posId) {
+        int key = posId >> 6;
+        long bits = visited.get(key);
+        long bit = 1L << posId;
+        if ((bits & bit) != 0) {
+            return false;
+        }
+        visited.put(key, bits | bit);
+        return true;
+    }
+
+    // helper - obtain the neighbours of a position (inside the plane and the indexed cube)
+    private int getNeighbours(int posId, int[] neighbours) {
+        int count = 0;
+        if (side != 2) {
+            int x = CubeIndexer.getX(posId);
+            if (x < CubeIndexer.radius - 1) {
+                neighbours[count++] = posId + 1;
+            }
+            if (x > -CubeIndexer.radius) {
+                neighbours[count++] = posId - 1;
+            }
+        }
+        if (side != 1) {
+            int y = CubeIndexer.getY(posId);
+            if (y < CubeIndexer.radius - 1) {
+                neighbours[count++] = posId + CubeIndexer.widthwidth;
+            }
+            if (y > -CubeIndexer.radius) {
+                neighbours[count++] = posId - CubeIndexer.widthwidth;
+            }
+        }
+        if (side != 0) {
+            int z = CubeIndexer.getZ(posId);
+            if (z < CubeIndexer.radius - 1) {
+                neighbours[count++] = posId + CubeIndexer.width;
+            }
+            if (z > -CubeIndexer.radius) {
+                neighbours[count++] = posId - CubeIndexer.width;
+            }
+        }
+        return count;
+    }
+
+    // helper - find the connected voxels around a part of the frontier that were not visited yet
+    // (only reads the visited positions, so this can run concurrently)
+    private void searchFrontier(TIntArrayList frontier, int from, int to, TIntArrayList foundIds, ArrayList<Voxel> found) {
+        int[] neighbours = new int[6];
+        for (int i = from; i < to; i++) {
+            for (int j = 0, count = getNeighbours(frontier.getQuick(i), neighbours); j < count; j++) {
+                int neighbour = neighbours[j];
+                if (!isVisited(neighbour)) {
+                    Voxel voxel = getConnected(neighbour);
+                    if (voxel != null) {
+                        foundIds.add(neighbour);
+                        found.add(voxel);
+                    }
+                }
+            }
+        }
+    }
+
+    // helper - run a task in the pool (or directly if there is no pool)
+    private static ForkJoinTask<?> schedule(ForkJoinPool pool, Runnable task) {
+        if (pool == null) {
+            task.run();
+            return null;
+        }
+        return pool.submit(task);
+    }
+
+    // helper - search the neighbours of the frontier (concurrently if a pool is given), returns the next frontier
+    private TIntArrayList searchFrontier(ForkJoinPool pool, final TIntArrayList frontier, ArrayList<Voxel> result) {
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        final ArrayList<TIntArrayList> foundIds = new ArrayList<TIntArrayList>();
+        final ArrayList<ArrayList<Voxel>> found = new ArrayList<ArrayList<Voxel>>();
+        for (int from = 0; from < frontier.size(); from += TASK_SIZE) {
+            final int taskFrom = from;
+            final int taskTo = Math.min(frontier.size(), from + TASK_SIZE);
+            final TIntArrayList taskFoundIds = new TIntArrayList();
+            final ArrayList<Voxel> taskFound = new ArrayList<Voxel>();
+            foundIds.add(taskFoundIds);
+            found.add(taskFound);
+            tasks.add(schedule(pool, new Runnable() {
+                @Override
+                public void run() {
+                    searchFrontier(frontier, taskFrom, taskTo, taskFoundIds, taskFound);
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            if (task != null) {
+                task.join();
+            }
+        }
+        // mark the found positions (a position can be found from several frontier positions)
+        TIntArrayList next = new TIntArrayList();
+        for (int i = 0; i < foundIds.size(); i++) {
+            TIntArrayList taskFoundIds = foundIds.get(i);
+            ArrayList<Voxel> taskFound = found.get(i);
+            for (int j = 0; j < taskFoundIds.size(); j++) {
+                int posId = taskFoundIds.getQuick(j);
+                if (visit(posId)) {
+                    next.add(posId);
+                    result.add(taskFound.get(j));
+                }
+            }
+        }
+        return next;
+    }
+
+    // find the connected voxels (large frontiers are searched concurrently if parallel is set)
+    public final ArrayList<Voxel> search(int startId, boolean parallel) {
+        ArrayList<Voxel> result = new ArrayList<Voxel>();
+        Voxel start = getConnected(startId);
+        if (start == null) {
+            return result;
+        }
+        visit(startId);
+        result.add(start);
+        TIntArrayList frontier = new TIntArrayList();
+        frontier.add(startId);
+        ForkJoinPool pool = null;
+        try {
+            while (!frontier.isEmpty()) {
+                boolean concurrent = parallel && frontier.size() >= PARALLEL_THRESHOLD;
+                if (concurrent && pool == null) {
+                    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+                }
+                frontier = searchFrontier(concurrent ? pool : null, frontier, result);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.vitco.core.data;
+
+import com.vitco.core.data.container.Voxel;
+import com.vitco.core.data.container.VoxelLayer;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+/**
+ * Test the flood fill against a simple breadth first search.
+ */
+public class FloodFillTest {
+
+    // helper - simple flood fill (the first layer that contains a position is used)
+    private static TIntHashSet floodReference(VoxelLayer[] layers, int[] start, Color color, int side) {
+        TIntHashSet result = new TIntHashSet();
+        LinkedList<int[]> queue = new LinkedList<int[]>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int[] pos = queue.removeFirst();
+            Voxel voxel = null;
+            for (VoxelLayer layer : layers) {
+                voxel = layer.search(pos);
+                if (voxel != null) {
+                    break;
+                }
+            }
+            if (voxel != null && voxel.getColor().equals(color) && voxel.getTexture() == null && result.add(voxel.id)) {
+                for (int axis = 0; axis < 3; axis++) {
+                    if (axis != 2 - side) {
+                        for (int dir = -1; dir <= 1; dir += 2) {
+                            int[] neighbour = pos.clone();
+                            neighbour[axis] += dir;
+                            queue.add(neighbour);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // helper - the ids of the voxels
+    private static TIntHashSet getIds(ArrayList<Voxel> voxels) {
+        TIntHashSet result = new TIntHashSet();
+        for (Voxel voxel : voxels) {
+            assert result.add(voxel.id);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Random rand = new Random(0);
+        VoxelLayer top = new VoxelLayer(0, "top");
+        VoxelLayer bottom = new VoxelLayer(1, "bottom");
+        int id = 0;
+        int size = 64;
+        for (int x = -size/2; x < size/2; x++) {
+            for (int y = -size/2; y < size/2; y++) {
+                for (int z = -size/2; z < size/2; z++) {
+                    Color color = rand.nextInt(10) < 8 ? Color.RED : Color.GREEN;
+                    bottom.addVoxel(new Voxel(id++, new int[]{x, y, z}, color, false, null, 1));
+                    if (rand.nextInt(20) == 0) {
+                        top.addVoxel(new Voxel(id++, new int[]{x, y, z}, Color.BLUE, false, null, 0));
+                    }
+                }
+            }
+        }
+        // voxels at the border of the indexed cube are not connected to the other side
+        bottom.addVoxel(new Voxel(id++, new int[]{799, 0, 0}, Color.RED, false, null, 1));
+        bottom.addVoxel(new Voxel(id, new int[]{-800, 0, 1}, Color.RED, false, null, 1));
+        VoxelLayer[] layers = new VoxelLayer[] {top, bottom};
+        int[] start = new int[] {0, 0, 0};
+        while (top.search(start) != null || !bottom.search(start).getColor().equals(Color.RED)) {
+            start[0]++;
+        }
+        for (int side = -1; side < 3; side++) {
+            TIntHashSet expected = floodReference(layers, start, Color.RED, side);
+            assert expected.size() > 1;
+            for (boolean parallel : new boolean[] {false, true}) {
+                FloodFill floodFill = new FloodFill(Arrays.asList(layers), Color.RED, side);
+                assert expected.equals(getIds(floodFill.search(bottom.search(start).posId, parallel)));
+            }
+        }
+        FloodFill floodFill = new FloodFill(Arrays.asList(layers), Color.RED, -1);
+        assert floodFill.search(bottom.search(new int[] {799, 0, 0}).posId, false).size() == 1;
+    }
+}
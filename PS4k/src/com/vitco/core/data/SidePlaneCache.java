@@ -0,0 +1,138 @@
+package com.vitco.core.data;
+
+import com.vitco.core.data.container.DataContainer;
+import com.vitco.core.data.container.Voxel;
+import com.vitco.core.data.container.VoxelLayer;
+import com.vitco.low.CubeIndexer;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.procedure.TIntProcedure;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of composited side planes (the visible voxels of all layers in a plane).
+ *
+ * The least recently used planes are kept. Every plane has a version stamp (the sequence
+ * number of the change log it is up to date with), so when a plane is requested again only
+ * the positions that changed since are composited. If these changes are no longer available
+ * the plane is composited completely.
+ */
+final class SidePlaneCache {
+
+    // a composited plane
+    private static final class Plane {
+        // the visible voxels (by position id)
+        private final TIntObjectHashMap<Voxel> voxels = new TIntObjectHashMap<Voxel>();
+        // the sequence number of the change log this plane is up to date with
+        private long version;
+        // the visible voxels as array (null if outdated)
+        private Voxel[] array = null;
+    }
+
+    // the log of the changed visible positions
+    private final ChangeLog changeLog;
+
+    // map that removes the least recently used plane when the capacity is exceeded
+    private static final class PlaneMap extends LinkedHashMap<Integer, Plane> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        private PlaneMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Plane> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    // the cached planes (least recently used first)
+    private final PlaneMap planes;
+
+    // constructor
+    SidePlaneCache(ChangeLog changeLog, int capacity) {
+        this.changeLog = changeLog;
+        planes = new PlaneMap(capacity);
+    }
+
+    // helper - true if the position is in the plane (0 = xy, 1 = xz, 2 = yz)
+    private static boolean inPlane(int posId, int side, int plane) {
+        switch (side) {
+            case 0: return CubeIndexer.getZ(posId) == plane;
+            case 1: return CubeIndexer.getY(posId) == plane;
+            default: return CubeIndexer.getX(posId) == plane;
+        }
+    }
+
+    // helper - the voxels of a layer in the plane
+    private static Voxel[] getVoxels(VoxelLayer layer, int side, int plane) {
+        switch (side) {
+            case 0: return layer.getZPlane(plane);
+            case 1: return layer.getYPlane(plane);
+            default: return layer.getXPlane(plane);
+        }
+    }
+
+    // helper - find the voxel that is shown at a position (the first visible layer that contains the position "wins")
+    private static Voxel search(DataContainer data, int posId) {
+        for (Integer layerId : data.layerOrder) {
+            VoxelLayer layer = data.layers.get(layerId);
+            if (layer.isVisible()) {
+                Voxel voxel = layer.search(posId);
+                if (voxel != null) {
+                    return voxel;
+                }
+            }
+        }
+        return null;
+    }
+
+    // helper - composite the complete plane
+    private static void composite(DataContainer data, int side, int plane, Plane result) {
+        result.voxels.clear();
+        for (Integer layerId : data.layerOrder) {
+            VoxelLayer layer = data.layers.get(layerId);
+            if (layer.isVisible()) {
+                for (Voxel voxel : getVoxels(layer, side, plane)) {
+                    result.voxels.putIfAbsent(voxel.posId, voxel);
+                }
+            }
+        }
+        result.array = null;
+    }
+
+    // get the visible voxels in a plane
+    public final Voxel[] getVoxels(final DataContainer data, final int side, final int plane) {
+        Integer key = side * CubeIndexer.width + plane + CubeIndexer.radius;
+        Plane cached = planes.get(key);
+        final Plane result = cached == null ? new Plane() : cached;
+        // update the positions that changed since the plane was composited
+        boolean updated = cached != null && changeLog.forEachSince(result.version, new TIntProcedure() {
+            @Override
+            public boolean execute(int posId) {
+                if (inPlane(posId, side, plane)) {
+                    Voxel voxel = search(data, posId);
+                    Voxel previous = voxel == null ? result.voxels.remove(posId) : result.voxels.put(posId, voxel);
+                    if (previous != voxel) {
+                        result.array = null;
+                    }
+                }
+                return true;
+            }
+        });
+        if (!updated) {
+            composite(data, side, plane, result);
+        }
+        result.version = changeLog.getSequence();
+        if (cached == null) {
+            planes.put(key, result);
+        }
+        if (result.array == null) {
+            result.array = result.voxels.values(new Voxel[result.voxels.size()]);
+        }
+        return result.array.clone();
+    }
+}
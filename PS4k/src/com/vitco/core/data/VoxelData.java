@@ -6,12 +6,17 @@ import com.vitco.core.data.history.HistoryChangeListener;
 import com.vitco.core.data.history.HistoryManager;
 import com.vitco.core.data.history.VoxelActionIntent;
 import com.vitco.low.CubeIndexer;
+import com.vitco.low.LongCubeIndexer;
 import com.vitco.settings.VitcoSettings;
 import com.vitco.util.graphic.GraphicTools;
 import com.vitco.util.misc.ArrayUtil;
 import com.vitco.util.misc.ColorTools;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.map.hash.TIntLongHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
+import gnu.trove.procedure.TIntProcedure;
 import gnu.trove.set.hash.TIntHashSet;
 
 import javax.swing.*;
@@ -71,85 +76,39 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
     // position where the selection state has actually changed!)
     private final TIntHashSet currentSelectedVoxel = new TIntHashSet();
 
+    // log of the changed visible voxel positions and of the positions where the
+    // selection state has changed (shared by all consumers, each consumer has a cursor)
+    private final ChangeLog visibleChangeLog = new ChangeLog(1 << 12, 1 << 20);
+    private final ChangeLog selectedChangeLog = new ChangeLog(1 << 12, 1 << 20);
+
     // invalidate cache
     protected final void invalidateV(int[][] effected) {
         if (effected != null) {
-            // notification of changed visible voxels
-            for (TIntObjectHashMap<int[]> map : changedVisibleVoxel.values()) {
-                if (map != null) {
-                    for (int[] invalid : effected) {
-                        Integer key = CubeIndexer.getId(invalid[0], invalid[1], invalid[2]);
-                        if (!map.containsKey(key)) {
-                            map.put(key, invalid);
-                        }
-                    }
-                }
-            }
-
-            // notification of changed selected voxels
-            TIntObjectHashMap<int[]> invalidSelected = new TIntObjectHashMap<int[]>();
             for (int[] invalid : effected) {
+                int key = CubeIndexer.getId(invalid[0], invalid[1], invalid[2]);
+                // notification of changed visible voxels
+                visibleChangeLog.add(key);
+                // notification of changed selected voxels
                 Voxel voxel = searchVoxel(invalid, false);
-                if (voxel == null) {
-                    int key = CubeIndexer.getId(invalid[0], invalid[1], invalid[2]);
-                    if (currentSelectedVoxel.remove(key)) {
-                        invalidSelected.put(key, invalid);
+                if (voxel != null && voxel.isSelected()) {
+                    if (currentSelectedVoxel.add(key)) {
+                        selectedChangeLog.add(key);
                     }
                 } else {
-                    int key = voxel.posId;
-                    if (voxel.isSelected()) {
-                        if (currentSelectedVoxel.add(key)) {
-                            invalidSelected.put(key, invalid);
-                        }
-                    } else {
-                        if (currentSelectedVoxel.remove(key)) {
-                            invalidSelected.put(key, invalid);
-                        }
-                    }
-                }
-            }
-            for (TIntObjectHashMap<int[]> map : changedSelectedVoxel.values()) {
-                if (map != null) {
-                    map.putAll(invalidSelected);
-                }
-            }
-
-            // notification of changed visible voxel for this plane
-            for (TIntIterator it = changedVisibleVoxelPlane.keySet().iterator(); it.hasNext();) {
-                int side = it.next();
-                int missingSide = 1;
-                switch (side) {
-                    case 0: missingSide = 2; break;
-                    case 2: missingSide = 0; break;
-                    default: break;
-                }
-                for (String requestId : changedVisibleVoxelPlane.get(side).keySet()) {
-                    for (int[] invalid : effected) {
-                        // make sure this is set
-                        if (!changedVisibleVoxelPlane.get(side).get(requestId).containsKey(invalid[missingSide])) {
-                            changedVisibleVoxelPlane.get(side).get(requestId).put(
-                                    invalid[missingSide], new TIntObjectHashMap<int[]>());
-                        }
-                        // fill the details
-                        int key = CubeIndexer.getId(invalid[0], invalid[1], invalid[2]);
-                        if (!changedVisibleVoxelPlane.get(side).get(requestId).get(invalid[missingSide]).containsKey(key)) {
-                            changedVisibleVoxelPlane.get(side).get(requestId).get(invalid[missingSide]).put(key, invalid);
-                        }
+                    if (currentSelectedVoxel.remove(key)) {
+                        selectedChangeLog.add(key);
                     }
                 }
             }
         } else {
+            // all consumers need to do a full refresh
             currentSelectedVoxel.clear();
-            changedSelectedVoxel.clear();
-            changedVisibleVoxel.clear();
-            changedVisibleVoxelPlane.clear();
+            selectedChangeLog.reset();
+            visibleChangeLog.reset();
         }
         layerBufferValid = false;
         layerNameBufferValid = false;
         layerVoxelBufferValid = false;
-        layerVoxelXYBufferValid = false;
-        layerVoxelXZBufferValid = false;
-        layerVoxelYZBufferValid = false;
         selectedVoxelBufferValid = false;
         visibleLayerVoxelInternalBufferValid = false;
         notifier.onVoxelDataChanged();
@@ -1253,6 +1212,238 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
         }
     }
 
+    // creates a layer and holds all the voxels that are imported into it, so
+    // that a (streamed) import is a single history entry per layer
+    private final class ImportLayerIntent extends VoxelActionIntent {
+        private final int layerId;
+        private final String layerName;
+        private final boolean visible;
+        private final int index;
+
+        protected ImportLayerIntent(int layerId, String layerName, boolean visible, int index, boolean attach) {
+            super(attach);
+            this.layerId = layerId;
+            this.layerName = layerName;
+            this.visible = visible;
+            this.index = index;
+        }
+
+        @Override
+        protected void applyAction() {
+            VoxelLayer layer = new VoxelLayer(layerId, layerName);
+            layer.setVisible(visible);
+            dataContainer.layers.put(layerId, layer);
+            dataContainer.layerOrder.add(Math.min(index, dataContainer.layerOrder.size()), layerId);
+        }
+
+        @Override
+        protected void unapplyAction() {
+            dataContainer.layers.remove(layerId);
+            dataContainer.layerOrder.remove(dataContainer.layerOrder.lastIndexOf(layerId));
+        }
+
+        @Override
+        public int[][] effected() {
+            return new int[0][];
+        }
+    }
+
+    // closes the history entry of an imported layer (the layer and the batches are attached to this intent)
+    private final class FinishImportIntent extends VoxelActionIntent {
+        private final VoxelActionIntent[] batches;
+        // the batches were already shown when they were imported
+        private boolean shown = true;
+
+        protected FinishImportIntent(VoxelActionIntent[] batches, boolean attach) {
+            super(attach);
+            this.batches = batches;
+        }
+
+        @Override
+        protected void applyAction() {
+            // nothing to do
+        }
+
+        @Override
+        protected void unapplyAction() {
+            shown = false;
+        }
+
+        @Override
+        public int[][] effected() {
+            if (shown) {
+                return new int[0][];
+            }
+            int count = 0;
+            for (VoxelActionIntent batch : batches) {
+                count += batch.effected().length;
+            }
+            int[][] result = new int[count][];
+            count = 0;
+            for (VoxelActionIntent batch : batches) {
+                int[][] effected = batch.effected();
+                System.arraycopy(effected, 0, result, count, effected.length);
+                count += effected.length;
+            }
+            return result;
+        }
+    }
+
+    // adds voxels (on free positions) to a layer as a single history entry
+    private final class BoxAddVoxelIntent extends VoxelActionIntent {
+        private final ArrayList<Voxel> voxels;
+        private final int layerId;
+
+        protected BoxAddVoxelIntent(ArrayList<Voxel> voxels, int layerId, boolean attach) {
+            super(attach);
+            this.voxels = voxels;
+            this.layerId = layerId;
+            effected = getEffected(voxels);
+        }
+
+        @Override
+        protected void applyAction() {
+            VoxelLayer layer = dataContainer.layers.get(layerId);
+            for (Voxel voxel : voxels) {
+                dataContainer.voxels.put(voxel.id, voxel);
+                layer.addVoxel(voxel);
+            }
+        }
+
+        @Override
+        protected void unapplyAction() {
+            for (Voxel voxel : voxels) {
+                dataContainer.voxels.remove(voxel.id);
+            }
+            dataContainer.layers.get(layerId).removeVoxels(voxels);
+        }
+
+        private final int[][] effected;
+        @Override
+        public int[][] effected() {
+            return effected;
+        }
+    }
+
+    // removes voxels (from any layer) as a single history entry
+    private final class BoxRemoveVoxelIntent extends VoxelActionIntent {
+        // layer id -> voxels
+        private final TIntObjectHashMap<ArrayList<Voxel>> voxels = new TIntObjectHashMap<ArrayList<Voxel>>();
+
+        protected BoxRemoveVoxelIntent(ArrayList<Voxel> voxels, boolean attach) {
+            super(attach);
+            for (Voxel voxel : voxels) {
+                ArrayList<Voxel> list = this.voxels.get(voxel.getLayerId());
+                if (list == null) {
+                    list = new ArrayList<Voxel>();
+                    this.voxels.put(voxel.getLayerId(), list);
+                }
+                list.add(voxel);
+            }
+            effected = getEffected(voxels);
+        }
+
+        @Override
+        protected void applyAction() {
+            for (TIntObjectIterator<ArrayList<Voxel>> it = voxels.iterator(); it.hasNext();) {
+                it.advance();
+                for (Voxel voxel : it.value()) {
+                    dataContainer.voxels.remove(voxel.id);
+                }
+                dataContainer.layers.get(it.key()).removeVoxels(it.value());
+            }
+        }
+
+        @Override
+        protected void unapplyAction() {
+            for (TIntObjectIterator<ArrayList<Voxel>> it = voxels.iterator(); it.hasNext();) {
+                it.advance();
+                VoxelLayer layer = dataContainer.layers.get(it.key());
+                for (Voxel voxel : it.value()) {
+                    dataContainer.voxels.put(voxel.id, voxel);
+                    layer.addVoxel(voxel);
+                }
+            }
+        }
+
+        private final int[][] effected;
+        @Override
+        public int[][] effected() {
+            return effected;
+        }
+    }
+
+    // (de)selects voxels as a single history entry (the voxels need to be in the other state)
+    private final class BoxSelectVoxelIntent extends VoxelActionIntent {
+        private final ArrayList<Voxel> voxels;
+        private final boolean selected;
+
+        protected BoxSelectVoxelIntent(ArrayList<Voxel> voxels, boolean selected, boolean attach) {
+            super(attach);
+            this.voxels = voxels;
+            this.selected = selected;
+            effected = getEffected(voxels);
+        }
+
+        @Override
+        protected void applyAction() {
+            for (Voxel voxel : voxels) {
+                voxel.setSelected(selected);
+            }
+        }
+
+        @Override
+        protected void unapplyAction() {
+            for (Voxel voxel : voxels) {
+                voxel.setSelected(!selected);
+            }
+        }
+
+        private final int[][] effected;
+        @Override
+        public int[][] effected() {
+            return effected;
+        }
+    }
+
+    // colors voxels as a single history entry
+    private final class BoxColorVoxelIntent extends VoxelActionIntent {
+        private final ArrayList<Voxel> voxels;
+        private final Color color;
+        private final Color[] oldColors;
+
+        protected BoxColorVoxelIntent(ArrayList<Voxel> voxels, Color color, boolean attach) {
+            super(attach);
+            this.voxels = voxels;
+            this.color = color;
+            oldColors = new Color[voxels.size()];
+            for (int i = 0; i < oldColors.length; i++) {
+                oldColors[i] = voxels.get(i).getColor();
+            }
+            effected = getEffected(voxels);
+        }
+
+        @Override
+        protected void applyAction() {
+            for (Voxel voxel : voxels) {
+                voxel.setColor(color);
+            }
+        }
+
+        @Override
+        protected void unapplyAction() {
+            for (int i = 0; i < oldColors.length; i++) {
+                voxels.get(i).setColor(oldColors[i]);
+            }
+        }
+
+        private final int[][] effected;
+        @Override
+        public int[][] effected() {
+            return effected;
+        }
+    }
+
     private final class MassColorVoxelIntent extends VoxelActionIntent  {
         private final Integer[] voxelIds;
         private final Color color;
@@ -1906,6 +2097,184 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
         }
     }
 
+    // ================================ box operations
+
+    // helper - the positions of voxels
+    private static int[][] getEffected(ArrayList<Voxel> voxels) {
+        int[][] effected = new int[voxels.size()][];
+        for (int i = 0; i < effected.length; i++) {
+            effected[i] = voxels.get(i).getPosAsInt();
+        }
+        return effected;
+    }
+
+    // helper - the voxels in the box as searchVoxel(pos, onlyCurrentLayer) would return them
+    private ArrayList<Voxel> searchVoxelsInternal(int[] min, int[] max, boolean onlyCurrentLayer) {
+        ArrayList<Voxel> result = new ArrayList<Voxel>();
+        if (onlyCurrentLayer) {
+            VoxelLayer layer = dataContainer.layers.get(dataContainer.selectedLayer);
+            if (layer != null && layer.isVisible()) {
+                layer.getVoxels(min, max, result);
+            }
+        } else {
+            // the upper layers hide the voxels of the lower layers
+            TIntHashSet taken = new TIntHashSet();
+            ArrayList<Voxel> layerVoxels = new ArrayList<Voxel>();
+            for (Integer layerId : dataContainer.layerOrder) {
+                VoxelLayer layer = dataContainer.layers.get(layerId);
+                if (layer.isVisible()) {
+                    layerVoxels.clear();
+                    layer.getVoxels(min, max, layerVoxels);
+                    for (Voxel voxel : layerVoxels) {
+                        if (taken.add(voxel.posId)) {
+                            result.add(voxel);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // helper - the min and max corner of a box
+    private static int[][] getBox(int[] corner1, int[] corner2) {
+        return new int[][] {
+                new int[] {Math.min(corner1[0], corner2[0]), Math.min(corner1[1], corner2[1]), Math.min(corner1[2], corner2[2])},
+                new int[] {Math.max(corner1[0], corner2[0]), Math.max(corner1[1], corner2[1]), Math.max(corner1[2], corner2[2])}
+        };
+    }
+
+    @Override
+    public final Voxel[] searchVoxels(int[] corner1, int[] corner2, boolean onlyCurrentLayer) {
+        synchronized (VitcoSettings.SYNC) {
+            int[][] box = getBox(corner1, corner2);
+            ArrayList<Voxel> voxels = searchVoxelsInternal(box[0], box[1], onlyCurrentLayer);
+            Voxel[] result = new Voxel[voxels.size()];
+            voxels.toArray(result);
+            return result;
+        }
+    }
+
+    @Override
+    public final Voxel[] searchConnectedVoxels(int[] start, Color color, int side, boolean onlyCurrentLayer) {
+        synchronized (VitcoSettings.SYNC) {
+            // the layers in search order
+            ArrayList<VoxelLayer> layers = new ArrayList<VoxelLayer>();
+            if (onlyCurrentLayer) {
+                VoxelLayer layer = dataContainer.layers.get(dataContainer.selectedLayer);
+                if (layer != null && layer.isVisible()) {
+                    layers.add(layer);
+                }
+            } else {
+                for (Integer layerId : dataContainer.layerOrder) {
+                    VoxelLayer layer = dataContainer.layers.get(layerId);
+                    if (layer.isVisible()) {
+                        layers.add(layer);
+                    }
+                }
+            }
+            ArrayList<Voxel> voxels = new FloodFill(layers, color, side)
+                    .search(CubeIndexer.getId(start[0], start[1], start[2]), true);
+            Voxel[] result = new Voxel[voxels.size()];
+            voxels.toArray(result);
+            return result;
+        }
+    }
+
+    @Override
+    public final boolean fillBox(int[] corner1, int[] corner2, Color color, int[] textureId) {
+        synchronized (VitcoSettings.SYNC) {
+            boolean result = false;
+            VoxelLayer layer = dataContainer.layers.get(dataContainer.selectedLayer);
+            if (layer != null) {
+                int[][] box = getBox(corner1, corner2);
+                int[] min = box[0];
+                int[] max = box[1];
+                // the positions that are taken by visible voxels
+                TIntHashSet taken = new TIntHashSet();
+                for (Voxel voxel : searchVoxelsInternal(min, max, false)) {
+                    taken.add(voxel.posId);
+                }
+                // positions in the current layer are taken even if the layer is hidden
+                if (!layer.isVisible()) {
+                    ArrayList<Voxel> layerVoxels = new ArrayList<Voxel>();
+                    layer.getVoxels(min, max, layerVoxels);
+                    for (Voxel voxel : layerVoxels) {
+                        taken.add(voxel.posId);
+                    }
+                }
+                long count = (long)(max[0] - min[0] + 1) * (max[1] - min[1] + 1) * (max[2] - min[2] + 1) - taken.size();
+                if (count > 0 && layer.getSize() + count <= VitcoSettings.MAX_VOXEL_COUNT_PER_LAYER) {
+                    ArrayList<Voxel> voxels = new ArrayList<Voxel>((int) count);
+                    for (int x = min[0]; x <= max[0]; x++) {
+                        for (int y = min[1]; y <= max[1]; y++) {
+                            for (int z = min[2]; z <= max[2]; z++) {
+                                if (!taken.contains(CubeIndexer.getId(x, y, z))) {
+                                    voxels.add(new Voxel(getFreeVoxelId(), new int[] {x, y, z}, color, false, textureId, layer.id));
+                                }
+                            }
+                        }
+                    }
+                    historyManagerV.applyIntent(new BoxAddVoxelIntent(voxels, layer.id, false));
+                    result = true;
+                }
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public final boolean clearBox(int[] corner1, int[] corner2, boolean onlyCurrentLayer) {
+        synchronized (VitcoSettings.SYNC) {
+            int[][] box = getBox(corner1, corner2);
+            ArrayList<Voxel> voxels = searchVoxelsInternal(box[0], box[1], onlyCurrentLayer);
+            if (voxels.size() > 0) {
+                historyManagerV.applyIntent(new BoxRemoveVoxelIntent(voxels, false));
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public final boolean selectBox(int[] corner1, int[] corner2, boolean selected) {
+        synchronized (VitcoSettings.SYNC) {
+            int[][] box = getBox(corner1, corner2);
+            ArrayList<Voxel> voxels = new ArrayList<Voxel>();
+            for (Voxel voxel : searchVoxelsInternal(box[0], box[1], false)) {
+                if (voxel.getTexture() == null && voxel.isSelected() != selected) {
+                    voxels.add(voxel);
+                }
+            }
+            if (voxels.size() > 0) {
+                historyManagerV.applyIntent(new BoxSelectVoxelIntent(voxels, selected, false));
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public final boolean colorBox(int[] corner1, int[] corner2, boolean onlyCurrentLayer, Color color) {
+        synchronized (VitcoSettings.SYNC) {
+            int[][] box = getBox(corner1, corner2);
+            ArrayList<Voxel> voxels = new ArrayList<Voxel>();
+            for (Voxel voxel : searchVoxelsInternal(box[0], box[1], onlyCurrentLayer)) {
+                if (!voxel.getColor().equals(color)) {
+                    voxels.add(voxel);
+                }
+            }
+            if (voxels.size() > 0) {
+                historyManagerV.applyIntent(new BoxColorVoxelIntent(voxels, color, false));
+                return true;
+            } else {
+                return false;
+            }
+        }
+    }
+
     // ================================ selection of voxels
 
     // select a voxel
@@ -1928,34 +2297,62 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
         }
     }
 
-    private final HashMap<String, TIntObjectHashMap<int[]>> changedSelectedVoxel = new HashMap<String, TIntObjectHashMap<int[]>>();
+    // helper - collect the positions that changed since the cursor (without duplicates),
+    // if a side is given only positions in that plane are collected. Returns null
+    // if these changes are no longer available (full refresh required)
+    private static TIntHashSet getChangesSince(ChangeLog changeLog, long cursor, final int side, final int plane) {
+        final TIntHashSet result = new TIntHashSet();
+        boolean available = changeLog.forEachSince(cursor, new TIntProcedure() {
+            @Override
+            public boolean execute(int posId) {
+                switch (side) {
+                    case 0: if (CubeIndexer.getZ(posId) == plane) result.add(posId); break;
+                    case 1: if (CubeIndexer.getY(posId) == plane) result.add(posId); break;
+                    case 2: if (CubeIndexer.getX(posId) == plane) result.add(posId); break;
+                    default: result.add(posId); break;
+                }
+                return true;
+            }
+        });
+        return available ? result : null;
+    }
+
+    // helper - convert changed positions into removed and added voxels
+    private Voxel[][] getChangedVoxels(TIntHashSet changes, boolean selectedOnly) {
+        ArrayList<Voxel> removed = new ArrayList<Voxel>();
+        ArrayList<Voxel> added = new ArrayList<Voxel>();
+        for (TIntIterator it = changes.iterator(); it.hasNext();) {
+            int posId = it.next();
+            int[] pos = new int[] {CubeIndexer.getX(posId), CubeIndexer.getY(posId), CubeIndexer.getZ(posId)};
+            Voxel voxel = searchVoxel(pos, false);
+            if (voxel != null && (!selectedOnly || voxel.isSelected())) {
+                added.add(voxel);
+            } else {
+                removed.add(new Voxel(-1, pos, null, false, null, -1));
+            }
+        }
+        Voxel[][] result = new Voxel[2][];
+        result[0] = new Voxel[removed.size()];
+        removed.toArray(result[0]);
+        result[1] = new Voxel[added.size()];
+        added.toArray(result[1]);
+        return result;
+    }
+
+    // requestId -> sequence number of the selection change log that was read last
+    private final TObjectLongHashMap<String> selectedCursors = new TObjectLongHashMap<String>();
     @Override
     public final Voxel[][] getNewSelectedVoxel(String requestId) {
         synchronized (VitcoSettings.SYNC) {
-            if (!changedSelectedVoxel.containsKey(requestId)) {
-                changedSelectedVoxel.put(requestId, null);
+            TIntHashSet changes = null;
+            if (selectedCursors.containsKey(requestId)) {
+                changes = getChangesSince(selectedChangeLog, selectedCursors.get(requestId), -1, 0);
             }
-            if (changedSelectedVoxel.get(requestId) == null) {
-                changedSelectedVoxel.put(requestId, new TIntObjectHashMap<int[]>());
+            selectedCursors.put(requestId, selectedChangeLog.getSequence());
+            if (changes == null) {
                 return new Voxel[][] {null, getSelectedVoxels()};
             } else {
-                ArrayList<Voxel> removed = new ArrayList<Voxel>();
-                ArrayList<Voxel> added = new ArrayList<Voxel>();
-                for (int[] pos : changedSelectedVoxel.get(requestId).valueCollection()) {
-                    Voxel voxel = searchVoxel(pos, false);
-                    if (voxel != null && voxel.isSelected()) {
-                        added.add(voxel);
-                    } else {
-                        removed.add(new Voxel(-1, pos, null, false, null, -1));
-                    }
-                }
-                Voxel[][] result = new Voxel[2][];
-                result[0] = new Voxel[removed.size()];
-                removed.toArray(result[0]);
-                result[1] = new Voxel[added.size()];
-                added.toArray(result[1]);
-                changedSelectedVoxel.get(requestId).clear();
-                return result;
+                return getChangedVoxels(changes, true);
             }
         }
     }
@@ -2039,34 +2436,20 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
 
     // get the new visible voxels, NOTE: if first element of array is null
     // this means that everything is erased
-    private final HashMap<String, TIntObjectHashMap<int[]>> changedVisibleVoxel = new HashMap<String, TIntObjectHashMap<int[]>>();
+    // requestId -> sequence number of the visible change log that was read last
+    private final TObjectLongHashMap<String> visibleCursors = new TObjectLongHashMap<String>();
     @Override
     public final Voxel[][] getNewVisibleLayerVoxel(String requestId) {
         synchronized (VitcoSettings.SYNC) {
-            if (!changedVisibleVoxel.containsKey(requestId)) {
-                changedVisibleVoxel.put(requestId, null);
+            TIntHashSet changes = null;
+            if (visibleCursors.containsKey(requestId)) {
+                changes = getChangesSince(visibleChangeLog, visibleCursors.get(requestId), -1, 0);
             }
-            if (changedVisibleVoxel.get(requestId) == null) {
-                changedVisibleVoxel.put(requestId, new TIntObjectHashMap<int[]>());
+            visibleCursors.put(requestId, visibleChangeLog.getSequence());
+            if (changes == null) {
                 return new Voxel[][] {null, _getVisibleLayerVoxel()};
             } else {
-                ArrayList<Voxel> removed = new ArrayList<Voxel>();
-                ArrayList<Voxel> added = new ArrayList<Voxel>();
-                for (int[] pos : changedVisibleVoxel.get(requestId).valueCollection()) {
-                    Voxel voxel = searchVoxel(pos, false);
-                    if (voxel != null) {
-                        added.add(voxel);
-                    } else {
-                        removed.add(new Voxel(-1, pos, null, false, null, -1));
-                    }
-                }
-                Voxel[][] result = new Voxel[2][];
-                result[0] = new Voxel[removed.size()];
-                removed.toArray(result[0]);
-                result[1] = new Voxel[added.size()];
-                added.toArray(result[1]);
-                changedVisibleVoxel.get(requestId).clear();
-                return result;
+                return getChangedVoxels(changes, false);
             }
         }
     }
@@ -2151,38 +2534,43 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
     @Override
     public final void invalidateSideViewBuffer(String requestId, Integer side, Integer plane) {
         synchronized (VitcoSettings.SYNC) {
-            // make sure this plane is set
-            if (!changedVisibleVoxelPlane.containsKey(side)) {
-                changedVisibleVoxelPlane.put(side, new HashMap<String, TIntObjectHashMap<TIntObjectHashMap<int[]>>>());
-            }
-            // make sure the requestId is set
-            if (!changedVisibleVoxelPlane.get(side).containsKey(requestId)) {
-                changedVisibleVoxelPlane.get(side).put(requestId, new TIntObjectHashMap<TIntObjectHashMap<int[]>>());
-            }
-            // make sure this plane has no information stored (force complete refresh)
-            changedVisibleVoxelPlane.get(side).get(requestId).remove(plane);
+            // remove the cursor of this plane (force complete refresh)
+            getPlaneCursors(requestId, side).remove(plane);
+        }
+    }
+
+    // side -> requestId -> plane -> sequence number of the visible change log that was read last
+    private final TIntObjectHashMap<HashMap<String, TIntLongHashMap>> planeCursors
+            = new TIntObjectHashMap<HashMap<String, TIntLongHashMap>>();
+
+    // helper - get the plane cursors for a request id and side
+    private TIntLongHashMap getPlaneCursors(String requestId, int side) {
+        HashMap<String, TIntLongHashMap> sideCursors = planeCursors.get(side);
+        if (sideCursors == null) {
+            sideCursors = new HashMap<String, TIntLongHashMap>();
+            planeCursors.put(side, sideCursors);
+        }
+        TIntLongHashMap cursors = sideCursors.get(requestId);
+        if (cursors == null) {
+            cursors = new TIntLongHashMap();
+            sideCursors.put(requestId, cursors);
         }
+        return cursors;
     }
 
-    // side -> requestId -> plane -> positions
-    private final TIntObjectHashMap<HashMap<String, TIntObjectHashMap<TIntObjectHashMap<int[]>>>> changedVisibleVoxelPlane
-            = new TIntObjectHashMap<HashMap<String, TIntObjectHashMap<TIntObjectHashMap<int[]>>>>();
     @Override
     public final Voxel[][] getNewSideVoxel(String requestId, Integer side, Integer plane) {
         synchronized (VitcoSettings.SYNC) {
             // default result (delete all + empty)
             Voxel[][] result = new Voxel[][]{null, new Voxel[0]};
-            // make sure this plane is set
-            if (!changedVisibleVoxelPlane.containsKey(side)) {
-                changedVisibleVoxelPlane.put(side, new HashMap<String, TIntObjectHashMap<TIntObjectHashMap<int[]>>>());
-            }
-            // make sure the requestId is set
-            if (!changedVisibleVoxelPlane.get(side).containsKey(requestId)) {
-                changedVisibleVoxelPlane.get(side).put(requestId, new TIntObjectHashMap<TIntObjectHashMap<int[]>>());
-            }
-
-            if (changedVisibleVoxelPlane.get(side).get(requestId).get(plane) == null) {
-                // if the plane is null, fetch all data and set it no empty
+            TIntLongHashMap cursors = getPlaneCursors(requestId, side);
+            TIntHashSet changes = null;
+            if (cursors.containsKey(plane)) {
+                changes = getChangesSince(visibleChangeLog, cursors.get(plane), side, plane);
+            }
+            cursors.put(plane, visibleChangeLog.getSequence());
+            if (changes == null) {
+                // no (available) changes for this plane, fetch all data
                 switch (side) {
                     case 0:
                         result = new Voxel[][] {null, getVoxelsXY(plane)};
@@ -2195,27 +2583,9 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
                         break;
                     default: break;
                 }
-                // reset
-                changedVisibleVoxelPlane.get(side).get(requestId).put(plane, new TIntObjectHashMap<int[]>());
             } else {
-                // if there are changed positions, notify only those positions
-                ArrayList<Voxel> removed = new ArrayList<Voxel>();
-                ArrayList<Voxel> added = new ArrayList<Voxel>();
-                for (int[] pos : changedVisibleVoxelPlane.get(side).get(requestId).get(plane).valueCollection()) {
-                    Voxel voxel = searchVoxel(pos, false);
-                    if (voxel != null) {
-                        added.add(voxel);
-                    } else {
-                        removed.add(new Voxel(-1, pos, null, false, null, -1));
-                    }
-                }
-                result = new Voxel[2][];
-                result[0] = new Voxel[removed.size()];
-                removed.toArray(result[0]);
-                result[1] = new Voxel[added.size()];
-                added.toArray(result[1]);
-                // these changes have now been forwarded
-                changedVisibleVoxelPlane.get(side).get(requestId).get(plane).clear();
+                // notify only the changed positions
+                result = getChangedVoxels(changes, false);
             }
             // return the result
             return result;
@@ -2252,84 +2622,34 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
         }
     }
 
-    int lastVoxelXYBufferZValue;
-    boolean layerVoxelXYBufferValid = false;
-    Voxel[] layerVoxelXYBuffer = new Voxel[0];
+    // cache of the composited side planes
+    private final SidePlaneCache sidePlaneCache = new SidePlaneCache(visibleChangeLog, 32);
+
     @Override
     public final Voxel[] getVoxelsXY(int z) {
         synchronized (VitcoSettings.SYNC) {
-            if (!layerVoxelXYBufferValid || z != lastVoxelXYBufferZValue) {
-
-                VoxelLayer result = new VoxelLayer(-1, "tmp");
-                for (Integer layerId : dataContainer.layerOrder) {
-                    if (dataContainer.layers.get(layerId).isVisible()) {
-                        Voxel[] voxels = dataContainer.layers.get(layerId).getZPlane(z);
-                        for (Voxel voxel : voxels) {
-                            if (result.voxelPositionFree(voxel)) {
-                                result.addVoxel(voxel);
-                            }
-                        }
-                    }
-                }
-                layerVoxelXYBuffer = result.getVoxels();
-                layerVoxelXYBufferValid = true;
-                lastVoxelXYBufferZValue = z;
-            }
-            return layerVoxelXYBuffer.clone();
+            return sidePlaneCache.getVoxels(dataContainer, 0, z);
         }
     }
 
-    int lastVoxelXZBufferYValue;
-    boolean layerVoxelXZBufferValid = false;
-    Voxel[] layerVoxelXZBuffer = new Voxel[0];
     @Override
     public final Voxel[] getVoxelsXZ(int y) {
         synchronized (VitcoSettings.SYNC) {
-            if (!layerVoxelXZBufferValid || y != lastVoxelXZBufferYValue) {
-
-                VoxelLayer result = new VoxelLayer(-1, "tmp");
-                for (Integer layerId : dataContainer.layerOrder) {
-                    if (dataContainer.layers.get(layerId).isVisible()) {
-                        Voxel[] voxels = dataContainer.layers.get(layerId).getYPlane(y);
-                        for (Voxel voxel : voxels) {
-                            if (result.voxelPositionFree(voxel)) {
-                                result.addVoxel(voxel);
-                            }
-                        }
-                    }
-                }
-                layerVoxelXZBuffer = result.getVoxels();
-                layerVoxelXZBufferValid = true;
-                lastVoxelXZBufferYValue = y;
-            }
-            return layerVoxelXZBuffer.clone();
+            return sidePlaneCache.getVoxels(dataContainer, 1, y);
         }
     }
 
-    int lastVoxelYZBufferXValue;
-    boolean layerVoxelYZBufferValid = false;
-    Voxel[] layerVoxelYZBuffer = new Voxel[0];
     @Override
     public final Voxel[] getVoxelsYZ(int x) {
         synchronized (VitcoSettings.SYNC) {
-            if (!layerVoxelYZBufferValid || x != lastVoxelYZBufferXValue) {
+            return sidePlaneCache.getVoxels(dataContainer, 2, x);
+        }
+    }
 
-                VoxelLayer result = new VoxelLayer(-1, "tmp");
-                for (Integer layerId : dataContainer.layerOrder) {
-                    if (dataContainer.layers.get(layerId).isVisible()) {
-                        Voxel[] voxels = dataContainer.layers.get(layerId).getXPlane(x);
-                        for (Voxel voxel : voxels) {
-                            if (result.voxelPositionFree(voxel)) {
-                                result.addVoxel(voxel);
-                            }
-                        }
-                    }
-                }
-                layerVoxelYZBuffer = result.getVoxels();
-                layerVoxelYZBufferValid = true;
-                lastVoxelYZBufferXValue = x;
-            }
-            return layerVoxelYZBuffer.clone();
+    @Override
+    public final long getVisibleVoxelVersion() {
+        synchronized (VitcoSettings.SYNC) {
+            return visibleChangeLog.getSequence();
         }
     }
 
@@ -2384,6 +2704,73 @@ public abstract class VoxelData extends AnimationHighlight implements VoxelDataI
         }
     }
 
+    // the layer that is currently imported (only one at a time) and the batches that were committed to it
+    private int currentImportLayerId = -1;
+    private final ArrayList<VoxelActionIntent> currentImportBatches = new ArrayList<VoxelActionIntent>();
+
+    @Override
+    public final int createImportLayer(String layerName, boolean visible, int index) {
+        synchronized (VitcoSettings.SYNC) {
+            // the previous layer forms its own history entry
+            finishImport();
+            int layerId = getFreeLayerId();
+            historyManagerV.applyIntent(new ImportLayerIntent(layerId, layerName, visible, Math.max(0, index), true));
+            currentImportLayerId = layerId;
+            notifier.onLayerStateChanged();
+            return layerId;
+        }
+    }
+
+    @Override
+    public final int importVoxels(int layerId, long[] positions, int[] colors, int count) {
+        synchronized (VitcoSettings.SYNC) {
+            int result = 0;
+            VoxelLayer layer = dataContainer.layers.get(layerId);
+            if (currentImportLayerId == layerId && layer != null) {
+                ArrayList<Voxel> toAdd = new ArrayList<Voxel>(count);
+                // to skip duplicate positions in the batch
+                TIntHashSet added = new TIntHashSet(count);
+                for (int i = 0; i < count; i++) {
+                    int x = LongCubeIndexer.getX(positions[i]);
+                    int y = LongCubeIndexer.getY(positions[i]);
+                    int z = LongCubeIndexer.getZ(positions[i]);
+                    int posId = CubeIndexer.getId(x, y, z);
+                    if (layer.search(posId) == null && added.add(posId)) {
+                        toAdd.add(new Voxel(getFreeVoxelId(), new int[] {x, y, z}, new Color(colors[i]), false, null, layerId));
+                    }
+                }
+                result = toAdd.size();
+                if (result > 0) {
+                    // the batch is attached to the history entry of the layer
+                    VoxelActionIntent batch = new BoxAddVoxelIntent(toAdd, layerId, true);
+                    historyManagerV.applyIntent(batch);
+                    currentImportBatches.add(batch);
+                    // notify (attached intents are not notified, but the imported voxels
+                    // should be shown while the import is still running)
+                    invalidateV(batch.effected());
+                }
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public final void finishImport() {
+        synchronized (VitcoSettings.SYNC) {
+            if (currentImportLayerId != -1) {
+                VoxelActionIntent[] batches = new VoxelActionIntent[currentImportBatches.size()];
+                currentImportBatches.toArray(batches);
+                boolean exists = dataContainer.layers.containsKey(currentImportLayerId);
+                currentImportLayerId = -1;
+                currentImportBatches.clear();
+                // the import might have been undone while it was running
+                if (exists) {
+                    historyManagerV.applyIntent(new FinishImportIntent(batches, false));
+                }
+            }
+        }
+    }
+
     @Override
     public  final boolean deleteLayer(int layerId) {
         synchronized (VitcoSettings.SYNC) {
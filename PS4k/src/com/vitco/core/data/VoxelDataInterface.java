@@ -10,7 +10,7 @@ import java.awt.image.BufferedImage;
 /**
  * Defines the voxel data interaction (layer, undo, etc)
  */
-public interface VoxelDataInterface {
+public interface VoxelDataInterface extends VoxelSourceInterface {
     // adds a voxel directly to the container (no history entry is created!)
     // only to be used for back imports etc
     int addVoxelDirect(Color color, int[] pos);
@@ -34,17 +34,8 @@ public interface VoxelDataInterface {
     int getLayer(int voxelId);
     // delete all voxels in layer
     boolean clearV(int layerId);
-    // search for voxel in specific layer (no matter if visible or not)
-    Voxel searchVoxel(int[] pos, int layerId);
-    // returns a voxel if the current layer has a voxel at the position
-    // layer needs to be visible
-    Voxel searchVoxel(int[] pos, boolean onlyCurrentLayer);
-    // get all voxels in current layer
-    Voxel[] getLayerVoxels(int layerId);
     // get changed voxels since last call
     Voxel[][] getNewVisibleLayerVoxel(String requestId);
-    // get all visible layer voxels
-    Voxel[] getVisibleLayerVoxel();
     // true iff any voxels are visible
     boolean anyLayerVoxelVisible();
     // true iff any voxels are visible
@@ -61,6 +52,8 @@ public interface VoxelDataInterface {
     Voxel[] getVoxelsXY(int z);
     Voxel[] getVoxelsXZ(int y);
     Voxel[] getVoxelsYZ(int x);
+    // get the version of the visible voxels (changes whenever visible voxels change)
+    long getVisibleVoxelVersion();
     // get voxel number in layer
     int getVoxelCount(int layerId);
 
@@ -76,12 +69,18 @@ public interface VoxelDataInterface {
 
     // add a layer
     int createLayer(String layerName);
+    // add a layer for an import at the position "index" of the layer order (0 is the top). The layer
+    // and all the voxels that are added with importVoxels(...) form a single history entry
+    int createImportLayer(String layerName, boolean visible, int index);
+    // add a batch of voxels (the first "count" LongCubeIndexer ids and colors) to the layer that was
+    // last created with createImportLayer(...), taken positions are skipped, returns the amount of added voxels
+    int importVoxels(int layerId, long[] positions, int[] colors, int count);
+    // finish the import (needs to be called when the import is done or aborted)
+    void finishImport();
     // deletes a layer
     boolean deleteLayer(int layerId);
     // rename a layer
     boolean renameLayer(int layerId, String newName);
-    // get the name of a layer
-    String getLayerName(int layerId);
     // get the names of all layers
     String[] getLayerNames();
     // select a layer
@@ -90,12 +89,8 @@ public interface VoxelDataInterface {
     boolean selectLayerSoft(int layerId);
     // retrieve selected layer
     int getSelectedLayer();
-    // retrieve all layers
-    Integer[] getLayers();
     // set a layer visible/ invisible
     boolean setVisible(int layerId, boolean b);
-    // return true iff layer is visible
-    boolean getLayerVisible(int layerId);
     // move layer up
     boolean moveLayerUp(int layerId);
     // move layer down
@@ -121,6 +116,19 @@ public interface VoxelDataInterface {
     boolean massRemoveVoxel(Integer[] voxelIds);
     // add several voxels at once
     boolean massAddVoxel(Voxel[] voxels);
+    // get the voxels in the box (corners inclusive) as searchVoxel(pos, onlyCurrentLayer) would return them
+    Voxel[] searchVoxels(int[] corner1, int[] corner2, boolean onlyCurrentLayer);
+    // get the voxels that are connected to the start position and have this color and no texture (see
+    // searchVoxel(pos, onlyCurrentLayer)), the search is restricted to the plane of the side (-1 for 3D)
+    Voxel[] searchConnectedVoxels(int[] start, Color color, int side, boolean onlyCurrentLayer);
+    // add voxels to the current layer on all positions in the box that show no voxel
+    boolean fillBox(int[] corner1, int[] corner2, Color color, int[] textureId);
+    // remove the voxels in the box (see searchVoxels(...))
+    boolean clearBox(int[] corner1, int[] corner2, boolean onlyCurrentLayer);
+    // select the voxels in the box (voxels with texture are skipped)
+    boolean selectBox(int[] corner1, int[] corner2, boolean selected);
+    // set color of the voxels in the box (see searchVoxels(...))
+    boolean colorBox(int[] corner1, int[] corner2, boolean onlyCurrentLayer, Color color);
     // migrate voxels to a new layer
     boolean migrateVoxels(Voxel[] voxels);
     // set color of several voxels at once
@@ -165,6 +165,44 @@ public class VoxelDataTest {
         assert data.getVoxelsXY(2).length == 1;
     }
 
+    @Test
+    public void testGetVoxelSliceCache() throws Exception {
+        int lid1 = data.createLayer("layer1");
+        int lid2 = data.createLayer("layer2");
+        data.selectLayer(lid1);
+        data.addVoxel(Color.RED, null, new int[] {0,0,0});
+        data.addVoxel(Color.RED, null, new int[] {1,0,0});
+        data.selectLayer(lid2);
+        int id = data.addVoxel(Color.GREEN, null, new int[] {0,0,0});
+        data.addVoxel(Color.GREEN, null, new int[] {0,0,1});
+        // the top layer is shown
+        assert data.getVoxelsXY(0).length == 2;
+        assert data.getVoxelsYZ(0).length == 2;
+        for (Voxel voxel : data.getVoxelsXY(0)) {
+            assert voxel.x != 0 || voxel.getColor() == Color.GREEN;
+        }
+        // change the cached planes
+        data.setVisible(lid2, false);
+        for (Voxel voxel : data.getVoxelsXY(0)) {
+            assert voxel.getColor() == Color.RED;
+        }
+        assert data.getVoxelsYZ(0).length == 1;
+        data.setVisible(lid2, true);
+        assert data.removeVoxel(id);
+        assert data.getVoxelsXY(0).length == 2;
+        for (Voxel voxel : data.getVoxelsXY(0)) {
+            assert voxel.getColor() == Color.RED;
+        }
+        assert data.getVoxelsYZ(0).length == 2;
+        data.undoV();
+        assert data.getVoxelsYZ(0).length == 2;
+        assert data.getVoxelsXY(1).length == 1;
+        // full refresh
+        data.freshStart();
+        assert data.getVoxelsXY(0).length == 0;
+        assert data.getVoxelsYZ(0).length == 0;
+    }
+
     // tests for layers
 
     @Test
@@ -889,4 +927,95 @@ public class VoxelDataTest {
         }
     }
 
+
+    @Test
+    public void testGetNewVoxel() throws Exception {
+        int lid = data.createLayer("layer");
+        data.selectLayer(lid);
+        int id1 = data.addVoxel(Color.RED, null, new int[]{1,2,3});
+        // the first request is always a full refresh
+        Voxel[][] visible = data.getNewVisibleLayerVoxel("test");
+        assert visible[0] == null && visible[1].length == 1;
+        Voxel[][] side = data.getNewSideVoxel("test", 0, 3);
+        assert side[0] == null && side[1].length == 1;
+        assert data.getNewSelectedVoxel("test")[0] == null;
+        // only the changes are returned afterwards
+        int id2 = data.addVoxel(Color.RED, null, new int[]{4,5,6});
+        data.setColor(id2, Color.BLUE);
+        visible = data.getNewVisibleLayerVoxel("test");
+        assert visible[0].length == 0 && visible[1].length == 1 && visible[1][0].id == id2;
+        side = data.getNewSideVoxel("test", 0, 3);
+        assert side[0].length == 0 && side[1].length == 0;
+        data.removeVoxel(id1);
+        data.massSetVoxelSelected(new Integer[] {id2}, true);
+        visible = data.getNewVisibleLayerVoxel("test");
+        assert visible[0].length == 1 && visible[1].length == 1;
+        side = data.getNewSideVoxel("test", 0, 3);
+        assert side[0].length == 1 && side[1].length == 0;
+        Voxel[][] selected = data.getNewSelectedVoxel("test");
+        assert selected[0].length == 0 && selected[1].length == 1 && selected[1][0].id == id2;
+        // nothing changed since the last request
+        visible = data.getNewVisibleLayerVoxel("test");
+        assert visible[0].length == 0 && visible[1].length == 0;
+        // invalidated planes are refreshed completely
+        data.invalidateSideViewBuffer("test", 0, 6);
+        side = data.getNewSideVoxel("test", 0, 6);
+        assert side[0] == null && side[1].length == 1;
+    }
+
+    @Test
+    public void testBoxOperations() throws Exception {
+        int lid1 = data.createLayer("layer1");
+        int lid2 = data.createLayer("layer2");
+        data.selectLayer(lid1);
+        assert data.fillBox(new int[]{2,2,2}, new int[]{-2,-2,-2}, Color.RED, null);
+        assert data.getVoxelCount(lid1) == 125;
+        assert !data.fillBox(new int[]{-2,-2,-2}, new int[]{2,2,2}, Color.RED, null);
+        // positions that show a voxel of another layer are not filled
+        data.selectLayer(lid2);
+        assert data.fillBox(new int[]{0,0,0}, new int[]{3,0,0}, Color.GREEN, null);
+        assert data.getVoxelCount(lid2) == 1;
+        // the search returns the same voxels as the search for every single position
+        Voxel[] voxels = data.searchVoxels(new int[]{-3,-3,-3}, new int[]{3,3,3}, false);
+        int count = 0;
+        for (int x = -3; x <= 3; x++) {
+            for (int y = -3; y <= 3; y++) {
+                for (int z = -3; z <= 3; z++) {
+                    if (data.searchVoxel(new int[]{x,y,z}, false) != null) {
+                        count++;
+                    }
+                }
+            }
+        }
+        assert voxels.length == count && count == 126;
+        assert data.searchVoxels(new int[]{-3,-3,-3}, new int[]{3,3,3}, true).length == 1;
+        // select, color and clear
+        data.selectLayer(lid1);
+        assert data.selectBox(new int[]{0,0,0}, new int[]{2,2,2}, true);
+        assert data.getSelectedVoxels().length == 27;
+        assert data.colorBox(new int[]{0,0,0}, new int[]{2,0,0}, true, Color.BLUE);
+        assert data.searchVoxel(new int[]{1,0,0}, true).getColor().equals(Color.BLUE);
+        assert data.clearBox(new int[]{-2,-2,-2}, new int[]{2,2,2}, false);
+        assert data.getVoxelCount(lid1) == 0 && data.getVoxelCount(lid2) == 1;
+        assert !data.clearBox(new int[]{-2,-2,-2}, new int[]{2,2,2}, false);
+        // every operation is a single history entry
+        data.undoV();
+        assert data.getVoxelCount(lid1) == 125 && data.getSelectedVoxels().length == 27;
+        data.undoV();
+        assert data.searchVoxel(new int[]{1,0,0}, true).getColor().equals(Color.RED);
+        data.undoV();
+        assert data.getSelectedVoxels().length == 0;
+        data.undoV();
+        data.undoV();
+        data.undoV();
+        data.undoV();
+        assert data.getVoxelCount(lid1) == 0 && data.getVoxelCount(lid2) == 0;
+        while (data.canRedoV()) {
+            data.redoV();
+        }
+        assert data.getVoxelCount(lid1) == 0 && data.getVoxelCount(lid2) == 1;
+        data.undoV();
+        assert data.getVoxelCount(lid1) == 125 && data.getVoxelCount(lid2) == 1;
+    }
+
 }
@@ -0,0 +1,129 @@
+package com.vitco.core.data;
+
+import com.vitco.core.data.container.Voxel;
+import com.vitco.core.data.container.VoxelLayer;
+
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * Layered voxel data without history, notification or user interface.
+ *
+ * Used to export voxels that were never loaded into the editor (e.g. batch conversion).
+ * Not thread safe.
+ */
+public final class VoxelSource implements VoxelSourceInterface {
+
+    // the layers (the top layer first)
+    private final ArrayList<VoxelLayer> layers = new ArrayList<VoxelLayer>();
+
+    // the selected layer (the last layer that was added)
+    private VoxelLayer selectedLayer = null;
+
+    // buffer for the visible voxels
+    private Voxel[] visibleVoxelBuffer = null;
+
+    // the next free voxel id
+    private int nextVoxelId = 0;
+
+    // add a layer on top of the other layers and select it, returns the layer id
+    public final int addLayer(String layerName, boolean visible) {
+        VoxelLayer layer = new VoxelLayer(layers.size(), layerName);
+        layer.setVisible(visible);
+        layers.add(0, layer);
+        selectedLayer = layer;
+        visibleVoxelBuffer = null;
+        return layer.id;
+    }
+
+    // add a voxel to the selected layer, returns false if the position is taken
+    public final boolean addVoxel(int[] pos, Color color) {
+        if (selectedLayer == null || !selectedLayer.voxelPositionFree(pos)) {
+            return false;
+        }
+        selectedLayer.addVoxel(new Voxel(nextVoxelId++, pos, color, false, null, selectedLayer.id));
+        visibleVoxelBuffer = null;
+        return true;
+    }
+
+    // helper - get layer by id
+    private VoxelLayer getLayer(int layerId) {
+        return layerId >= 0 && layerId < layers.size() ? layers.get(layers.size() - 1 - layerId) : null;
+    }
+
+    // ----------------
+
+    @Override
+    public final Voxel searchVoxel(int[] pos, int layerId) {
+        VoxelLayer layer = getLayer(layerId);
+        return layer == null ? null : layer.search(pos);
+    }
+
+    @Override
+    public final Voxel searchVoxel(int[] pos, boolean onlyCurrentLayer) {
+        if (onlyCurrentLayer) {
+            return selectedLayer != null && selectedLayer.isVisible() ? selectedLayer.search(pos) : null;
+        }
+        for (VoxelLayer layer : layers) {
+            if (layer.isVisible()) {
+                Voxel result = layer.search(pos);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public final Voxel[] getLayerVoxels(int layerId) {
+        VoxelLayer layer = getLayer(layerId);
+        return layer == null ? new Voxel[0] : layer.getVoxels();
+    }
+
+    @Override
+    public final Voxel[] getVisibleLayerVoxel() {
+        if (visibleVoxelBuffer == null) {
+            // the upper layers hide the voxels of the lower layers
+            VoxelLayer result = new VoxelLayer(-1, "tmp");
+            for (VoxelLayer layer : layers) {
+                if (layer.isVisible()) {
+                    for (Voxel voxel : layer.getVoxels()) {
+                        if (result.voxelPositionFree(voxel)) {
+                            result.addVoxel(voxel);
+                        }
+                    }
+                }
+            }
+            visibleVoxelBuffer = result.getVoxels();
+        }
+        return visibleVoxelBuffer.clone();
+    }
+
+    @Override
+    public final Voxel[] getVoxelsYZ(int x, int layerId) {
+        VoxelLayer layer = getLayer(layerId);
+        return layer == null ? null : layer.getXPlane(x);
+    }
+
+    @Override
+    public final Integer[] getLayers() {
+        Integer[] result = new Integer[layers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = layers.get(i).id;
+        }
+        return result;
+    }
+
+    @Override
+    public final String getLayerName(int layerId) {
+        VoxelLayer layer = getLayer(layerId);
+        return layer == null ? null : layer.getName();
+    }
+
+    @Override
+    public final boolean getLayerVisible(int layerId) {
+        VoxelLayer layer = getLayer(layerId);
+        return layer != null && layer.isVisible();
+    }
+}
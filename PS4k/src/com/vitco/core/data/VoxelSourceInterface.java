@@ -0,0 +1,26 @@
+package com.vitco.core.data;
+
+import com.vitco.core.data.container.Voxel;
+
+/**
+ * Read access to layered voxel data (everything that is needed to export voxels).
+ */
+public interface VoxelSourceInterface {
+    // search for voxel in specific layer (no matter if visible or not)
+    Voxel searchVoxel(int[] pos, int layerId);
+    // returns a voxel if the current layer has a voxel at the position
+    // layer needs to be visible
+    Voxel searchVoxel(int[] pos, boolean onlyCurrentLayer);
+    // get all voxels in current layer
+    Voxel[] getLayerVoxels(int layerId);
+    // get all visible layer voxels
+    Voxel[] getVisibleLayerVoxel();
+    // get voxel range (plane) of specific layer
+    Voxel[] getVoxelsYZ(int x, int layerId);
+    // retrieve all layers (the top layer first)
+    Integer[] getLayers();
+    // get the name of a layer
+    String getLayerName(int layerId);
+    // return true iff layer is visible
+    boolean getLayerVisible(int layerId);
+}
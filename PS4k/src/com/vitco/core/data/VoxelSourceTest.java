@@ -0,0 +1,64 @@
+package com.vitco.core.data;
+
+import com.vitco.export.AbstractExporter;
+import com.vitco.export.Kv6Exporter;
+import com.vitco.export.PnxExporter;
+import com.vitco.export.QbExporter;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test that the exporters write the same files for the data and the data source without user interface.
+ */
+public class VoxelSourceTest {
+
+    // helper - export with the exporter for the format and return the written bytes
+    private static byte[] export(String format, VoxelSourceInterface data) throws Exception {
+        File file = File.createTempFile("source", "." + format);
+        try {
+            AbstractExporter exporter;
+            if (format.equals("kv6")) {
+                exporter = new Kv6Exporter(file, data, null, null);
+            } else if (format.equals("qb")) {
+                exporter = new QbExporter(file, data, null, null);
+            } else {
+                exporter = new PnxExporter(file, data, null, null);
+            }
+            assert exporter.writeData();
+            return Files.readAllBytes(file.toPath());
+        } finally {
+            assert file.delete();
+        }
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        Data data = new Data();
+        data.deleteLayer(data.getLayers()[0]);
+        VoxelSource source = new VoxelSource();
+        Random rand = new Random(0);
+        for (int layer = 0; layer < 3; layer++) {
+            data.selectLayer(data.createLayer("Layer" + layer));
+            data.setVisible(data.getSelectedLayer(), layer != 1);
+            source.addLayer("Layer" + layer, layer != 1);
+            for (int i = 0; i < 2000; i++) {
+                int[] pos = new int[] {rand.nextInt(20) - 10, rand.nextInt(20) - 10, rand.nextInt(20) - 10};
+                Color color = new Color(rand.nextInt(0xFFFFFF));
+                assert (data.addVoxelDirect(color, pos) != -1) == source.addVoxel(pos, color);
+            }
+        }
+        Integer[] layers = source.getLayers();
+        assert Arrays.equals(data.getLayerNames(), new String[] {
+                source.getLayerName(layers[0]), source.getLayerName(layers[1]), source.getLayerName(layers[2])
+        });
+        assert data.getVisibleLayerVoxel().length == source.getVisibleLayerVoxel().length;
+        for (String format : new String[] {"kv6", "qb", "pnx"}) {
+            assert Arrays.equals(export(format, data), export(format, source));
+        }
+    }
+}
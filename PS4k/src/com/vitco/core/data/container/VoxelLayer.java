@@ -8,6 +8,7 @@ import java.awt.*;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 
 /**
@@ -163,6 +164,11 @@ public final class VoxelLayer implements Serializable {
         return index.get(CubeIndexer.getId(pos[0], pos[1], pos[2]));
     }
 
+    // search position by using the position id
+    public Voxel search(int posId) {
+        return index.get(posId);
+    }
+
     // search position by using another voxel as reference
     public Voxel search(Voxel voxel) {
         return index.get(voxel.posId);
@@ -204,6 +210,47 @@ public final class VoxelLayer implements Serializable {
         return voxelList.remove(voxel) && unindexVoxel(voxel);
     }
 
+    // remove several voxels at once (the voxel list is only traversed once)
+    public final void removeVoxels(Collection<Voxel> voxels) {
+        for (Voxel voxel : voxels) {
+            unindexVoxel(voxel);
+        }
+        // keep the voxels that are still indexed
+        int size = 0;
+        for (Voxel voxel : voxelList) {
+            if (index.get(voxel.posId) == voxel) {
+                voxelList.set(size++, voxel);
+            }
+        }
+        voxelList.subList(size, voxelList.size()).clear();
+    }
+
+    // collect the voxels of this layer that are inside the box (corners inclusive)
+    public final void getVoxels(int[] min, int[] max, Collection<Voxel> result) {
+        long volume = (long)(max[0] - min[0] + 1) * (max[1] - min[1] + 1) * (max[2] - min[2] + 1);
+        if (volume <= voxelList.size()) {
+            // look up the positions of the box
+            for (int x = min[0]; x <= max[0]; x++) {
+                for (int y = min[1]; y <= max[1]; y++) {
+                    for (int z = min[2]; z <= max[2]; z++) {
+                        Voxel voxel = index.get(CubeIndexer.getId(x, y, z));
+                        if (voxel != null) {
+                            result.add(voxel);
+                        }
+                    }
+                }
+            }
+        } else {
+            // check the voxels of this layer
+            for (Voxel voxel : voxelList) {
+                if (voxel.x >= min[0] && voxel.x <= max[0] && voxel.y >= min[1]
+                        && voxel.y <= max[1] && voxel.z >= min[2] && voxel.z <= max[2]) {
+                    result.add(voxel);
+                }
+            }
+        }
+    }
+
     // get all voxels of this layer
     public final Voxel[] getVoxels() {
         Voxel[] result = new Voxel[voxelList.size()];
@@ -6,7 +6,6 @@ import com.vitco.util.misc.ColorTools;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
 
 /**
  * Defines the basic color changer tool.
@@ -143,30 +142,13 @@ public class ColorChangerTool extends AbstractVoxelTool {
     protected void shiftRelease(MouseEvent e) {
         // use the voxels to select the new color
         if (lastVoxelPos != null && initialVoxelPos != null) {
-            ArrayList<Integer> list = new ArrayList<Integer>();
-            for (int x = Math.min(initialVoxelPos[0], lastVoxelPos[0]),
-                         maxx = Math.max(initialVoxelPos[0], lastVoxelPos[0]); x <= maxx; x++ ) {
-                for (int y = Math.min(initialVoxelPos[1], lastVoxelPos[1]),
-                             maxy = Math.max(initialVoxelPos[1], lastVoxelPos[1]); y <= maxy; y++ ) {
-                    for (int z = Math.min(initialVoxelPos[2], lastVoxelPos[2]),
-                                 maxz = Math.max(initialVoxelPos[2], lastVoxelPos[2]); z <= maxz; z++ ) {
-                        // depending on mouse3 state we only search current layer
-                        Voxel voxel = data.searchVoxel(new int[]{x,y,z}, mouse3down);
-                        if (voxel != null) {
-                            list.add(voxel.id);
-                        }
-                    }
-                }
-            }
-            // store in array
-            Integer[] voxels = new Integer[list.size()];
-            list.toArray(voxels);
-            // update color / texture
+            // update color / texture (depending on mouse3 state we only use the current layer)
             int selectedTexture = data.getSelectedTexture();
             if (selectedTexture != -1) {
-                data.massSetTexture(voxels, selectedTexture);
+                Voxel[] voxels = data.searchVoxels(initialVoxelPos, lastVoxelPos, mouse3down);
+                data.massSetTexture(Voxel.convertVoxelsToIdArray(voxels), selectedTexture);
             } else {
-                data.massSetColor(voxels, ColorTools.hsbToColor(getCurrentColor()));
+                data.colorBox(initialVoxelPos, lastVoxelPos, mouse3down, ColorTools.hsbToColor(getCurrentColor()));
             }
         }
         // hide preview
@@ -6,7 +6,6 @@ import com.vitco.util.misc.ColorTools;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
 
 /**
  * Defines the basic draw tool.
@@ -169,42 +168,16 @@ public class DrawTool extends AbstractVoxelTool {
     protected void shiftRelease(MouseEvent e) {
         // fill/erase this area
         if (lastVoxelPos != null && initialVoxelPos != null) {
-            int selectedLayer = data.getSelectedLayer();
-            Color color = ColorTools.hsbToColor(getCurrentColor());
-            ArrayList<Voxel> listAdd = new ArrayList<Voxel>();
-            ArrayList<Integer> listRem = new ArrayList<Integer>();
-            for (int x = Math.min(initialVoxelPos[0], lastVoxelPos[0]),
-                         maxx = Math.max(initialVoxelPos[0], lastVoxelPos[0]); x <= maxx; x++ ) {
-                for (int y = Math.min(initialVoxelPos[1], lastVoxelPos[1]),
-                             maxy = Math.max(initialVoxelPos[1], lastVoxelPos[1]); y <= maxy; y++ ) {
-                    for (int z = Math.min(initialVoxelPos[2], lastVoxelPos[2]),
-                                 maxz = Math.max(initialVoxelPos[2], lastVoxelPos[2]); z <= maxz; z++ ) {
-                        int[] pos = new int[]{x,y,z};
-                        Voxel voxel = data.searchVoxel(pos, false);
-                        if (mouse3Down && voxel != null) {
-                            listRem.add(voxel.id);
-                        } else if (!mouse3Down && voxel == null) {
-                            // get the current texture
-                            int selectedTexture = data.getSelectedTexture();
-                            int[] texture = selectedTexture == -1 ? null : new int[] {
-                                    selectedTexture, selectedTexture, selectedTexture,
-                                    selectedTexture, selectedTexture, selectedTexture
-                            };
-                            listAdd.add(new Voxel(0, pos, color, false, texture, selectedLayer));
-                        }
-                    }
-                }
-            }
             if (mouse3Down) {
-                Integer[] voxels = new Integer[listRem.size()];
-                listRem.toArray(voxels);
-                data.massRemoveVoxel(voxels);
-            } else {
-                Voxel[] voxels = new Voxel[listAdd.size()];
-                listAdd.toArray(voxels);
-                if (isLayerVisible()) {
-                    data.massAddVoxel(voxels);
-                }
+                data.clearBox(initialVoxelPos, lastVoxelPos, false);
+            } else if (isLayerVisible()) {
+                // get the current texture
+                int selectedTexture = data.getSelectedTexture();
+                int[] texture = selectedTexture == -1 ? null : new int[] {
+                        selectedTexture, selectedTexture, selectedTexture,
+                        selectedTexture, selectedTexture, selectedTexture
+                };
+                data.fillBox(initialVoxelPos, lastVoxelPos, ColorTools.hsbToColor(getCurrentColor()), texture);
             }
         }
         // hide preview
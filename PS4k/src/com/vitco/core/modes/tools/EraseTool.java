@@ -5,7 +5,6 @@ import com.vitco.core.data.container.Voxel;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
 
 /**
  * Defines the basic erase tool.
@@ -112,24 +111,8 @@ public class EraseTool extends AbstractVoxelTool {
     protected void shiftRelease(MouseEvent e) {
         // erase this area
         if (lastVoxelPos != null && initialVoxelPos != null) {
-            ArrayList<Integer> listRem = new ArrayList<Integer>();
-            for (int x = Math.min(initialVoxelPos[0], lastVoxelPos[0]),
-                         maxx = Math.max(initialVoxelPos[0], lastVoxelPos[0]); x <= maxx; x++ ) {
-                for (int y = Math.min(initialVoxelPos[1], lastVoxelPos[1]),
-                             maxy = Math.max(initialVoxelPos[1], lastVoxelPos[1]); y <= maxy; y++ ) {
-                    for (int z = Math.min(initialVoxelPos[2], lastVoxelPos[2]),
-                                 maxz = Math.max(initialVoxelPos[2], lastVoxelPos[2]); z <= maxz; z++ ) {
-                        // depending on mouse3 state we only search current layer
-                        Voxel voxel = data.searchVoxel(new int[]{x,y,z}, mouse3Down);
-                        if (voxel != null) {
-                            listRem.add(voxel.id);
-                        }
-                    }
-                }
-            }
-            Integer[] voxels = new Integer[listRem.size()];
-            listRem.toArray(voxels);
-            data.massRemoveVoxel(voxels);
+            // depending on mouse3 state we only erase in the current layer
+            data.clearBox(initialVoxelPos, lastVoxelPos, mouse3Down);
         }
         // hide preview
         data.setOutlineBox("preview", null);
@@ -7,7 +7,6 @@ import com.vitco.util.misc.ColorTools;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 /**
  * Defines the basic color changer tool.
@@ -21,36 +20,6 @@ public class FloodFillTool extends AbstractVoxelTool {
 
     // --------------------
 
-    // flood fill (recolor)
-    private void floodColor(Voxel start, HashMap<String, Integer> result, boolean currentLayer) {
-        Color color = start.getColor();
-        ArrayList<int[]> queue = new ArrayList<int[]>();
-        queue.add(0, start.getPosAsInt());
-        while (!queue.isEmpty()) {
-            int[] node = queue.remove(0);
-            String strPos = node[0] + "_" + node[1] + "_" + node[2];
-            if (!result.containsKey(strPos)) {
-                Voxel voxel = data.searchVoxel(node, currentLayer);
-                if (voxel != null && voxel.getColor().equals(color) && voxel.getTexture() == null) {
-                    // add to result list
-                    result.put(strPos, voxel.id);
-                    if (side != 2) {
-                        queue.add(0, new int[] {node[0] + 1, node[1], node[2]});
-                        queue.add(0, new int[] {node[0] - 1, node[1], node[2]});
-                    }
-                    if (side != 1) {
-                        queue.add(0, new int[] {node[0], node[1] + 1, node[2]});
-                        queue.add(0, new int[] {node[0], node[1] - 1, node[2]});
-                    }
-                    if (side != 0) {
-                        queue.add(0, new int[] {node[0], node[1], node[2] + 1});
-                        queue.add(0, new int[] {node[0], node[1], node[2] - 1});
-                    }
-                }
-            }
-        }
-    }
-
     // flood fill starting from a voxel
     private boolean flood(Voxel start, boolean currentLayer) {
         // recolor/retexture the voxels
@@ -58,10 +27,8 @@ public class FloodFillTool extends AbstractVoxelTool {
         Color newColor = ColorTools.hsbToColor(getCurrentColor());
         if (selectedTexture != -1 || !newColor.equals(start.getColor())) {
             // find the voxels
-            HashMap<String, Integer> result = new HashMap<String, Integer>();
-            floodColor(start, result, currentLayer);
-            Integer[] resultArray = new Integer[result.size()];
-            result.values().toArray(resultArray);
+            Integer[] resultArray = Voxel.convertVoxelsToIdArray(
+                    data.searchConnectedVoxels(start.getPosAsInt(), start.getColor(), side, currentLayer));
             // recolor/retexture the voxels
             if (selectedTexture != -1) {
                 data.massSetTexture(resultArray, selectedTexture);
@@ -106,24 +106,15 @@ public class PickerTool extends AbstractVoxelTool {
         if (lastVoxelPos != null && initialVoxelPos != null) {
             int r = 0, g = 0, b = 0, count = 0;
             HashSet<Integer> colors = new HashSet<Integer>();
-            for (int x = Math.min(initialVoxelPos[0], lastVoxelPos[0]),
-                         maxx = Math.max(initialVoxelPos[0], lastVoxelPos[0]); x <= maxx; x++ ) {
-                for (int y = Math.min(initialVoxelPos[1], lastVoxelPos[1]),
-                             maxy = Math.max(initialVoxelPos[1], lastVoxelPos[1]); y <= maxy; y++ ) {
-                    for (int z = Math.min(initialVoxelPos[2], lastVoxelPos[2]),
-                                 maxz = Math.max(initialVoxelPos[2], lastVoxelPos[2]); z <= maxz; z++ ) {
-                        // depending on mouse3 state we only search current layer
-                        Voxel voxel = data.searchVoxel(new int[]{x,y,z}, false);
-                        if (voxel != null && voxel.getTexture() == null) {
-                            // right click (mouse3) only considers unique colors
-                            Color color = voxel.getColor();
-                            if (!mouse3down || colors.add(color.getRGB())) {
-                                r += color.getRed();
-                                g += color.getGreen();
-                                b += color.getBlue();
-                                count++;
-                            }
-                        }
+            for (Voxel voxel : data.searchVoxels(initialVoxelPos, lastVoxelPos, false)) {
+                if (voxel.getTexture() == null) {
+                    // right click (mouse3) only considers unique colors
+                    Color color = voxel.getColor();
+                    if (!mouse3down || colors.add(color.getRGB())) {
+                        r += color.getRed();
+                        g += color.getGreen();
+                        b += color.getBlue();
+                        count++;
                     }
                 }
             }
@@ -8,7 +8,6 @@ import com.vitco.settings.VitcoSettings;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.LinkedList;
 
 /**
  * Defines the basic select tool.
@@ -34,6 +33,10 @@ public class SelectTool extends AbstractVoxelTool {
 
     // --------------------
 
+    // spatial index of the voxels that were last searched (rebuild when
+    // the plane or the visible voxels change)
+    private SelectionIndex selectionIndex = null;
+
     private void doSelect(Point c1, Point c2, boolean select) {
         Point start = new Point(
                 Math.min(c1.x, c2.x),
@@ -44,40 +47,35 @@ public class SelectTool extends AbstractVoxelTool {
                 Math.max(c1.y, c2.y)
         );
 
-        java.util.List<Integer> searchResult = new LinkedList<Integer>();
+        java.util.List<Integer> searchResult = new ArrayList<Integer>();
 
         if (!start.equals(stop)) {
-            Voxel[] voxels;
-            switch (side) {
-                case -1:
-                    voxels = data.getVisibleLayerVoxel();
-                    break;
-                case 2:
-                    voxels = data.getVoxelsYZ(container.getPlane());
-                    break;
-                case 1:
-                    voxels = data.getVoxelsXZ(container.getPlane());
-                    break;
-                case 0:
-                    voxels = data.getVoxelsXY(container.getPlane());
-                    break;
-                default:
-                    voxels = new Voxel[0];
-                    break;
-            }
-
-            // use all voxles
-            for (Voxel voxel : voxels) {
-                SimpleVector vec = container.convert3D2D(new SimpleVector(
-                        voxel.x * VitcoSettings.VOXEL_SIZE,
-                        voxel.y * VitcoSettings.VOXEL_SIZE,
-                        voxel.z * VitcoSettings.VOXEL_SIZE));
-                if (vec != null) {
-                    if (vec.x >= start.x && vec.x <= stop.x && vec.y >= start.y && vec.y <= stop.y) {
-                        searchResult.add(voxel.id);
-                    }
+            // Note: the version is obtained first, so the index is never newer than its version
+            long version = data.getVisibleVoxelVersion();
+            int plane = side == -1 ? 0 : container.getPlane();
+            // search the voxels with the (cached) spatial index
+            if (selectionIndex == null || !selectionIndex.isIndexOf(side, plane, version)) {
+                Voxel[] voxels;
+                switch (side) {
+                    case -1:
+                        voxels = data.getVisibleLayerVoxel();
+                        break;
+                    case 2:
+                        voxels = data.getVoxelsYZ(plane);
+                        break;
+                    case 1:
+                        voxels = data.getVoxelsXZ(plane);
+                        break;
+                    case 0:
+                        voxels = data.getVoxelsXY(plane);
+                        break;
+                    default:
+                        voxels = new Voxel[0];
+                        break;
                 }
+                selectionIndex = new SelectionIndex(voxels, side, plane, version);
             }
+            selectionIndex.search(container, start, stop, searchResult);
         }
 
         // execute the select
@@ -233,31 +231,10 @@ public class SelectTool extends AbstractVoxelTool {
     protected void shiftRelease(MouseEvent e) {
         // use the voxels to select the new color
         if (lastVoxelPos != null && initialVoxelPos != null) {
-            ArrayList<Integer> list = new ArrayList<Integer>();
-            for (int x = Math.min(initialVoxelPos[0], lastVoxelPos[0]),
-                         maxx = Math.max(initialVoxelPos[0], lastVoxelPos[0]); x <= maxx; x++ ) {
-                for (int y = Math.min(initialVoxelPos[1], lastVoxelPos[1]),
-                             maxy = Math.max(initialVoxelPos[1], lastVoxelPos[1]); y <= maxy; y++ ) {
-                    for (int z = Math.min(initialVoxelPos[2], lastVoxelPos[2]),
-                                 maxz = Math.max(initialVoxelPos[2], lastVoxelPos[2]); z <= maxz; z++ ) {
-                        // depending on mouse3 state we only search current layer
-                        Voxel voxel = data.searchVoxel(new int[]{x,y,z}, false);
-                        if (voxel != null && voxel.getTexture() == null) {
-                            // collect the voxels
-                            list.add(voxel.id);
-                        }
-                    }
-                }
-            }
-            // set the selection
-            // execute the select
-            Integer[] toSet = new Integer[list.size()];
-            list.toArray(toSet);
-            if (toSet.length > 0) {
+            // select voxels
+            if (data.selectBox(initialVoxelPos, lastVoxelPos, !mouse3down)) {
                 // reset selection shift
                 data.setVoxelSelectionShift(0,0,0);
-                // select voxels
-                data.massSetVoxelSelected(toSet, !mouse3down);
             }
         }
         // hide preview
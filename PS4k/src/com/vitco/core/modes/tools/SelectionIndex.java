@@ -0,0 +1,181 @@
+package com.vitco.core.modes.tools;
+
+import com.threed.jpct.SimpleVector;
+import com.vitco.core.container.DrawContainer;
+import com.vitco.core.data.container.Voxel;
+import com.vitco.low.CubeIndexer;
+import com.vitco.settings.VitcoSettings;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spatial index over voxels that is used for the rectangle selection.
+ *
+ * The voxels are grouped into chunks and the chunks into a tree of bounding boxes. A node
+ * is projected only by the corners of its box: If the projected corners are all inside the
+ * selection rectangle all voxels of the node are selected, if they are all on the outside
+ * of one of the rectangle borders the node is skipped. Only voxels in chunks that intersect
+ * the rectangle border need to be projected individually.
+ */
+final class SelectionIndex {
+
+    // the chunks contain (2^CHUNK_BITS)^3 positions and every level
+    // above groups (up to) eight nodes of the level below
+    private static final int CHUNK_BITS = 2;
+    // margin (in pixel) to prevent rounding issues when nodes are accepted or rejected
+    private static final float MARGIN = 0.5f;
+
+    // node of the tree (the voxels are only set for chunks)
+    private static final class Node {
+        private final int[] min = new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+        private final int[] max = new int[] {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        private final ArrayList<Node> children = new ArrayList<Node>();
+        private final ArrayList<Voxel> voxels = new ArrayList<Voxel>();
+
+        // extend the bounding box to include this position
+        private void include(int x, int y, int z) {
+            min[0] = Math.min(min[0], x);
+            min[1] = Math.min(min[1], y);
+            min[2] = Math.min(min[2], z);
+            max[0] = Math.max(max[0], x);
+            max[1] = Math.max(max[1], y);
+            max[2] = Math.max(max[2], z);
+        }
+    }
+
+    // the side, plane and version of the visible voxels this index was build for
+    private final int side;
+    private final int plane;
+    private final long version;
+    // the top level nodes
+    private final ArrayList<Node> roots;
+
+    // constructor
+    SelectionIndex(Voxel[] voxels, int side, int plane, long version) {
+        this.side = side;
+        this.plane = plane;
+        this.version = version;
+        // group the voxels into chunks
+        TIntObjectHashMap<Node> level = new TIntObjectHashMap<Node>();
+        for (Voxel voxel : voxels) {
+            int key = CubeIndexer.getId(voxel.x >> CHUNK_BITS, voxel.y >> CHUNK_BITS, voxel.z >> CHUNK_BITS);
+            Node chunk = level.get(key);
+            if (chunk == null) {
+                chunk = new Node();
+                level.put(key, chunk);
+            }
+            chunk.voxels.add(voxel);
+            chunk.include(voxel.x, voxel.y, voxel.z);
+        }
+        // group the nodes until only a few are left
+        int shift = CHUNK_BITS;
+        while (level.size() > 8) {
+            shift++;
+            TIntObjectHashMap<Node> parents = new TIntObjectHashMap<Node>();
+            for (Node node : level.valueCollection()) {
+                int key = CubeIndexer.getId(node.min[0] >> shift, node.min[1] >> shift, node.min[2] >> shift);
+                Node parent = parents.get(key);
+                if (parent == null) {
+                    parent = new Node();
+                    parents.put(key, parent);
+                }
+                parent.children.add(node);
+                parent.include(node.min[0], node.min[1], node.min[2]);
+                parent.include(node.max[0], node.max[1], node.max[2]);
+            }
+            level = parents;
+        }
+        roots = new ArrayList<Node>(level.valueCollection());
+    }
+
+    // true if this index was build for the voxels of this side, plane and version
+    public final boolean isIndexOf(int side, int plane, long version) {
+        return this.side == side && this.plane == plane && this.version == version;
+    }
+
+    // collect the ids of all voxels that are projected into the rectangle (borders included)
+    public final void search(DrawContainer container, Point start, Point stop, List<Integer> result) {
+        for (Node root : roots) {
+            search(root, container, start, stop, result);
+        }
+    }
+
+    // helper - search a node
+    private static void search(Node node, DrawContainer container, Point start, Point stop, List<Integer> result) {
+        int state = classify(node, container, start, stop);
+        if (state < 0) {
+            return;
+        }
+        if (state > 0) {
+            // everything in this node is selected
+            addAll(node, result);
+        } else if (node.children.isEmpty()) {
+            // project the voxels of the chunk
+            for (Voxel voxel : node.voxels) {
+                SimpleVector vec = project(container, voxel.x, voxel.y, voxel.z);
+                if (vec != null) {
+                    if (vec.x >= start.x && vec.x <= stop.x && vec.y >= start.y && vec.y <= stop.y) {
+                        result.add(voxel.id);
+                    }
+                }
+            }
+        } else {
+            for (Node child : node.children) {
+                search(child, container, start, stop, result);
+            }
+        }
+    }
+
+    // helper - add all voxels of a node
+    private static void addAll(Node node, List<Integer> result) {
+        for (Voxel voxel : node.voxels) {
+            result.add(voxel.id);
+        }
+        for (Node child : node.children) {
+            addAll(child, result);
+        }
+    }
+
+    // helper - check the projected corners of the node bounding box. Returns 1 if the
+    // node is completely inside the rectangle, -1 if it is completely outside and 0 otherwise.
+    // Note: Since the projection maps lines to lines (for points in front of the camera),
+    // the projected box is contained in the convex hull of the projected corners
+    private static int classify(Node node, DrawContainer container, Point start, Point stop) {
+        boolean inside = true;
+        boolean left = true;
+        boolean right = true;
+        boolean above = true;
+        boolean below = true;
+        for (int i = 0; i < 8; i++) {
+            SimpleVector vec = project(container,
+                    (i & 1) == 0 ? node.min[0] : node.max[0],
+                    (i & 2) == 0 ? node.min[1] : node.max[1],
+                    (i & 4) == 0 ? node.min[2] : node.max[2]);
+            if (vec == null) {
+                // the box is not completely in front of the camera
+                return 0;
+            }
+            inside &= vec.x >= start.x + MARGIN && vec.x <= stop.x - MARGIN
+                    && vec.y >= start.y + MARGIN && vec.y <= stop.y - MARGIN;
+            left &= vec.x < start.x - MARGIN;
+            right &= vec.x > stop.x + MARGIN;
+            above &= vec.y < start.y - MARGIN;
+            below &= vec.y > stop.y + MARGIN;
+        }
+        if (inside) {
+            return 1;
+        }
+        return left || right || above || below ? -1 : 0;
+    }
+
+    // helper - project a voxel position onto the screen
+    private static SimpleVector project(DrawContainer container, int x, int y, int z) {
+        return container.convert3D2D(new SimpleVector(
+                x * VitcoSettings.VOXEL_SIZE,
+                y * VitcoSettings.VOXEL_SIZE,
+                z * VitcoSettings.VOXEL_SIZE));
+    }
+}
@@ -191,54 +191,60 @@ public class CWorld extends AbstractCWorld {
 //                        }
 //                        // --------------
 
-                        // build the plane
-                        BorderObject3D box = new BorderObject3D(
-                                tris, faceList,
-                                min1, min2, w, h, orientation, axis,
-                                outdatedPlane, simpleMode, side, culling,
-                                hasBorder, hullManager
-                        );
-                        // remove old version of this side (if exists)
-                        Integer oldId = plane2WorldId.get(areaKey);
-                        if (oldId != null) {
-                            // only remove texture in non-wireframe world
-                            if (!simpleMode) {
-                                BorderObject3D obj = (BorderObject3D) getObject(oldId);
-                                // remove other information
-                                removeObject(oldId);
-                                obj.freeTexture();
-                            } else {
-                                // remove other information
-                                removeObject(oldId);
+                        synchronized (WorldManager.SHARED_SYNC) {
+                            // build the plane
+                            BorderObject3D box = new BorderObject3D(
+                                    tris, faceList,
+                                    min1, min2, w, h, orientation, axis,
+                                    outdatedPlane, simpleMode, side, culling,
+                                    hasBorder, hullManager
+                            );
+                            // remove old version of this side (if exists)
+                            Integer oldId = plane2WorldId.get(areaKey);
+                            if (oldId != null) {
+                                // only remove texture in non-wireframe world
+                                if (!simpleMode) {
+                                    BorderObject3D obj = (BorderObject3D) getObject(oldId);
+                                    // remove other information
+                                    removeObject(oldId);
+                                    obj.freeTexture();
+                                } else {
+                                    // remove other information
+                                    removeObject(oldId);
+                                }
+                                worldId2Side.remove(oldId);
                             }
-                            worldId2Side.remove(oldId);
+                            // add new plane
+                            int newWorldId = addObject(box);
+                            plane2WorldId.put(areaKey, newWorldId);
+                            worldId2Side.put(newWorldId, orientation);
                         }
-                        // add new plane
-                        int newWorldId = addObject(box);
-                        plane2WorldId.put(areaKey, newWorldId);
-                        worldId2Side.put(newWorldId, orientation);
                     } else {
-                        // remove old version of this side (if exists)
-                        Integer oldId = plane2WorldId.remove(areaKey);
-                        if (oldId != null) {
-                            // only remove texture in non-wireframe world
-                            if (!simpleMode) {
-                                BorderObject3D obj = (BorderObject3D) getObject(oldId);
-                                // remove other information
-                                removeObject(oldId);
-                                obj.freeTexture();
-                            } else {
-                                // remove other information
-                                removeObject(oldId);
+                        synchronized (WorldManager.SHARED_SYNC) {
+                            // remove old version of this side (if exists)
+                            Integer oldId = plane2WorldId.remove(areaKey);
+                            if (oldId != null) {
+                                // only remove texture in non-wireframe world
+                                if (!simpleMode) {
+                                    BorderObject3D obj = (BorderObject3D) getObject(oldId);
+                                    // remove other information
+                                    removeObject(oldId);
+                                    obj.freeTexture();
+                                } else {
+                                    // remove other information
+                                    removeObject(oldId);
+                                }
+                                worldId2Side.remove(oldId);
                             }
-                            worldId2Side.remove(oldId);
                         }
                     }
                 } else if (!simpleMode) {
                     // only do texture refresh (soft)
                     Integer objId = plane2WorldId.get(areaKey);
                     if (objId != null) {
-                        ((BorderObject3D) getObject(objId)).refreshTextureInterpolation();
+                        synchronized (WorldManager.SHARED_SYNC) {
+                            ((BorderObject3D) getObject(objId)).refreshTextureInterpolation();
+                        }
                     }
                 }
                 // this area was processed
@@ -264,17 +270,19 @@ public class CWorld extends AbstractCWorld {
             worldNeedsClear = false;
             // clear the voxel manager
             voxelManager.clear();
-            // remove world objects
-            for (Integer objId : worldId2Side.keySet()) {
-                // only remove texture in non-wireframe world
-                if (!simpleMode) {
-                    BorderObject3D obj = (BorderObject3D) getObject(objId);
-                    // remove other information
-                    removeObject(objId);
-                    obj.freeTexture();
-                } else {
-                    // remove other information
-                    removeObject(objId);
+            synchronized (WorldManager.SHARED_SYNC) {
+                // remove world objects
+                for (Integer objId : worldId2Side.keySet()) {
+                    // only remove texture in non-wireframe world
+                    if (!simpleMode) {
+                        BorderObject3D obj = (BorderObject3D) getObject(objId);
+                        // remove other information
+                        removeObject(objId);
+                        obj.freeTexture();
+                    } else {
+                        // remove other information
+                        removeObject(objId);
+                    }
                 }
             }
             worldId2Side.clear();
@@ -18,6 +18,10 @@ import java.util.HashMap;
 public final class WorldManager {
     private final static TextureManager textureManager = TextureManager.getInstance();
 
+    // synchronizes the access to resources that are shared by all worlds (e.g. the textures), the worlds
+    // of the different views are refreshed concurrently and rendered while other worlds are refreshed
+    public static final Object SHARED_SYNC = new Object();
+
     // -------------------------------
     // Manage efficient textures (they are updated without huge amount of data allocation)
 
@@ -1,6 +1,6 @@
 package com.vitco.export;
 
-import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSourceInterface;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.util.components.progressbar.ProgressDialog;
@@ -19,7 +19,7 @@ public abstract class AbstractExporter extends ProgressReporter {
     protected final File exportTo;
 
     // the data that we use
-    protected final Data data;
+    protected final VoxelSourceInterface data;
 
     // wrapper for writing
     protected FileOut fileOut;
@@ -32,7 +32,7 @@ public abstract class AbstractExporter extends ProgressReporter {
     private float count = 0;
 
     // constructor
-    public AbstractExporter(File exportTo, Data data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
+    public AbstractExporter(File exportTo, VoxelSourceInterface data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
         super(dialog, console);
         this.exportTo = exportTo;
         this.data = data;
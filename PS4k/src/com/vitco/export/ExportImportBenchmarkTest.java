@@ -0,0 +1,121 @@
+package com.vitco.export;
+
+import com.vitco.core.data.Data;
+import com.vitco.importer.AbstractImporter;
+import com.vitco.importer.Kv6Importer;
+import com.vitco.importer.PnxImporter;
+import com.vitco.importer.QbImporter;
+import com.vitco.importer.VoxImporter;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Measures the export and import throughput per format (no user interface required).
+ *
+ * This is a benchmark and not part of the test suite, remove the @Ignore to run it.
+ */
+public class ExportImportBenchmarkTest {
+
+    // the amount of runs per format (the first runs are warm up)
+    private static final int RUNS = 3;
+
+    // create a sphere with a few colors
+    private static Data createData(int radius) {
+        Data data = new Data();
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    if (x * x + y * y + z * z <= radius * radius) {
+                        Color color = new Color(((x + radius) / 10) * 25, ((y + radius) / 10) * 25, 128);
+                        data.addVoxelDirect(color, new int[]{x, y, z});
+                    }
+                }
+            }
+        }
+        return data;
+    }
+
+    // helper - count the imported voxels
+    private static int count(AbstractImporter importer) {
+        int result = 0;
+        for (AbstractImporter.Layer layer : importer.getVoxel()) {
+            layer.reset();
+            while (layer.hasNext()) {
+                layer.next();
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // export and import the data several times and print the throughput
+    private static void benchmark(String format, Data data, int expectedCount) throws Exception {
+        File file = File.createTempFile("benchmark", "." + format);
+        try {
+            for (int run = 0; run < RUNS; run++) {
+                long time = System.nanoTime();
+                AbstractExporter exporter;
+                if (format.equals("kv6")) {
+                    exporter = new Kv6Exporter(file, data, null, null);
+                } else if (format.equals("qb")) {
+                    exporter = new QbExporter(file, data, null, null);
+                } else if (format.equals("pnx")) {
+                    exporter = new PnxExporter(file, data, null, null);
+                } else if (format.equals("vox")) {
+                    exporter = new VoxVoxLapExporter(file, data, null, null);
+                } else {
+                    exporter = new VoxGameExporter(file, data, null, null);
+                }
+                boolean written = exporter.writeData();
+                assert written;
+                long exportTime = System.nanoTime() - time;
+
+                double megaBytes = file.length() / (1024d * 1024d);
+                String result = String.format(Locale.US, "%-8s %7.2f MB :: export %6dms (%7.2f MB/s)",
+                        format, megaBytes, exportTime / 1000000, megaBytes / (exportTime / 1e9));
+
+                if (!format.equals("voxgame")) { // the exported header is not compatible with the importer
+                    time = System.nanoTime();
+                    AbstractImporter importer;
+                    if (format.equals("kv6")) {
+                        importer = new Kv6Importer(file, "Import");
+                    } else if (format.equals("qb")) {
+                        importer = new QbImporter(file, "Import");
+                    } else if (format.equals("pnx")) {
+                        importer = new PnxImporter(file, "Import");
+                    } else {
+                        importer = new VoxImporter(file, "Import");
+                    }
+                    long importTime = System.nanoTime() - time;
+                    assert importer.hasLoaded();
+                    if (expectedCount != -1) {
+                        assert count(importer) == expectedCount;
+                    }
+                    result += String.format(Locale.US, " :: import %6dms (%7.2f MB/s)",
+                            importTime / 1000000, megaBytes / (importTime / 1e9));
+                }
+                System.out.println(result);
+            }
+        } finally {
+            boolean deleted = file.delete();
+            assert deleted;
+        }
+    }
+
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkFormats() throws Exception {
+        Data data = createData(40);
+        int count = data.getVisibleLayerVoxel().length;
+        // kv6 only stores the visible voxels
+        benchmark("kv6", data, -1);
+        benchmark("qb", data, count);
+        benchmark("pnx", data, count);
+        benchmark("vox", data, count);
+        benchmark("voxgame", data, -1);
+    }
+}
@@ -1,8 +1,7 @@
 package com.vitco.export;
 
-import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSourceInterface;
 import com.vitco.core.data.container.Voxel;
-import com.vitco.export.dataStatic.Kv6Static;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.low.CubeIndexer;
 import com.vitco.low.hull.HullManager;
@@ -25,7 +24,7 @@ import java.util.Comparator;
 public class Kv6Exporter extends AbstractExporter {
 
     // constructor
-    public Kv6Exporter(File exportTo, Data data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
+    public Kv6Exporter(File exportTo, VoxelSourceInterface data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
         super(exportTo, data, dialog, console);
     }
 
@@ -35,41 +34,10 @@ public class Kv6Exporter extends AbstractExporter {
         useWeightedCenter = flag;
     }
 
-    // helper to get direction (lighting bit)
-    private static byte getDirectionByte(int voxPosId, HullManager<String> hullManager) {
-
-        // the offsets (direction)
-        int ox = 0, oy = 0, oz = 0;
-
-        // loop over precomputed circle values
-        for (int[] circeValue : Kv6Static.circleValues) {
-            // check if voxel position is set
-            if (hullManager.contains(voxPosId + circeValue[0])) {
-                // add the offset (this voxel adds to the direction)
-                ox += circeValue[1];
-                oy += circeValue[2];
-                oz += circeValue[3];
-            }
-        }
-
-        // If voxels aren't directional (thin), return the 0 vector (no direction)
-        double f = ox * ox + oy * oy + oz * oz;
-        if (f < 32*32) {
-            return (byte) 255;
-        }
-
-        // loop over all directions and find the best (least best?) matching one
-        double maxf = Double.MIN_VALUE;
-        int j = 0;
-        for (int i = 0; i < 255; i++) {
-            double[] directionVector = Kv6Static.directions[i];
-            f = directionVector[0] * ox + directionVector[2] * oy - directionVector[1] * oz;
-            if (f > maxf) {
-                maxf = f;
-                j = i;
-            }
-        }
-        return (byte) j;
+    // compute the lighting concurrently (the result is the same)
+    private boolean parallel = true;
+    public void setParallel(boolean flag) {
+        parallel = flag;
     }
 
     // write the file
@@ -132,6 +100,9 @@ public class Kv6Exporter extends AbstractExporter {
             }
         });
 
+        // compute the lighting
+        byte[] directionBytes = Kv6Lighting.getDirectionBytes(voxels, hullManager, parallel);
+
         // write the amount of voxel that have a visible side
         fileOut.writeIntRev(voxelCount);
 
@@ -183,7 +154,7 @@ public class Kv6Exporter extends AbstractExporter {
             }
             fileOut.writeByte(visibleFaces);
             // write lighting byte
-            fileOut.writeByte(getDirectionByte(voxPosId, hullManager));
+            fileOut.writeByte(directionBytes[i1]);
         }
 
         // collect the offsets
@@ -0,0 +1,370 @@
+package com.vitco.export;
+
+import com.vitco.export.dataStatic.Kv6Static;
+import com.vitco.low.CubeIndexer;
+import com.vitco.low.hull.HullManager;
+import gnu.trove.list.array.TByteArrayList;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Computes the lighting byte (direction) of kv6 voxels.
+ *
+ * The occupied neighbours are counted in a dense occupancy window (one window per slab of x values)
+ * and the resulting direction is quantized with a precomputed table. The table divides the sphere into
+ * cells (cube map) and stores for every cell the directions that can be the best match for a vector
+ * in that cell, so only these directions need to be compared. The result is the same as when all
+ * directions are compared.
+ */
+final class Kv6Lighting {
+
+    // the radius of the neighbourhood (see Kv6Static.circleValues)
+    private static final int RADIUS = 3;
+
+    // maximum size of an occupancy window (in voxel)
+    private static final int WINDOW_SIZE = 1 << 22;
+
+    // amount of cells per cube map face side
+    private static final int CELLS = 64;
+
+    // the directions that need to be compared for a cell, the directions of cell i are stored
+    // at cellDirections[cellOffset[i]] to cellDirections[cellOffset[i + 1] - 1] (ascending)
+    private static final int[] cellOffset = new int[6 * CELLS * CELLS + 1];
+    private static final byte[] cellDirections;
+
+    static {
+        // the direction vectors as they are compared: directions[i][0] * ox + directions[i][2] * oy - directions[i][1] * oz
+        double[][] vectors = new double[255][];
+        double[] lengths = new double[255];
+        for (int i = 0; i < 255; i++) {
+            double[] direction = Kv6Static.directions[i];
+            vectors[i] = new double[] {direction[0], direction[2], -direction[1]};
+            lengths[i] = Math.sqrt(direction[0] * direction[0] + direction[1] * direction[1] + direction[2] * direction[2]);
+        }
+        TByteArrayList result = new TByteArrayList();
+        double[] bound = new double[255];
+        for (int cell = 0, len = 6 * CELLS * CELLS; cell < len; cell++) {
+            int face = cell / (CELLS * CELLS);
+            int u = (cell / CELLS) % CELLS;
+            int v = cell % CELLS;
+            // the center of the cell and the maximum distance of a cell point to the center
+            // Note: The cell is convex on the sphere, so the corners are the furthest points
+            double[] center = getCellPoint(face, u + 0.5, v + 0.5);
+            double radius = 0;
+            for (int corner = 0; corner < 4; corner++) {
+                double[] point = getCellPoint(face, u + (corner & 1), v + (corner >> 1));
+                radius = Math.max(radius, Math.sqrt(
+                        (point[0] - center[0]) * (point[0] - center[0]) +
+                        (point[1] - center[1]) * (point[1] - center[1]) +
+                        (point[2] - center[2]) * (point[2] - center[2])));
+            }
+            // add a margin for rounding errors
+            radius += 1e-9;
+            // a direction can only match if its best value in the cell is not below
+            // the worst value of another direction
+            double best = -Double.MAX_VALUE;
+            for (int i = 0; i < 255; i++) {
+                bound[i] = vectors[i][0] * center[0] + vectors[i][1] * center[1] + vectors[i][2] * center[2];
+                best = Math.max(best, bound[i] - lengths[i] * radius);
+            }
+            cellOffset[cell] = result.size();
+            for (int i = 0; i < 255; i++) {
+                if (bound[i] + lengths[i] * radius >= best) {
+                    result.add((byte) i);
+                }
+            }
+        }
+        cellOffset[6 * CELLS * CELLS] = result.size();
+        cellDirections = result.toArray();
+    }
+
+    // helper - get the normalized point of a cube map face for cell coordinates (0 to CELLS)
+    private static double[] getCellPoint(int face, double u, double v) {
+        double a = u * 2 / CELLS - 1;
+        double b = v * 2 / CELLS - 1;
+        double sign = face % 2 == 0 ? 1 : -1;
+        double[] point;
+        switch (face / 2) {
+            case 0: point = new double[] {sign, a, b}; break;
+            case 1: point = new double[] {a, sign, b}; break;
+            default: point = new double[] {a, b, sign}; break;
+        }
+        double length = Math.sqrt(point[0] * point[0] + point[1] * point[1] + point[2] * point[2]);
+        point[0] /= length;
+        point[1] /= length;
+        point[2] /= length;
+        return point;
+    }
+
+    // helper - get the cube map cell of a vector
+    private static int getCell(int ox, int oy, int oz) {
+        int ax = Math.abs(ox);
+        int ay = Math.abs(oy);
+        int az = Math.abs(oz);
+        int face;
+        double m;
+        int a;
+        int b;
+        if (ax >= ay && ax >= az) {
+            face = ox >= 0 ? 0 : 1;
+            m = ax;
+            a = oy;
+            b = oz;
+        } else if (ay >= az) {
+            face = oy >= 0 ? 2 : 3;
+            m = ay;
+            a = ox;
+            b = oz;
+        } else {
+            face = oz >= 0 ? 4 : 5;
+            m = az;
+            a = ox;
+            b = oy;
+        }
+        int u = Math.min(CELLS - 1, (int) ((a / m + 1) * CELLS / 2));
+        int v = Math.min(CELLS - 1, (int) ((b / m + 1) * CELLS / 2));
+        return (face * CELLS + u) * CELLS + v;
+    }
+
+    // helper - quantize the direction (sum of the offsets of all occupied neighbours)
+    private static byte getDirectionByte(int ox, int oy, int oz) {
+        // If voxels aren't directional (thin), return the 0 vector (no direction)
+        double f = ox * ox + oy * oy + oz * oz;
+        if (f < 32*32) {
+            return (byte) 255;
+        }
+
+        // loop over the directions that can match and find the best (least best?) matching one
+        double maxf = Double.MIN_VALUE;
+        int j = 0;
+        int cell = getCell(ox, oy, oz);
+        for (int c = cellOffset[cell], len = cellOffset[cell + 1]; c < len; c++) {
+            int i = cellDirections[c] & 0xFF;
+            double[] directionVector = Kv6Static.directions[i];
+            f = directionVector[0] * ox + directionVector[2] * oy - directionVector[1] * oz;
+            if (f > maxf) {
+                maxf = f;
+                j = i;
+            }
+        }
+        return (byte) j;
+    }
+
+    // compute the direction by comparing all directions (reference implementation)
+    static byte getDirectionByte(int voxPosId, HullManager<String> hullManager) {
+
+        // the offsets (direction)
+        int ox = 0, oy = 0, oz = 0;
+
+        // loop over precomputed circle values
+        for (int[] circeValue : Kv6Static.circleValues) {
+            // check if voxel position is set
+            if (hullManager.contains(voxPosId + circeValue[0])) {
+                // add the offset (this voxel adds to the direction)
+                ox += circeValue[1];
+                oy += circeValue[2];
+                oz += circeValue[3];
+            }
+        }
+
+        // If voxels aren't directional (thin), return the 0 vector (no direction)
+        double f = ox * ox + oy * oy + oz * oz;
+        if (f < 32*32) {
+            return (byte) 255;
+        }
+
+        // loop over all directions and find the best (least best?) matching one
+        double maxf = Double.MIN_VALUE;
+        int j = 0;
+        for (int i = 0; i < 255; i++) {
+            double[] directionVector = Kv6Static.directions[i];
+            f = directionVector[0] * ox + directionVector[2] * oy - directionVector[1] * oz;
+            if (f > maxf) {
+                maxf = f;
+                j = i;
+            }
+        }
+        return (byte) j;
+    }
+
+    // =================
+
+    // the occupied voxels, sorted by x (the voxels of slab x are stored
+    // from slabStart[x - minX] to slabStart[x - minX + 1] - 1)
+    private final int[] slabStart;
+    private final short[] occupiedY;
+    private final short[] occupiedZ;
+
+    // the visible voxels (sorted by x) and the hull manager that contains all voxels
+    private final short[][] voxels;
+    private final HullManager<String> hullManager;
+
+    // bounding box of the occupied voxels
+    private final int[] min = new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+    private final int[] max = new int[] {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+
+    // the result
+    private final byte[] directionBytes;
+
+    // constructor
+    private Kv6Lighting(short[][] voxels, HullManager<String> hullManager) {
+        this.voxels = voxels;
+        this.hullManager = hullManager;
+        directionBytes = new byte[voxels.length];
+        // obtain the positions of the occupied voxels
+        int[] ids = hullManager.getPosIds();
+        short[] x = new short[ids.length];
+        short[] y = new short[ids.length];
+        short[] z = new short[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            x[i] = CubeIndexer.getX(ids[i]);
+            y[i] = CubeIndexer.getY(ids[i]);
+            z[i] = CubeIndexer.getZ(ids[i]);
+            min[0] = Math.min(x[i], min[0]);
+            min[1] = Math.min(y[i], min[1]);
+            min[2] = Math.min(z[i], min[2]);
+            max[0] = Math.max(x[i], max[0]);
+            max[1] = Math.max(y[i], max[1]);
+            max[2] = Math.max(z[i], max[2]);
+        }
+        // sort the occupied voxels into slabs (counting sort)
+        int slabCount = Math.max(0, max[0] - min[0] + 1);
+        slabStart = new int[slabCount + 1];
+        for (int i = 0; i < ids.length; i++) {
+            slabStart[x[i] - min[0] + 1]++;
+        }
+        for (int i = 0; i < slabCount; i++) {
+            slabStart[i + 1] += slabStart[i];
+        }
+        int[] next = new int[slabCount];
+        System.arraycopy(slabStart, 0, next, 0, slabCount);
+        occupiedY = new short[ids.length];
+        occupiedZ = new short[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            int pos = next[x[i] - min[0]]++;
+            occupiedY[pos] = y[i];
+            occupiedZ[pos] = z[i];
+        }
+    }
+
+    // helper - true if the neighbourhood of the voxel crosses the border of the cube indexer
+    // (the position ids wrap around in that case and only the reference implementation
+    // computes the same result)
+    private static boolean isNearBorder(short[] voxel) {
+        for (int i = 0; i < 3; i++) {
+            if (voxel[i] - RADIUS < -CubeIndexer.radius || voxel[i] + RADIUS >= CubeIndexer.width - CubeIndexer.radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // compute the direction bytes for the voxels from index "from" to "to" - 1 (which belong
+    // to the slabs fromX to toX - 1)
+    private void computeChunk(int from, int to, int fromX, int toX) {
+        // the dimension of the occupancy window (with a border for the neighbourhood)
+        int sizeY = max[1] - min[1] + 1 + 2 * RADIUS;
+        int sizeZ = max[2] - min[2] + 1 + 2 * RADIUS;
+        int strideX = sizeY * sizeZ;
+        byte[] window = new byte[(toX - fromX + 2 * RADIUS) * strideX];
+
+        // fill the window
+        for (int x = Math.max(min[0], fromX - RADIUS), maxX = Math.min(max[0], toX - 1 + RADIUS); x <= maxX; x++) {
+            int offset = (x - fromX + RADIUS) * strideX;
+            for (int i = slabStart[x - min[0]], len = slabStart[x - min[0] + 1]; i < len; i++) {
+                window[offset + (occupiedY[i] - min[1] + RADIUS) * sizeZ + occupiedZ[i] - min[2] + RADIUS] = 1;
+            }
+        }
+
+        // the window offsets of the neighbours
+        int[][] circleValues = Kv6Static.circleValues;
+        int count = circleValues.length;
+        int[] offsets = new int[count];
+        int[] dx = new int[count];
+        int[] dy = new int[count];
+        int[] dz = new int[count];
+        for (int c = 0; c < count; c++) {
+            dx[c] = circleValues[c][1];
+            dy[c] = circleValues[c][2];
+            dz[c] = circleValues[c][3];
+            offsets[c] = dx[c] * strideX + dy[c] * sizeZ + dz[c];
+        }
+
+        // sum the offsets of the occupied neighbours
+        for (int i = from; i < to; i++) {
+            short[] voxel = voxels[i];
+            if (isNearBorder(voxel)) {
+                directionBytes[i] = getDirectionByte(CubeIndexer.getId(voxel), hullManager);
+                continue;
+            }
+            int p = (voxel[0] - fromX + RADIUS) * strideX + (voxel[1] - min[1] + RADIUS) * sizeZ + voxel[2] - min[2] + RADIUS;
+            int ox = 0, oy = 0, oz = 0;
+            for (int c = 0; c < count; c++) {
+                int occupied = window[p + offsets[c]];
+                ox += occupied * dx[c];
+                oy += occupied * dy[c];
+                oz += occupied * dz[c];
+            }
+            directionBytes[i] = getDirectionByte(ox, oy, oz);
+        }
+    }
+
+    // helper - run a task in the pool (or directly if there is no pool)
+    private static ForkJoinTask<?> schedule(ForkJoinPool pool, Runnable task) {
+        if (pool == null) {
+            task.run();
+            return null;
+        }
+        return pool.submit(task);
+    }
+
+    // compute the direction bytes of all voxels (the chunks are processed concurrently if parallel is set)
+    private void computeAll(boolean parallel) {
+        if (voxels.length == 0) {
+            return;
+        }
+        // the amount of slabs per window
+        long slabSize = (long) (max[1] - min[1] + 1 + 2 * RADIUS) * (max[2] - min[2] + 1 + 2 * RADIUS);
+        int slabsPerChunk = (int) Math.max(1, WINDOW_SIZE / slabSize - 2 * RADIUS);
+
+        ForkJoinPool pool = parallel ? new ForkJoinPool(Runtime.getRuntime().availableProcessors()) : null;
+        try {
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+            for (int from = 0; from < voxels.length; ) {
+                final int fromX = voxels[from][0];
+                final int toX = fromX + slabsPerChunk;
+                int to = from;
+                while (to < voxels.length && voxels[to][0] < toX) {
+                    to++;
+                }
+                final int chunkFrom = from;
+                final int chunkTo = to;
+                tasks.add(schedule(pool, new Runnable() {
+                    @Override
+                    public void run() {
+                        computeChunk(chunkFrom, chunkTo, fromX, toX);
+                    }
+                }));
+                from = to;
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                if (task != null) {
+                    task.join();
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // compute the direction bytes of the visible voxels (sorted by x), the hull manager contains all voxels
+    static byte[] getDirectionBytes(short[][] voxels, HullManager<String> hullManager, boolean parallel) {
+        Kv6Lighting lighting = new Kv6Lighting(voxels, hullManager);
+        lighting.computeAll(parallel);
+        return lighting.directionBytes;
+    }
+}
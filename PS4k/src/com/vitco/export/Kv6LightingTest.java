@@ -0,0 +1,69 @@
+package com.vitco.export;
+
+import com.vitco.low.CubeIndexer;
+import com.vitco.low.hull.HullManager;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * Test that the lighting of the kv6 export is the same as when all directions are compared.
+ */
+public class Kv6LightingTest {
+
+    // helper - the visible voxels of the hull manager (in kv6 order)
+    private static short[][] getVoxels(HullManager<String> hullManager) {
+        TIntHashSet visibleVoxel = hullManager.getVisibleVoxelsIds();
+        short[][] voxels = new short[visibleVoxel.size()][];
+        int i = 0;
+        for (TIntIterator it = visibleVoxel.iterator(); it.hasNext();) {
+            voxels[i++] = CubeIndexer.getPos(it.next());
+        }
+        Arrays.sort(voxels, new Comparator<short[]>() {
+            @Override
+            public int compare(short[] o1, short[] o2) {
+                int dist = o1[0] - o2[0];
+                if (dist != 0) {
+                    return dist;
+                }
+                dist = o2[2] - o1[2];
+                if (dist != 0) {
+                    return dist;
+                }
+                return o1[1] - o2[1];
+            }
+        });
+        return voxels;
+    }
+
+    @Test
+    public void testDirectionBytes() throws Exception {
+        Random rand = new Random(0);
+        // a noisy sphere and a noisy sphere at the border of the indexed cube
+        for (int offset : new int[] {0, CubeIndexer.width - CubeIndexer.radius - 10}) {
+            HullManager<String> hullManager = new HullManager<String>();
+            int radius = 14;
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    for (int z = -radius; z <= radius; z++) {
+                        if (x * x + y * y + z * z <= radius * radius && rand.nextInt(5) > 0) {
+                            hullManager.update(CubeIndexer.getId(x + offset, y, z), null);
+                        }
+                    }
+                }
+            }
+            short[][] voxels = getVoxels(hullManager);
+            byte[] expected = new byte[voxels.length];
+            for (int i = 0; i < voxels.length; i++) {
+                expected[i] = Kv6Lighting.getDirectionByte(CubeIndexer.getId(voxels[i]), hullManager);
+            }
+            assert voxels.length > 0;
+            assert Arrays.equals(expected, Kv6Lighting.getDirectionBytes(voxels, hullManager, false));
+            assert Arrays.equals(expected, Kv6Lighting.getDirectionBytes(voxels, hullManager, true));
+        }
+    }
+}
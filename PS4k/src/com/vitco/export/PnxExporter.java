@@ -1,6 +1,6 @@
 package com.vitco.export;
 
-import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSourceInterface;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.util.components.progressbar.ProgressDialog;
@@ -21,7 +21,7 @@ import java.util.HashMap;
 public class PnxExporter extends AbstractExporter {
 
     // constructor
-    public PnxExporter(File exportTo, Data data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
+    public PnxExporter(File exportTo, VoxelSourceInterface data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
         super(exportTo, data, dialog, console);
     }
 
@@ -119,6 +119,7 @@ public class PnxExporter extends AbstractExporter {
         }
 
         // write data cache
+        fileOutBuffer.finish();
         fileOut.writeBytes(baos.toByteArray());
 
         // success
@@ -1,6 +1,6 @@
 package com.vitco.export;
 
-import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSourceInterface;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.settings.DynamicSettings;
@@ -17,7 +17,7 @@ import java.io.IOException;
 public class QbExporter extends AbstractExporter {
 
     // constructor
-    public QbExporter(File exportTo, Data data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
+    public QbExporter(File exportTo, VoxelSourceInterface data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
         super(exportTo, data, dialog, console);
     }
 
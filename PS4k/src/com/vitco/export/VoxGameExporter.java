@@ -1,6 +1,6 @@
 package com.vitco.export;
 
-import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSourceInterface;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.util.components.progressbar.ProgressDialog;
@@ -19,7 +19,7 @@ import java.util.Locale;
 public class VoxGameExporter extends AbstractExporter {
 
     // constructor
-    public VoxGameExporter(File exportTo, Data data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
+    public VoxGameExporter(File exportTo, VoxelSourceInterface data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
         super(exportTo, data, dialog, console);
     }
 
@@ -1,6 +1,6 @@
 package com.vitco.export;
 
-import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSourceInterface;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.util.components.progressbar.ProgressDialog;
@@ -16,7 +16,7 @@ import java.io.IOException;
 public class VoxVoxLapExporter extends AbstractExporter {
 
     // constructor
-    public VoxVoxLapExporter(File exportTo, Data data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
+    public VoxVoxLapExporter(File exportTo, VoxelSourceInterface data, ProgressDialog dialog, ConsoleInterface console) throws IOException {
         super(exportTo, data, dialog, console);
     }
 
@@ -67,17 +67,16 @@ public class VoxVoxLapExporter extends AbstractExporter {
         }
 
         // write the palette
+        byte[] paletteBytes = new byte[768];
         for (int i = 0; i < 256; i++) {
             Color col = palette.getKey((byte) i);
             if (col != null) {
-                byte r = (byte) Math.round((col.getRed() * 63) / 255f);
-                byte g = (byte) Math.round((col.getGreen() * 63) / 255f);
-                byte b = (byte) Math.round((col.getBlue() * 63) / 255f);
-                fileOut.writeBytes(new byte[] {r, g, b});
-            } else {
-                fileOut.writeBytes(new byte[3]);
+                paletteBytes[i * 3] = (byte) Math.round((col.getRed() * 63) / 255f);
+                paletteBytes[i * 3 + 1] = (byte) Math.round((col.getGreen() * 63) / 255f);
+                paletteBytes[i * 3 + 2] = (byte) Math.round((col.getBlue() * 63) / 255f);
             }
         }
+        fileOut.writeBytes(paletteBytes);
 
         // success
         return true;
@@ -72,6 +72,12 @@ public class ColladaExportWrapper extends ProgressReporter {
         algorithm = id;
     }
 
+    // setter for parallel triangulation of the planes
+    private boolean parallel = true;
+    public final void setParallel(boolean state) {
+        parallel = state;
+    }
+
     // setter for Y-UP instead of Z-UP
     private boolean useYUP = false;
     public final void setUseYUP(boolean useYUP) {
@@ -98,7 +104,7 @@ public class ColladaExportWrapper extends ProgressReporter {
         String prefix = FileTools.extractNameWithoutExtension(colladaFile) + "_texture";
 
         // create data export objects
-        ExportDataManager exportDataManager = new ExportDataManager(getProgressDialog(), getConsole(), data, padTextures, removeHoles, algorithm, useYUP, originMode, forcePOT);
+        ExportDataManager exportDataManager = new ExportDataManager(getProgressDialog(), getConsole(), data, padTextures, removeHoles, algorithm, useYUP, originMode, forcePOT, parallel);
         ColladaFileExporter colladaFileExporter = new ColladaFileExporter(getProgressDialog(), getConsole(), exportDataManager, prefix, objectName, useYUP);
 
         setActivity("Writing Data File...", true);
@@ -107,7 +113,7 @@ public class ColladaExportWrapper extends ProgressReporter {
             result = false;
         }
 
-        setActivity("Writing Textures...", true);
+        setActivity("Writing Textures...", false);
         // write the texture files
         File folder = colladaFile.getParentFile();
         if (!colladaFileExporter.writeTexturesToFolder(folder, errorHandler)) {
@@ -9,14 +9,16 @@ import com.vitco.manager.error.ErrorHandlerInterface;
 import com.vitco.settings.VitcoSettings;
 import com.vitco.util.components.progressbar.ProgressDialog;
 import com.vitco.util.components.progressbar.ProgressReporter;
+import com.vitco.util.components.progressbar.ProgressTask;
 import com.vitco.util.file.FileTools;
 import com.vitco.util.misc.DateTools;
-import com.vitco.util.xml.XmlFile;
+import com.vitco.util.xml.XmlStreamWriter;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 
 /**
  * Export data to COLLADA file ( with optional settings )
@@ -25,289 +27,258 @@ public class ColladaFileExporter extends ProgressReporter {
     // contains the data that will be used to write this collada file
     private final ExportDataManager exportDataManager;
 
-    // the xml Collada file that we're building
-    private final XmlFile xmlFile = new XmlFile("COLLADA");
-
     // prefix for the texture files (this should include the file name to prevent
     // overwriting of textures that belong to different files)
     private final String texturePrefix;
 
+    // the name of the object
+    private final String name;
+
+    // true if the y axis points up
+    private final boolean useYUP;
+
     // constructor
     public ColladaFileExporter(ProgressDialog dialog, ConsoleInterface console, ExportDataManager exportDataManager, String texturePrefix, String name, boolean useYUP) {
         super(dialog, console);
         this.exportDataManager = exportDataManager;
         this.texturePrefix = texturePrefix;
-        // initialize the xml file
-        setActivity("Creating File Data...", true);
-        initXmlFile(useYUP);
-        // create the object in the scene
-        setActivity("Creating Objects...", true);
-        writeObject(name);
-        // write the texture information
-        setActivity("Creating Textures...", true);
-        writeTextures();
-        // write the mesh + uv of the object (triangles)
-        setActivity("Creating Coordinates and UVs...", true);
-        writeCoordinates();
+        this.name = name;
+        this.useYUP = useYUP;
     }
 
-    // create the object in the scene
-    private void writeObject(String name) {
-        // create the object
-        xmlFile.resetTopNode("library_visual_scenes/visual_scene/node[-1]");
-        xmlFile.addAttributes("", new String[]{
-                "id=" + name,
-                "name=" + name,
-                "type=NODE"
-        });
-        xmlFile.addAttrAndTextContent("translate", new String[]{"sid=location"},
-                "0 0 0");
-        xmlFile.addAttrAndTextContent("rotate[-1]", new String[]{"sid=rotationZ"}, "0 0 1 0");
-        xmlFile.addAttrAndTextContent("rotate[-1]", new String[]{"sid=rotationY"}, "0 1 0 0");
-        xmlFile.addAttrAndTextContent("rotate[-1]", new String[]{"sid=rotationX"}, "1 0 0 0");
-        // scale the object down
-        xmlFile.addAttrAndTextContent("scale", new String[]{"sid=scale"}, "0.05 0.05 0.05");
-
-        // add the material to the object
-        xmlFile.setTopNode("instance_geometry[-1]");
-        xmlFile.addAttributes("", new String[]{"url=#Plane-tex-mesh"});
+    // write the basic information
+    private void writeAsset(XmlStreamWriter writer) throws IOException {
+        writer.start("asset");
+        writer.start("contributor");
+        writer.element("author", "VoxelShop User");
+        writer.element("authoring_tool", "VoxelShop V" + VitcoSettings.VERSION_ID);
+        writer.end();
+        String now = DateTools.now("yyyy-MM-dd'T'HH:mm:ss");
+        writer.element("created", now);
+        writer.element("modified", now);
+        writer.emptyElement("unit", "meter=1", "name=meter");
+        // blender default (can not be changed since blender ignores it!)
+        writer.element("up_axis", useYUP ? "Y_UP" : "Z_UP");
+        writer.end();
     }
 
-    // helper to register a texture image
-    private void addTexture(int id) {
-        // write the image to the library
-        xmlFile.resetTopNode("library_images/image[-1]");
-        xmlFile.addAttributes("", new String[]{
-                "id=" + texturePrefix + id + "-image",
-                "name=" + texturePrefix + id + "-image"
-        });
-        xmlFile.addTextContent("init_from",  texturePrefix + id + ".png");
-
-        // create texture reference in object
-        xmlFile.resetTopNode("library_visual_scenes/visual_scene/node/instance_geometry" +
-                "/bind_material/technique_common/instance_material[-1]");
-        xmlFile.addAttributes("", new String[]{
-                "symbol=lambert" + id + "-material",
-                "target=#lambert" + id + "-material"
-        });
-        // add the uv mapping
-        xmlFile.addAttributes("bind_vertex_input", new String[]{
-                "semantic=TEX0",
-                "input_semantic=TEXCOORD",
-                "input_set=0"
-        });
-
-        // add the material
-        xmlFile.resetTopNode("library_materials/material[-1]");
-        xmlFile.addAttributes("", new String[]{
-                "id=lambert" + id + "-material",
-                "name=lambert" + id
-        });
-        xmlFile.addAttributes("instance_effect", new String[]{
-                "url=#lambert" + id + "-fx"
-        });
+    // write the different textures (images, effects and materials)
+    private void writeTextures(XmlStreamWriter writer, int[][] textureIds) throws IOException {
+        // the used images
+        writer.start("library_images");
+        for (int[] textureId : textureIds) {
+            int id = textureId[0];
+            writer.start("image", "id=" + texturePrefix + id + "-image", "name=" + texturePrefix + id + "-image");
+            writer.element("init_from", texturePrefix + id + ".png");
+            writer.end();
+        }
+        writer.end();
 
-        // write the image effect
-        xmlFile.resetTopNode("library_effects/effect[-1]");
-        xmlFile.addAttributes("", new String[]{
-                "id=lambert" + id + "-fx"
-        });
-        xmlFile.setTopNode("profile_COMMON");
-        // ----
-        xmlFile.setTopNode("newparam[-1]");
-        xmlFile.addAttributes("", new String[]{"sid=" + texturePrefix + id + "-surface"});
-        xmlFile.addAttributes("surface", new String[]{"type=2D"});
-        xmlFile.addTextContent("surface/init_from",  texturePrefix + id + "-image");
-        // ----
-        xmlFile.goUp();
-        xmlFile.setTopNode("newparam[-1]");
-        xmlFile.addAttributes("", new String[]{"sid=" + texturePrefix + id + "-sampler"});
-        xmlFile.addTextContent("sampler2D/source", texturePrefix + id + "-surface");
-        // ----
-        xmlFile.goUp();
-        xmlFile.setTopNode("technique[-1]");
-        xmlFile.addAttributes("", new String[]{"sid=common"});
-        xmlFile.addTextContent("lambert/emission/color", "0 0 0 1");
-        xmlFile.addTextContent("lambert/ambient/color", "0 0 0 1");
-        xmlFile.addAttributes("lambert/diffuse/texture", new String[]{
-                "texture=" + texturePrefix + id + "-sampler",
-                "texcoord=TEX0"
-        });
-    }
+        // the image effects
+        writer.start("library_effects");
+        for (int[] textureId : textureIds) {
+            int id = textureId[0];
+            writer.start("effect", "id=lambert" + id + "-fx");
+            writer.start("profile_COMMON");
+            // ----
+            writer.start("newparam", "sid=" + texturePrefix + id + "-surface");
+            writer.start("surface", "type=2D");
+            writer.element("init_from", texturePrefix + id + "-image");
+            writer.end();
+            writer.end();
+            // ----
+            writer.start("newparam", "sid=" + texturePrefix + id + "-sampler");
+            writer.start("sampler2D");
+            writer.element("source", texturePrefix + id + "-surface");
+            writer.end();
+            writer.end();
+            // ----
+            writer.start("technique", "sid=common");
+            writer.start("lambert");
+            writer.start("emission");
+            writer.element("color", "0 0 0 1");
+            writer.end();
+            writer.start("ambient");
+            writer.element("color", "0 0 0 1");
+            writer.end();
+            writer.start("diffuse");
+            writer.emptyElement("texture", "texcoord=TEX0", "texture=" + texturePrefix + id + "-sampler");
+            writer.end();
+            writer.end();
+            writer.end();
+            writer.end();
+            writer.end();
+        }
+        writer.end();
 
-    // write the different textures
-    private void writeTextures() {
-        // obtain all texture ids
-        int[][] textureIds = exportDataManager.getTriangleManager().getTextureIds();
-        // write texture file names to xml file
+        // the materials linked to the effects
+        writer.start("library_materials");
         for (int[] textureId : textureIds) {
-            addTexture(textureId[0]);
+            int id = textureId[0];
+            writer.start("material", "id=lambert" + id + "-material", "name=lambert" + id);
+            writer.emptyElement("instance_effect", "url=#lambert" + id + "-fx");
+            writer.end();
         }
+        writer.end();
     }
 
     // write the coordinates
-    private void writeCoordinates() {
+    private void writeCoordinates(XmlStreamWriter writer, int[][] textureIds) throws IOException {
         TexTriangleManager texTriangleManager = exportDataManager.getTriangleManager();
 
-        // reset top node
-        xmlFile.resetTopNode("library_geometries/geometry[-1]");
-        xmlFile.addAttributes("", new String[] {
-                "id=Plane-tex-mesh",
-                "name=Plane-tex"
-        });
-        xmlFile.setTopNode("mesh");
+        writer.start("library_geometries");
+        writer.start("geometry", "id=Plane-tex-mesh", "name=Plane-tex");
+        writer.start("mesh");
 
         // Plane-tex-mesh-positions
-        xmlFile.addAttributes("source[-1]", new String[] {
-                "id=Plane-tex-mesh-positions"
-        });
-        xmlFile.addAttrAndTextContent("source[0]/float_array",
-                new String[]{
-                        "id=Plane-tex-mesh-positions-array",
-                        "count=" + texTriangleManager.getUniquePointCount() * 3},
-                texTriangleManager.getUniquePointString(true));
-        xmlFile.addAttributes("source[0]/technique_common/accessor", new String[]{
-                "source=#Plane-tex-mesh-positions-array",
-                "count=" + texTriangleManager.getUniquePointCount(),
-                "stride=3"
-        });
-        xmlFile.addAttributes("source[0]/technique_common/accessor/param[-1]",
-                new String[]{"name=X", "type=float"});
-        xmlFile.addAttributes("source[0]/technique_common/accessor/param[-1]",
-                new String[]{"name=Y", "type=float"});
-        xmlFile.addAttributes("source[0]/technique_common/accessor/param[-1]",
-                new String[]{"name=Z", "type=float"});
+        int pointCount = texTriangleManager.getUniquePointCount();
+        writer.start("source", "id=Plane-tex-mesh-positions");
+        writer.start("float_array", "count=" + pointCount * 3, "id=Plane-tex-mesh-positions-array");
+        texTriangleManager.writeUniquePoints(writer, true);
+        writer.end();
+        writer.start("technique_common");
+        writer.start("accessor", "count=" + pointCount, "source=#Plane-tex-mesh-positions-array", "stride=3");
+        writer.emptyElement("param", "name=X", "type=float");
+        writer.emptyElement("param", "name=Y", "type=float");
+        writer.emptyElement("param", "name=Z", "type=float");
+        writer.end();
+        writer.end();
+        writer.end();
 
         // --- write the uvs
-        xmlFile.addAttributes("source[-1]", new String[] {
-                "id=Plane-tex-mesh-uvs"
-        });
-        xmlFile.addAttrAndTextContent("source[1]/float_array",
-                new String[]{
-                        "id=Plane-tex-mesh-uvs-array",
-                        "count=" + (texTriangleManager.getUniqueUVCount() * 2)},
-                texTriangleManager.getUniqueUVString(false));
-
-        xmlFile.addAttributes("source[1]/technique_common/accessor", new String[]{
-                "source=#Plane-tex-mesh-uvs-array",
-                "count=" + texTriangleManager.getUniqueUVCount(),
-                "stride=2"
-        });
-        xmlFile.addAttributes("source[1]/technique_common/accessor/param[-1]",
-                new String[]{"name=S", "type=float"});
-        xmlFile.addAttributes("source[1]/technique_common/accessor/param[-1]",
-                new String[]{"name=T", "type=float"});
+        int uvCount = texTriangleManager.getUniqueUVCount();
+        writer.start("source", "id=Plane-tex-mesh-uvs");
+        writer.start("float_array", "count=" + uvCount * 2, "id=Plane-tex-mesh-uvs-array");
+        texTriangleManager.writeUniqueUVs(writer, false);
+        writer.end();
+        writer.start("technique_common");
+        writer.start("accessor", "count=" + uvCount, "source=#Plane-tex-mesh-uvs-array", "stride=2");
+        writer.emptyElement("param", "name=S", "type=float");
+        writer.emptyElement("param", "name=T", "type=float");
+        writer.end();
+        writer.end();
+        writer.end();
 
         // vertices (generic information)
-        xmlFile.addAttributes("vertices", new String[] {
-                "id=Plane-tex-mesh-vertices"
-        });
-        xmlFile.addAttributes("vertices/input", new String[] {
-                "semantic=POSITION",
-                "source=#Plane-tex-mesh-positions"
-        });
+        writer.start("vertices", "id=Plane-tex-mesh-vertices");
+        writer.emptyElement("input", "semantic=POSITION", "source=#Plane-tex-mesh-positions");
+        writer.end();
 
         // write one poly list for each texture
-        for (int[] groupId : texTriangleManager.getTextureIds()) {
-
-            // write data
-            xmlFile.resetTopNode("library_geometries/geometry/mesh/polylist[-1]");
-            xmlFile.addAttributes("", new String[]{
-                    "material=lambert" + groupId[0] + "-material",
-                    "count=" + groupId[1]
-            });
-            xmlFile.addAttributes("input[-1]", new String[]{
-                    "semantic=VERTEX",
-                    "source=#Plane-tex-mesh-vertices",
-                    "offset=0"
-            });
-            xmlFile.addAttributes("input[-1]", new String[]{
-                    "semantic=TEXCOORD",
-                    "source=#Plane-tex-mesh-uvs",
-                    "offset=1",
-                    "set=0"
-            });
+        for (int[] groupId : textureIds) {
+            writer.start("polylist", "count=" + groupId[1], "material=lambert" + groupId[0] + "-material");
+            writer.emptyElement("input", "offset=0", "semantic=VERTEX", "source=#Plane-tex-mesh-vertices");
+            writer.emptyElement("input", "offset=1", "semantic=TEXCOORD", "set=0", "source=#Plane-tex-mesh-uvs");
             // fill with 3s (each triangle consists of three points)
-            xmlFile.addTextContent("vcount", new String(new char[groupId[1]]).replace("\0", " 3").substring(1));
-            xmlFile.addTextContent("p", texTriangleManager.getTrianglePolygonList(groupId[0]));
-
+            writer.start("vcount");
+            for (int i = 0; i < groupId[1]; i++) {
+                writer.text(i == 0 ? "3" : " 3");
+            }
+            writer.end();
+            writer.start("p");
+            texTriangleManager.writeTrianglePolygonList(groupId[0], writer);
+            writer.end();
+            writer.end();
         }
-    }
 
-    // -----------------------
+        writer.end();
+        writer.end();
+        writer.end();
+    }
 
-    // initialize the XML file
-    private void initXmlFile(boolean useYUP) {
-        // basic information
-        xmlFile.addAttributes("", new String[] {
-                "xmlns=http://www.collada.org/2005/11/COLLADASchema",
-                "version=1.4.1"});
+    // create the object in the scene
+    private void writeScene(XmlStreamWriter writer, int[][] textureIds) throws IOException {
+        writer.start("library_visual_scenes");
+        writer.start("visual_scene", "id=Scene", "name=Scene");
+        writer.start("node", "id=" + name, "name=" + name, "type=NODE");
+        writer.element("translate", "0 0 0", "sid=location");
+        writer.element("rotate", "0 0 1 0", "sid=rotationZ");
+        writer.element("rotate", "0 1 0 0", "sid=rotationY");
+        writer.element("rotate", "1 0 0 0", "sid=rotationX");
+        // scale the object down
+        writer.element("scale", "0.05 0.05 0.05", "sid=scale");
 
-        // basic information
-        xmlFile.resetTopNode("asset");
-        xmlFile.addTextContent("contributor/author", "VoxelShop User");
-        xmlFile.addTextContent("contributor/authoring_tool", "VoxelShop V" + VitcoSettings.VERSION_ID);
-        String now = DateTools.now("yyyy-MM-dd'T'HH:mm:ss");
-        xmlFile.addTextContent("created", now);
-        xmlFile.addTextContent("modified", now);
-        xmlFile.addAttributes("unit", new String[] {"name=meter","meter=1"});
-        // blender default (can not be changed since blender ignores it!)
-        if (useYUP) {
-            xmlFile.addTextContent("up_axis", "Y_UP");
-        } else {
-            xmlFile.addTextContent("up_axis", "Z_UP");
+        // add the material to the object
+        writer.start("instance_geometry", "url=#Plane-tex-mesh");
+        writer.start("bind_material");
+        writer.start("technique_common");
+        for (int[] textureId : textureIds) {
+            int id = textureId[0];
+            writer.start("instance_material", "symbol=lambert" + id + "-material", "target=#lambert" + id + "-material");
+            // add the uv mapping
+            writer.emptyElement("bind_vertex_input", "input_semantic=TEXCOORD", "input_set=0", "semantic=TEX0");
+            writer.end();
         }
-
-
-        // =========================
-
-        // will hold the used images (library)
-        // (this will be deleted later on if there is no
-        // texture image used for this dae file)
-        xmlFile.resetTopNode("library_images");
-
-        // will hold all the color "effect" information
-        xmlFile.resetTopNode("library_effects");
-
-        // will contain the materials linked to the color information
-        xmlFile.resetTopNode("library_materials");
-
-        // will contain geometries (mesh) of the object
-        xmlFile.resetTopNode("library_geometries");
-
-        // =========================
-
-        // contains the scene
-        xmlFile.resetTopNode("library_visual_scenes/visual_scene");
-        xmlFile.addAttributes("", new String[] {
-                "id=Scene",
-                "name=Scene"
-        });
+        writer.end();
+        writer.end();
+        writer.end();
+        writer.end();
+        writer.end();
+        writer.end();
 
         // link the library_visual_scenes node
-        xmlFile.resetTopNode("scene");
-        xmlFile.addAttributes("instance_visual_scene", new String[]{"url=#Scene"});
+        writer.start("scene");
+        writer.emptyElement("instance_visual_scene", "url=#Scene");
+        writer.end();
     }
 
-    // save this file
+    // -----------------------
+
+    // save this file (the file is written while it is created, so
+    // big meshes don't need to be held in memory as a document)
     public boolean writeToFile(File file, ErrorHandlerInterface errorHandler) {
-        return xmlFile.writeToFile(file, errorHandler);
+        int[][] textureIds = exportDataManager.getTriangleManager().getTextureIds();
+        XmlStreamWriter writer = null;
+        try {
+            writer = new XmlStreamWriter(file);
+            setActivity("Writing File Data...", true);
+            writer.start("COLLADA", "xmlns=http://www.collada.org/2005/11/COLLADASchema", "version=1.4.1");
+            writeAsset(writer);
+            setActivity("Writing Textures...", true);
+            writeTextures(writer, textureIds);
+            setActivity("Writing Coordinates and UVs...", true);
+            writeCoordinates(writer, textureIds);
+            setActivity("Writing Objects...", true);
+            writeScene(writer, textureIds);
+            writer.close();
+            writer = null;
+            return true;
+        } catch (IOException e) {
+            errorHandler.handle(e);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // the original error was already reported
+                }
+            }
+        }
+        return false;
     }
 
     // write texture files
     public boolean writeTexturesToFolder(File folder, ErrorHandlerInterface errorHandler) {
         int[][] textureIds = exportDataManager.getTriangleManager().getTextureIds();
-        TriTextureManager triTextureManager = exportDataManager.getTextureManager();
+        final TriTextureManager triTextureManager = exportDataManager.getTextureManager();
+        final String path = FileTools.ensureTrailingSeparator(folder.getAbsolutePath());
+        // the texture files are written concurrently
+        ArrayList<ProgressTask<Object>> tasks = new ArrayList<ProgressTask<Object>>();
+        for (final int[] textureId : textureIds) {
+            tasks.add(new ProgressTask<Object>() {
+                @Override
+                protected Object call() throws Exception {
+                    TriTexture texture = triTextureManager.getTexture(textureId[0]);
+                    BufferedImage textureImage = texture.getImage();
+                    ImageIO.write(textureImage, "png", new File(path + texturePrefix + textureId[0] + ".png"));
+                    return null;
+                }
+            });
+        }
         try {
-            for (int[] textureId : textureIds) {
-                TriTexture texture = triTextureManager.getTexture(textureId[0]);
-                BufferedImage textureImage = texture.getImage();
-                ImageIO.write(textureImage, "png", new File(
-                        FileTools.ensureTrailingSeparator(folder.getAbsolutePath()) + texturePrefix + textureId[0] + ".png"
-                        ));
-            }
+            invokeAll(tasks);
             return true;
-        } catch (IOException e) {
+        } catch (Exception e) {
             errorHandler.handle(e);
         }
         return false;
@@ -14,12 +14,15 @@ import com.vitco.settings.DynamicSettings;
 import com.vitco.util.components.progressbar.ProgressDialog;
 import com.vitco.util.components.progressbar.ProgressReporter;
 import gnu.trove.list.array.TShortArrayList;
+import gnu.trove.set.hash.TIntHashSet;
 import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Encapsulates the voxel data and manages restructuring, preparing it for exporting.
@@ -70,9 +73,38 @@ public class ExportDataManager extends ProgressReporter {
     public static final int POLY2TRI_ALGORITHM = 0;
     public static final int MINIMAL_RECT_ALGORITHM = 1;
     public static final int NAIVE_ALGORITHM = 2;
+    // select the fastest algorithm per plane (no rendering artifacts)
+    public static final int AUTO_ALGORITHM = 3;
+    // select the fastest algorithm per plane (t-junction problems are allowed)
+    public static final int AUTO_LOW_POLY_ALGORITHM = 4;
+
+    // the cost model that is used by the auto algorithms (fixed coefficients, so the
+    // selection and the resulting mesh do not depend on timings)
+    private static final TriangulationCostModel costModel = new TriangulationCostModel();
+
+    // the planes that are triangulated with the naive algorithm (by plane key)
+    private final TIntHashSet naivePlanes = new TIntHashSet();
+
+    // helper - the key of a plane
+    private static int getPlaneKey(int orientation, int depth) {
+        return (orientation << 16) | (depth & 0xFFFF);
+    }
+
+    // helper - true if a naive plane touches the corner line at this coordinate of the axis (the
+    // naive algorithm uses every corner point, so the other planes need to use these points as well)
+    private boolean touchesNaivePlane(int axis, int corner) {
+        // the face of a voxel at depth d lies at corner d + 1 for even orientations and at corner d otherwise
+        return naivePlanes.contains(getPlaneKey(axis * 2, corner - 1)) ||
+                naivePlanes.contains(getPlaneKey(axis * 2 + 1, corner));
+    }
 
     // constructor
     public ExportDataManager(ProgressDialog dialog, ConsoleInterface console, Data data, boolean usePadding, boolean removeHoles, int algorithm, boolean useYUP, int originMode, boolean forcePOT) {
+        this(dialog, console, data, usePadding, removeHoles, algorithm, useYUP, originMode, forcePOT, false);
+    }
+
+    // constructor (the planes are triangulated concurrently if parallel is set, the result is the same)
+    public ExportDataManager(ProgressDialog dialog, ConsoleInterface console, Data data, boolean usePadding, boolean removeHoles, int algorithm, boolean useYUP, int originMode, boolean forcePOT, boolean parallel) {
         super(dialog, console);
 
         // create hull manager that exposes hull information
@@ -115,7 +147,7 @@ public class ExportDataManager extends ProgressReporter {
         }
 
         // extract information
-        extract(algorithm);
+        extract(algorithm, parallel);
 
         // combine the textures
         textureManager.combine();
@@ -129,8 +161,12 @@ public class ExportDataManager extends ProgressReporter {
         textureManager.validateUVMappings();
     }
 
-    // make sure that the polygon has no 3D t-junction problems
-    private short[][][] fix3DTJunctionProblems(short[][][] polys, int planeAbove, int id1, int id2, int minA, int minB) {
+    // make sure that the polygon has no 3D t-junction problems (also with adjacent naive planes)
+    private short[][][] fix3DTJunctionProblems(short[][][] polys, int orientation, int depth, int id1, int id2, int minA, int minB) {
+        int planeAbove = depth + (orientation%2 == 0 ? 1 : -1);
+        // true if the naive plane on the other side of this plane touches it
+        boolean coplanarNaive = !naivePlanes.isEmpty() &&
+                touchesNaivePlane(orientation/2, orientation%2 == 0 ? depth + 1 : depth);
         // result array
         short[][][] result = new short[polys.length][][];
         // temporary arrays to do comparisons
@@ -153,6 +189,9 @@ public class ExportDataManager extends ProgressReporter {
                     list.add(outline[i+1]);
                     // check the type of line segment
                     if (outline[i + 2] == outline[i]) { // x values are equal
+                        // use all points if the line touches a naive plane
+                        boolean allPoints = coplanarNaive ||
+                                (!naivePlanes.isEmpty() && touchesNaivePlane(id1, outline[i] + minA));
                         // compute the move direction
                         int step = (outline[i + 3] > outline[i + 1]) ? 1 : -1;
                         // move over all whole "in between" steps between this and the next point
@@ -162,13 +201,16 @@ public class ExportDataManager extends ProgressReporter {
                             pos1[id2] = (short) (y + minB);
                             pos2[id1] = x;
                             pos2[id2] = (short) (y-1 + minB);
-                            if (hullManager.contains(pos1) != hullManager.contains(pos2)) {
+                            if (allPoints || hullManager.contains(pos1) != hullManager.contains(pos2)) {
                                 // the "in between" point needs to be used for triangle generation
                                 list.add(outline[i]);
                                 list.add(y);
                             }
                         }
                     } else { // y values are equal
+                        // use all points if the line touches a naive plane
+                        boolean allPoints = coplanarNaive ||
+                                (!naivePlanes.isEmpty() && touchesNaivePlane(id2, outline[i + 1] + minB));
                         // compute the move direction
                         int step = (outline[i + 2] > outline[i]) ? 1 : -1;
                         // move over all whole "in between" steps between this and the next point
@@ -178,7 +220,7 @@ public class ExportDataManager extends ProgressReporter {
                             pos1[id2] = y;
                             pos2[id1] = (short) (x - 1 + minA);
                             pos2[id2] = y;
-                            if (hullManager.contains(pos1) != hullManager.contains(pos2)) {
+                            if (allPoints || hullManager.contains(pos1) != hullManager.contains(pos2)) {
                                 // the "in between" point needs to be used for triangle generation
                                 list.add(x);
                                 list.add(outline[i + 1]);
@@ -198,17 +240,103 @@ public class ExportDataManager extends ProgressReporter {
         return result;
     }
 
+    // a plane of the hull (all visible sides into one direction with the same depth)
+    private final class Plane {
+        // the side orientation (0-5)
+        private final int orientation;
+        // the depth of this plane
+        private final short depth;
+        // the visible sides in this plane
+        private final ArrayList<short[]> borders;
+        // the axis that are spanning this plane
+        private final int id1;
+        private final int id2;
+        // the bounding rectangle of this plane
+        private short minA = Short.MAX_VALUE;
+        private short minB = Short.MAX_VALUE;
+        private short maxA = Short.MIN_VALUE;
+        private short maxB = Short.MIN_VALUE;
+
+        // information used to select the algorithm (only for the auto algorithms)
+        private TriangulationCostModel.PlaneInfo planeInfo = null;
+        // the algorithm that is used for this plane
+        private int algorithm;
+
+        // the result of the triangulation
+        private Collection<DelaunayTriangle> tris;
+
+        // constructor
+        private Plane(int orientation, short depth, ArrayList<short[]> borders, int id1, int id2) {
+            this.orientation = orientation;
+            this.depth = depth;
+            this.borders = borders;
+            this.id1 = id1;
+            this.id2 = id2;
+            for (short[] entry : borders) {
+                minA = (short) Math.min(minA, entry[id1]);
+                minB = (short) Math.min(minB, entry[id2]);
+                maxA = (short) Math.max(maxA, entry[id1]);
+                maxB = (short) Math.max(maxB, entry[id2]);
+            }
+        }
+
+        // create the bit representation of this plane
+        private boolean[][] getData() {
+            boolean[][] data = new boolean[maxA - minA + 1][maxB - minB + 1];
+            for (short[] entry : borders) {
+                data[entry[id1]-minA][entry[id2]-minB] = true;
+            }
+            return data;
+        }
+
+        // triangulate this plane (only reads the hull, so planes can be triangulated concurrently)
+        private void triangulate() {
+            boolean[][] data = getData();
+            switch (algorithm) {
+                case ExportDataManager.MINIMAL_RECT_ALGORITHM:
+                    tris = Grid2TriGreedyOptimal.triangulate(data);
+                    break;
+                case ExportDataManager.NAIVE_ALGORITHM:
+                    tris = Grid2TriNaive.triangulate(data);
+                    break;
+                default:
+                    // generate triangles
+                    short[][][] polys = Grid2PolyHelper.convert(data);
+                    // fix 3D t-junction problems
+                    // Note: This *should* work the same if only outside is used (i.e. holes are removed)
+                    polys = fix3DTJunctionProblems(polys, orientation, depth, id1, id2, minA, minB);
+                    // extract triangles
+                    tris = Grid2TriPolyFast.triangulate(polys);
+                    break;
+            }
+        }
+    }
+
+    // helper - run a task in the pool (or directly if there is no pool)
+    private static ForkJoinTask<?> schedule(ForkJoinPool pool, Runnable task) {
+        if (pool == null) {
+            task.run();
+            return null;
+        }
+        return pool.submit(task);
+    }
+
+    // helper - wait for a task to finish
+    private static void join(ForkJoinTask<?> task) {
+        if (task != null) {
+            task.join();
+        }
+    }
+
     // extract the necessary information from the hull manager
-    private void extract(int algorithm) {
+    private void extract(int algorithm, boolean parallel) {
         setActivity("Extracting Mesh...", false);
-        // loop over all sides
+        // collect the planes of all sides
+        ArrayList<Plane> planeList = new ArrayList<Plane>();
         for (int i = 0; i < 6; i++) {
-            // get borders into specific direction and
-            // calculate orientation related variables
+            // get borders into specific direction
             short[][] hull = removeHoles ? hullManager.getExteriorHull(i) : hullManager.getHull(i);
             final int directionId = i/2;
-            final boolean orientationPositive = i%2 != (directionId == 1 ? 1 : 0);
-            final int offset = i%2 != 1 ? 1 : 0;
 
             // extract planes
             HashMap<Short, ArrayList<short[]>> planes = new HashMap<Short, ArrayList<short[]>>();
@@ -239,129 +367,156 @@ public class ExportDataManager extends ProgressReporter {
                     break;
             }
 
-            // loop over planes
-            int progressCount = 0;
-            float elementCount = planes.size();
             for (Map.Entry<Short, ArrayList<short[]>> entries : planes.entrySet()) {
-                setProgress((i/6f) * 100 + ((progressCount/elementCount)/6f) * 100);
-                progressCount++;
-                // generate mesh
-                short minA = Short.MAX_VALUE;
-                short minB = Short.MAX_VALUE;
-                short maxA = Short.MIN_VALUE;
-                short maxB = Short.MIN_VALUE;
-                for (short[] entry : entries.getValue()) {
-                    minA = (short) Math.min(minA, entry[id1]);
-                    minB = (short) Math.min(minB, entry[id2]);
-                    maxA = (short) Math.max(maxA, entry[id1]);
-                    maxB = (short) Math.max(maxB, entry[id2]);
-                }
-                boolean[][] data = new boolean[maxA - minA + 1][maxB - minB + 1];
-                for (short[] entry : entries.getValue()) {
-                    data[entry[id1]-minA][entry[id2]-minB] = true;
-                }
+                Plane plane = new Plane(i, entries.getKey(), entries.getValue(), id1, id2);
+                plane.algorithm = algorithm;
+                planeList.add(plane);
+            }
+        }
 
-                Collection<DelaunayTriangle> tris;
-                switch (algorithm) {
-                    case ExportDataManager.MINIMAL_RECT_ALGORITHM:
-                        tris = Grid2TriGreedyOptimal.triangulate(data);
-                        break;
-                    case ExportDataManager.NAIVE_ALGORITHM:
-                        tris = Grid2TriNaive.triangulate(data);
-                        break;
-                    default:
-                        // generate triangles
-                        short[][][] polys = Grid2PolyHelper.convert(data);
-                        // fix 3D t-junction problems
-                        int planeAbove = entries.getKey() + (i%2 == 0 ? 1 : -1);
-                        // Note: This *should* work the same if only outside is used (i.e. holes are removed)
-                        polys = fix3DTJunctionProblems(polys, planeAbove, id1, id2, minA, minB);
-                        // extract triangles
-                        tris = Grid2TriPolyFast.triangulate(polys);
-                        break;
+        // the planes are triangulated concurrently, but the triangles are always
+        // added in the same order (the result does not depend on the mode)
+        ForkJoinPool pool = parallel ? new ForkJoinPool(Runtime.getRuntime().availableProcessors()) : null;
+        try {
+            // select the algorithm per plane (only depends on the plane, so the selection
+            // is the same for every export of the same data)
+            if (algorithm == AUTO_ALGORITHM || algorithm == AUTO_LOW_POLY_ALGORITHM) {
+                ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+                for (final Plane plane : planeList) {
+                    tasks.add(schedule(pool, new Runnable() {
+                        @Override
+                        public void run() {
+                            plane.planeInfo = new TriangulationCostModel.PlaneInfo(plane.getData());
+                        }
+                    }));
                 }
-
-
-                for (DelaunayTriangle tri : tris) {
-
-                    // create the triangle
-                    TexTriangle texTri = new TexTriangle(tri, triangleManager, i);
-
-                    // create the texture (wrapper) for this triangle
-                    TexTriUV[] uvs = texTri.getUVs();
-                    TriTexture triTexture = new TriTexture(
-                            // Note: The triangulation points might have rounding errors (!)
-                            // So we <need> to round these values (casting to int is not sufficient!)
-                            uvs[0], Math.round(minA + tri.points[0].getXf()), Math.round(minB + tri.points[0].getYf()),
-                            uvs[1], Math.round(minA + tri.points[1].getXf()), Math.round(minB + tri.points[1].getYf()),
-                            uvs[2], Math.round(minA + tri.points[2].getXf()), Math.round(minB + tri.points[2].getYf()),
-                            entries.getKey(),
-                            usePadding,
-                            texTri, this.data,
-                            textureManager
-                    );
-
-                    // set the texture for this triangle
-                    texTri.setTexture(triTexture);
-
-                    // add to the texture manager
-                    textureManager.addTexture(triTexture);
-
-                    // translate to triangle in 3D space
-                    for (int p = 0; p < 3; p++) {
-                        TexTriPoint point = texTri.getPoint(p);
-                        float[] coord = point.getCoords();
-                        point.set(directionId, entries.getKey() + offset);
-                        point.set(id1, minA + coord[0]);
-                        point.set(id2, minB + coord[1]);
+                for (int i = 0; i < planeList.size(); i++) {
+                    join(tasks.get(i));
+                    Plane plane = planeList.get(i);
+                    plane.algorithm = costModel.select(plane.planeInfo, algorithm == AUTO_LOW_POLY_ALGORITHM);
+                    if (plane.algorithm == NAIVE_ALGORITHM) {
+                        naivePlanes.add(getPlaneKey(plane.orientation, plane.depth));
                     }
+                }
+            }
 
-                    // invert the triangle when necessary (correct back-face culling)
-                    if (orientationPositive) {
-                        texTri.invert();
+            // triangulate the planes
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+            for (final Plane plane : planeList) {
+                tasks.add(schedule(pool, new Runnable() {
+                    @Override
+                    public void run() {
+                        plane.triangulate();
                     }
+                }));
+            }
 
-                    // change positions so that the exported file is accurate
-                    texTri.swap(1, 2);
-                    texTri.invert(0);
-                    texTri.invert(1);
-                    texTri.invert(2);
-
-                    if (this.originMode == ColladaExportWrapper.ORIGIN_CROSS) {
-                        texTri.move(0.5f, 0.5f, 0.5f); // move one up
-                    } else if (this.originMode == ColladaExportWrapper.ORIGIN_CENTER) {
-                        texTri.move(center[0] + 0.5f, center[2] + 0.5f, center[1] + 0.5f);
-                    } else if (this.originMode == ColladaExportWrapper.ORIGIN_PLANE_CENTER) {
-                        texTri.move(center[0] + 0.5f, center[2] + 0.5f, 1f);
-                    } else if (this.originMode == ColladaExportWrapper.ORIGIN_BOX_CENTER) {
-                        texTri.move(
-                            DynamicSettings.VOXEL_PLANE_SIZE_X % 2 == 0 ? 0f : 0.5f,
-                            DynamicSettings.VOXEL_PLANE_SIZE_Z % 2 == 0 ? 0f : 0.5f,
-                            1f - DynamicSettings.VOXEL_PLANE_RANGE_Y
-                        );
-                    } else if (this.originMode == ColladaExportWrapper.ORIGIN_BOX_PLANE_CENTER) {
-                        texTri.move(
-                            DynamicSettings.VOXEL_PLANE_SIZE_X % 2 == 0 ? 0f : 0.5f,
-                            DynamicSettings.VOXEL_PLANE_SIZE_Z % 2 == 0 ? 0f : 0.5f,
-                            1f
-                        );
-                    }
+            // add the triangles (in order)
+            for (int i = 0, len = planeList.size(); i < len; i++) {
+                setProgress((i / (float) len) * 100);
+                join(tasks.get(i));
+                Plane plane = planeList.get(i);
+                addTriangles(plane);
+                // free memory
+                plane.tris = null;
+                planeList.set(i, null);
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
 
-                    if (useYUP) {
-                        texTri.swap(1, 2);
-                        texTri.invert(2);
-                    }
+    // create the textured triangles of a plane
+    private void addTriangles(Plane plane) {
+        final int i = plane.orientation;
+        final int directionId = i/2;
+        final boolean orientationPositive = i%2 != (directionId == 1 ? 1 : 0);
+        final int offset = i%2 != 1 ? 1 : 0;
+        final int id1 = plane.id1;
+        final int id2 = plane.id2;
+        final short minA = plane.minA;
+        final short minB = plane.minB;
+
+        for (DelaunayTriangle tri : plane.tris) {
+
+            // create the triangle
+            TexTriangle texTri = new TexTriangle(tri, triangleManager, i);
+
+            // create the texture (wrapper) for this triangle
+            TexTriUV[] uvs = texTri.getUVs();
+            TriTexture triTexture = new TriTexture(
+                    // Note: The triangulation points might have rounding errors (!)
+                    // So we <need> to round these values (casting to int is not sufficient!)
+                    uvs[0], Math.round(minA + tri.points[0].getXf()), Math.round(minB + tri.points[0].getYf()),
+                    uvs[1], Math.round(minA + tri.points[1].getXf()), Math.round(minB + tri.points[1].getYf()),
+                    uvs[2], Math.round(minA + tri.points[2].getXf()), Math.round(minB + tri.points[2].getYf()),
+                    plane.depth,
+                    usePadding,
+                    texTri, this.data,
+                    textureManager
+            );
+
+            // set the texture for this triangle
+            texTri.setTexture(triTexture);
+
+            // add to the texture manager
+            textureManager.addTexture(triTexture);
+
+            // translate to triangle in 3D space
+            for (int p = 0; p < 3; p++) {
+                TexTriPoint point = texTri.getPoint(p);
+                float[] coord = point.getCoords();
+                point.set(directionId, plane.depth + offset);
+                point.set(id1, minA + coord[0]);
+                point.set(id2, minB + coord[1]);
+            }
 
-                    // scale to create integers
-                    texTri.scale(2);
+            // invert the triangle when necessary (correct back-face culling)
+            if (orientationPositive) {
+                texTri.invert();
+            }
 
-                    // convert to integer values
-                    texTri.round();
+            // change positions so that the exported file is accurate
+            texTri.swap(1, 2);
+            texTri.invert(0);
+            texTri.invert(1);
+            texTri.invert(2);
+
+            if (this.originMode == ColladaExportWrapper.ORIGIN_CROSS) {
+                texTri.move(0.5f, 0.5f, 0.5f); // move one up
+            } else if (this.originMode == ColladaExportWrapper.ORIGIN_CENTER) {
+                texTri.move(center[0] + 0.5f, center[2] + 0.5f, center[1] + 0.5f);
+            } else if (this.originMode == ColladaExportWrapper.ORIGIN_PLANE_CENTER) {
+                texTri.move(center[0] + 0.5f, center[2] + 0.5f, 1f);
+            } else if (this.originMode == ColladaExportWrapper.ORIGIN_BOX_CENTER) {
+                texTri.move(
+                    DynamicSettings.VOXEL_PLANE_SIZE_X % 2 == 0 ? 0f : 0.5f,
+                    DynamicSettings.VOXEL_PLANE_SIZE_Z % 2 == 0 ? 0f : 0.5f,
+                    1f - DynamicSettings.VOXEL_PLANE_RANGE_Y
+                );
+            } else if (this.originMode == ColladaExportWrapper.ORIGIN_BOX_PLANE_CENTER) {
+                texTri.move(
+                    DynamicSettings.VOXEL_PLANE_SIZE_X % 2 == 0 ? 0f : 0.5f,
+                    DynamicSettings.VOXEL_PLANE_SIZE_Z % 2 == 0 ? 0f : 0.5f,
+                    1f
+                );
+            }
 
-                    // add to known triangles
-                    triangleManager.addTriangle(texTri);
-                }
+            if (useYUP) {
+                texTri.swap(1, 2);
+                texTri.invert(2);
             }
+
+            // scale to create integers
+            texTri.scale(2);
+
+            // convert to integer values
+            texTri.round();
+
+            // add to known triangles
+            triangleManager.addTriangle(texTri);
         }
     }
 
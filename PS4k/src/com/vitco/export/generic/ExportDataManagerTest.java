@@ -0,0 +1,146 @@
+package com.vitco.export.generic;
+
+import com.vitco.core.data.Data;
+import com.vitco.export.collada.ColladaExportWrapper;
+import com.vitco.export.collada.ColladaFileExporter;
+import com.vitco.export.generic.container.TexTriangle;
+import com.vitco.util.file.FileTools;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Test that the parallel extraction creates the same output as the serial extraction.
+ */
+public class ExportDataManagerTest {
+
+    // helper - export the data and return the file content (without the time stamps) and the textures
+    private static byte[][] export(Data data, int algorithm, boolean removeHoles, boolean parallel) throws IOException {
+        File folder = Files.createTempDirectory("export").toFile();
+        try {
+            ExportDataManager exportDataManager = new ExportDataManager(null, null, data, true, removeHoles,
+                    algorithm, false, ColladaExportWrapper.ORIGIN_CROSS, false, parallel);
+            ColladaFileExporter exporter = new ColladaFileExporter(null, null, exportDataManager, "tex", "model", false);
+            File file = new File(folder, "model.dae");
+            assert exporter.writeToFile(file, null);
+            assert exporter.writeTexturesToFolder(folder, null);
+            int textureCount = exportDataManager.getTriangleManager().getTextureIds().length;
+            byte[][] result = new byte[textureCount + 1][];
+            result[0] = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"))
+                    .replaceAll("<(created|modified)>[^<]*</(created|modified)>", "").getBytes(Charset.forName("UTF-8"));
+            for (int i = 0; i < textureCount; i++) {
+                File texture = new File(FileTools.ensureTrailingSeparator(folder.getAbsolutePath()) + "tex" + i + ".png");
+                result[i + 1] = Files.readAllBytes(texture.toPath());
+            }
+            return result;
+        } finally {
+            File[] files = folder.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    assert file.delete();
+                }
+            }
+            assert folder.delete();
+        }
+    }
+
+    @Test
+    public void testParallelExtraction() throws Exception {
+        // random object with holes and several colors
+        Data data = new Data();
+        Random rand = new Random(0);
+        int radius = 8;
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    if (x * x + y * y + z * z <= radius * radius && rand.nextInt(8) > 0) {
+                        data.addVoxelDirect(new Color(rand.nextInt(3) * 100, (y & 1) * 200, 50), new int[]{x, y, z});
+                    }
+                }
+            }
+        }
+
+        for (int algorithm : new int[] {
+                ExportDataManager.POLY2TRI_ALGORITHM,
+                ExportDataManager.MINIMAL_RECT_ALGORITHM,
+                ExportDataManager.NAIVE_ALGORITHM
+        }) {
+            for (boolean removeHoles : new boolean[] {false, true}) {
+                byte[][] serial = export(data, algorithm, removeHoles, false);
+                byte[][] parallel = export(data, algorithm, removeHoles, true);
+                assert serial.length > 1;
+                assert Arrays.deepEquals(serial, parallel);
+            }
+        }
+    }
+
+    // helper - find the triangle corners that lie inside an edge of another triangle (t-junctions)
+    private static HashSet<String> getTJunctions(TexTriangle[] triangles) {
+        HashSet<String> seen = new HashSet<String>();
+        ArrayList<float[]> points = new ArrayList<float[]>();
+        for (TexTriangle tri : triangles) {
+            for (int i = 0; i < 3; i++) {
+                float[] point = tri.getPoint(i).getCoords();
+                if (seen.add(Arrays.toString(point))) {
+                    points.add(point);
+                }
+            }
+        }
+        HashSet<String> result = new HashSet<String>();
+        for (TexTriangle tri : triangles) {
+            for (int i = 0; i < 3; i++) {
+                float[] p1 = tri.getPoint(i).getCoords();
+                float[] p2 = tri.getPoint((i + 1) % 3).getCoords();
+                for (float[] point : points) {
+                    // the point needs to be on the line and strictly between the corners
+                    float[] d = new float[] {p2[0] - p1[0], p2[1] - p1[1], p2[2] - p1[2]};
+                    float[] e = new float[] {point[0] - p1[0], point[1] - p1[1], point[2] - p1[2]};
+                    float cross = Math.abs(d[1] * e[2] - d[2] * e[1]) + Math.abs(d[2] * e[0] - d[0] * e[2]) +
+                            Math.abs(d[0] * e[1] - d[1] * e[0]);
+                    float dot = d[0] * e[0] + d[1] * e[1] + d[2] * e[2];
+                    float length = d[0] * d[0] + d[1] * d[1] + d[2] * d[2];
+                    if (cross < 1e-4f && dot > 1e-4f && dot < length - 1e-4f) {
+                        result.add(Arrays.toString(point));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testAutoAlgorithm() throws Exception {
+        // random object with planes of different size (so the naive and poly2tri algorithm are mixed)
+        Data data = new Data();
+        Random rand = new Random(1);
+        for (int x = -6; x <= 6; x++) {
+            for (int y = -6; y <= 6; y++) {
+                for (int z = -6; z <= 6; z++) {
+                    if (x * x + y * y + z * z <= 36 && (x < 0 || rand.nextInt(3) > 0)) {
+                        data.addVoxelDirect(Color.RED, new int[]{x, y, z});
+                    }
+                }
+            }
+        }
+        for (boolean removeHoles : new boolean[] {false, true}) {
+            // the selection does not depend on timings, so the export is always the same
+            assert Arrays.deepEquals(export(data, ExportDataManager.AUTO_ALGORITHM, removeHoles, false),
+                    export(data, ExportDataManager.AUTO_ALGORITHM, removeHoles, true));
+            // no new rendering artifacts where naive and poly2tri planes meet
+            HashSet<String> tJunctions = getTJunctions(new ExportDataManager(null, null, data, true, removeHoles,
+                    ExportDataManager.AUTO_ALGORITHM, false, ColladaExportWrapper.ORIGIN_CROSS, false, false)
+                    .getTriangleManager().getTriangles());
+            assert getTJunctions(new ExportDataManager(null, null, data, true, removeHoles,
+                    ExportDataManager.POLY2TRI_ALGORITHM, false, ColladaExportWrapper.ORIGIN_CROSS, false, false)
+                    .getTriangleManager().getTriangles()).containsAll(tJunctions);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.vitco.export.generic;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.low.triangulate.Grid2TriGreedyOptimal;
 import com.vitco.low.triangulate.Grid2TriMono;
+import com.vitco.low.triangulate.Grid2TriNaive;
 import com.vitco.low.triangulate.Grid2TriNaiveGreedy;
 import com.vitco.low.triangulate.Grid2TriPolyFast;
 import com.vitco.low.triangulate.util.Grid2PolyHelper;
@@ -173,4 +174,55 @@ public class ExportWorld {
         }
         return new int[] {triCount, triCountRaw, (int) (time)};
     }
+
+    // triangulate every plane with all the export algorithms and record the timings in the
+    // cost model (the poly2tri timings do not include the t-junction fixing)
+    public void recordCostModel(TriangulationCostModel costModel) {
+        // for all sides
+        for (int i = 0; i < 6; i++) {
+            int depthAxis = i/2;
+            // holds the sides per "slice"
+            HashMap<Integer, ArrayList<Point>> polygons = new HashMap<Integer, ArrayList<Point>>();
+            for (VoxelSide voxel : voxels) {
+                if (voxel.sideVisible(i)) {
+                    ArrayList<Point> pixels = polygons.get(voxel.posForAxis(depthAxis));
+                    if (pixels == null) {
+                        pixels = new ArrayList<Point>();
+                        polygons.put(voxel.posForAxis(depthAxis), pixels);
+                    }
+                    pixels.add(new Point(voxel.posForAxis((depthAxis + 1)% 3), voxel.posForAxis((depthAxis + 2)% 3)));
+                }
+            }
+            for (ArrayList<Point> pixels : polygons.values()) {
+                // compute the bounding rectangle of this plane
+                int min2 = Integer.MAX_VALUE;
+                int min3 = Integer.MAX_VALUE;
+                int max2 = Integer.MIN_VALUE;
+                int max3 = Integer.MIN_VALUE;
+                for (Point point : pixels) {
+                    min2 = Math.min(min2, point.x);
+                    min3 = Math.min(min3, point.y);
+                    max2 = Math.max(max2, point.x);
+                    max3 = Math.max(max3, point.y);
+                }
+                boolean[][] data = new boolean[max2 - min2 + 1][max3 - min3 + 1];
+                for (Point point : pixels) {
+                    data[point.x - min2][point.y - min3] = true;
+                }
+                TriangulationCostModel.PlaneInfo info = new TriangulationCostModel.PlaneInfo(data);
+
+                long time = System.nanoTime();
+                int triCount = Grid2TriPolyFast.triangulate(Grid2PolyHelper.convert(data)).size();
+                costModel.recordTriangulation(ExportDataManager.POLY2TRI_ALGORITHM, info, System.nanoTime() - time, triCount);
+
+                time = System.nanoTime();
+                triCount = Grid2TriGreedyOptimal.triangulate(data).size();
+                costModel.recordTriangulation(ExportDataManager.MINIMAL_RECT_ALGORITHM, info, System.nanoTime() - time, triCount);
+
+                time = System.nanoTime();
+                triCount = Grid2TriNaive.triangulate(data).size();
+                costModel.recordTriangulation(ExportDataManager.NAIVE_ALGORITHM, info, System.nanoTime() - time, triCount);
+            }
+        }
+    }
 }
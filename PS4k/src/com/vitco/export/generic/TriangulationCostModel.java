@@ -0,0 +1,246 @@
+package com.vitco.export.generic;
+
+import java.util.Locale;
+
+/**
+ * Cost model that is used to select the triangulation algorithm per plane.
+ *
+ * Every plane is classified with a single cheap pass (size, filled cells, corners, euler number).
+ * The model then estimates for every candidate algorithm the time needed for the triangulation itself
+ * and the time needed to turn the resulting triangles into textured triangles. The cheapest algorithm
+ * that fulfills the requested quality is selected.
+ *
+ * A new model uses fixed coefficients that were fitted with benchmarks, so the selection does not
+ * depend on timings. Measurements can be recorded to fit new coefficients (recursive least squares
+ * for the triangulation time, moving averages for the triangle count and the per triangle cost),
+ * this is only used to study the cost model and never done for the model that is used by the exports.
+ */
+public class TriangulationCostModel {
+
+    // the algorithms that are known to this model (indexed by the ExportDataManager constants)
+    private static final int[] ALGORITHMS = new int[] {
+            ExportDataManager.POLY2TRI_ALGORITHM,
+            ExportDataManager.MINIMAL_RECT_ALGORITHM,
+            ExportDataManager.NAIVE_ALGORITHM
+    };
+    private static final String[] ALGORITHM_NAMES = new String[] {"Poly2Tri", "Minimal", "Naive"};
+
+    // number of features that are used to estimate the triangulation time
+    private static final int FEATURE_COUNT = 3;
+
+    // weight of new measurements for the moving averages
+    private static final float AVERAGE_WEIGHT = 0.05f;
+
+    // initial uncertainty of the coefficients (small values trust the default coefficients more)
+    private static final double INITIAL_UNCERTAINTY = 1e-6;
+
+    // Information about a plane that is cheap to compute
+    public static final class PlaneInfo {
+        // size of the bounding rectangle
+        public final int area;
+        // amount of filled cells
+        public final int cells;
+        // corners of the outlines (convex and concave)
+        public final int convexCorners;
+        public final int concaveCorners;
+        // number of vertices of all outlines
+        public final int vertices;
+        // euler number (polygon count minus hole count)
+        public final int euler;
+
+        // constructor
+        public PlaneInfo(boolean[][] data) {
+            int lenX = data.length;
+            int lenY = data[0].length;
+            int cells = 0;
+            int convex = 0;
+            int concave = 0;
+            int diagonal = 0;
+            // loop over all 2x2 windows (including the border)
+            for (int x = 0; x <= lenX; x++) {
+                boolean[] left = x > 0 ? data[x - 1] : null;
+                boolean[] right = x < lenX ? data[x] : null;
+                boolean prevLeft = false;
+                boolean prevRight = false;
+                for (int y = 0; y <= lenY; y++) {
+                    boolean curLeft = left != null && y < lenY && left[y];
+                    boolean curRight = right != null && y < lenY && right[y];
+                    int count = (prevLeft ? 1 : 0) + (prevRight ? 1 : 0) + (curLeft ? 1 : 0) + (curRight ? 1 : 0);
+                    if (count == 1) {
+                        convex++;
+                    } else if (count == 3) {
+                        concave++;
+                    } else if (count == 2 && prevLeft == curRight) {
+                        diagonal++;
+                    }
+                    if (curRight) {
+                        cells++;
+                    }
+                    prevLeft = curLeft;
+                    prevRight = curRight;
+                }
+            }
+            this.area = lenX * lenY;
+            this.cells = cells;
+            this.convexCorners = convex + diagonal;
+            this.concaveCorners = concave + diagonal;
+            this.vertices = convex + concave + diagonal * 2;
+            this.euler = (convex - concave + 2 * diagonal) / 4;
+        }
+
+        // the features that are used to estimate the triangulation time
+        private void getFeatures(double[] features) {
+            features[0] = area;
+            features[1] = cells;
+            features[2] = vertices;
+        }
+
+        // the expected triangle count if every outline vertex is used once
+        // (a polygon with n vertices and h holes results in n + 2h - 2 triangles)
+        private int getOutlineTriangleCount() {
+            return Math.max(2, vertices - 2 * euler);
+        }
+    }
+
+    // the coefficients (nanoseconds per feature unit) per algorithm
+    private final double[][] coefficients = new double[][] {
+            {30, 0, 1650}, // poly2tri
+            {20, 65, 1300}, // minimal
+            {5, 255, 0} // naive
+    };
+
+    // the uncertainty (inverse information matrix) of the coefficients per algorithm
+    private final double[][][] uncertainty = new double[ALGORITHMS.length][FEATURE_COUNT][FEATURE_COUNT];
+
+    // actual triangle count compared to the outline triangle count per algorithm
+    private final float[] triangleRatio = new float[] {1.1f, 0.93f, 1f};
+
+    // time in nanoseconds that every triangle costs when it is converted into a textured triangle
+    private float triangleCost = 25000f;
+
+    // amount of recorded measurements per algorithm
+    private final int[] recordCount = new int[ALGORITHMS.length];
+
+    // temporary buffers
+    private final double[] features = new double[FEATURE_COUNT];
+    private final double[] gain = new double[FEATURE_COUNT];
+
+    // constructor
+    public TriangulationCostModel() {
+        for (double[][] matrix : uncertainty) {
+            for (int i = 0; i < FEATURE_COUNT; i++) {
+                matrix[i][i] = INITIAL_UNCERTAINTY;
+            }
+        }
+    }
+
+    // get the internal index of an algorithm
+    private static int indexOf(int algorithm) {
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            if (ALGORITHMS[i] == algorithm) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown triangulation algorithm " + algorithm + ".");
+    }
+
+    // estimate the time (in nanoseconds) that is needed to triangulate the plane
+    public final synchronized double estimateTriangulationTime(int algorithm, PlaneInfo info) {
+        double[] coefficient = coefficients[indexOf(algorithm)];
+        info.getFeatures(features);
+        double result = 0;
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            result += coefficient[i] * features[i];
+        }
+        return Math.max(0, result);
+    }
+
+    // estimate the amount of triangles that the algorithm creates for the plane
+    public final synchronized int estimateTriangleCount(int algorithm, PlaneInfo info) {
+        if (algorithm == ExportDataManager.NAIVE_ALGORITHM) {
+            return info.cells * 2;
+        }
+        return Math.max(2, Math.round(info.getOutlineTriangleCount() * triangleRatio[indexOf(algorithm)]));
+    }
+
+    // estimate the total export time (in nanoseconds) for the plane when the algorithm is used
+    public final synchronized double estimateExportTime(int algorithm, PlaneInfo info) {
+        return estimateTriangulationTime(algorithm, info) + estimateTriangleCount(algorithm, info) * (double) triangleCost;
+    }
+
+    // Select the algorithm with the lowest expected export time. If t-junctions are not allowed, only
+    // the algorithms that produce no rendering artifacts are considered.
+    public final synchronized int select(PlaneInfo info, boolean allowTJunctions) {
+        int best = ExportDataManager.POLY2TRI_ALGORITHM;
+        double bestTime = Double.MAX_VALUE;
+        for (int algorithm : ALGORITHMS) {
+            if (algorithm == ExportDataManager.MINIMAL_RECT_ALGORITHM && !allowTJunctions) {
+                continue;
+            }
+            double time = estimateExportTime(algorithm, info);
+            if (time < bestTime) {
+                bestTime = time;
+                best = algorithm;
+            }
+        }
+        return best;
+    }
+
+    // record the measured triangulation time (in nanoseconds) and the resulting triangle count
+    public final synchronized void recordTriangulation(int algorithm, PlaneInfo info, long time, int triangleCount) {
+        int index = indexOf(algorithm);
+        recordCount[index]++;
+        // update the triangle ratio
+        if (algorithm != ExportDataManager.NAIVE_ALGORITHM) {
+            float ratio = triangleCount / (float) info.getOutlineTriangleCount();
+            triangleRatio[index] += (ratio - triangleRatio[index]) * AVERAGE_WEIGHT;
+        }
+        // recursive least squares update of the coefficients
+        double[] coefficient = coefficients[index];
+        double[][] matrix = uncertainty[index];
+        info.getFeatures(features);
+        double denominator = 1;
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            double value = 0;
+            for (int j = 0; j < FEATURE_COUNT; j++) {
+                value += matrix[i][j] * features[j];
+            }
+            gain[i] = value;
+            denominator += features[i] * value;
+        }
+        double error = time;
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            error -= coefficient[i] * features[i];
+        }
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            coefficient[i] += gain[i] * error / denominator;
+        }
+        for (int i = 0; i < FEATURE_COUNT; i++) {
+            for (int j = 0; j < FEATURE_COUNT; j++) {
+                matrix[i][j] -= gain[i] * gain[j] / denominator;
+            }
+        }
+    }
+
+    // record the time (in nanoseconds) that was needed to convert the triangles into textured triangles
+    public final synchronized void recordTriangleCost(long time, int triangleCount) {
+        if (triangleCount > 0) {
+            triangleCost += (time / (float) triangleCount - triangleCost) * AVERAGE_WEIGHT;
+        }
+    }
+
+    // print the current state of the model
+    @Override
+    public final synchronized String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format(Locale.US, "Triangle Cost: %.0fns", triangleCost));
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            double[] coefficient = coefficients[i];
+            result.append(String.format(Locale.US,
+                    "%n%s (%d samples): %.2fns/area, %.2fns/cell, %.2fns/vertex, triangle ratio %.2f",
+                    ALGORITHM_NAMES[i], recordCount[i], coefficient[0], coefficient[1], coefficient[2],
+                    triangleRatio[i]));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.vitco.export.generic;
+
+import com.vitco.low.triangulate.Grid2TriPolyFast;
+import com.vitco.low.triangulate.util.Grid2PolyHelper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test the plane classification and the algorithm selection.
+ */
+public class TriangulationCostModelTest {
+
+    @Test
+    public void testPlaneInfo() throws Exception {
+        // single cell
+        TriangulationCostModel.PlaneInfo info = new TriangulationCostModel.PlaneInfo(new boolean[][] {{true}});
+        assert info.cells == 1;
+        assert info.vertices == 4;
+        assert info.concaveCorners == 0;
+        assert info.euler == 1;
+
+        // ring with one hole
+        info = new TriangulationCostModel.PlaneInfo(new boolean[][] {
+                {true, true, true},
+                {true, false, true},
+                {true, true, true}
+        });
+        assert info.cells == 8;
+        assert info.vertices == 8;
+        assert info.convexCorners == 4;
+        assert info.concaveCorners == 4;
+        assert info.euler == 0;
+
+        // two cells that touch diagonally
+        info = new TriangulationCostModel.PlaneInfo(new boolean[][] {
+                {true, false},
+                {false, true}
+        });
+        assert info.cells == 2;
+        assert info.vertices == 8;
+    }
+
+    @Test
+    public void testSelection() throws Exception {
+        TriangulationCostModel costModel = new TriangulationCostModel();
+
+        // a single voxel side is always fastest with the naive algorithm
+        TriangulationCostModel.PlaneInfo info = new TriangulationCostModel.PlaneInfo(new boolean[][] {{true}});
+        assert costModel.select(info, false) == ExportDataManager.NAIVE_ALGORITHM;
+
+        // a big filled rectangle should not be triangulated naively
+        boolean[][] data = new boolean[100][100];
+        for (boolean[] row : data) {
+            Arrays.fill(row, true);
+        }
+        info = new TriangulationCostModel.PlaneInfo(data);
+        assert costModel.select(info, false) == ExportDataManager.POLY2TRI_ALGORITHM;
+        assert costModel.select(info, true) != ExportDataManager.NAIVE_ALGORITHM;
+
+        // the minimal algorithm is never selected if t-junctions are not allowed
+        Random rand = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            data = new boolean[rand.nextInt(40) + 1][rand.nextInt(40) + 1];
+            for (int j = rand.nextInt(data.length * data[0].length); j > 0; j--) {
+                data[rand.nextInt(data.length)][rand.nextInt(data[0].length)] = true;
+            }
+            info = new TriangulationCostModel.PlaneInfo(data);
+            assert costModel.select(info, false) != ExportDataManager.MINIMAL_RECT_ALGORITHM;
+            // the triangle estimate matches poly2tri (before the t-junction fixing)
+            if (info.cells > 0) {
+                int triCount = Grid2TriPolyFast.triangulate(Grid2PolyHelper.convert(data)).size();
+                assert triCount == info.vertices - 2 * info.euler;
+            }
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.vitco.export.generic.container;
 
+import com.vitco.util.xml.XmlStreamWriter;
+
+import java.io.IOException;
+
 /**
  * Abstract class that holds corner information for a TexTriangle
  */
@@ -10,6 +14,8 @@ public abstract class TexTriCornerInfo {
     public String toString() {
         return toString(false);
     }
+    // write the values (separated by spaces)
+    public abstract void write(XmlStreamWriter writer, boolean useInt) throws IOException;
 
     // making sure these will be overwritten
     // Note: two info objects should be equal if they represent the same data
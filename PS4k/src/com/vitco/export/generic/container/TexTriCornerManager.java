@@ -1,7 +1,9 @@
 package com.vitco.export.generic.container;
 
 import com.vitco.util.misc.BiMap;
+import com.vitco.util.xml.XmlStreamWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -51,20 +53,15 @@ public class TexTriCornerManager<T extends TexTriCornerInfo> {
         return knownUnique.get(cornerInfo);
     }
 
-    // get string with unique cornerInfo
-    public final String getString(boolean asInt) {
+    // write the unique cornerInfo (separated by spaces)
+    public final void write(XmlStreamWriter writer, boolean asInt) throws IOException {
         validate();
-        StringBuilder stringBuilder = new StringBuilder();
-        boolean first = true;
         for (int i = 0, len = knownUnique.size(); i < len; i++) {
-            if (!first) {
-                stringBuilder.append(" ");
-            } else {
-                first = false;
+            if (i > 0) {
+                writer.text(' ');
             }
-            stringBuilder.append(knownUnique.getKey(i).toString(asInt));
+            knownUnique.getKey(i).write(writer, asInt);
         }
-        return stringBuilder.toString();
     }
 
     // get the amount of unique corner info objects in this manager
@@ -1,5 +1,8 @@
 package com.vitco.export.generic.container;
 
+import com.vitco.util.xml.XmlStreamWriter;
+
+import java.io.IOException;
 import java.util.Arrays;
 
 /**
@@ -88,4 +91,18 @@ public class TexTriPoint extends TexTriCornerInfo {
             return coords[0] + " " + coords[1] + " " + coords[2];
         }
     }
+
+    @Override
+    public final void write(XmlStreamWriter writer, boolean useInt) throws IOException {
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                writer.text(' ');
+            }
+            if (useInt) {
+                writer.text(Math.round(coords[i]));
+            } else {
+                writer.text(coords[i]);
+            }
+        }
+    }
 }
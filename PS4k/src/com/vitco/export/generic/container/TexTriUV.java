@@ -1,5 +1,8 @@
 package com.vitco.export.generic.container;
 
+import com.vitco.util.xml.XmlStreamWriter;
+
+import java.io.IOException;
 import java.util.Arrays;
 
 /**
@@ -60,4 +63,17 @@ public class TexTriUV extends TexTriCornerInfo {
             return uv[0] + " " + uv[1];
         }
     }
+
+    @Override
+    public final void write(XmlStreamWriter writer, boolean useInt) throws IOException {
+        if (useInt) {
+            writer.text(Math.round(uv[0]));
+            writer.text(' ');
+            writer.text(Math.round(uv[1]));
+        } else {
+            writer.text(uv[0]);
+            writer.text(' ');
+            writer.text(uv[1]);
+        }
+    }
 }
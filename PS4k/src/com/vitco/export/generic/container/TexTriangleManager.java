@@ -1,5 +1,8 @@
 package com.vitco.export.generic.container;
 
+import com.vitco.util.xml.XmlStreamWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -48,26 +51,26 @@ public class TexTriangleManager {
 
     // ----------------
 
-    // get the triangle coordinate list
+    // write the triangle coordinate list
     // (i.e. "[p1_ uv1 p2 uv2 p3 uv3]_tri1 [p1_ uv1 p2 uv2 p3 uv3]_tri2 ...")
-    public final String getTrianglePolygonList(int groupId) {
-        StringBuilder stringBuilder = new StringBuilder();
+    public final void writeTrianglePolygonList(int groupId, XmlStreamWriter writer) throws IOException {
         boolean first = true;
         for (TexTriangle tri : triangles) {
             // only consider triangles with the specific texture id
             if (tri.getTexture().getId() == groupId) {
-                if (!first) {
-                    stringBuilder.append(" ");
-                } else {
-                    first = false;
-                }
                 TexTriUV[] uvs = tri.getUVs();
-                stringBuilder.append(tri.getPoint(0).getId()).append(" ").append(uvs[0].getId()).append(" ");
-                stringBuilder.append(tri.getPoint(1).getId()).append(" ").append(uvs[1].getId()).append(" ");
-                stringBuilder.append(tri.getPoint(2).getId()).append(" ").append(uvs[2].getId());
+                for (int i = 0; i < 3; i++) {
+                    if (!first) {
+                        writer.text(' ');
+                    } else {
+                        first = false;
+                    }
+                    writer.text(tri.getPoint(i).getId());
+                    writer.text(' ');
+                    writer.text(uvs[i].getId());
+                }
             }
         }
-        return stringBuilder.toString();
     }
 
     // ----------------
@@ -90,9 +93,9 @@ public class TexTriangleManager {
         return uvManager.getId(uv);
     }
 
-    // get string with unique uvs
-    public final String getUniqueUVString(boolean asInt) {
-        return uvManager.getString(asInt);
+    // write the unique uvs
+    public final void writeUniqueUVs(XmlStreamWriter writer, boolean asInt) throws IOException {
+        uvManager.write(writer, asInt);
     }
 
     // get the amount of unique uvs
@@ -120,9 +123,9 @@ public class TexTriangleManager {
         return pointManager.getId(point);
     }
 
-    // get string with unique points
-    public final String getUniquePointString(boolean asInt) {
-        return pointManager.getString(asInt);
+    // write the unique points
+    public final void writeUniquePoints(XmlStreamWriter writer, boolean asInt) throws IOException {
+        pointManager.write(writer, asInt);
     }
 
     // get the amount of unique points
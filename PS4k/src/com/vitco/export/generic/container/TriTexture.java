@@ -4,13 +4,10 @@ import com.vitco.core.data.Data;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.util.graphic.G2DUtil;
 import com.vitco.util.graphic.ImageComparator;
+import com.vitco.util.graphic.PixelRaster;
 import com.vitco.util.graphic.TextureTools;
-import com.vitco.util.misc.IntegerTools;
-import gnu.trove.iterator.TIntObjectIterator;
-import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 
 /**
  * Represents a texture that belongs to a triangle.
@@ -31,9 +28,9 @@ public class TriTexture {
     // reference to the uv points
     private final double[][] uvPoints = new double[3][2];
 
-    // holds the pixels in this triangle, the format is (x, y, color)
+    // holds the pixels in this triangle
     // Note: Not final since this needs to be nullable
-    private TIntObjectHashMap<int[]> pixels = new TIntObjectHashMap<int[]>();
+    private PixelRaster pixels;
 
     // size of this texture image
     public final int width;
@@ -101,6 +98,17 @@ public class TriTexture {
         return width * height;
     }
 
+    // obtain the different colors of this texture
+    public final int[] getColors() {
+        return imageComparator.getColors();
+    }
+
+    // obtain a fingerprint of the pixels (equal for textures that are
+    // the same in some orientation)
+    public final long getFingerprint() {
+        return imageComparator.getFingerprint();
+    }
+
     // obtain the jaccard distance
     public final float jaccard(TriTexture other) {
         return this.imageComparator.jaccard(other.imageComparator);
@@ -114,12 +122,14 @@ public class TriTexture {
         }
         // else compute the image for this texture
         BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        for (TIntObjectIterator<int[]> it = pixels.iterator(); it.hasNext();) {
-            it.advance();
-            int[] pixel = it.value();
-            assert pixel[0] < width;
-            assert pixel[1] < height;
-            result.setRGB(pixel[0], pixel[1], pixel[2]);
+        assert pixels.getWidth() <= width;
+        assert pixels.getHeight() <= height;
+        for (int y = 0, rasterHeight = pixels.getHeight(); y < rasterHeight; y++) {
+            for (int x = 0, rasterWidth = pixels.getWidth(); x < rasterWidth; x++) {
+                if (pixels.isSet(x, y)) {
+                    result.setRGB(x, y, pixels.getColor(x, y));
+                }
+            }
         }
         return result;
     }
@@ -356,8 +366,8 @@ public class TriTexture {
         this.width = powOfTwoDim;
         this.height = powOfTwoDim;
 
-        pixels.putAll(tex.pixels);
-        imageComparator = new ImageComparator(pixels.valueCollection());
+        pixels = new PixelRaster(tex.pixels, powOfTwoDim, powOfTwoDim);
+        imageComparator = new ImageComparator(pixels);
         // make child
         this.makeChild(tex);
         assert tex.hasParent();
@@ -380,58 +390,6 @@ public class TriTexture {
         int minY = Math.min(0, mergePos[1]);
         int maxX = Math.max(0, mergePos[0]);
         int maxY = Math.max(0, mergePos[1]);
-        for (TIntObjectIterator<int[]> it = one.pixels.iterator(); it.hasNext();) {
-            it.advance();
-            int[] pixel = it.value();
-            int x = pixel[0] - minX;
-            int y = pixel[1] - minY;
-            pixels.put(IntegerTools.makeInt(x, y), new int[] {x,y,pixel[2]});
-        }
-        // rotate second image according to result
-        for (TIntObjectIterator<int[]> it = two.pixels.iterator(); it.hasNext();) {
-            it.advance();
-            int[] pixel = it.value();
-            int x;
-            int y;
-            switch (mergePos[2]) {
-                case 1: // 1 : check for "rotation 1" (1)
-                    x = (two.height - 1 - pixel[1]) + maxX;
-                    y = pixel[0] + maxY;
-                    break;
-                case 3: // 3 : check for "rotation 3" (3)
-                    x = pixel[1] + maxX;
-                    y = (two.width - 1 - pixel[0]) + maxY;
-                    break;
-                case 5: // 5 : check for "flipped and rotation 1" (5)
-                    x = (two.height - 1 - pixel[1]) + maxX;
-                    y = (two.width - 1 - pixel[0]) + maxY;
-                    break;
-                case 7: // 7 : check for "flipped and rotation 3" (7)
-                    x = pixel[1] + maxX;
-                    y = pixel[0] + maxY;
-                    break;
-                case 2: // 2 : check for "twice rotated" (2)
-                    x = (two.width - 1 - pixel[0]) + maxX;
-                    y = (two.height - 1 - pixel[1]) + maxY;
-                    break;
-                case 4: // 4 : check for "flipped" (4)
-                    x = (two.width - 1 - pixel[0]) + maxX;
-                    y = pixel[1] + maxY;
-                    break;
-                case 6: // 6 : check for "flipped and twice rotated" (6)
-                    x = pixel[0] + maxX;
-                    y = (two.height - 1 - pixel[1]) + maxY;
-                    break;
-                default: // 0 : check for "default orientation" (0)
-                    x = pixel[0] + maxX;
-                    y = pixel[1] + maxY;
-                    break;
-            }
-            pixels.put(IntegerTools.makeInt(x, y), new int[] {x,y,pixel[2]});
-        }
-
-        // set the image comparator
-        imageComparator = new ImageComparator(pixels.valueCollection());
 
         // compute new dimensions (depending on whether the second
         // texture was rotated or not)
@@ -442,6 +400,65 @@ public class TriTexture {
             this.width = Math.max(two.height + maxX, one.width - minX);
             this.height = Math.max(two.width + maxY, one.height - minY);
         }
+        pixels = new PixelRaster(this.width, this.height);
+
+        PixelRaster pixelsOne = one.pixels;
+        for (int py = 0, rasterHeight = pixelsOne.getHeight(); py < rasterHeight; py++) {
+            for (int px = 0, rasterWidth = pixelsOne.getWidth(); px < rasterWidth; px++) {
+                if (pixelsOne.isSet(px, py)) {
+                    pixels.set(px - minX, py - minY, pixelsOne.getColor(px, py));
+                }
+            }
+        }
+        // rotate second image according to result
+        PixelRaster pixelsTwo = two.pixels;
+        for (int py = 0, rasterHeight = pixelsTwo.getHeight(); py < rasterHeight; py++) {
+            for (int px = 0, rasterWidth = pixelsTwo.getWidth(); px < rasterWidth; px++) {
+                if (!pixelsTwo.isSet(px, py)) {
+                    continue;
+                }
+                int x;
+                int y;
+                switch (mergePos[2]) {
+                    case 1: // 1 : check for "rotation 1" (1)
+                        x = (two.height - 1 - py) + maxX;
+                        y = px + maxY;
+                        break;
+                    case 3: // 3 : check for "rotation 3" (3)
+                        x = py + maxX;
+                        y = (two.width - 1 - px) + maxY;
+                        break;
+                    case 5: // 5 : check for "flipped and rotation 1" (5)
+                        x = (two.height - 1 - py) + maxX;
+                        y = (two.width - 1 - px) + maxY;
+                        break;
+                    case 7: // 7 : check for "flipped and rotation 3" (7)
+                        x = py + maxX;
+                        y = px + maxY;
+                        break;
+                    case 2: // 2 : check for "twice rotated" (2)
+                        x = (two.width - 1 - px) + maxX;
+                        y = (two.height - 1 - py) + maxY;
+                        break;
+                    case 4: // 4 : check for "flipped" (4)
+                        x = (two.width - 1 - px) + maxX;
+                        y = py + maxY;
+                        break;
+                    case 6: // 6 : check for "flipped and twice rotated" (6)
+                        x = px + maxX;
+                        y = (two.height - 1 - py) + maxY;
+                        break;
+                    default: // 0 : check for "default orientation" (0)
+                        x = px + maxX;
+                        y = py + maxY;
+                        break;
+                }
+                pixels.set(x, y, pixelsTwo.getColor(px, py));
+            }
+        }
+
+        // set the image comparator
+        imageComparator = new ImageComparator(pixels);
 
         // -----------
 
@@ -519,11 +536,11 @@ public class TriTexture {
         int axis = texTri.getOrientation()/2;
 
         // fetch colors
+        pixels = new PixelRaster(width, height);
         for (int[] point : points) {
             // set the position (for this color)
             int x = point[0] - minX;
             int y = point[1] - minY;
-            int p = IntegerTools.makeInt(x, y);
             // get the pixel color
             Voxel voxel = data.searchVoxel(new int[] {
                     axis == 0 ? depth : point[0],
@@ -532,7 +549,7 @@ public class TriTexture {
             }, false);
             assert voxel != null;
             // add the pixel
-            pixels.put(p, new int[] {x, y, voxel.getColor().getRGB()});
+            pixels.set(x, y, voxel.getColor().getRGB());
         }
 
         // compress textures (scale if this can be done loss-less)
@@ -545,7 +562,7 @@ public class TriTexture {
         }
 
         // set the image comparator
-        imageComparator = new ImageComparator(pixels.valueCollection());
+        imageComparator = new ImageComparator(pixels);
 
         // overwrite uv to prevent unnecessary unique uv coordinates.
         // Note: this enables better compression for COLLADA
@@ -563,53 +580,46 @@ public class TriTexture {
         this.height = newSize[1];
     }
 
+    // helper - extend the pixels by one pixel horizontally or vertically (missing pixels take the
+    // color of the left/top neighbour or, if that is not set, the right/bottom neighbour)
+    // Note: The pixels are moved by the offset
+    private static PixelRaster extend(PixelRaster pixels, int width, int height,
+                                      int offsetX, int offsetY, boolean vertical) {
+        PixelRaster result = new PixelRaster(width, height);
+        for (int y = 0; y < height; y++) {
+            int sy = y - offsetY;
+            for (int x = 0; x < width; x++) {
+                int sx = x - offsetX;
+                if (pixels.isSet(sx, sy)) {
+                    result.set(x, y, pixels.getColor(sx, sy));
+                } else if (vertical) {
+                    if (pixels.isSet(sx, sy - 1)) {
+                        result.set(x, y, pixels.getColor(sx, sy - 1));
+                    } else if (pixels.isSet(sx, sy + 1)) {
+                        result.set(x, y, pixels.getColor(sx, sy + 1));
+                    }
+                } else {
+                    if (pixels.isSet(sx - 1, sy)) {
+                        result.set(x, y, pixels.getColor(sx - 1, sy));
+                    } else if (pixels.isSet(sx + 1, sy)) {
+                        result.set(x, y, pixels.getColor(sx + 1, sy));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     // pad textures "surround with same color pixels"
-    protected static int[] pad(int width, int height, TIntObjectHashMap<int[]> pixels, double[][] uvPoints) {
+    protected static int[] pad(int width, int height, PixelRaster pixels, double[][] uvPoints) {
 
         int[] newSize = new int[] {width + 2, height + 2};
 
-        // -- translate pixels
-        TIntObjectHashMap<int[]> translatedPixels = new TIntObjectHashMap<int[]>();
-        for (TIntObjectIterator<int[]> it = pixels.iterator(); it.hasNext();) {
-            it.advance();
-            int[] pixel = it.value();
-            int point = IntegerTools.makeInt(pixel[0] + 1, pixel[1] + 1);
-            translatedPixels.put(point, new int[] {pixel[0] + 1, pixel[1] + 1, pixel[2]});
-        }
-        pixels.clear();
-        pixels.putAll(translatedPixels);
-
-        // -- fix horizontal padding
-        for (TIntObjectIterator<int[]> it = pixels.iterator(); it.hasNext();) {
-            it.advance();
-            int[] pixel = it.value();
-            int point = IntegerTools.makeInt(pixel[0] + 1, pixel[1]);
-            if (!pixels.containsKey(point)) {
-                translatedPixels.put(point, new int[] {pixel[0] + 1, pixel[1], pixel[2]});
-            }
-            point = IntegerTools.makeInt(pixel[0] - 1, pixel[1]);
-            if (!pixels.containsKey(point)) {
-                translatedPixels.put(point, new int[] {pixel[0] - 1, pixel[1], pixel[2]});
-            }
-        }
-        pixels.clear();
-        pixels.putAll(translatedPixels);
+        // -- translate pixels and fix horizontal padding
+        PixelRaster padded = extend(pixels, newSize[0], newSize[1], 1, 1, false);
 
         // -- fix vertical padding
-        for (TIntObjectIterator<int[]> it = pixels.iterator(); it.hasNext();) {
-            it.advance();
-            int[] pixel = it.value();
-            int point = IntegerTools.makeInt(pixel[0], pixel[1] + 1);
-            if (!pixels.containsKey(point)) {
-                translatedPixels.put(point, new int[] {pixel[0], pixel[1] + 1, pixel[2]});
-            }
-            point = IntegerTools.makeInt(pixel[0], pixel[1] - 1);
-            if (!pixels.containsKey(point)) {
-                translatedPixels.put(point, new int[] {pixel[0], pixel[1] - 1, pixel[2]});
-            }
-        }
-        pixels.clear();
-        pixels.putAll(translatedPixels);
+        pixels.replace(extend(padded, newSize[0], newSize[1], 0, 0, true));
 
         // -- fix uv points
         uvPoints[0][0] = (uvPoints[0][0] * width + 1) / newSize[0];
@@ -624,7 +634,7 @@ public class TriTexture {
 
     // prune unnecessary and add missing pixels from this texture
     // Note: This should only be needed after compression changed the image and uvs
-    private static int[] repairPixel(int width, int height, TIntObjectHashMap<int[]> pixels,
+    private static int[] repairPixel(int width, int height, PixelRaster pixels,
                                      double[][] uvPoints, boolean useHeight) {
         // will store the minimum and maximum pixel values
         int minX = Integer.MAX_VALUE;
@@ -635,21 +645,21 @@ public class TriTexture {
         // Note: some old pixels might not be necessary, and there might be
         // some pixels that are not set as they were shifted by the distortion
         // (we need to fetch those)
-        ArrayList<int[]> newPixels = new ArrayList<int[]>();
         int[][] points = G2DUtil.getTriangleGridIntersection(
                 uvPoints[0][0] * width, uvPoints[0][1] * height,
                 uvPoints[1][0] * width, uvPoints[1][1] * height,
                 uvPoints[2][0] * width, uvPoints[2][1] * height
         );
+        // the colors of the required points (the format is (x, y, color))
+        int[][] newPixels = new int[points.length][];
+        int count = 0;
 
         // loop over all required pixel positions
         for (int[] pixel : points) {
             // verify position (this is just a precaution and shouldn't be necessary)
             if (pixel[0] > -1 && pixel[1] > -1 && pixel[0] < width && pixel[1] < height) {
-                int point = IntegerTools.makeInt(pixel[0], pixel[1]);
-                int[] data = pixels.get(point);
                 // check if the pixel exists
-                if (data == null) {
+                if (!pixels.isSet(pixel[0], pixel[1])) {
                     // -- the pixel does not exists
                     // find other point
                     if (useHeight) {
@@ -657,10 +667,8 @@ public class TriTexture {
                         boolean found = false;
                         // search down
                         for (int y = pixel[1] + 1; y < height; y++) {
-                            point = IntegerTools.makeInt(pixel[0], y);
-                            data = pixels.get(point);
-                            if (data != null) {
-                                newPixels.add(new int[]{pixel[0], pixel[1], data[2]});
+                            if (pixels.isSet(pixel[0], y)) {
+                                newPixels[count++] = new int[]{pixel[0], pixel[1], pixels.getColor(pixel[0], y)};
                                 found = true;
                                 break;
                             }
@@ -668,10 +676,8 @@ public class TriTexture {
                         if (!found) {
                             // search up
                             for (int y = pixel[1] - 1; y > -1; y--) {
-                                point = IntegerTools.makeInt(pixel[0], y);
-                                data = pixels.get(point);
-                                if (data != null) {
-                                    newPixels.add(new int[]{pixel[0], pixel[1], data[2]});
+                                if (pixels.isSet(pixel[0], y)) {
+                                    newPixels[count++] = new int[]{pixel[0], pixel[1], pixels.getColor(pixel[0], y)};
                                     found = true;
                                     break;
                                 }
@@ -683,10 +689,8 @@ public class TriTexture {
                         boolean found = false;
                         // search right
                         for (int x = pixel[0] + 1; x < width; x++) {
-                            point = IntegerTools.makeInt(x, pixel[1]);
-                            data = pixels.get(point);
-                            if (data != null) {
-                                newPixels.add(new int[]{pixel[0], pixel[1], data[2]});
+                            if (pixels.isSet(x, pixel[1])) {
+                                newPixels[count++] = new int[]{pixel[0], pixel[1], pixels.getColor(x, pixel[1])};
                                 found = true;
                                 break;
                             }
@@ -694,10 +698,8 @@ public class TriTexture {
                         if (!found) {
                             // search left
                             for (int x = pixel[0] - 1; x > -1; x--) {
-                                point = IntegerTools.makeInt(x, pixel[1]);
-                                data = pixels.get(point);
-                                if (data != null) {
-                                    newPixels.add(new int[]{pixel[0], pixel[1], data[2]});
+                                if (pixels.isSet(x, pixel[1])) {
+                                    newPixels[count++] = new int[]{pixel[0], pixel[1], pixels.getColor(x, pixel[1])};
                                     found = true;
                                     break;
                                 }
@@ -707,7 +709,7 @@ public class TriTexture {
                     }
                 } else {
                     // use the existing pixel
-                    newPixels.add(data);
+                    newPixels[count++] = new int[]{pixel[0], pixel[1], pixels.getColor(pixel[0], pixel[1])};
                 }
                 minX = Math.min(minX, pixel[0]);
                 maxX = Math.max(maxX, pixel[0]);
@@ -715,16 +717,16 @@ public class TriTexture {
                 maxY = Math.max(maxY, pixel[1]);
             }
         }
-        // add the pixels that we have found and add an offset
-        pixels.clear();
-        for (int[] pixel : newPixels) {
-            int x = pixel[0] - minX;
-            int y = pixel[1] - minY;
-            pixels.put(IntegerTools.makeInt(x, y), new int[] {x, y, pixel[2]});
-        }
         // compute the new width and height
         int newWidth = maxX - minX + 1;
         int newHeight = maxY - minY + 1;
+        // add the pixels that we have found and add an offset
+        PixelRaster result = new PixelRaster(newWidth, newHeight);
+        for (int i = 0; i < count; i++) {
+            int[] pixel = newPixels[i];
+            result.set(pixel[0] - minX, pixel[1] - minY, pixel[2]);
+        }
+        pixels.replace(result);
         if (newWidth < width || newHeight < height) {
             // -- fix uv points
             uvPoints[0][0] = (uvPoints[0][0] * width - minX) / newWidth;
@@ -739,7 +741,7 @@ public class TriTexture {
 
     // compress the texture and return new size
     // Note: This changes the pixel array and also the uv positions (!)
-    protected static int[] compress(int width, int height, TIntObjectHashMap<int[]> pixels, double[][] uvPoints) {
+    protected static int[] compress(int width, int height, PixelRaster pixels, double[][] uvPoints) {
         // size array (that might still change!)
         int[] size = new int[] {width, height, 1};
         // -- compress this texture (scale if this can be done loss-less)
@@ -3,11 +3,18 @@ package com.vitco.export.generic.container;
 import com.vitco.layout.content.console.ConsoleInterface;
 import com.vitco.util.components.progressbar.ProgressDialog;
 import com.vitco.util.components.progressbar.ProgressReporter;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Manages a list of textures and implements compression techniques for the textures.
@@ -93,38 +100,91 @@ public class TriTextureManager extends ProgressReporter {
         }
     }
 
-    // combine the textures in this manager
-    public final void combine() {
-        // -- find textures that are "inside" other textures
-        // create dummy list that we can delete from
+    // helper - try to find a texture that contains the texture (using the indices)
+    private static boolean findParent(TriTexture texture, TLongObjectHashMap<TriTexture> fingerprints,
+                                      TIntObjectHashMap<ArrayList<TriTexture>> colorIndex) {
+        // check for an equal texture first
+        TriTexture equal = fingerprints.get(texture.getFingerprint());
+        if (equal != null && equal.makeChild(texture)) {
+            return true;
+        }
+        // only textures that contain the rarest color can be a parent
+        ArrayList<TriTexture> candidates = null;
+        for (int color : texture.getColors()) {
+            ArrayList<TriTexture> list = colorIndex.get(color);
+            if (list == null) {
+                return false;
+            }
+            if (candidates == null || list.size() < candidates.size()) {
+                candidates = list;
+            }
+        }
+        if (candidates != null) {
+            for (TriTexture candidate : candidates) {
+                if (candidate != equal && candidate.makeChild(texture)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // find textures that are "inside" other textures, returns the textures that are not contained
+    private ArrayList<TriTexture> mergeContained() {
+        // create dummy list that we can sort
         ArrayList<TriTexture> textures = new ArrayList<TriTexture>(this.textures);
-        // sort by size (smallest first) - this makes processing a bit faster
+        // sort by size (largest first) - every possible parent is processed before its children
         Collections.sort(textures, new Comparator<TriTexture>() {
             @Override
             public int compare(TriTexture o1, TriTexture o2) {
-                return Math.max(o1.width, o1.height) - Math.max(o2.width, o2.height);
+                int result = o2.getArea() - o1.getArea();
+                return result != 0 ? result : o2.getPixelCount() - o1.getPixelCount();
             }
         });
-        int len = textures.size();
-        int originalLength = len;
+        // the textures that are not contained in other textures (indexed
+        // by fingerprint and by the colors they contain)
+        ArrayList<TriTexture> result = new ArrayList<TriTexture>();
+        TLongObjectHashMap<TriTexture> fingerprints = new TLongObjectHashMap<TriTexture>();
+        TIntObjectHashMap<ArrayList<TriTexture>> colorIndex = new TIntObjectHashMap<ArrayList<TriTexture>>();
         setActivity("Merging Textures...", false);
-        for (int i = 0; i < len; i++) {
-            for (int j = i + 1; j < len; j++) {
-                if (len%100 == 0) {setProgress(((originalLength - len - i)/(float)originalLength)*100);}
-                TriTexture tex1 = textures.get(i);
-                TriTexture tex2 = textures.get(j);
-                if (tex1.makeChild(tex2)) {
-                    textures.remove(j);
-                    j--;
-                    len--;
-                } else if (tex2.makeChild(tex1)) {
-                    textures.remove(i);
-                    i--;
-                    len--;
-                    break;
+        for (int i = 0, len = textures.size(); i < len; i++) {
+            if (i%100 == 0) {setProgress((i/(float)len)*100);}
+            TriTexture texture = textures.get(i);
+            if (!findParent(texture, fingerprints, colorIndex)) {
+                // add to the indices
+                result.add(texture);
+                long fingerprint = texture.getFingerprint();
+                if (!fingerprints.containsKey(fingerprint)) {
+                    fingerprints.put(fingerprint, texture);
+                }
+                for (int color : texture.getColors()) {
+                    ArrayList<TriTexture> list = colorIndex.get(color);
+                    if (list == null) {
+                        list = new ArrayList<TriTexture>();
+                        colorIndex.put(color, list);
+                    }
+                    list.add(texture);
                 }
             }
         }
+        // restore the original order
+        final TObjectIntHashMap<TriTexture> order = new TObjectIntHashMap<TriTexture>();
+        for (int i = 0, len = this.textures.size(); i < len; i++) {
+            order.put(this.textures.get(i), i);
+        }
+        Collections.sort(result, new Comparator<TriTexture>() {
+            @Override
+            public int compare(TriTexture o1, TriTexture o2) {
+                return order.get(o1) - order.get(o2);
+            }
+        });
+        return result;
+    }
+
+    // combine the textures in this manager
+    public final void combine() {
+        // -- find textures that are "inside" other textures
+        final ArrayList<TriTexture> textures = mergeContained();
 
         //System.out.println("Obtained " + textures.size() + " unique textures after merging.");
 
@@ -135,50 +195,114 @@ public class TriTextureManager extends ProgressReporter {
                 return Math.max(o2.width, o2.height) - Math.max(o1.width, o1.height);
             }
         });
+        if (textures.isEmpty()) {
+            invalidate();
+            return;
+        }
+
         // -- combine remaining "parent" textures into one image
-        int lengthBeforeCombining = len;
+        // The current texture is always combined with the texture that has the biggest jaccard
+        // similarity (the first one in the list if there are several). The remaining textures are
+        // grouped by pixel count, since for a texture with n pixels and a current texture with m pixels
+        // the jaccard similarity is at most min(n, m)/max(n, m). The groups are visited by that bound
+        // and the search stops when no remaining group can be more similar.
+        TreeMap<Integer, TreeSet<Integer>> groups = new TreeMap<Integer, TreeSet<Integer>>();
+        TreeSet<Integer> remaining = new TreeSet<Integer>();
+        // Note: the pixel count is no longer available once a texture is a child
+        int[] pixelCounts = new int[textures.size()];
+        for (int i = 1, len = textures.size(); i < len; i++) {
+            int pixelCount = textures.get(i).getPixelCount();
+            pixelCounts[i] = pixelCount;
+            TreeSet<Integer> group = groups.get(pixelCount);
+            if (group == null) {
+                group = new TreeSet<Integer>();
+                groups.put(pixelCount, group);
+            }
+            group.add(i);
+            remaining.add(i);
+        }
+        TriTexture texture = textures.get(0);
+        int lengthBeforeCombining = textures.size();
         setActivity("Combining Textures...", false);
-        while (len > 1) {
-            setProgress(((lengthBeforeCombining - len + 1)/(float)lengthBeforeCombining) * 100);
+        while (!remaining.isEmpty()) {
+            setProgress(((lengthBeforeCombining - remaining.size())/(float)lengthBeforeCombining) * 100);
             // find the texture with the biggest jaccard similarity
-            TriTexture texture = textures.get(0);
-            TriTexture mergeTo = textures.get(1);
-            int mergeToId = 1;
-            float similarity = texture.jaccard(mergeTo);
-            for (int i = 2; i < len; i++) {
-                TriTexture compareTo = textures.get(i);
-                float newSim = texture.jaccard(compareTo);
-                // note: this gets the largest most similar neighbour
-                if (newSim > similarity) {
-                    similarity = newSim;
-                    mergeTo = compareTo;
-                    mergeToId = i;
+            int pixelCount = texture.getPixelCount();
+            Iterator<Map.Entry<Integer, TreeSet<Integer>>> smaller = groups.headMap(pixelCount, true).descendingMap().entrySet().iterator();
+            Iterator<Map.Entry<Integer, TreeSet<Integer>>> larger = groups.tailMap(pixelCount, false).entrySet().iterator();
+            Map.Entry<Integer, TreeSet<Integer>> nextSmaller = smaller.hasNext() ? smaller.next() : null;
+            Map.Entry<Integer, TreeSet<Integer>> nextLarger = larger.hasNext() ? larger.next() : null;
+            float similarity = -1;
+            int mergeToId = -1;
+            while (nextSmaller != null || nextLarger != null) {
+                float boundSmaller = nextSmaller == null ? -1 : nextSmaller.getKey() / (float)pixelCount;
+                float boundLarger = nextLarger == null ? -1 : pixelCount / (float)nextLarger.getKey();
+                TreeSet<Integer> group;
+                float bound;
+                if (boundSmaller > boundLarger || (boundSmaller == boundLarger &&
+                        nextSmaller.getValue().first() < nextLarger.getValue().first())) {
+                    group = nextSmaller.getValue();
+                    bound = boundSmaller;
+                    nextSmaller = smaller.hasNext() ? smaller.next() : null;
+                } else {
+                    group = nextLarger.getValue();
+                    bound = boundLarger;
+                    nextLarger = larger.hasNext() ? larger.next() : null;
+                }
+                if (bound < similarity) {
+                    break;
+                }
+                for (int id : group) {
+                    if (bound == similarity && id > mergeToId) {
+                        break;
+                    }
+                    float newSim = texture.jaccard(textures.get(id));
+                    // note: this gets the largest most similar neighbour
+                    if (newSim > similarity || (newSim == similarity && id < mergeToId)) {
+                        similarity = newSim;
+                        mergeToId = id;
+                    }
+                    if (newSim == bound) {
+                        // no later texture of this group can be better
+                        break;
+                    }
                 }
             }
+            TriTexture mergeTo = textures.get(mergeToId);
             // check if we can make this a child
             // otherwise we combine the textures
             if (texture.makeChild(mergeTo)) {
-                textures.remove(mergeToId);
+                remove(groups, remaining, pixelCounts, mergeToId);
             } else if (mergeTo.makeChild(texture)) {
-                textures.remove(0);
+                // continue with the next texture in the list
+                int nextId = remaining.first();
+                texture = textures.get(nextId);
+                remove(groups, remaining, pixelCounts, nextId);
             } else {
                 // generate the new TriTexture
                 TriTexture parentTexture = new TriTexture(texture, mergeTo, this);
-                // remove textures
-                textures.remove(mergeToId);
-                textures.remove(0);
-                // add new parent to front
-                textures.add(0, parentTexture);
+                remove(groups, remaining, pixelCounts, mergeToId);
+                // continue with the new parent
+                texture = parentTexture;
                 // register texture
                 this.addTexture(parentTexture);
             }
-            len--;
         }
 
         // invalidate texture list (for id generation)
         invalidate();
 
-        //System.out.println("Pixel Count: " + textures.get(0).getPixelCount());
+        //System.out.println("Pixel Count: " + texture.getPixelCount());
+    }
+
+    // helper - remove a texture from the remaining textures
+    private static void remove(TreeMap<Integer, TreeSet<Integer>> groups, TreeSet<Integer> remaining, int[] pixelCounts, int id) {
+        TreeSet<Integer> group = groups.get(pixelCounts[id]);
+        group.remove(id);
+        if (group.isEmpty()) {
+            groups.remove(pixelCounts[id]);
+        }
+        remaining.remove(id);
     }
 
     // update uv maps
@@ -1,8 +1,7 @@
 package com.vitco.export.generic.container;
 
 import com.vitco.util.graphic.G2DUtil;
-import com.vitco.util.misc.IntegerTools;
-import gnu.trove.map.hash.TIntObjectHashMap;
+import com.vitco.util.graphic.PixelRaster;
 import org.junit.Test;
 
 import javax.imageio.ImageIO;
@@ -18,14 +17,14 @@ public class TriTextureTest {
     public void compressionTest() throws Exception {
         // load image that we want to compress
         BufferedImage input = ImageIO.read(new File("C:\\Users\\flux\\Dropbox\\java\\VoxelShop\\Test Files\\Texture Compression\\sample25.png"));
-        // create hashmap with pixels
-        TIntObjectHashMap<int[]> pixels = new TIntObjectHashMap<int[]>();
+        // create raster with pixels
+        PixelRaster pixels = new PixelRaster(input.getWidth(), input.getHeight());
         for (int x = 0, width = input.getWidth(); x < width; x++) {
             for (int y = 0, height = input.getHeight(); y < height; y++) {
                 int rgb = input.getRGB(x,y);
                 // check that this is not a fully transparent pixel
                 if (((rgb >> 24) & 0xff) != 0) {
-                    pixels.put(IntegerTools.makeInt(x, y), new int[]{x, y, rgb});
+                    pixels.set(x, y, rgb);
                 }
             }
         }
@@ -49,7 +48,7 @@ public class TriTextureTest {
         BufferedImage img = new BufferedImage(imgSize, imgSize, BufferedImage.TYPE_INT_ARGB);
 
         // print found voxels
-        for (int[] p : pixels.valueCollection()) {
+        for (int[] p : pixels.getPixels()) {
             if (p[0] > -1 && p[1] > -1 && p[0] < img.getWidth() && p[1] < img.getHeight()) {
                 img.setRGB(p[0], p[1], p[2]);
             }
@@ -63,7 +62,7 @@ public class TriTextureTest {
 
         // draw outlines of the voxels
         g2.setColor(Color.WHITE);
-        for (int[] p : pixels.valueCollection()) {
+        for (int[] p : pixels.getPixels()) {
             g2.drawRect( (p[0])*zoom, (p[1])*zoom, zoom, zoom);
         }
 
@@ -141,16 +140,13 @@ public class TriTextureTest {
                     uvPoints[2][0] * size[0],  uvPoints[2][1] * size[1]
             );
             // generate required points (two colors)
-            TIntObjectHashMap<int[]> pixels = new TIntObjectHashMap<int[]>();
+            PixelRaster pixels = new PixelRaster(size[0], size[1]);
             for (int[] point : points) {
-                pixels.put(IntegerTools.makeInt(point[0], point[1]), new int[] {point[0], point[1],
-                        rand.nextBoolean() ? Color.RED.getRGB() : Color.BLUE.getRGB()
-                });
+                pixels.set(point[0], point[1], rand.nextBoolean() ? Color.RED.getRGB() : Color.BLUE.getRGB());
             }
 
             // -- compress
-            TIntObjectHashMap<int[]> pixelsCompressed = new TIntObjectHashMap<int[]>();
-            pixelsCompressed.putAll(pixels);
+            PixelRaster pixelsCompressed = new PixelRaster(pixels, size[0], size[1]);
             double[][] uvPointsCompressed = new double[][] {
                     new double[] {uvPoints[0][0], uvPoints[0][1]},
                     new double[] {uvPoints[1][0], uvPoints[1][1]},
@@ -198,7 +194,7 @@ public class TriTextureTest {
                 // print points that are checked
 //                System.out.println(x + " " + y + " vs " + xCompressed + " " + yCompressed);
                 // check that the color values match
-                assert pixels.get(IntegerTools.makeInt(x, y))[2] == pixelsCompressed.get(IntegerTools.makeInt(xCompressed, yCompressed))[2];
+                assert pixels.getColor(x, y) == pixelsCompressed.getColor(xCompressed, yCompressed);
             }
 
         }
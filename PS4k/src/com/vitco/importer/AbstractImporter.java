@@ -1,12 +1,14 @@
 package com.vitco.importer;
 
+import com.vitco.low.LongCubeIndexer;
 import com.vitco.util.file.FileIn;
 import com.vitco.util.file.RandomAccessFileIn;
+import gnu.trove.set.hash.TLongHashSet;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
  * Importer contract for (all?) voxel formats
@@ -21,38 +23,143 @@ public abstract class AbstractImporter {
 
     // -------------
 
+    // the amount of voxels per batch (streaming import)
+    public static final int BATCH_SIZE = 1 << 14;
+
+    // receives the voxels while the file is read (streaming import)
+    public interface BatchListener {
+        // called with the voxels of a layer in the order they were read
+        void onBatch(Batch batch) throws IOException;
+    }
+
+    // a batch of voxels that belong to a layer
+    public final static class Batch {
+        public final Layer layer;
+        private final long[] positions;
+        private final int[] colors;
+        private final int size;
+        // constructor
+        private Batch(Layer layer, long[] positions, int[] colors, int size) {
+            this.layer = layer;
+            this.positions = positions;
+            this.colors = colors;
+            this.size = size;
+        }
+
+        // the amount of voxels in this batch
+        public final int size() {
+            return size;
+        }
+
+        // access the voxels by index
+        public final int getX(int index) {
+            return LongCubeIndexer.getX(positions[index]);
+        }
+        public final int getY(int index) {
+            return LongCubeIndexer.getY(positions[index]);
+        }
+        public final int getZ(int index) {
+            return LongCubeIndexer.getZ(positions[index]);
+        }
+        public final int getColor(int index) {
+            return colors[index];
+        }
+
+        // the packed columns (LongCubeIndexer ids and colors, only the first size() entries are used)
+        public final long[] getPositions() {
+            return positions;
+        }
+        public final int[] getColors() {
+            return colors;
+        }
+    }
+
     // contains a layer object
+    // Note: The voxels are stored in packed primitive columns (position and color)
     public final static class Layer {
         public final String name;
-        // contains the voxel that were read
-        private ArrayList<int[]> voxel = new ArrayList<int[]>();
+        // the positions (LongCubeIndexer ids) and colors of the voxels that were read
+        private long[] positions = new long[16];
+        private int[] colors = new int[16];
+        private int size = 0;
+        // the amount of voxels that were already passed on in batches (streaming import)
+        private int streamed = 0;
+        // true if this layer was prepended
+        private boolean prepended = false;
         // constructor
         private Layer(String name) {
             this.name = name;
         }
 
-        // for sanity testing
-        private final HashSet<String> known = new HashSet<String>();
+        // hand the buffered voxels over as a batch
+        private Batch takeBatch() {
+            Batch result = new Batch(this, positions, colors, size);
+            streamed += size;
+            positions = new long[BATCH_SIZE];
+            colors = new int[BATCH_SIZE];
+            size = 0;
+            return result;
+        }
+
+        // for sanity testing (only filled if assertions are enabled)
+        private final TLongHashSet known = new TLongHashSet();
 
         private void addVoxel(int x, int y, int z, int color) {
-            voxel.add(new int[]{x,y,z,color});
+            if (size == positions.length) {
+                int capacity = size * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                colors = Arrays.copyOf(colors, capacity);
+            }
+            long position = LongCubeIndexer.getId(x, y, z);
+            positions[size] = position;
+            colors[size] = color;
+            size++;
             // for sanity testing
-            assert known.add(x+"_"+y+"_"+z);
+            assert known.add(position);
         }
 
         // ----
 
         public final boolean isEmpty() {
-            return voxel.isEmpty();
+            return size == 0 && streamed == 0;
+        }
+
+        // true if this layer was prepended to the previous layers
+        public final boolean isPrepended() {
+            return prepended;
+        }
+
+        // the amount of voxels in this layer (only the ones that were not streamed)
+        public final int size() {
+            return size;
+        }
+
+        // access the voxels by index (allocation free)
+        public final long getPosition(int index) {
+            return positions[index];
+        }
+        public final int getX(int index) {
+            return LongCubeIndexer.getX(positions[index]);
+        }
+        public final int getY(int index) {
+            return LongCubeIndexer.getY(positions[index]);
+        }
+        public final int getZ(int index) {
+            return LongCubeIndexer.getZ(positions[index]);
+        }
+        public final int getColor(int index) {
+            return colors[index];
         }
 
         int i = 0;
         public final int[] next() {
-            return voxel.get(i++);
+            int[] result = new int[] {getX(i), getY(i), getZ(i), colors[i]};
+            i++;
+            return result;
         }
 
         public final boolean hasNext() {
-            return i < voxel.size();
+            return i < size;
         }
 
         public final void reset() {
@@ -77,7 +184,7 @@ public abstract class AbstractImporter {
     }
 
     // add voxel to known-voxel list
-    protected final void addVoxel(int x, int y, int z, int color) {
+    protected final void addVoxel(int x, int y, int z, int color) throws IOException {
         voxelCount++;
         lx = Math.min(lx, x);
         ly = Math.min(ly, y);
@@ -89,12 +196,23 @@ public abstract class AbstractImporter {
         cy += y;
         cz += z;
         activeLayer.addVoxel(x, y, z, color);
+        if (listener != null && activeLayer.size() == BATCH_SIZE) {
+            listener.onBatch(activeLayer.takeBatch());
+        }
+    }
+
+    // pass the remaining voxels of the active layer on (streaming import)
+    private void flushActiveLayer() throws IOException {
+        if (listener != null && activeLayer.size() > 0) {
+            listener.onBatch(activeLayer.takeBatch());
+        }
     }
 
     // contains the layer list
     private final ArrayList<Layer> layerList = new ArrayList<Layer>();
     // add a new layer that the voxels are now added to
-    protected final void addLayer(String name) {
+    protected final void addLayer(String name) throws IOException {
+        flushActiveLayer();
         if (activeLayer.isEmpty()) {
             layerList.remove(activeLayer);
         }
@@ -102,11 +220,13 @@ public abstract class AbstractImporter {
         layerList.add(activeLayer);
     }
     // prepend a new layer that the voxels are now added to
-    protected final void prependLayer(String name) {
+    protected final void prependLayer(String name) throws IOException {
+        flushActiveLayer();
         if (activeLayer.isEmpty()) {
             layerList.remove(activeLayer);
         }
         activeLayer = new Layer(name);
+        activeLayer.prepended = true;
         layerList.add(0, activeLayer);
     }
 
@@ -155,14 +275,25 @@ public abstract class AbstractImporter {
 
     // --------------
 
+    // receives the voxels while reading (null if the voxels are kept)
+    private final BatchListener listener;
+
     // constructor
     public AbstractImporter(File file, String layerName) throws IOException {
+        this(file, layerName, null);
+    }
+
+    // constructor - streaming import: the voxels are passed to the listener in batches
+    // while the file is read and are not kept in the layers
+    public AbstractImporter(File file, String layerName, BatchListener listener) throws IOException {
+        this.listener = listener;
         activeLayer = new Layer(layerName);
         layerList.add(activeLayer);
         FileIn fileIn = new FileIn(file);
         RandomAccessFileIn raf = new RandomAccessFileIn(file, "r");
         try {
             hasLoaded = read(fileIn, raf);
+            flushActiveLayer();
         } finally {
             raf.close();
             fileIn.finish();
@@ -45,6 +45,11 @@ public class BinVoxImporter extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public BinVoxImporter(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     // read file - returns true if file has loaded correctly
     @Override
     protected boolean read(FileIn fileIn, RandomAccessFileIn raf) throws IOException {
@@ -20,6 +20,11 @@ public class CCVxlImporter extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public CCVxlImporter(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     // type of game (they use different color palettes)
     public enum NormalType { TiberianSun(2), RedAlert2(4);
         public final int id;
@@ -6,7 +6,6 @@ import com.vitco.util.file.RandomAccessFileIn;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -21,6 +20,11 @@ public class Kv6Importer extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public Kv6Importer(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     // ---------
 
     @Override
@@ -96,7 +100,7 @@ public class Kv6Importer extends AbstractImporter {
                 sumxyoffset += xyoff;
                 // create list first, order it and then check which voxel are missing (testing)
                 for (int newC = c + xyoff; c < newC; c++) {
-                    int[] vox = voxel.remove(0); // alternative "voxel.get(c)"
+                    int[] vox = voxel.get(c);
                     addedVoxelList.add(vox);
 //                    System.out.println("A:" + x + " " + y + " " + vox[0]);
                     addVoxel(x - cx, vox[0] - cz, -y + cy, vox[1]);
@@ -114,14 +118,13 @@ public class Kv6Importer extends AbstractImporter {
                 });
                 for (int[] vox : addedVoxelList) {
                     // fill in voxels "in between"
-                    BigInteger bigInteger = BigInteger.valueOf(vox[2]);
-                    if (lastZ != null && !bigInteger.testBit(4)) {
+                    if (lastZ != null && (vox[2] & 16) == 0) {
                         for (int i = lastZ + 1; i < vox[0]; i++) {
 //                            System.out.println("E:" + x + " " + y + " " + i);
                             addVoxel(x - cx, i - cz, -y + cy, vox[1]);
                         }
                     }
-                    if (!bigInteger.testBit(5)) {
+                    if ((vox[2] & 32) == 0) {
                         lastZ = vox[0];
                     } else {
                         lastZ = null;
@@ -17,6 +17,11 @@ public class KvxImporter extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public KvxImporter(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     @Override
     protected boolean read(FileIn fileIn, RandomAccessFileIn raf) throws IOException {
         fileIn.readIntRev(); //int numbytes = fileIn.readIntRev();
@@ -18,6 +18,11 @@ public class PnxImporter extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public PnxImporter(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     @Override
     protected boolean read(FileIn fileIn, RandomAccessFileIn raf) throws IOException {
 
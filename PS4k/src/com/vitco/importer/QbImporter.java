@@ -18,6 +18,11 @@ public class QbImporter extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public QbImporter(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     private static final int CODE_FLAG = 2;
     private static final int NEXT_SLICE_FLAG = 6;
 
@@ -60,15 +65,17 @@ public class QbImporter extends AbstractImporter {
             ByteBuffer byteBuffer = ByteBuffer.allocate(4);
 
             if (compressed == 0) { // uncompressed
+                // read one row at a time (bytes c1, c2, c3, a as a little endian integer)
+                int[] row = new int[sx];
                 for(int z = 0; z < sz; z++) {
                     for(int y = 0; y < sy; y++) {
+                        fileIn.readIntsRev(row, 0, sx);
                         for(int x = 0; x < sx; x++) {
-                            int c1 = fileIn.readByteUnsigned();
-                            int c2 = fileIn.readByteUnsigned();
-                            int c3 = fileIn.readByteUnsigned();
-                            int a = fileIn.readByteUnsigned(); // read visibility encoding
-                            if (a != 0) { // if voxel is not invisible (this should work correctly in all cases)
-                                int rgb = colorFormat == 0 ? new Color(c1,c2,c3).getRGB() : new Color(c3, c2, c1).getRGB();
+                            int value = row[x];
+                            if ((value >>> 24) != 0) { // if voxel is not invisible (this should work correctly in all cases)
+                                int rgb = colorFormat == 0
+                                        ? 0xFF000000 | ((value & 0xFF) << 16) | (value & 0xFF00) | ((value >> 16) & 0xFF)
+                                        : 0xFF000000 | (value & 0xFFFFFF);
                                 if (zAxisOrientation == 1) {
                                     addVoxel(x + cx, -y - cy, z + cz, rgb);
                                 } else {
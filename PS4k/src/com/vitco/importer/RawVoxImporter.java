@@ -27,6 +27,11 @@ public class RawVoxImporter extends AbstractImporter {
         super(file, layerName);
     }
 
+    // constructor (streaming import)
+    public RawVoxImporter(File file, String layerName, BatchListener listener) throws IOException {
+        super(file, layerName, listener);
+    }
+
     // read file - returns true if file has loaded correctly
     @Override
     protected boolean read(FileIn fileIn, RandomAccessFileIn raf) throws IOException {
@@ -0,0 +1,156 @@
+package com.vitco.importer;
+
+import com.vitco.core.data.VoxelDataInterface;
+import com.vitco.low.LongCubeIndexer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Commits imported voxels into the data in batches (a single history entry per layer).
+ *
+ * For a streaming import the importer reads the file in its own thread and passes fixed size
+ * batches through a bounded queue. The voxels are shown while the file is still being read and
+ * the importer never holds more than a few batches, no matter how big the file is.
+ */
+public final class StreamingImport {
+
+    // the maximum amount of batches that are waiting to be committed
+    private static final int QUEUE_SIZE = 4;
+
+    // marks the end of the stream
+    private static final Object END = new Object();
+
+    // creates an importer that passes the voxels to the listener
+    public interface ImporterFactory {
+        AbstractImporter create(AbstractImporter.BatchListener listener) throws IOException;
+    }
+
+    // the data the voxels are committed into
+    private final VoxelDataInterface data;
+    // true if the layers are received as a stream (i.e. in the order they were read)
+    private final boolean streamed;
+    // the layer that is currently committed into
+    private AbstractImporter.Layer currentLayer = null;
+    private int currentLayerId = -1;
+    // the amount of layers that were created
+    private int layerCount = 0;
+
+    // constructor
+    private StreamingImport(VoxelDataInterface data, boolean streamed) {
+        this.data = data;
+        this.streamed = streamed;
+    }
+
+    // commit voxels of a layer (the first "count" LongCubeIndexer ids and colors)
+    private void commit(AbstractImporter.Layer layer, long[] positions, int[] colors, int count) {
+        if (layer != currentLayer) {
+            currentLayer = layer;
+            // a new layer is created on top of the other layers, prepended layers go below
+            // the layers that were already created by this import
+            int index = streamed && layer.isPrepended() ? layerCount : 0;
+            currentLayerId = data.createImportLayer(layer.name, layer.isVisible(), index);
+            layerCount++;
+        }
+        data.importVoxels(currentLayerId, positions, colors, count);
+    }
+
+    // close the import and select the last layer that was created
+    private void finish() {
+        data.finishImport();
+        if (currentLayerId != -1) {
+            data.selectLayerSoft(currentLayerId);
+        }
+    }
+
+    // ----------------
+
+    // import the voxels of an importer that has already read the file
+    public static void importLayers(AbstractImporter importer, VoxelDataInterface data, int[] shift) {
+        StreamingImport streamingImport = new StreamingImport(data, false);
+        long shiftOperand = LongCubeIndexer.getShiftOperand(shift[0], shift[1], shift[2]);
+        long[] positions = new long[AbstractImporter.BATCH_SIZE];
+        int[] colors = new int[AbstractImporter.BATCH_SIZE];
+        try {
+            for (AbstractImporter.Layer layer : importer.getVoxel()) {
+                for (int from = 0, size = layer.size(); from < size; from += AbstractImporter.BATCH_SIZE) {
+                    int count = Math.min(AbstractImporter.BATCH_SIZE, size - from);
+                    for (int i = 0; i < count; i++) {
+                        positions[i] = layer.getPosition(from + i) + shiftOperand;
+                        colors[i] = layer.getColor(from + i);
+                    }
+                    streamingImport.commit(layer, positions, colors, count);
+                }
+            }
+        } finally {
+            streamingImport.finish();
+        }
+    }
+
+    // read a file and commit the voxels while reading, returns true if the file has loaded correctly
+    public static boolean importStreamed(final ImporterFactory factory, VoxelDataInterface data) throws IOException {
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(QUEUE_SIZE);
+        final boolean[] loaded = new boolean[] {false};
+        final Throwable[] error = new Throwable[] {null};
+
+        // read the file in a separate thread
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    AbstractImporter importer = factory.create(new AbstractImporter.BatchListener() {
+                        @Override
+                        public void onBatch(AbstractImporter.Batch batch) throws IOException {
+                            try {
+                                queue.put(batch);
+                            } catch (InterruptedException e) {
+                                throw new InterruptedIOException("Import was interrupted.");
+                            }
+                        }
+                    });
+                    loaded[0] = importer.hasLoaded();
+                } catch (Throwable t) {
+                    error[0] = t;
+                } finally {
+                    try {
+                        queue.put(END);
+                    } catch (InterruptedException ignored) {
+                        // the stream was abandoned
+                    }
+                }
+            }
+        }, "Import Reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        // commit the batches as they arrive
+        StreamingImport streamingImport = new StreamingImport(data, true);
+        try {
+            for (Object item = queue.take(); item != END; item = queue.take()) {
+                AbstractImporter.Batch batch = (AbstractImporter.Batch) item;
+                streamingImport.commit(batch.layer, batch.getPositions(), batch.getColors(), batch.size());
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Import was interrupted.");
+        } finally {
+            streamingImport.finish();
+            // stop the reader if the stream was not consumed completely
+            if (reader.isAlive()) {
+                reader.interrupt();
+                queue.clear();
+            }
+        }
+
+        // pass errors of the reader on
+        if (error[0] instanceof IOException) {
+            throw (IOException) error[0];
+        } else if (error[0] instanceof RuntimeException) {
+            throw (RuntimeException) error[0];
+        } else if (error[0] instanceof Error) {
+            throw (Error) error[0];
+        }
+        return loaded[0];
+    }
+}
@@ -0,0 +1,143 @@
+package com.vitco.importer;
+
+import com.vitco.core.data.Data;
+import com.vitco.core.data.container.Voxel;
+import com.vitco.export.PnxExporter;
+import com.vitco.low.LongCubeIndexer;
+import org.junit.Test;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Test that a streaming import results in the same data as a regular import.
+ */
+public class StreamingImportTest {
+
+    // helper - all voxels of the data (layer name, position and color)
+    private static HashSet<String> getVoxels(Data data) {
+        HashSet<String> result = new HashSet<String>();
+        for (Integer layerId : data.getLayers()) {
+            for (Voxel voxel : data.getLayerVoxels(layerId)) {
+                result.add(data.getLayerName(layerId) + " " + voxel.getPosAsString() + " " + voxel.getColor().getRGB());
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testStreamedImport() throws Exception {
+        // create data with two layers (more voxels than fit into one batch)
+        Data data = new Data();
+        data.selectLayer(data.createLayer("Sphere"));
+        int radius = 20;
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = -radius; y <= radius; y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    if (x * x + y * y + z * z <= radius * radius) {
+                        data.addVoxelDirect(new Color(x + 100, y + 100, z + 100), new int[]{x, y, z});
+                    }
+                }
+            }
+        }
+        data.selectLayer(data.createLayer("Cube"));
+        for (int i = 0; i < 1000; i++) {
+            data.addVoxelDirect(Color.RED, new int[]{i % 10 + 30, i / 100, i / 10 % 10});
+        }
+        assert data.getLayerVoxels(data.getLayers()[1]).length > AbstractImporter.BATCH_SIZE;
+
+        final File file = File.createTempFile("streaming", ".pnx");
+        try {
+            assert new PnxExporter(file, data, null, null).writeData();
+
+            // regular import
+            Data loaded = new Data();
+            StreamingImport.importLayers(new PnxImporter(file, "Import"), loaded, new int[] {0, 0, 0});
+
+            // streaming import
+            Data streamed = new Data();
+            int layerCount = streamed.getLayers().length;
+            assert StreamingImport.importStreamed(new StreamingImport.ImporterFactory() {
+                @Override
+                public AbstractImporter create(AbstractImporter.BatchListener listener) throws IOException {
+                    return new PnxImporter(file, "Import", listener);
+                }
+            }, streamed);
+
+            assert Arrays.equals(loaded.getLayerNames(), streamed.getLayerNames());
+            assert getVoxels(loaded).equals(getVoxels(streamed));
+            assert getVoxels(loaded).size() == getVoxels(data).size();
+
+            // every imported layer is a single history entry
+            streamed.undoV();
+            assert streamed.getLayers().length == layerCount + 1;
+            streamed.undoV();
+            assert streamed.getLayers().length == layerCount;
+            assert streamed.getVisibleLayerVoxel().length == 0;
+            streamed.redoV();
+            streamed.redoV();
+            assert getVoxels(loaded).equals(getVoxels(streamed));
+        } finally {
+            boolean deleted = file.delete();
+            assert deleted;
+        }
+    }
+
+    @Test
+    public void testAbortedImport() throws Exception {
+        // create data with more voxels than fit into one batch
+        Data data = new Data();
+        for (int i = 0; i < 30 * 30 * 30; i++) {
+            data.addVoxelDirect(Color.RED, new int[]{i % 30, i / 900, i / 30 % 30});
+        }
+        final File file = File.createTempFile("aborted", ".pnx");
+        try {
+            boolean written = new PnxExporter(file, data, null, null).writeData();
+            assert written;
+
+            // the reading fails after the first batch
+            Data aborted = new Data();
+            int layerCount = aborted.getLayers().length;
+            boolean loaded;
+            try {
+                loaded = StreamingImport.importStreamed(new StreamingImport.ImporterFactory() {
+                    @Override
+                    public AbstractImporter create(final AbstractImporter.BatchListener listener) throws IOException {
+                        return new PnxImporter(file, "Import", new AbstractImporter.BatchListener() {
+                            private boolean first = true;
+                            @Override
+                            public void onBatch(AbstractImporter.Batch batch) throws IOException {
+                                if (!first) {
+                                    throw new IOException("Broken file.");
+                                }
+                                first = false;
+                                listener.onBatch(batch);
+                            }
+                        });
+                    }
+                }, aborted);
+            } catch (IOException e) {
+                loaded = false;
+            }
+            assert !loaded;
+
+            // the committed batch is shown and forms a single history entry
+            assert aborted.getLayers().length == layerCount + 1;
+            assert aborted.getVisibleLayerVoxel().length == AbstractImporter.BATCH_SIZE;
+            // the import was finished (no more voxels are added to the layer)
+            int layerId = aborted.getSelectedLayer();
+            assert aborted.importVoxels(layerId, new long[] {LongCubeIndexer.getId(100, 0, 0)}, new int[] {0}, 1) == 0;
+            aborted.undoV();
+            assert aborted.getLayers().length == layerCount;
+            assert aborted.getVisibleLayerVoxel().length == 0;
+            aborted.redoV();
+            assert aborted.getVisibleLayerVoxel().length == AbstractImporter.BATCH_SIZE;
+        } finally {
+            boolean deleted = file.delete();
+            assert deleted;
+        }
+    }
+}
@@ -18,6 +18,11 @@ public class VoxImporter extends AbstractImporter {
         super(file, name);
     }
 
+    // constructor (streaming import)
+    public VoxImporter(File file, String name, BatchListener listener) throws IOException {
+        super(file, name, listener);
+    }
+
     private static final int[] voxColors = new int[] {
             -1, -52, -103, -154, -205, -256, -13057, -13108, -13159, -13210, -13261, -13312, -26113, -26164, -26215, -26266,
             -26317, -26368, -39169, -39220, -39271, -39322, -39373, -39424, -52225, -52276, -52327, -52378, -52429, -52480, -65281,
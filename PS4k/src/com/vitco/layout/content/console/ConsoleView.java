@@ -7,6 +7,7 @@ import com.vitco.Main;
 import com.vitco.core.data.Data;
 import com.vitco.core.data.container.Voxel;
 import com.vitco.export.generic.ExportWorld;
+import com.vitco.export.generic.TriangulationCostModel;
 import com.vitco.layout.content.JCustomScrollPane;
 import com.vitco.layout.content.ViewPrototype;
 import com.vitco.layout.frames.FrameLinkagePrototype;
@@ -170,6 +171,14 @@ public class ConsoleView extends ViewPrototype implements ConsoleViewInterface {
                         countInfo = exportWorld.analyzeTriCount(ExportWorld.ALGORITHM_POLY2TRI);
                         console.addLine("Poly2Tri Meshing (Without mesh fixing): " + countInfo[0] +
                                 " triangles (" + countInfo[1] + " before) in " + countInfo[2] + "ms");
+                        // fit a cost model to the timings (to compare with the fixed
+                        // coefficients that are used for the automatic exporter selection)
+                        TriangulationCostModel costModel = new TriangulationCostModel();
+                        exportWorld.recordCostModel(costModel);
+                        console.addLine("Triangulation Cost Model:");
+                        for (String line : costModel.toString().split(String.format("%n"))) {
+                            console.addLine(line);
+                        }
                     }
                 });
             }
@@ -318,6 +327,18 @@ public class ConsoleView extends ViewPrototype implements ConsoleViewInterface {
         consoleAction.put("/shader", "toggle_shader_enabled");
         consoleAction.put("/check deadlock", "check_for_deadlock_toggle");
         consoleAction.put("/study holes", "study_holes_print_info");
+        consoleAction.put("/study async", "study_async_action_latency");
+
+        // print the latency of the async actions (by action type)
+        actionManager.registerAction("study_async_action_latency", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                console.addLine("Async Action Latency:");
+                for (String line : asyncActionManager.getStatistics().split(String.format("%n"))) {
+                    console.addLine(line);
+                }
+            }
+        });
 
         // check current content for holes and print info
         actionManager.registerAction("study_holes_print_info", new AbstractAction() {
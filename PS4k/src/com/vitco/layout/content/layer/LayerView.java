@@ -311,6 +311,17 @@ public class LayerView extends ViewPrototype implements LayerViewInterface {
                     public boolean ready() {
                         return System.currentTimeMillis() - msDelay > time;
                     }
+
+                    @Override
+                    public long getReadyTime() {
+                        return time + msDelay + 1;
+                    }
+
+                    @Override
+                    public String[] getDomains() {
+                        // only schedules the repaint of the table
+                        return new String[] {"layer_table"};
+                    }
                 });
             }
 
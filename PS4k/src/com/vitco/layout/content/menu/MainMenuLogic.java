@@ -144,35 +144,23 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
         }
     }
 
-    // import helper for voxel file
+    // import helper for voxel file (the file is already read)
     private void importVoxelData(AbstractImporter importer, boolean shiftToCenter) {
         if (importer.hasLoaded()) {
+            int[] shift = new int[] {0, 0, 0};
             if (shiftToCenter) {
                 int[] center = importer.getWeightedCenter();
                 int[] highest = importer.getHighest();
-                for (AbstractImporter.Layer layer : importer.getVoxel()) {
-                    int layerId = data.createLayer(layer.name);
-                    data.selectLayer(layerId);
-                    data.setVisible(layerId, layer.isVisible());
-                    for (int[] vox; layer.hasNext();) {
-                        vox = layer.next();
-                        data.addVoxelDirect(new Color(vox[3]),
-                                new int[] {vox[0] - center[0], vox[1] - highest[1], vox[2] - center[2]});
-                    }
-                }
-            } else {
-                for (AbstractImporter.Layer layer : importer.getVoxel()) {
-                    int layerId = data.createLayer(layer.name);
-                    data.selectLayer(layerId);
-                    data.setVisible(layerId, layer.isVisible());
-                    for (int[] vox; layer.hasNext();) {
-                        vox = layer.next();
-                        data.addVoxelDirect(new Color(vox[3]),new int[] {vox[0], vox[1], vox[2]});
-                    }
-                }
+                shift = new int[] {-center[0], -highest[1], -center[2]};
             }
+            StreamingImport.importLayers(importer, data, shift);
         }
     }
+
+    // import helper for voxel file (the voxels are shown while the file is read)
+    private void importVoxelData(StreamingImport.ImporterFactory factory) throws IOException {
+        StreamingImport.importStreamed(factory, data);
+    }
     // ======================================
 
     public final void openFile(File file) {
@@ -228,14 +216,15 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                     final File toOpen = fc_import.openFile(frame);
                     if (toOpen != null) {
                         String ext = fc_import.getCurrentExt();
-                        // todo: rework import so that history can stay (!)
-                        //data.freshStart();
-                        //data.deleteLayer(data.getSelectedLayer());
+                        // note: voxel files are imported with one history entry per layer,
+                        // images are added directly (and the history is cleared afterwards)
+                        boolean directImport = false;
                         final ProgressDialog dialog = new ProgressDialog(frame);
                         try {
                             if ("png".equals(ext) || "jpg".equals(ext) || "jpeg".equals(ext) || "bmp".equals(ext)) {
                                 // -----------------
                                 // import image data
+                                directImport = true;
                                 BufferedImage img = ImageIO.read(toOpen);
                                 if (img != null) {
                                     data.selectLayer(data.createLayer(FileTools.extractNameWithoutExtension(toOpen)));
@@ -246,6 +235,7 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                             } else if ("gif".equals(ext)) {
                                 // ----------------
                                 // import gif image data (including frame animation)
+                                directImport = true;
                                 ImageInputStream inputStream = ImageIO.createImageInputStream(toOpen);
                                 try {
                                     ImageReader ir = new GIFImageReader(new GIFImageReaderSpi());
@@ -287,8 +277,12 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                                     @Override
                                     protected Object doInBackground() throws Exception {
                                         dialog.setActivity("Importing File...", true);
-                                        AbstractImporter importer = new Kv6Importer(toOpen, FileTools.extractNameWithoutExtension(toOpen));
-                                        importVoxelData(importer, false);
+                                        importVoxelData(new StreamingImport.ImporterFactory() {
+                                            @Override
+                                            public AbstractImporter create(AbstractImporter.BatchListener listener) throws IOException {
+                                                return new Kv6Importer(toOpen, FileTools.extractNameWithoutExtension(toOpen), listener);
+                                            }
+                                        });
                                         return null;
                                     }
                                 });
@@ -299,8 +293,12 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                                     @Override
                                     protected Object doInBackground() throws Exception {
                                         dialog.setActivity("Importing File...", true);
-                                        AbstractImporter importer = new PnxImporter(toOpen, FileTools.extractNameWithoutExtension(toOpen));
-                                        importVoxelData(importer, false);
+                                        importVoxelData(new StreamingImport.ImporterFactory() {
+                                            @Override
+                                            public AbstractImporter create(AbstractImporter.BatchListener listener) throws IOException {
+                                                return new PnxImporter(toOpen, FileTools.extractNameWithoutExtension(toOpen), listener);
+                                            }
+                                        });
                                         return null;
                                     }
                                 });
@@ -311,8 +309,12 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                                     @Override
                                     protected Object doInBackground() throws Exception {
                                         dialog.setActivity("Importing File...", true);
-                                        AbstractImporter importer = new KvxImporter(toOpen, FileTools.extractNameWithoutExtension(toOpen));
-                                        importVoxelData(importer, false);
+                                        importVoxelData(new StreamingImport.ImporterFactory() {
+                                            @Override
+                                            public AbstractImporter create(AbstractImporter.BatchListener listener) throws IOException {
+                                                return new KvxImporter(toOpen, FileTools.extractNameWithoutExtension(toOpen), listener);
+                                            }
+                                        });
                                         return null;
                                     }
                                 });
@@ -323,8 +325,12 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                                     @Override
                                     protected Object doInBackground() throws Exception {
                                         dialog.setActivity("Importing File...", true);
-                                        AbstractImporter importer = new QbImporter(toOpen, FileTools.extractNameWithoutExtension(toOpen));
-                                        importVoxelData(importer, false);
+                                        importVoxelData(new StreamingImport.ImporterFactory() {
+                                            @Override
+                                            public AbstractImporter create(AbstractImporter.BatchListener listener) throws IOException {
+                                                return new QbImporter(toOpen, FileTools.extractNameWithoutExtension(toOpen), listener);
+                                            }
+                                        });
                                         return null;
                                     }
                                 });
@@ -370,13 +376,15 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                             //errorHandler.handle(e1);
                         }
 
-                        // force a refresh of the data (redraw)
-                        // todo: do this properly
-                        int layerId = data.getSelectedLayer();
-                        boolean vis = data.getLayerVisible(layerId);
-                        data.setVisible(layerId, !vis);
-                        data.setVisible(layerId, vis);
-                        data.clearHistoryV();
+                        if (directImport) {
+                            // force a refresh of the data (redraw)
+                            // todo: do this properly
+                            int layerId = data.getSelectedLayer();
+                            boolean vis = data.getLayerVisible(layerId);
+                            data.setVisible(layerId, !vis);
+                            data.setVisible(layerId, vis);
+                            data.clearHistoryV();
+                        }
                     }
                 }
             }
@@ -404,6 +412,8 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                 new String[] {"poly2tri", "Optimal (Poly2Tri)"},
                 new String[] {"minimal", "Low Poly (Rectangular)"},
                 new String[] {"naive", "Naive (Unoptimized)"},
+                new String[] {"auto", "Automatic (Fastest)"},
+                new String[] {"auto_low_poly", "Automatic Low Poly (Fastest)"},
                 new String[] {"legacy", "Legacy (Unoptimized)"}
         }, 0));
         // add information for "poly2tri"
@@ -421,6 +431,16 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                 "This might be useful if the voxel mesh needs further processing.");
         naiveInfo.setVisibleLookup("collada.type=naive");
         collada.addComponent(naiveInfo);
+        // add information for "auto"
+        LabelModule autoInfo = new LabelModule("Info: Selects the fastest exporter for every plane. Only " +
+                "exporters that create no rendering artifacts are used (Poly2Tri and Naive).");
+        autoInfo.setVisibleLookup("collada.type=auto");
+        collada.addComponent(autoInfo);
+        // add information for "auto_low_poly"
+        LabelModule autoLowPolyInfo = new LabelModule("Info: Selects the fastest exporter for every plane. " +
+                "Results in a lower triangle count, however rendering artifacts can appear (T-Junction problems).");
+        autoLowPolyInfo.setVisibleLookup("collada.type=auto_low_poly");
+        collada.addComponent(autoLowPolyInfo);
         // add information for "legacy"
         LabelModule legacyInfo = new LabelModule("Info: Unoptimized legacy exporter. Useful if you want to " +
                 "process the mesh further. Suitable for 3D printing (uses vertex coloring). Also currently the " +
@@ -763,6 +783,10 @@ public class MainMenuLogic extends MenuLogicPrototype implements MenuLogicInterf
                                         colladaExportWrapper.setAlgorithm(ExportDataManager.POLY2TRI_ALGORITHM);
                                     } else if (dialog.is("collada.type=naive")) {
                                         colladaExportWrapper.setAlgorithm(ExportDataManager.NAIVE_ALGORITHM);
+                                    } else if (dialog.is("collada.type=auto")) {
+                                        colladaExportWrapper.setAlgorithm(ExportDataManager.AUTO_ALGORITHM);
+                                    } else if (dialog.is("collada.type=auto_low_poly")) {
+                                        colladaExportWrapper.setAlgorithm(ExportDataManager.AUTO_LOW_POLY_ALGORITHM);
                                     }
 
                                     long time = System.currentTimeMillis();
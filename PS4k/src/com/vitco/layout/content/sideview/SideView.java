@@ -21,6 +21,8 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
 /**
  * Creates one side view instance (one perspective) and the specific user interaction.
@@ -61,49 +63,81 @@ public class SideView extends EngineInteractionPrototype implements SideViewInte
     // --------------
     // define ghost overlay that we draw
 
-    private boolean voxelOutlineOutdated = false;
-    SimpleVector[][] voxelOutlineData = new SimpleVector[0][];
-    private HullManager<Voxel> voxelOutlineManager = new HullManager<Voxel>();
+    // the amount of planes the ghost overlay outline is cached for
+    private static final int GHOST_PLANE_CACHE_SIZE = 16;
+
+    // the ghost overlay of one plane
+    private static final class GhostPlane {
+        private final HullManager<Voxel> voxelOutlineManager = new HullManager<Voxel>();
+        private boolean voxelOutlineOutdated = true;
+        private SimpleVector[][] voxelOutlineData = new SimpleVector[0][];
+    }
+
+    // the cached ghost planes (least recently used first)
+    private final LinkedHashMap<Integer, GhostPlane> ghostPlanes = new LinkedHashMap<Integer, GhostPlane>(16, 0.75f, true);
+    // the plane that the ghost overlay currently shows
+    private Integer ghostPlane = null;
 
     @Override
     protected SimpleVector[][] getGhostOverlay() {
-        if (voxelOutlineOutdated) {
-            voxelOutlineOutdated = false;
-            voxelOutlineData = voxelOutlineManager.getOutline(side);
+        GhostPlane plane = ghostPlanes.get(ghostPlane);
+        if (plane == null) {
+            return new SimpleVector[0][];
         }
-        return voxelOutlineData;
+        if (plane.voxelOutlineOutdated) {
+            plane.voxelOutlineOutdated = false;
+            plane.voxelOutlineData = plane.voxelOutlineManager.getOutline(side);
+        }
+        return plane.voxelOutlineData;
     }
 
     @Override
     protected boolean updateGhostOverlay() {
-        boolean result = false;
+        // the ghost overlay shows the previous plane
+        boolean result = ghostPlane == null || ghostPlane != prevcurrentplane;
+        ghostPlane = prevcurrentplane;
+
+        GhostPlane plane = ghostPlanes.get(ghostPlane);
+        if (plane == null) {
+            // drop the least recently used plane
+            if (ghostPlanes.size() >= GHOST_PLANE_CACHE_SIZE) {
+                Iterator<Integer> eldest = ghostPlanes.keySet().iterator();
+                data.invalidateSideViewBuffer("ghost" + side, side, eldest.next());
+                eldest.remove();
+            }
+            // make sure all voxels of the plane are retrieved
+            data.invalidateSideViewBuffer("ghost" + side, side, ghostPlane);
+            plane = new GhostPlane();
+            ghostPlanes.put(ghostPlane, plane);
+        }
 
-        Voxel[][] changedVoxel = data.getNewSideVoxel("side" + side, side, prevcurrentplane);
+        // only the changes since the last update of this plane are retrieved
+        Voxel[][] changedVoxel = data.getNewSideVoxel("ghost" + side, side, ghostPlane);
 
         if (changedVoxel[0] == null) {
-            voxelOutlineManager.clear();
-            voxelOutlineOutdated = true;
+            plane.voxelOutlineManager.clear();
+            plane.voxelOutlineOutdated = true;
             result = true;
         } else {
             // remove voxels
             for (Voxel remove : changedVoxel[0]) {
-                voxelOutlineManager.clearPosition(remove.posId);
+                plane.voxelOutlineManager.clearPosition(remove.posId);
             }
             // update has changed
             if (changedVoxel[0].length > 0) {
-                voxelOutlineOutdated = true;
+                plane.voxelOutlineOutdated = true;
                 result = true;
             }
         }
 
         // add new voxels
         for (Voxel add : changedVoxel[1]) {
-            voxelOutlineManager.update(add.posId, add);
+            plane.voxelOutlineManager.update(add.posId, add);
         }
 
         // update has changed
         if (changedVoxel[1].length > 0) {
-            voxelOutlineOutdated = true;
+            plane.voxelOutlineOutdated = true;
             result = true;
         }
 
@@ -252,7 +286,6 @@ public class SideView extends EngineInteractionPrototype implements SideViewInte
                 container.setPlane(currentplane);
                 // invalidate this buffers (as the plane has changed)
                 data.invalidateSideViewBuffer("side" + side, side, currentplane);
-                data.invalidateSideViewBuffer("side" + side, side, prevcurrentplane);
                 container.doNotSkipNextWorldRender();
                 invalidateVoxels();
                 forceRepaint();
@@ -38,10 +38,18 @@ public class CubeIndexer {
 
     // compute the 1d representation for the position (x right, y up, z into background)
     public static short[] getPos(int id) {
-        short x = (short) (IntegerTools.ifloormod2(id, width) - radius);
-        short z = (short) (IntegerTools.ifloordiv2(IntegerTools.ifloormod2(id,widthwidth),width) - radius);
-        short y = (short) (IntegerTools.ifloordiv2(id,widthwidth) - minOffset);
-        return new short[]{x,y,z};
+        return new short[]{getX(id), getY(id), getZ(id)};
+    }
+
+    // obtain the single coordinates (allocation free)
+    public static short getX(int id) {
+        return (short) (IntegerTools.ifloormod2(id, width) - radius);
+    }
+    public static short getY(int id) {
+        return (short) (IntegerTools.ifloordiv2(id, widthwidth) - minOffset);
+    }
+    public static short getZ(int id) {
+        return (short) (IntegerTools.ifloordiv2(IntegerTools.ifloormod2(id, widthwidth), width) - radius);
     }
 
     // change position depending on orientation (move into direction)
@@ -0,0 +1,92 @@
+package com.vitco.low;
+
+/**
+ * Indexes a 2097152 ^ 3 cube.
+ *
+ * Defines mappings X x Y x Z -> Long and reverse. Every coordinate uses 21 bits
+ * (x in the lowest bits, then z, then y), so ids are never negative and the
+ * single coordinates can be extracted with a shift and a mask.
+ *
+ * Use this instead of the CubeIndexer when positions exceed the 1600 ^ 3 cube.
+ */
+public class LongCubeIndexer {
+
+    // bits per coordinate
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    // dimension/radius
+    public static final int width = 1 << BITS;
+    public static final int radius = width / 2;
+    public static final long widthwidth = (long) width * width;
+
+    // check if the position can be represented by this indexer
+    public static boolean fits(int x, int y, int z) {
+        return x >= -radius && x < radius && y >= -radius && y < radius && z >= -radius && z < radius;
+    }
+
+    // compute the 1d representation for the position (x right, y up, z into background)
+    public static long getId(short[] pos) {
+        return getId(pos[0], pos[1], pos[2]);
+    }
+
+    // compute the 1d representation for the position (x right, y up, z into background)
+    public static long getId(int x, int y, int z) {
+        return (x + radius) + (long) (z + radius) * width + (long) (y + radius) * widthwidth;
+    }
+
+    // get shift value (value that needs to be added to another pos id to
+    // shift it by that much into that direction)
+    public static long getShiftOperand(int shiftX, int shiftY, int shiftZ) {
+        return shiftX + (long) shiftZ * width + (long) shiftY * widthwidth;
+    }
+
+    // convert a CubeIndexer id into a LongCubeIndexer id
+    public static long fromCubeId(int cubeId) {
+        return getId(CubeIndexer.getX(cubeId), CubeIndexer.getY(cubeId), CubeIndexer.getZ(cubeId));
+    }
+
+    // convert a LongCubeIndexer id into a CubeIndexer id
+    // Note: Assumes that the position fits into the CubeIndexer (no check!).
+    public static int toCubeId(long id) {
+        return CubeIndexer.getId(getX(id), getY(id), getZ(id));
+    }
+
+    // obtain the single coordinates (allocation free)
+    public static int getX(long id) {
+        return (int) (id & MASK) - radius;
+    }
+    public static int getY(long id) {
+        return (int) (id >>> (2 * BITS)) - radius;
+    }
+    public static int getZ(long id) {
+        return (int) ((id >>> BITS) & MASK) - radius;
+    }
+
+    // compute the position for the 1d representation
+    public static int[] getPos(long id) {
+        return new int[]{getX(id), getY(id), getZ(id)};
+    }
+
+    // change position depending on orientation (move into direction)
+    public static long change(long pos, int orientation) {
+        switch (orientation) {
+            case 0: return changeX(pos, true);
+            case 1: return changeX(pos, false);
+            case 2: return changeY(pos, true);
+            case 3: return changeY(pos, false);
+            case 4: return changeZ(pos, true);
+            default: return changeZ(pos, false);
+        }
+    }
+
+    public static long changeX(long pos, boolean add) {
+        return pos + (add ? 1 : -1);
+    }
+    public static long changeY(long pos, boolean add) {
+        return pos + (add ? widthwidth : -widthwidth);
+    }
+    public static long changeZ(long pos, boolean add) {
+        return pos + (add ? width : -width);
+    }
+}
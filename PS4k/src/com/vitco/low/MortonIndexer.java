@@ -0,0 +1,254 @@
+package com.vitco.low;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Arrays;
+
+/**
+ * Indexes a 1024 ^ 3 cube in Morton (Z-) order.
+ *
+ * Defines mappings X x Y x Z -> Integer and reverse. The bits of the three coordinates are
+ * interleaved (x in the lowest bit, then z, then y), so positions that are close in 3D space
+ * are also close in id space. Ids are never negative.
+ *
+ * In contrast to the CubeIndexer, moving into a direction can not be done with a simple addition.
+ * The change and shift methods below use masked ("dilated") arithmetic instead.
+ *
+ * Reference: http://en.wikipedia.org/wiki/Z-order_curve
+ */
+public class MortonIndexer {
+
+    // dimension/radius
+    public static final short width = 1024; // 3 * 10 bits
+    public static final short radius = 512;
+
+    // the bits that belong to a specific axis
+    public static final int MASK_X = 0x09249249;
+    public static final int MASK_Z = MASK_X << 1;
+    public static final int MASK_Y = MASK_X << 2;
+
+    // lookup table to spread the bits of a byte (b7...b0 -> 00b7 00b6 ... 00b0)
+    private static final int[] SPREAD = new int[256];
+    // lookup table to compact every third bit of 9 bits into 3 bits
+    private static final int[] COMPACT = new int[512];
+    static {
+        for (int i = 0; i < 256; i++) {
+            int value = 0;
+            for (int b = 0; b < 8; b++) {
+                value |= ((i >> b) & 1) << (b * 3);
+            }
+            SPREAD[i] = value;
+        }
+        for (int i = 0; i < 512; i++) {
+            COMPACT[i] = (i & 1) | ((i >> 2) & 2) | ((i >> 4) & 4);
+        }
+    }
+
+    // spread the lowest 10 bits of the value
+    private static int spread(int value) {
+        return SPREAD[value & 0xFF] | (SPREAD[(value >> 8) & 0x3] << 24);
+    }
+
+    // inverse of spread (only the bits of MASK_X are considered)
+    private static int compact(int value) {
+        value &= MASK_X;
+        return COMPACT[value & 0x1FF] | (COMPACT[(value >> 9) & 0x1FF] << 3) |
+                (COMPACT[(value >> 18) & 0x1FF] << 6) | (COMPACT[(value >> 27) & 0x1FF] << 9);
+    }
+
+    // check if the position can be represented by this indexer
+    public static boolean fits(int x, int y, int z) {
+        return x >= -radius && x < radius && y >= -radius && y < radius && z >= -radius && z < radius;
+    }
+
+    // compute the 1d representation for the position (x right, y up, z into background)
+    public static int getId(short[] pos) {
+        return getId(pos[0], pos[1], pos[2]);
+    }
+
+    // compute the 1d representation for the position (x right, y up, z into background)
+    public static int getId(int x, int y, int z) {
+        return spread(x + radius) | (spread(z + radius) << 1) | (spread(y + radius) << 2);
+    }
+
+    // convert a CubeIndexer id into a MortonIndexer id
+    public static int fromCubeId(int cubeId) {
+        short[] pos = CubeIndexer.getPos(cubeId);
+        return getId(pos[0], pos[1], pos[2]);
+    }
+
+    // convert a MortonIndexer id into a CubeIndexer id
+    public static int toCubeId(int id) {
+        return CubeIndexer.getId(getX(id), getY(id), getZ(id));
+    }
+
+    // obtain the single coordinates (allocation free)
+    public static int getX(int id) {
+        return compact(id) - radius;
+    }
+    public static int getY(int id) {
+        return compact(id >>> 2) - radius;
+    }
+    public static int getZ(int id) {
+        return compact(id >>> 1) - radius;
+    }
+
+    // compute the position for the 1d representation
+    public static short[] getPos(int id) {
+        return new short[]{(short) getX(id), (short) getY(id), (short) getZ(id)};
+    }
+
+    // change position depending on orientation (move into direction)
+    public static int change(int id, int orientation) {
+        switch (orientation) {
+            case 0: return changeX(id, true);
+            case 1: return changeX(id, false);
+            case 2: return changeY(id, true);
+            case 3: return changeY(id, false);
+            case 4: return changeZ(id, true);
+            default: return changeZ(id, false);
+        }
+    }
+
+    // move a single step along an axis (masked increment/decrement)
+    private static int step(int id, int mask, boolean add) {
+        int moved = add ? ((id | ~mask) + 1) & mask : ((id & mask) - 1) & mask;
+        return moved | (id & ~mask);
+    }
+
+    public static int changeX(int id, boolean add) {
+        return step(id, MASK_X, add);
+    }
+    public static int changeY(int id, boolean add) {
+        return step(id, MASK_Y, add);
+    }
+    public static int changeZ(int id, boolean add) {
+        return step(id, MASK_Z, add);
+    }
+
+    // get shift value (value that needs to be passed to shift() to
+    // shift an id by that much into that direction)
+    public static int getShiftOperand(int shiftX, int shiftY, int shiftZ) {
+        // negative values are stored as two's complement (modulo width)
+        return spread(shiftX) | (spread(shiftZ) << 1) | (spread(shiftY) << 2);
+    }
+
+    // shift an id by a shift operand
+    public static int shift(int id, int operand) {
+        return (((id | ~MASK_X) + (operand & MASK_X)) & MASK_X) |
+                (((id | ~MASK_Y) + (operand & MASK_Y)) & MASK_Y) |
+                (((id | ~MASK_Z) + (operand & MASK_Z)) & MASK_Z);
+    }
+
+    // --------------------
+    // range queries (for the box that is spanned by the ids min and max)
+
+    // check if an id is inside the box
+    public static boolean inBox(int id, int min, int max) {
+        int x = id & MASK_X;
+        int y = id & MASK_Y;
+        int z = id & MASK_Z;
+        return x >= (min & MASK_X) && x <= (max & MASK_X) &&
+                y >= (min & MASK_Y) && y <= (max & MASK_Y) &&
+                z >= (min & MASK_Z) && z <= (max & MASK_Z);
+    }
+
+    // helper for nextInBox - set the bit to one and all lower bits of the same axis to zero
+    private static int loadOneZeros(int value, int bit) {
+        int lower = (MASK_X << (bit % 3)) & ((1 << bit) - 1);
+        return (value | (1 << bit)) & ~lower;
+    }
+
+    // helper for nextInBox - set the bit to zero and all lower bits of the same axis to one
+    private static int loadZeroOnes(int value, int bit) {
+        int lower = (MASK_X << (bit % 3)) & ((1 << bit) - 1);
+        return (value & ~(1 << bit)) | lower;
+    }
+
+    // Find the smallest id that is inside the box and not smaller than the given id ("BIGMIN").
+    // Returns -1 if no such id exists. This allows to skip the parts of a Z-order run that
+    // are outside of the box.
+    // Reference: Tropf, H. and Herzog, H. "Multidimensional Range Search in Dynamically Balanced Trees"
+    public static int nextInBox(int id, int min, int max) {
+        if (inBox(id, min, max)) {
+            return id;
+        }
+        int bigMin = -1;
+        for (int bit = 29; bit >= 0; bit--) {
+            int v = (id >>> bit) & 1;
+            int mn = (min >>> bit) & 1;
+            int mx = (max >>> bit) & 1;
+            if (v == 0) {
+                if (mn == 0 && mx == 1) {
+                    bigMin = loadOneZeros(min, bit);
+                    max = loadZeroOnes(max, bit);
+                } else if (mn == 1 && mx == 1) {
+                    return min;
+                }
+            } else {
+                if (mn == 0 && mx == 0) {
+                    return bigMin;
+                } else if (mn == 0) {
+                    min = loadOneZeros(min, bit);
+                }
+            }
+        }
+        return bigMin;
+    }
+
+    // Sort ids in place (this is the Z-order for MortonIndexer ids)
+    public static void sort(int[] ids) {
+        Arrays.sort(ids);
+    }
+
+    // find the first index (starting from "from") with a value that is not smaller than the id
+    private static int lowerBound(int[] sortedIds, int from, int id) {
+        int low = from;
+        int high = sortedIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedIds[mid] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Collect all ids of a sorted array that are inside the box spanned by the positions
+    // (inclusive). Runs that leave the box are skipped with nextInBox and a binary search.
+    public static void query(int[] sortedIds, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, TIntArrayList result) {
+        int min = getId(minX, minY, minZ);
+        int max = getId(maxX, maxY, maxZ);
+        int i = lowerBound(sortedIds, 0, min);
+        while (i < sortedIds.length) {
+            int id = sortedIds[i];
+            if (id > max) {
+                break;
+            }
+            if (inBox(id, min, max)) {
+                result.add(id);
+                i++;
+            } else {
+                // jump to the next id that is inside the box
+                int next = nextInBox(id, min, max);
+                if (next == -1) {
+                    break;
+                }
+                i = lowerBound(sortedIds, i, next);
+            }
+        }
+    }
+
+    // Sort CubeIndexer ids spatially (in Z-order). The positions need to fit this indexer.
+    public static void sortCubeIds(int[] cubeIds) {
+        for (int i = 0; i < cubeIds.length; i++) {
+            cubeIds[i] = fromCubeId(cubeIds[i]);
+        }
+        Arrays.sort(cubeIds);
+        for (int i = 0; i < cubeIds.length; i++) {
+            cubeIds[i] = toCubeId(cubeIds[i]);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.vitco.low;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test the Morton mapping, the neighbour arithmetic and the range queries.
+ */
+public class MortonIndexerTest {
+
+    @Test
+    public void testMapping() throws Exception {
+        Random rand = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            int x = rand.nextInt(MortonIndexer.width) - MortonIndexer.radius;
+            int y = rand.nextInt(MortonIndexer.width) - MortonIndexer.radius;
+            int z = rand.nextInt(MortonIndexer.width) - MortonIndexer.radius;
+            int id = MortonIndexer.getId(x, y, z);
+            assert id >= 0;
+            assert MortonIndexer.getX(id) == x;
+            assert MortonIndexer.getY(id) == y;
+            assert MortonIndexer.getZ(id) == z;
+            assert MortonIndexer.toCubeId(id) == CubeIndexer.getId(x, y, z);
+            assert MortonIndexer.fromCubeId(CubeIndexer.getId(x, y, z)) == id;
+        }
+    }
+
+    @Test
+    public void testNeighbours() throws Exception {
+        Random rand = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            int x = rand.nextInt(MortonIndexer.width - 20) - MortonIndexer.radius + 10;
+            int y = rand.nextInt(MortonIndexer.width - 20) - MortonIndexer.radius + 10;
+            int z = rand.nextInt(MortonIndexer.width - 20) - MortonIndexer.radius + 10;
+            int id = MortonIndexer.getId(x, y, z);
+            assert MortonIndexer.changeX(id, true) == MortonIndexer.getId(x + 1, y, z);
+            assert MortonIndexer.changeX(id, false) == MortonIndexer.getId(x - 1, y, z);
+            assert MortonIndexer.changeY(id, true) == MortonIndexer.getId(x, y + 1, z);
+            assert MortonIndexer.changeY(id, false) == MortonIndexer.getId(x, y - 1, z);
+            assert MortonIndexer.changeZ(id, true) == MortonIndexer.getId(x, y, z + 1);
+            assert MortonIndexer.changeZ(id, false) == MortonIndexer.getId(x, y, z - 1);
+            int dx = rand.nextInt(21) - 10;
+            int dy = rand.nextInt(21) - 10;
+            int dz = rand.nextInt(21) - 10;
+            assert MortonIndexer.shift(id, MortonIndexer.getShiftOperand(dx, dy, dz)) ==
+                    MortonIndexer.getId(x + dx, y + dy, z + dz);
+        }
+    }
+
+    @Test
+    public void testRangeQuery() throws Exception {
+        Random rand = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            // random points in a small area
+            int[] ids = new int[rand.nextInt(2000) + 1];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = MortonIndexer.getId(rand.nextInt(40) - 20, rand.nextInt(40) - 20, rand.nextInt(40) - 20);
+            }
+            MortonIndexer.sort(ids);
+            // random box
+            int minX = rand.nextInt(40) - 20, maxX = minX + rand.nextInt(20);
+            int minY = rand.nextInt(40) - 20, maxY = minY + rand.nextInt(20);
+            int minZ = rand.nextInt(40) - 20, maxZ = minZ + rand.nextInt(20);
+            TIntArrayList result = new TIntArrayList();
+            MortonIndexer.query(ids, minX, minY, minZ, maxX, maxY, maxZ, result);
+            // compare with brute force
+            TIntArrayList expected = new TIntArrayList();
+            for (int id : ids) {
+                int x = MortonIndexer.getX(id), y = MortonIndexer.getY(id), z = MortonIndexer.getZ(id);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                    expected.add(id);
+                }
+            }
+            assert result.equals(expected);
+        }
+    }
+
+    // helper - create the ids of a filled sphere (index 0 are the CubeIndexer ids,
+    // index 1 are the MortonIndexer ids, both are sorted)
+    private static int[][] createSphere(int r) {
+        TIntArrayList cubeIds = new TIntArrayList();
+        TIntArrayList mortonIds = new TIntArrayList();
+        for (int x = -r; x <= r; x++) {
+            for (int y = -r; y <= r; y++) {
+                for (int z = -r; z <= r; z++) {
+                    if (x * x + y * y + z * z <= r * r) {
+                        cubeIds.add(CubeIndexer.getId(x, y, z));
+                        mortonIds.add(MortonIndexer.getId(x, y, z));
+                    }
+                }
+            }
+        }
+        int[] cubeArray = cubeIds.toArray();
+        int[] mortonArray = mortonIds.toArray();
+        Arrays.sort(cubeArray);
+        Arrays.sort(mortonArray);
+        return new int[][] {cubeArray, mortonArray};
+    }
+
+    // helper - count the exposed sides with the linear index
+    private static int countCubeSides(int[] ids, TIntHashSet set) {
+        int sides = 0;
+        for (int id : ids) {
+            for (int o = 0; o < 6; o++) {
+                if (!set.contains(CubeIndexer.change(id, o))) {
+                    sides++;
+                }
+            }
+        }
+        return sides;
+    }
+
+    // helper - count the exposed sides with the morton index
+    private static int countMortonSides(int[] ids, TIntHashSet set) {
+        int sides = 0;
+        for (int id : ids) {
+            for (int o = 0; o < 6; o++) {
+                if (!set.contains(MortonIndexer.change(id, o))) {
+                    sides++;
+                }
+            }
+        }
+        return sides;
+    }
+
+    @Test
+    public void testSideCount() throws Exception {
+        // the linear and the morton index find the same exposed sides
+        int[][] sphere = createSphere(20);
+        assert countCubeSides(sphere[0], new TIntHashSet(sphere[0])) ==
+                countMortonSides(sphere[1], new TIntHashSet(sphere[1]));
+    }
+
+    // Compare neighbour lookups in a hash set when the voxels are indexed and
+    // traversed linearly (CubeIndexer) and in Z-order (MortonIndexer).
+    // This is a benchmark and not part of the test suite, remove the @Ignore to run it.
+    @Ignore("benchmark")
+    @Test
+    public void benchmarkCacheBehaviour() throws Exception {
+        int[][] sphere = createSphere(80);
+        TIntHashSet cubeSet = new TIntHashSet(sphere[0]);
+        TIntHashSet mortonSet = new TIntHashSet(sphere[1]);
+
+        for (int run = 0; run < 5; run++) {
+            long time = System.nanoTime();
+            int cubeSides = countCubeSides(sphere[0], cubeSet);
+            long cubeTime = System.nanoTime() - time;
+
+            time = System.nanoTime();
+            int mortonSides = countMortonSides(sphere[1], mortonSet);
+            long mortonTime = System.nanoTime() - time;
+
+            System.out.println(sphere[0].length + " voxels, " + cubeSides + " sides :: linear " +
+                    cubeTime / 1000000 + "ms :: morton " + mortonTime / 1000000 + "ms");
+        }
+    }
+
+}
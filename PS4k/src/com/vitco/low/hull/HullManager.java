@@ -2,14 +2,12 @@ package com.vitco.low.hull;
 
 import com.threed.jpct.SimpleVector;
 import com.vitco.low.CubeIndexer;
-import com.vitco.low.triangulate.util.Grid2PolyHelper;
-import com.vitco.settings.VitcoSettings;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -31,30 +29,40 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             new TIntHashSet(),new TIntHashSet(),new TIntHashSet()
     };
 
+    // the tracked outlines (by orientation, created when the outline is first requested)
+    private transient HullOutline[] outlines = new HullOutline[6];
+
+    // helper - add a position to a border (and the tracked outline)
+    private void addBorder(int orientation, int posId) {
+        if (border[orientation].add(posId) && outlines[orientation] != null) {
+            outlines[orientation].add(CubeIndexer.getX(posId), CubeIndexer.getY(posId), CubeIndexer.getZ(posId));
+        }
+    }
+
+    // helper - remove a position from a border (and the tracked outline)
+    private void removeBorder(int orientation, int posId) {
+        if (border[orientation].remove(posId) && outlines[orientation] != null) {
+            outlines[orientation].remove(CubeIndexer.getX(posId), CubeIndexer.getY(posId), CubeIndexer.getZ(posId));
+        }
+    }
+
+    // helper - create a map for every orientation
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> TIntObjectHashMap<T>[] createMaps() {
+        TIntObjectHashMap<T>[] result = new TIntObjectHashMap[6];
+        for (int i = 0; i < 6; i++) {
+            result[i] = new TIntObjectHashMap<T>();
+        }
+        return result;
+    }
+
     // border changes
-    @SuppressWarnings("unchecked")
-    private final TIntObjectHashMap<T>[] borderAdded = new TIntObjectHashMap[]{
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>()
-    };
-    @SuppressWarnings("unchecked")
-    private final TIntObjectHashMap<T>[] borderRemoved = new TIntObjectHashMap[]{
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>()
-    };
-    
-    // add/remove buffer
-    @SuppressWarnings("unchecked")
-    private final TIntObjectHashMap<T>[] borderBufferAdded = new TIntObjectHashMap[]{
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>()
-    };
+    private final TIntObjectHashMap<T>[] borderAdded = createMaps();
+    private final TIntObjectHashMap<T>[] borderRemoved = createMaps();
 
-    @SuppressWarnings("unchecked")
-    private final TIntObjectHashMap<T>[] borderBufferRemoved = new TIntObjectHashMap[]{
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),
-            new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>(),new TIntObjectHashMap<T>()
-    };
+    // add/remove buffer
+    private final TIntObjectHashMap<T>[] borderBufferAdded = createMaps();
+    private final TIntObjectHashMap<T>[] borderBufferRemoved = createMaps();
 
     // ---------------------
 
@@ -63,6 +71,9 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
         id2obj.clear();
         for (int i = 0; i < 6; i++) {
             border[i].clear();
+            if (outlines[i] != null) {
+                outlines[i].clear();
+            }
             borderAdded[i].clear();
             borderRemoved[i].clear();
             borderBufferAdded[i].clear();
@@ -132,14 +143,14 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             int idOff = posId-1;
             if (id2obj.containsKey(idOff)) {
-                border[0].remove(idOff);
+                removeBorder(0, idOff);
                 if (null == borderBufferAdded[0].remove(idOff)) {
                     borderRemoved[0].put(idOff, id2obj.get(idOff));
                 } else {
                     borderAdded[0].remove(idOff);
                 }
             } else {
-                border[1].add(posId);
+                addBorder(1, posId);
                 if (null != borderBufferAdded[1].put(posId, obj)) {
                     borderAdded[1].put(posId, obj);
                 }
@@ -147,14 +158,14 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId+1;
             if (id2obj.containsKey(idOff)) {
-                border[1].remove(idOff);
+                removeBorder(1, idOff);
                 if (null == borderBufferAdded[1].remove(idOff)) {
                     borderRemoved[1].put(idOff, id2obj.get(idOff));
                 } else {
                     borderAdded[1].remove(idOff);
                 }
             } else {
-                border[0].add(posId);
+                addBorder(0, posId);
                 if (null != borderBufferAdded[0].put(posId, obj)) {
                     borderAdded[0].put(posId, obj);
                 }
@@ -163,14 +174,14 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId-CubeIndexer.widthwidth;
             if (id2obj.containsKey(idOff)) {
-                border[2].remove(idOff);
+                removeBorder(2, idOff);
                 if (null == borderBufferAdded[2].remove(idOff)) {
                     borderRemoved[2].put(idOff, id2obj.get(idOff));
                 } else {
                     borderAdded[2].remove(idOff);
                 }
             } else {
-                border[3].add(posId);
+                addBorder(3, posId);
                 if (null != borderBufferAdded[3].put(posId, obj)) {
                     borderAdded[3].put(posId, obj);
                 }
@@ -178,14 +189,14 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId+CubeIndexer.widthwidth;
             if (id2obj.containsKey(idOff)) {
-                border[3].remove(idOff);
+                removeBorder(3, idOff);
                 if (null == borderBufferAdded[3].remove(idOff)) {
                     borderRemoved[3].put(idOff, id2obj.get(idOff));
                 } else {
                     borderAdded[3].remove(idOff);
                 }
             } else {
-                border[2].add(posId);
+                addBorder(2, posId);
                 if (null != borderBufferAdded[2].put(posId, obj)) {
                     borderAdded[2].put(posId, obj);
                 }
@@ -194,14 +205,14 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId-CubeIndexer.width;
             if (id2obj.containsKey(idOff)) {
-                border[4].remove(idOff);
+                removeBorder(4, idOff);
                 if (null == borderBufferAdded[4].remove(idOff)) {
                     borderRemoved[4].put(idOff, id2obj.get(idOff));
                 } else {
                     borderAdded[4].remove(idOff);
                 }
             } else {
-                border[5].add(posId);
+                addBorder(5, posId);
                 if (null != borderBufferAdded[5].put(posId, obj)) {
                     borderAdded[5].put(posId, obj);
                 }
@@ -209,14 +220,14 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId+CubeIndexer.width;
             if (id2obj.containsKey(idOff)) {
-                border[5].remove(idOff);
+                removeBorder(5, idOff);
                 if (null == borderBufferAdded[5].remove(idOff)) {
                     borderRemoved[5].put(idOff, id2obj.get(idOff));
                 } else {
                     borderAdded[5].remove(idOff);
                 }
             } else {
-                border[4].add(posId);
+                addBorder(4, posId);
                 if (null != borderBufferAdded[4].put(posId, obj)) {
                     borderAdded[4].put(posId, obj);
                 }
@@ -243,13 +254,13 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             int idOff = posId-1;
             if (id2obj.containsKey(idOff)) {
-                border[0].add(idOff);
+                addBorder(0, idOff);
                 objOff = id2obj.get(idOff);
                 if (null != borderBufferRemoved[0].put(idOff, objOff)) {
                     borderAdded[0].put(idOff, objOff);
                 }
             } else {
-                border[1].remove(posId);
+                removeBorder(1, posId);
                 if (null == borderBufferRemoved[1].remove(posId)) {
                     borderRemoved[1].put(posId, obj);
                 } else {
@@ -259,13 +270,13 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId+1;
             if (id2obj.containsKey(idOff)) {
-                border[1].add(idOff);
+                addBorder(1, idOff);
                 objOff = id2obj.get(idOff);
                 if (null != borderBufferRemoved[1].put(idOff, objOff)) {
                     borderAdded[1].put(idOff, objOff);
                 }
             } else {
-                border[0].remove(posId);
+                removeBorder(0, posId);
                 if (null == borderBufferRemoved[0].remove(posId)) {
                     borderRemoved[0].put(posId, obj);
                 } else {
@@ -276,13 +287,13 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId-CubeIndexer.widthwidth;
             if (id2obj.containsKey(idOff)) {
-                border[2].add(idOff);
+                addBorder(2, idOff);
                 objOff = id2obj.get(idOff);
                 if (null != borderBufferRemoved[2].put(idOff, objOff)) {
                     borderAdded[2].put(idOff, objOff);
                 }
             } else {
-                border[3].remove(posId);
+                removeBorder(3, posId);
                 if (null == borderBufferRemoved[3].remove(posId)) {
                     borderRemoved[3].put(posId, obj);
                 } else {
@@ -292,13 +303,13 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId+CubeIndexer.widthwidth;
             if (id2obj.containsKey(idOff)) {
-                border[3].add(idOff);
+                addBorder(3, idOff);
                 objOff = id2obj.get(idOff);
                 if (null != borderBufferRemoved[3].put(idOff, objOff)) {
                     borderAdded[3].put(idOff, objOff);
                 }
             } else {
-                border[2].remove(posId);
+                removeBorder(2, posId);
                 if (null == borderBufferRemoved[2].remove(posId)) {
                     borderRemoved[2].put(posId, obj);
                 } else {
@@ -309,13 +320,13 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId-CubeIndexer.width;
             if (id2obj.containsKey(idOff)) {
-                border[4].add(idOff);
+                addBorder(4, idOff);
                 objOff = id2obj.get(idOff);
                 if (null != borderBufferRemoved[4].put(idOff, objOff)) {
                     borderAdded[4].put(idOff, objOff);
                 }
             } else {
-                border[5].remove(posId);
+                removeBorder(5, posId);
                 if (null == borderBufferRemoved[5].remove(posId)) {
                     borderRemoved[5].put(posId, obj);
                 } else {
@@ -325,13 +336,13 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
             // check borders
             idOff = posId+CubeIndexer.width;
             if (id2obj.containsKey(idOff)) {
-                border[5].add(idOff);
+                addBorder(5, idOff);
                 objOff = id2obj.get(idOff);
                 if (null != borderBufferRemoved[5].put(idOff, objOff)) {
                     borderAdded[5].put(idOff, objOff);
                 }
             } else {
-                border[4].remove(posId);
+                removeBorder(4, posId);
                 if (null == borderBufferRemoved[4].remove(posId)) {
                     borderRemoved[4].put(posId, obj);
                 } else {
@@ -391,10 +402,10 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
         short[][] result = new short[border[direction].size()][3]; // allocate with correct size
         int count = 0;
         for (TIntIterator it = border[direction].iterator(); it.hasNext();) {
-            short[] val = CubeIndexer.getPos(it.next());
-            result[count][0] = val[0];
-            result[count][1] = val[1];
-            result[count][2] = val[2];
+            int id = it.next();
+            result[count][0] = CubeIndexer.getX(id);
+            result[count][1] = CubeIndexer.getY(id);
+            result[count][2] = CubeIndexer.getZ(id);
             count++;
         }
         return result;
@@ -416,78 +427,27 @@ public class HullManager<T> implements HullManagerInterface<T>, Serializable {
         return border[direction].toArray();
     }
 
+    // called after deserialization
+    private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the outlines are not serialized
+        outlines = new HullOutline[6];
+    }
+
     // get the outline of all voxels into one direction
+    // Note: the outline is updated with every border change once it was requested
     @Override
     public SimpleVector[][] getOutline(int side) {
         // compute the correct orientation (w.r.t. the side)
         int orientation = side == 0 ? 5 : (side == 1 ? 3 : 1);
-        if (!border[orientation].isEmpty()) {
-            // find correct id mappings
-            int id1, id2;
-            switch (side) {
-                case 0:
-                    id1 = 0;
-                    id2 = 1;
-                    break;
-                case 1:
-                    id1 = 0;
-                    id2 = 2;
-                    break;
-                default:
-                    id1 = 1;
-                    id2 = 2;
-                    break;
-            }
-            // find minimum and range of the data
-            short minX = Short.MAX_VALUE;
-            short maxX = Short.MIN_VALUE;
-            short minY = Short.MAX_VALUE;
-            short maxY = Short.MIN_VALUE;
-            short[][] voxelPositions = this.getHull(orientation);
-            for (short[] pos : voxelPositions) {
-                minX = (short) Math.min(minX, pos[id1]);
-                maxX = (short) Math.max(maxX, pos[id1]);
-                minY = (short) Math.min(minY, pos[id2]);
-                maxY = (short) Math.max(maxY, pos[id2]);
-            }
-            // convert to boolean array
-            boolean[][] data = new boolean[maxX - minX + 1][maxY - minY + 1];
-            for (short[] pos : voxelPositions) {
-                data[pos[id1] - minX][pos[id2] - minY] = true;
-            }
-            // convert to polygon
-            short[][][] polys = Grid2PolyHelper.convert(data);
-            // translate outline
-            ArrayList<SimpleVector[]> lines = new ArrayList<SimpleVector[]>();
-            for (short[][] poly : polys) {
-                for (short[] outline : poly) {
-                    SimpleVector p1, p2;
-                    switch (side) {
-                        case 2: p1 = new SimpleVector(0, minX + outline[0], minY + outline[1]); break;
-                        case 1: p1 = new SimpleVector(minX + outline[0], 0, minY + outline[1]); break;
-                        default: p1 = new SimpleVector(minX + outline[0], minY + outline[1], 0); break;
-                    }
-                    p1.scalarMul(VitcoSettings.VOXEL_SIZE);
-                    p1.sub(VitcoSettings.VOXEL_WORLD_OFFSET);
-
-                    for (int i = 2; i < outline.length;) {
-                        switch (side) {
-                            case 2: p2 = new SimpleVector(0, minX + outline[i++], minY + outline[i++]); break;
-                            case 1: p2 = new SimpleVector(minX + outline[i++], 0, minY + outline[i++]); break;
-                            default: p2 = new SimpleVector(minX + outline[i++], minY + outline[i++], 0); break;
-                        }
-                        p2.scalarMul(VitcoSettings.VOXEL_SIZE);
-                        p2.sub(VitcoSettings.VOXEL_WORLD_OFFSET);
-                        lines.add(new SimpleVector[]{p1, p2});
-                        p1 = p2;
-                    }
-                }
+        if (outlines[orientation] == null) {
+            HullOutline outline = new HullOutline(side);
+            for (TIntIterator it = border[orientation].iterator(); it.hasNext();) {
+                int posId = it.next();
+                outline.add(CubeIndexer.getX(posId), CubeIndexer.getY(posId), CubeIndexer.getZ(posId));
             }
-            // generate result array
-            SimpleVector[][] result = new SimpleVector[lines.size()][];
-            lines.toArray(result);
-            return result;
+            outlines[orientation] = outline;
         }
-        return new SimpleVector[0][];
+        return outlines[orientation].getOutline();
     }
 }
@@ -2,6 +2,8 @@ package com.vitco.low.hull;
 
 import com.threed.jpct.SimpleVector;
 import com.vitco.low.CubeIndexer;
+import com.vitco.util.misc.ArrayUtil;
+import com.vitco.util.misc.IntegerTools;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.hash.TIntShortHashMap;
@@ -9,8 +11,11 @@ import gnu.trove.set.hash.TIntHashSet;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Extended functionality for the hull manager
@@ -138,222 +143,261 @@ public class HullManagerExt<T> extends HullManager<T> implements HullManagerExtI
             new TIntHashSet(), new TIntHashSet(), new TIntHashSet()
     };
 
-    // helper, return true if given border is present in hull
-    // if true -> add border to stack if not already present in processed
-    private boolean detectStepAdd(ArrayList<int[]> stack, int pos, int orientation, TIntHashSet[] processed) {
-        boolean result = false;
-        // (1) check if extension exists as border,
-        if (containsBorder(pos, orientation)) {
-            // (2) check if extension already processed,
-            if (!processed[orientation].contains(pos)) {
-                processed[orientation].add(pos);
-                // (3) add to stack
-                stack.add(new int[] {pos, orientation});
+    // minimum amount of voxels for the exterior computation to use multiple threads
+    private static final int PARALLEL_THRESHOLD = 50000;
+
+    // Information about the air between the voxels. The voxels are sorted by id (i.e. by y, z and x),
+    // so every row (fixed y and z) is a continuous block. The air in a row between two voxels is
+    // called a "gap" and is identified by the index of the voxel that precedes it plus one. The air
+    // before the first and after the last voxel of a row (and rows without voxels) is always connected
+    // to the outside, which is represented by the gap id zero.
+    private static final class AirGaps {
+        // the sorted voxel ids and their x coordinates
+        private final int[] ids;
+        private final short[] xs;
+        // the rows (key and start index into ids)
+        private final int[] rowKeys;
+        private final int[] rowStart;
+        // union find structure over the gaps
+        private final int[] parent;
+
+        private AirGaps(int[] ids) {
+            ArrayUtil.radixSort(ids);
+            this.ids = ids;
+            xs = new short[ids.length];
+            TIntArrayList keys = new TIntArrayList();
+            TIntArrayList starts = new TIntArrayList();
+            int lastKey = 0;
+            for (int i = 0; i < ids.length; i++) {
+                xs[i] = CubeIndexer.getX(ids[i]);
+                int key = IntegerTools.ifloordiv2(ids[i], CubeIndexer.width);
+                if (i == 0 || key != lastKey) {
+                    keys.add(key);
+                    starts.add(i);
+                    lastKey = key;
+                }
+            }
+            starts.add(ids.length);
+            rowKeys = keys.toArray();
+            rowStart = starts.toArray();
+            parent = new int[ids.length + 1];
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = i;
             }
-            result = true;
         }
-        return result;
-    }
 
-    // check which borders are correct neighbouring borders for a given border
-    // then add to stack if not already processed
-    // Note: This uses a "fold down model" for checking the neighbouring borders
-    private void detectStep(ArrayList<int[]> stack, int pos, short orientation, TIntHashSet[] processed) {
-        int[][] axisToCheck;
-        switch (orientation) {
-            case 0:case 1:
-                axisToCheck = new int[][] {
-                        new int[] {2,3},
-                        new int[] {4,5}
-                };
-                break;
-            case 2:case 3:
-                axisToCheck = new int[][] {
-                        new int[] {0,1},
-                        new int[] {4,5}
-                };
-                break;
-            default:
-                axisToCheck = new int[][] {
-                        new int[] {0,1},
-                        new int[] {2,3}
-                };
-                break;
-        }
-        // --
-        for (int[] axis : axisToCheck) {
-            // check negative
-            int posN = CubeIndexer.change(pos, axis[0]);
-            int posNOff = CubeIndexer.change(posN, orientation);
-            boolean detectedN = detectStepAdd(stack, posNOff, axis[1], processed) ||
-                    detectStepAdd(stack, posN, orientation, processed) ||
-                    detectStepAdd(stack, pos, axis[0], processed);
-            // check positive
-            int posP = CubeIndexer.change(pos, axis[1]);
-            int posPOff = CubeIndexer.change(posP, orientation);
-            boolean detectedP = detectStepAdd(stack, posPOff, axis[0], processed) ||
-                    detectStepAdd(stack, posP, orientation, processed) ||
-                    detectStepAdd(stack, pos, axis[1], processed);
-            // at least one neighbouring side has to be detected into each direction
-            // otherwise this voxel face would be bugged (i.e. have a "see through" face
-            // as a neighbour)
-            assert detectedN && detectedP;
+        // find the row index for a row key (or -1 if the row contains no voxels)
+        private int getRow(int key) {
+            int row = Arrays.binarySearch(rowKeys, key);
+            return row < 0 ? -1 : row;
         }
-    }
 
-    // follow an outline for a given starting border
-    // store found borders in processed
-    // returns the detected outline
-    private TIntHashSet[] detectContour(int pos, short orientation, TIntHashSet[] processed) {
-        TIntHashSet[] result = new TIntHashSet[] {
-                new TIntHashSet(), new TIntHashSet(), new TIntHashSet(),
-                new TIntHashSet(), new TIntHashSet(), new TIntHashSet()
-        };
-        // stack of currently processing voxel sides
-        ArrayList<int[]> stack = new ArrayList<int[]>();
-        detectStepAdd(stack, pos, orientation, processed);
-        // follow all path
-        while (!stack.isEmpty()) {
-            int[] cur = stack.remove(0);
-            // add to result
-            result[cur[1]].add(cur[0]);
-            // check all extensions and add to stack
-            detectStep(stack, cur[0], (short) cur[1], processed);
+        // get the y coordinate of a row
+        private int getY(int row) {
+            return CubeIndexer.getY(ids[rowStart[row]]);
         }
-        // return the result
-        return result;
-    }
 
-    // helper class that wraps a (continuous set of sides)
-    private static final class HullWrapper {
-        // holds the data
-        private TIntHashSet[] data = new TIntHashSet[] {
-                new TIntHashSet(), new TIntHashSet(), new TIntHashSet(),
-                new TIntHashSet(), new TIntHashSet(), new TIntHashSet()
-        };
+        private int find(int gap) {
+            while (parent[gap] != gap) {
+                parent[gap] = parent[parent[gap]];
+                gap = parent[gap];
+            }
+            return gap;
+        }
 
-        // constructor
-        public HullWrapper(TIntHashSet[] data) {
-            for (int i = 0; i < 6; i++) {
-                this.data[i].addAll(data[i]);
+        // link the larger root to the smaller one (the outside is always a root)
+        private void union(int gapA, int gapB) {
+            int rootA = find(gapA);
+            int rootB = find(gapB);
+            if (rootA < rootB) {
+                parent[rootB] = rootA;
+            } else if (rootB < rootA) {
+                parent[rootA] = rootB;
             }
         }
 
-        // returns true if containment is detected
-        public boolean contains(HullWrapper other) {
-            // -- check if the other HullWrapper is contained in this hull wrapper
-            // fetch a first side into X direction
-            short[] side = CubeIndexer.getPos(other.data[0].iterator().next());
-            // search for all sides at the found YZ position in the potential "outer" HullWrapper
-            ArrayList<Short> list = new ArrayList<Short>();
-            for (TIntIterator it = this.data[0].iterator(); it.hasNext();) {
-                short[] val = CubeIndexer.getPos(it.next());
-                if (val[1] == side[1] && val[2] == side[2]) {
-                    list.add(val[0]);
+        // connect the gaps of a row with the air of a neighbouring row (-1 for a row without voxels)
+        private void connect(int rowA, int rowB) {
+            int startA = rowStart[rowA];
+            int endA = rowStart[rowA + 1];
+            if (rowB == -1) {
+                for (int i = startA; i < endA - 1; i++) {
+                    if (xs[i + 1] > xs[i] + 1) {
+                        union(i + 1, 0);
+                    }
                 }
+                return;
             }
-            for (TIntIterator it = this.data[1].iterator(); it.hasNext();) {
-                short[] val = CubeIndexer.getPos(it.next());
-                if (val[1] == side[1] && val[2] == side[2]) {
-                    list.add(val[0]);
+            int startB = rowStart[rowB];
+            int endB = rowStart[rowB + 1];
+            int j = startB;
+            for (int i = startA; i < endA - 1; i++) {
+                int gapStart = xs[i] + 1;
+                int gapEnd = xs[i + 1] - 1;
+                if (gapStart > gapEnd) {
+                    continue;
+                }
+                // the air in front of or behind the voxels of the other row
+                if (gapStart < xs[startB] || gapEnd > xs[endB - 1]) {
+                    union(i + 1, 0);
+                }
+                // skip the gaps of the other row that end before this gap
+                while (j + 1 < endB && xs[j + 1] <= gapStart) {
+                    j++;
+                }
+                // connect to all overlapping gaps of the other row
+                for (int k = j; k + 1 < endB && xs[k] < gapEnd; k++) {
+                    if (xs[k + 1] > xs[k] + 1) {
+                        union(i + 1, k + 1);
+                    }
                 }
             }
-            // sort the found sides
-            Collections.sort(list);
-            // check if the initially selected side lives inside the extracted sides
-            boolean inside = false;
-            short lastDepth = 0;
-            boolean foundInside = false;
-            for (short depth : list) {
-                inside = !inside;
-                if (!inside) {
-                    if (side[0] < depth && side[0] > lastDepth) {
-                        foundInside = true;
-                        break;
+        }
+
+        // connect a range of rows with their neighbouring rows. Rows outside of the
+        // range are only considered if "all" is true.
+        private void connectRows(int fromRow, int toRow, boolean all) {
+            for (int row = fromRow; row < toRow; row++) {
+                int key = rowKeys[row];
+                for (int neighbourKey : new int[] {
+                        key - 1, key + 1, key - CubeIndexer.width, key + CubeIndexer.width}) {
+                    int neighbour = getRow(neighbourKey);
+                    if (all || neighbour == -1 || (neighbour >= fromRow && neighbour < toRow)) {
+                        connect(row, neighbour);
                     }
                 }
-                lastDepth = depth;
             }
-            return foundInside;
+        }
+
+        // finalize the union find structure (afterwards it can be accessed concurrently)
+        private void compress() {
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = find(i);
+            }
+        }
+
+        // check if an empty position is connected to the outside
+        private boolean isOutside(int posId) {
+            int row = getRow(IntegerTools.ifloordiv2(posId, CubeIndexer.width));
+            if (row == -1) {
+                return true;
+            }
+            int index = Arrays.binarySearch(xs, rowStart[row], rowStart[row + 1], CubeIndexer.getX(posId));
+            assert index < 0;
+            index = -index - 1;
+            return index == rowStart[row] || index == rowStart[row + 1] || parent[index] == 0;
         }
     }
 
     // compute the "outside" of the described object
+    // Note: The air is flood filled with a union find over the gaps between voxels. The rows are
+    // processed in parallel slabs (same y coordinates), the slabs are then stitched together.
     @Override
     public boolean computeExterior() {
-        // holds known exterior sides
-        ArrayList<HullWrapper> exterior = new ArrayList<HullWrapper>();
-        // holds known interior sides
-        ArrayList<HullWrapper> interior = new ArrayList<HullWrapper>();
-        // holds the processed sides
-        TIntHashSet[] processed = new TIntHashSet[]{
-                new TIntHashSet(), new TIntHashSet(), new TIntHashSet(),
-                new TIntHashSet(), new TIntHashSet(), new TIntHashSet()
-        };
-        // true if a hole was found
-        boolean interiorFound = false;
-        // loop over all potential starting positions
-        // (one direction is enough for this!)
-        for (int pos : getHullAsIds(0)) {
-            // check if this side was already processed with another starting position
-            if (!processed[0].contains(pos)) {
-                // -- fetch the contour that this border belongs to
-                TIntHashSet[] detected = detectContour(pos, (short) 0, processed);
-
-                // -- analyse whether it's outside or inside facing hull
-                int minA = Integer.MAX_VALUE;
-                for (TIntIterator it = detected[0].iterator(); it.hasNext(); ) {
-                    minA = Math.min(minA, CubeIndexer.getPos(it.next())[0]);
+        final AirGaps gaps = new AirGaps(getPosIds());
+        int rowCount = gaps.rowKeys.length;
+        int threads = gaps.ids.length < PARALLEL_THRESHOLD ? 1 : Runtime.getRuntime().availableProcessors();
+        if (threads > 1) {
+            // split the rows into slabs
+            TIntArrayList slabStart = new TIntArrayList();
+            slabStart.add(0);
+            int slabSize = Math.max(1, rowCount / (threads * 4));
+            for (int row = slabSize; row < rowCount; row++) {
+                if (row - slabStart.get(slabStart.size() - 1) >= slabSize && gaps.getY(row) != gaps.getY(row - 1)) {
+                    slabStart.add(row);
                 }
-                int minB = Integer.MAX_VALUE;
-                for (TIntIterator it = detected[1].iterator(); it.hasNext(); ) {
-                    minB = Math.min(minB, CubeIndexer.getPos(it.next())[0]);
+            }
+            slabStart.add(rowCount);
+            // connect the gaps inside the slabs (every slab only modifies its own gaps)
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                ArrayList<Future<?>> futures = new ArrayList<Future<?>>();
+                for (int i = 0; i < slabStart.size() - 1; i++) {
+                    final int fromRow = slabStart.get(i);
+                    final int toRow = slabStart.get(i + 1);
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            gaps.connectRows(fromRow, toRow, false);
+                        }
+                    }));
                 }
-                boolean isInsideHull = minA < minB;
-
-                // -- add to according lists
-                if (isInsideHull) {
-                    interiorFound = true;
-                    // add to interior list
-                    interior.add(new HullWrapper(detected));
-                } else {
-                    // add to exterior list
-                    exterior.add(new HullWrapper(detected));
+                waitFor(futures);
+                // stitch the slabs together (only the first and last layer of a slab have neighbours in other slabs)
+                for (int i = 0; i < slabStart.size() - 1; i++) {
+                    int fromRow = slabStart.get(i);
+                    int toRow = slabStart.get(i + 1);
+                    int row = fromRow;
+                    while (row < toRow && gaps.getY(row) == gaps.getY(fromRow)) {
+                        row++;
+                    }
+                    gaps.connectRows(fromRow, row, true);
+                    row = toRow;
+                    while (row > fromRow && gaps.getY(row - 1) == gaps.getY(toRow - 1)) {
+                        row--;
+                    }
+                    gaps.connectRows(row, toRow, true);
                 }
-            }
-        }
-        // check if we need to migrate any exterior to interior
-        // (this is the case if the outside facing hull lives
-        // inside an inside facing hull)
-        int i = 0;
-        while (i < exterior.size()) {
-            HullWrapper exteriorWrapper = exterior.get(i);
-            boolean found = false;
-            for (HullWrapper interiorWrapper : interior) {
-                if (interiorWrapper.contains(exteriorWrapper)) {
-                    found = true;
-                    break;
+                gaps.compress();
+                // classify the sides (one task per direction)
+                futures.clear();
+                for (int i = 0; i < 6; i++) {
+                    final int direction = i;
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            classify(gaps, direction);
+                        }
+                    }));
                 }
+                waitFor(futures);
+            } finally {
+                executor.shutdown();
             }
-            if (found) {
-                interior.add(exterior.remove(i));
-            } else {
-                i++;
+        } else {
+            gaps.connectRows(0, rowCount, true);
+            gaps.compress();
+            for (int i = 0; i < 6; i++) {
+                classify(gaps, i);
             }
         }
-        // update global exterior and interior
-        for (int k = 0; k < 6; k++) {
-            this.exterior[k].clear();
-            for (HullWrapper wrapper : exterior) {
-                this.exterior[k].addAll(wrapper.data[k]);
+        // check if a hole was found
+        boolean interiorFound = false;
+        for (int i = 0; i < 6; i++) {
+            interiorFound |= !interior[i].isEmpty();
+        }
+        return interiorFound;
+    }
+
+    // helper - wait for all futures to finish
+    private static void waitFor(ArrayList<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
             }
-            this.interior[k].clear();
-            for (HullWrapper wrapper : interior) {
-                this.interior[k].addAll(wrapper.data[k]);
+        }
+    }
+
+    // sort the sides of one direction into exterior and interior
+    private void classify(AirGaps gaps, int direction) {
+        TIntArrayList exteriorIds = new TIntArrayList();
+        TIntArrayList interiorIds = new TIntArrayList();
+        for (int posId : getHullAsIds(direction)) {
+            if (gaps.isOutside(CubeIndexer.change(posId, direction))) {
+                exteriorIds.add(posId);
+            } else {
+                interiorIds.add(posId);
             }
         }
-        // return result
-        return interiorFound;
+        exterior[direction].clear();
+        exterior[direction].addAll(exteriorIds);
+        interior[direction].clear();
+        interior[direction].addAll(interiorIds);
     }
 
     // fetch the "outside" faces of the described object
@@ -364,10 +408,10 @@ public class HullManagerExt<T> extends HullManager<T> implements HullManagerExtI
         short[][] result = new short[exterior[direction].size()][3]; // allocate with correct size
         int count = 0;
         for (TIntIterator it = exterior[direction].iterator(); it.hasNext(); ) {
-            short[] val = CubeIndexer.getPos(it.next());
-            result[count][0] = val[0];
-            result[count][1] = val[1];
-            result[count][2] = val[2];
+            int id = it.next();
+            result[count][0] = CubeIndexer.getX(id);
+            result[count][1] = CubeIndexer.getY(id);
+            result[count][2] = CubeIndexer.getZ(id);
             count++;
         }
         return result;
@@ -381,10 +425,10 @@ public class HullManagerExt<T> extends HullManager<T> implements HullManagerExtI
         short[][] result = new short[interior[direction].size()][3]; // allocate with correct size
         int count = 0;
         for (TIntIterator it = interior[direction].iterator(); it.hasNext(); ) {
-            short[] val = CubeIndexer.getPos(it.next());
-            result[count][0] = val[0];
-            result[count][1] = val[1];
-            result[count][2] = val[2];
+            int id = it.next();
+            result[count][0] = CubeIndexer.getX(id);
+            result[count][1] = CubeIndexer.getY(id);
+            result[count][2] = CubeIndexer.getZ(id);
             count++;
         }
         return result;
@@ -1,7 +1,15 @@
 package com.vitco.low.hull;
 
+import com.threed.jpct.SimpleVector;
+import com.vitco.low.triangulate.util.Grid2PolyHelper;
+import com.vitco.settings.VitcoSettings;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
 /**
  * Testing that the hull detection is working properly.
  */
@@ -231,4 +239,138 @@ public class HullManagerTest {
         }
 
     }
+
+    @Test
+    public void testNestedExteriorDetection() {
+        // a hollow box with a solid block inside and a (closed) hollow box that is
+        // big enough to use multiple threads
+        HullManagerExt<String> hullManager = new HullManagerExt<String>();
+        int max = 70;
+        for (short x = 0; x < max; x++) {
+            for (short y = 0; y < max; y++) {
+                for (short z = 0; z < max; z++) {
+                    boolean shell = x < 2 || y < 2 || z < 2 || x >= max - 2 || y >= max - 2 || z >= max - 2;
+                    boolean inner = x >= 20 && x < 30 && y >= 20 && y < 30 && z >= 20 && z < 30;
+                    if (shell || inner) {
+                        update(hullManager, get(x, y, z));
+                    }
+                }
+            }
+        }
+        assert hullManager.computeExterior();
+        for (int j = 0; j < 6; j++) {
+            // only the outside of the shell is exterior
+            assert hullManager.getExteriorHull(j).length == max * max;
+            // the inside of the shell and the inner block are interior
+            assert hullManager.getInteriorHull(j).length == (max - 4) * (max - 4) + 100;
+        }
+        // the cavity minus the inner block
+        assert hullManager.getEmptyInterior().length == (max - 4) * (max - 4) * (max - 4) - 1000;
+        // everything that has no exterior side
+        assert hullManager.getFilledInterior().length == max * max * max - (max - 4) * (max - 4) * (max - 4) + 1000 -
+                (max * max * max - (max - 2) * (max - 2) * (max - 2));
+    }
+
+    // helper - split the outline into unit edges (in voxel coordinates), returns null if an edge is duplicated
+    private static HashSet<String> toUnitEdges(SimpleVector[][] outline) {
+        HashSet<String> result = new HashSet<String>();
+        for (SimpleVector[] line : outline) {
+            int[] from = new int[3];
+            int[] to = new int[3];
+            for (int i = 0; i < 3; i++) {
+                from[i] = Math.round((get(line[0], i) + get(VitcoSettings.VOXEL_WORLD_OFFSET, i)) / VitcoSettings.VOXEL_SIZE);
+                to[i] = Math.round((get(line[1], i) + get(VitcoSettings.VOXEL_WORLD_OFFSET, i)) / VitcoSettings.VOXEL_SIZE);
+            }
+            while (!Arrays.equals(from, to)) {
+                int[] next = from.clone();
+                for (int i = 0; i < 3; i++) {
+                    next[i] += Integer.signum(to[i] - from[i]);
+                }
+                // store the edge independent of the direction
+                String edge = Arrays.toString(from).compareTo(Arrays.toString(next)) < 0 ?
+                        Arrays.toString(from) + Arrays.toString(next) : Arrays.toString(next) + Arrays.toString(from);
+                if (!result.add(edge)) {
+                    return null;
+                }
+                from = next;
+            }
+        }
+        return result;
+    }
+
+    // helper
+    private static float get(SimpleVector vector, int i) {
+        return i == 0 ? vector.x : (i == 1 ? vector.y : vector.z);
+    }
+
+    // helper - compute the outline by converting the hull into polygons
+    private static SimpleVector[][] getPolygonOutline(HullManager<String> hullManager, int side) {
+        int orientation = side == 0 ? 5 : (side == 1 ? 3 : 1);
+        int id1 = side == 2 ? 1 : 0;
+        int id2 = side == 0 ? 1 : 2;
+        short[][] hull = hullManager.getHull(orientation);
+        if (hull.length == 0) {
+            return new SimpleVector[0][];
+        }
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (short[] pos : hull) {
+            minX = Math.min(minX, pos[id1]);
+            maxX = Math.max(maxX, pos[id1]);
+            minY = Math.min(minY, pos[id2]);
+            maxY = Math.max(maxY, pos[id2]);
+        }
+        boolean[][] data = new boolean[maxX - minX + 1][maxY - minY + 1];
+        for (short[] pos : hull) {
+            data[pos[id1] - minX][pos[id2] - minY] = true;
+        }
+        ArrayList<SimpleVector[]> lines = new ArrayList<SimpleVector[]>();
+        for (short[][] poly : Grid2PolyHelper.convert(data)) {
+            for (short[] outline : poly) {
+                for (int i = 0; i + 3 < outline.length; i += 2) {
+                    lines.add(new SimpleVector[] {
+                            toWorld(side, minX + outline[i], minY + outline[i + 1]),
+                            toWorld(side, minX + outline[i + 2], minY + outline[i + 3])
+                    });
+                }
+            }
+        }
+        return lines.toArray(new SimpleVector[lines.size()][]);
+    }
+
+    // helper
+    private static SimpleVector toWorld(int side, int u, int v) {
+        SimpleVector result = side == 2 ? new SimpleVector(0, u, v) :
+                (side == 1 ? new SimpleVector(u, 0, v) : new SimpleVector(u, v, 0));
+        result.scalarMul(VitcoSettings.VOXEL_SIZE);
+        result.sub(VitcoSettings.VOXEL_WORLD_OFFSET);
+        return result;
+    }
+
+    @Test
+    public void testOutline() {
+        HullManager<String> hullManager = new HullManager<String>();
+        Random rand = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // random changes (the outline is tracked after the first round)
+            for (int i = 0; i < 300; i++) {
+                short[] pos = get(rand.nextInt(12) - 6, rand.nextInt(12) - 6, rand.nextInt(12) - 6);
+                if (rand.nextInt(3) == 0) {
+                    hullManager.clearPosition(pos);
+                } else {
+                    update(hullManager, pos);
+                }
+            }
+            for (int side = 0; side < 3; side++) {
+                HashSet<String> edges = toUnitEdges(hullManager.getOutline(side));
+                assert edges != null;
+                assert edges.equals(toUnitEdges(getPolygonOutline(hullManager, side)));
+            }
+            if (round == 10) {
+                hullManager.clear();
+                for (int side = 0; side < 3; side++) {
+                    assert hullManager.getOutline(side).length == 0;
+                }
+            }
+        }
+    }
 }
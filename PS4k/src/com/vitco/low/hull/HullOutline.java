@@ -0,0 +1,139 @@
+package com.vitco.low.hull;
+
+import com.threed.jpct.SimpleVector;
+import com.vitco.settings.VitcoSettings;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.ArrayList;
+
+/**
+ * The 2D outline of border faces that are projected onto a side plane.
+ *
+ * The projected cells are counted and the outline is stored as unit edges, an edge
+ * is part of the outline iff exactly one of the two cells next to it is filled. So when
+ * a cell becomes filled or empty only its four edges change. The outline is extracted
+ * by merging the unit edges into maximal segments. Only the cells and edges that are
+ * used are stored, so the size of the plane does not matter.
+ */
+final class HullOutline {
+
+    // offset to the next corner in the second direction (corners are packed as v * 2^32 + u)
+    private static final long V_STEP = 1L << 32;
+
+    // the side this outline is projected onto (0 = xy, 1 = xz, 2 = yz)
+    private final int side;
+
+    // the amount of faces that are projected onto a cell
+    private final TLongIntHashMap cells = new TLongIntHashMap();
+    // the edges of the outline (by their first corner), horizontal edges go from
+    // (u, v) to (u + 1, v) and vertical edges go from (u, v) to (u, v + 1)
+    private final TLongHashSet horizontal = new TLongHashSet();
+    private final TLongHashSet vertical = new TLongHashSet();
+
+    // constructor
+    HullOutline(int side) {
+        this.side = side;
+    }
+
+    // helper - pack corner (or cell) coordinates
+    private static long pack(int u, int v) {
+        return v * V_STEP + u;
+    }
+
+    // helper - the first coordinate of a position in the side plane
+    private int getU(int x, int y) {
+        return side == 2 ? y : x;
+    }
+
+    // helper - the second coordinate of a position in the side plane
+    private int getV(int y, int z) {
+        return side == 0 ? y : z;
+    }
+
+    // helper - add the edge if it is not in the set, otherwise remove it
+    private static void flip(TLongHashSet edges, long edge) {
+        if (!edges.remove(edge)) {
+            edges.add(edge);
+        }
+    }
+
+    // helper - a cell became filled or empty
+    private void flipCell(int u, int v) {
+        flip(horizontal, pack(u, v));
+        flip(horizontal, pack(u, v + 1));
+        flip(vertical, pack(u, v));
+        flip(vertical, pack(u + 1, v));
+    }
+
+    // add a face that is projected onto this outline
+    void add(int x, int y, int z) {
+        int u = getU(x, y);
+        int v = getV(y, z);
+        if (cells.adjustOrPutValue(pack(u, v), 1, 1) == 1) {
+            flipCell(u, v);
+        }
+    }
+
+    // remove a face that is projected onto this outline
+    void remove(int x, int y, int z) {
+        int u = getU(x, y);
+        int v = getV(y, z);
+        long key = pack(u, v);
+        int count = cells.get(key) - 1;
+        if (count > 0) {
+            cells.put(key, count);
+        } else {
+            cells.remove(key);
+            flipCell(u, v);
+        }
+    }
+
+    // remove all faces
+    void clear() {
+        cells.clear();
+        horizontal.clear();
+        vertical.clear();
+    }
+
+    // helper - convert a packed corner into world coordinates
+    private SimpleVector toWorld(long corner) {
+        int v = (int) ((corner + Integer.MAX_VALUE + 1L) >> 32);
+        int u = (int) (corner - v * V_STEP);
+        SimpleVector result;
+        switch (side) {
+            case 2: result = new SimpleVector(0, u, v); break;
+            case 1: result = new SimpleVector(u, 0, v); break;
+            default: result = new SimpleVector(u, v, 0); break;
+        }
+        result.scalarMul(VitcoSettings.VOXEL_SIZE);
+        result.sub(VitcoSettings.VOXEL_WORLD_OFFSET);
+        return result;
+    }
+
+    // helper - merge the edges into maximal segments (step is the offset to the next edge)
+    private void addSegments(TLongHashSet edges, long step, ArrayList<SimpleVector[]> lines) {
+        for (TLongIterator it = edges.iterator(); it.hasNext();) {
+            long start = it.next();
+            // only start at the first edge of a segment
+            if (!edges.contains(start - step)) {
+                long end = start + step;
+                while (edges.contains(end)) {
+                    end += step;
+                }
+                lines.add(new SimpleVector[] {toWorld(start), toWorld(end)});
+            }
+        }
+    }
+
+    // get the outline as lines (in world coordinates)
+    SimpleVector[][] getOutline() {
+        ArrayList<SimpleVector[]> lines = new ArrayList<SimpleVector[]>();
+        addSegments(horizontal, 1, lines);
+        addSegments(vertical, V_STEP, lines);
+        SimpleVector[][] result = new SimpleVector[lines.size()][];
+        lines.toArray(result);
+        return result;
+    }
+}
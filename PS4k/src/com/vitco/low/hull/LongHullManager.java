@@ -0,0 +1,350 @@
+package com.vitco.low.hull;
+
+import com.threed.jpct.SimpleVector;
+import com.vitco.low.LongCubeIndexer;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Efficient way to compute the hull for a group of objects in 3D space.
+ *
+ * The positions are handled as long ids, the indexer that maps positions to ids is pluggable.
+ * By default the LongCubeIndexer is used (int coordinates). This is only needed for worlds
+ * that do not fit into the CubeIndexer, otherwise the int keyed HullManager should be used.
+ */
+public class LongHullManager<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // maps positions to ids (the ids need to be linear in the coordinates)
+    public interface Indexer extends Serializable {
+        // the id of a position
+        long getId(int x, int y, int z);
+        // the offset that moves an id one step into the direction (0-5)
+        long getOffset(int orientation);
+        // obtain the single coordinates
+        int getX(long id);
+        int getY(long id);
+        int getZ(long id);
+    }
+
+    // indexer that uses the LongCubeIndexer
+    public static final Indexer LONG_CUBE_INDEXER = new LongCubeIndexerAdapter();
+    private static final class LongCubeIndexerAdapter implements Indexer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public long getId(int x, int y, int z) {
+            return LongCubeIndexer.getId(x, y, z);
+        }
+
+        @Override
+        public long getOffset(int orientation) {
+            return LongCubeIndexer.change(0, orientation);
+        }
+
+        @Override
+        public int getX(long id) {
+            return LongCubeIndexer.getX(id);
+        }
+
+        @Override
+        public int getY(long id) {
+            return LongCubeIndexer.getY(id);
+        }
+
+        @Override
+        public int getZ(long id) {
+            return LongCubeIndexer.getZ(id);
+        }
+    }
+
+    // --------------
+
+    // the indexer of the ids
+    private final Indexer indexer;
+
+    // the offsets to the neighbours (by orientation)
+    private final long[] offsets = new long[6];
+
+    // maps position to objects
+    private final TLongObjectHashMap<T> id2obj = new TLongObjectHashMap<T>();
+
+    // border
+    private final TLongHashSet[] border = new TLongHashSet[]{
+            new TLongHashSet(),new TLongHashSet(),new TLongHashSet(),
+            new TLongHashSet(),new TLongHashSet(),new TLongHashSet()
+    };
+
+    // the tracked outlines (by orientation, created when the outline is first requested)
+    private transient HullOutline[] outlines = new HullOutline[6];
+
+    // helper - add a position to a border (and the tracked outline)
+    private void addBorder(int orientation, long posId) {
+        if (border[orientation].add(posId) && outlines[orientation] != null) {
+            outlines[orientation].add(indexer.getX(posId), indexer.getY(posId), indexer.getZ(posId));
+        }
+    }
+
+    // helper - remove a position from a border (and the tracked outline)
+    private void removeBorder(int orientation, long posId) {
+        if (border[orientation].remove(posId) && outlines[orientation] != null) {
+            outlines[orientation].remove(indexer.getX(posId), indexer.getY(posId), indexer.getZ(posId));
+        }
+    }
+
+    // helper - create a map for every orientation
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> TLongObjectHashMap<T>[] createMaps() {
+        TLongObjectHashMap<T>[] result = new TLongObjectHashMap[6];
+        for (int i = 0; i < 6; i++) {
+            result[i] = new TLongObjectHashMap<T>();
+        }
+        return result;
+    }
+
+    // border changes
+    private final TLongObjectHashMap<T>[] borderAdded = createMaps();
+    private final TLongObjectHashMap<T>[] borderRemoved = createMaps();
+
+    // add/remove buffer
+    private final TLongObjectHashMap<T>[] borderBufferAdded = createMaps();
+    private final TLongObjectHashMap<T>[] borderBufferRemoved = createMaps();
+
+    // ---------------------
+
+    // constructor (uses the LongCubeIndexer)
+    public LongHullManager() {
+        this(LONG_CUBE_INDEXER);
+    }
+
+    // constructor
+    public LongHullManager(Indexer indexer) {
+        this.indexer = indexer;
+        for (int i = 0; i < 6; i++) {
+            offsets[i] = indexer.getOffset(i);
+        }
+    }
+
+    public final void clear() {
+        id2obj.clear();
+        for (int i = 0; i < 6; i++) {
+            border[i].clear();
+            if (outlines[i] != null) {
+                outlines[i].clear();
+            }
+            borderAdded[i].clear();
+            borderRemoved[i].clear();
+            borderBufferAdded[i].clear();
+            borderBufferRemoved[i].clear();
+        }
+    }
+
+    public final boolean contains(int x, int y, int z) {
+        return id2obj.containsKey(indexer.getId(x, y, z));
+    }
+
+    public final boolean contains(long posId) {
+        return id2obj.containsKey(posId);
+    }
+
+    public final boolean containsBorder(long posId, int orientation) {
+        return border[orientation].contains(posId);
+    }
+
+    public final long[] getPosIds() {
+        return id2obj.keys();
+    }
+
+    // add an object to the hull finder
+    public final void update(int x, int y, int z, T object) {
+        update(indexer.getId(x, y, z), object);
+    }
+
+    // add an object to the hull finder
+    public final void update(long posId, T object) {
+        // store the object
+        if (id2obj.put(posId, object) != null) {
+            // the element was only updated (but existed already)
+            T obj = id2obj.get(posId);
+            for (int i = 0; i < 6; i++) {
+                if (border[i].contains(posId)) {
+                    // this does not use the buffer, because the side was not actually
+                    // added this run and we want to allow for a potential remove (!)
+                    borderAdded[i].put(posId, obj);
+                }
+                // also update the buffers
+                if (borderBufferAdded[i].containsKey(posId)) {
+                    borderBufferAdded[i].put(posId, obj);
+                }
+                if (borderBufferRemoved[i].containsKey(posId)) {
+                    borderBufferRemoved[i].put(posId, obj);
+                }
+                if (borderRemoved[i].containsKey(posId)) {
+                    borderRemoved[i].put(posId, obj);
+                }
+            }
+
+        } else {
+
+            T obj = id2obj.get(posId);
+
+            // check borders (the side "i" of this position faces the neighbour
+            // in direction "i" and is hidden by the neighbour's opposite side)
+            for (int i = 0; i < 6; i++) {
+                int opposite = i ^ 1;
+                long idOff = posId + offsets[i];
+                if (id2obj.containsKey(idOff)) {
+                    removeBorder(opposite, idOff);
+                    if (null == borderBufferAdded[opposite].remove(idOff)) {
+                        borderRemoved[opposite].put(idOff, id2obj.get(idOff));
+                    } else {
+                        borderAdded[opposite].remove(idOff);
+                    }
+                } else {
+                    addBorder(i, posId);
+                    if (null != borderBufferAdded[i].put(posId, obj)) {
+                        borderAdded[i].put(posId, obj);
+                    }
+                }
+            }
+        }
+    }
+
+    // remove an object from this hull finder
+    public final boolean clearPosition(int x, int y, int z) {
+        return clearPosition(indexer.getId(x, y, z));
+    }
+
+    // remove an object from this hull finder
+    public final boolean clearPosition(long posId) {
+
+        // remove the object (the actual removal needs to be done
+        // last, because we still need the reference to the object
+        if (id2obj.containsKey(posId)) {
+
+            T obj = id2obj.get(posId);
+            T objOff;
+
+            // check borders
+            for (int i = 0; i < 6; i++) {
+                int opposite = i ^ 1;
+                long idOff = posId + offsets[i];
+                if (id2obj.containsKey(idOff)) {
+                    addBorder(opposite, idOff);
+                    objOff = id2obj.get(idOff);
+                    if (null != borderBufferRemoved[opposite].put(idOff, objOff)) {
+                        borderAdded[opposite].put(idOff, objOff);
+                    }
+                } else {
+                    removeBorder(i, posId);
+                    if (null == borderBufferRemoved[i].remove(posId)) {
+                        borderRemoved[i].put(posId, obj);
+                    } else {
+                        borderAdded[i].remove(posId);
+                    }
+                }
+            }
+            // remove the object
+            id2obj.remove(posId);
+            return true;
+        }
+        return false;
+    }
+
+    // get the hull additions (in direction 0-5)
+    public final Set<T> getHullAdditions(int direction) {
+
+        // add pending changes
+        borderAdded[direction].putAll(borderBufferAdded[direction]);
+        borderAdded[direction].putAll(borderBufferRemoved[direction]);
+
+        // remove the values that are pending as remove (remove is stronger!)
+        for (TLongIterator it = borderRemoved[direction].keySet().iterator(); it.hasNext();) {
+            borderAdded[direction].remove(it.next());
+        }
+
+        // generate result
+        Set<T> result = new HashSet<T>(borderAdded[direction].valueCollection());
+
+        // clear buffer and changes
+        borderBufferAdded[direction].clear();
+        borderBufferRemoved[direction].clear();
+        borderAdded[direction].clear();
+
+        return result;
+    }
+
+    // get the hull removals (in direction 0-5)
+    public final Set<T> getHullRemovals(int direction) {
+
+        // generate result
+        Set<T> result = new HashSet<T>(borderRemoved[direction].valueCollection());
+
+        // remove the values that are pending as remove (remove is stronger!)
+        for (TLongIterator it = borderRemoved[direction].keySet().iterator(); it.hasNext();) {
+            borderAdded[direction].remove(it.next());
+        }
+
+        // clear buffer and changes
+        borderRemoved[direction].clear();
+
+        return result;
+    }
+
+    // get the current hull
+    public final int[][] getHull(int direction) {
+        int[][] result = new int[border[direction].size()][3]; // allocate with correct size
+        int count = 0;
+        for (TLongIterator it = border[direction].iterator(); it.hasNext();) {
+            long id = it.next();
+            result[count][0] = indexer.getX(id);
+            result[count][1] = indexer.getY(id);
+            result[count][2] = indexer.getZ(id);
+            count++;
+        }
+        return result;
+    }
+
+    // get the visible voxel ids
+    public final TLongHashSet getVisibleVoxelsIds() {
+        TLongHashSet visibleVoxels = new TLongHashSet();
+        for (int i = 0; i < 6; i++) {
+            visibleVoxels.addAll(border[i]);
+        }
+        return visibleVoxels;
+    }
+
+    // get the current hull as ids
+    public final long[] getHullAsIds(int direction) {
+        return border[direction].toArray();
+    }
+
+    // called after deserialization
+    private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // the outlines are not serialized
+        outlines = new HullOutline[6];
+    }
+
+    // get the outline of all voxels into one direction
+    // Note: the outline is updated with every border change once it was requested
+    public final SimpleVector[][] getOutline(int side) {
+        // compute the correct orientation (w.r.t. the side)
+        int orientation = side == 0 ? 5 : (side == 1 ? 3 : 1);
+        if (outlines[orientation] == null) {
+            HullOutline outline = new HullOutline(side);
+            for (TLongIterator it = border[orientation].iterator(); it.hasNext();) {
+                long posId = it.next();
+                outline.add(indexer.getX(posId), indexer.getY(posId), indexer.getZ(posId));
+            }
+            outlines[orientation] = outline;
+        }
+        return outlines[orientation].getOutline();
+    }
+}
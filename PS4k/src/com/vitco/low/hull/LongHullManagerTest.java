@@ -0,0 +1,108 @@
+package com.vitco.low.hull;
+
+import com.threed.jpct.SimpleVector;
+import com.vitco.low.CubeIndexer;
+import com.vitco.low.LongCubeIndexer;
+import com.vitco.settings.VitcoSettings;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test that the long keyed hull manager behaves like the int keyed hull manager.
+ */
+public class LongHullManagerTest {
+
+    @Test
+    public void testIndexer() throws Exception {
+        Random rand = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            int x = rand.nextInt(200000) - 100000;
+            int y = rand.nextInt(200000) - 100000;
+            int z = rand.nextInt(200000) - 100000;
+            long id = LongCubeIndexer.getId(x, y, z);
+            assert LongCubeIndexer.getX(id) == x;
+            assert LongCubeIndexer.getY(id) == y;
+            assert LongCubeIndexer.getZ(id) == z;
+            assert LongCubeIndexer.changeY(id, false) == LongCubeIndexer.getId(x, y - 1, z);
+            assert id + LongCubeIndexer.getShiftOperand(-3, 7, -11) == LongCubeIndexer.getId(x - 3, y + 7, z - 11);
+            // compare with the int indexer
+            short sx = (short) (x % CubeIndexer.radius);
+            short sy = (short) (y % CubeIndexer.radius);
+            short sz = (short) (z % CubeIndexer.radius);
+            int cubeId = CubeIndexer.getId(sx, sy, sz);
+            assert CubeIndexer.getX(cubeId) == sx && CubeIndexer.getY(cubeId) == sy && CubeIndexer.getZ(cubeId) == sz;
+            assert LongCubeIndexer.toCubeId(LongCubeIndexer.fromCubeId(cubeId)) == cubeId;
+        }
+    }
+
+    @Test
+    public void testCompareWithHullManager() throws Exception {
+        Random rand = new Random(1);
+        for (int run = 0; run < 20; run++) {
+            HullManager<String> hullManager = new HullManager<String>();
+            LongHullManager<String> longHullManager = new LongHullManager<String>();
+            // the long hull manager uses a position that is far outside the int range
+            int offset = 90000 * (run % 2 == 0 ? 1 : -1);
+            for (int i = 0; i < 3000; i++) {
+                int x = rand.nextInt(12);
+                int y = rand.nextInt(12);
+                int z = rand.nextInt(12);
+                String obj = x + " " + y + " " + z + " " + i;
+                if (rand.nextInt(3) == 0) {
+                    assert hullManager.clearPosition(new short[]{(short) x, (short) y, (short) z}) ==
+                            longHullManager.clearPosition(x + offset, y - offset, z + offset);
+                } else {
+                    hullManager.update(new short[]{(short) x, (short) y, (short) z}, obj);
+                    longHullManager.update(x + offset, y - offset, z + offset, obj);
+                }
+                // check the changes from time to time
+                if (rand.nextInt(200) == 0) {
+                    for (int j = 0; j < 6; j++) {
+                        Set<String> additions = hullManager.getHullAdditions(j);
+                        Set<String> removals = hullManager.getHullRemovals(j);
+                        assert additions.equals(longHullManager.getHullAdditions(j));
+                        assert removals.equals(longHullManager.getHullRemovals(j));
+                    }
+                }
+            }
+            // compare the hull
+            for (int j = 0; j < 6; j++) {
+                short[][] hull = hullManager.getHull(j);
+                int[][] longHull = longHullManager.getHull(j);
+                assert hull.length == longHull.length;
+                for (short[] pos : hull) {
+                    assert longHullManager.containsBorder(LongCubeIndexer.getId(pos[0] + offset, pos[1] - offset, pos[2] + offset), j);
+                }
+            }
+            assert hullManager.getVisibleVoxelsIds().size() == longHullManager.getVisibleVoxelsIds().size();
+            assert hullManager.getPosIds().length == longHullManager.getPosIds().length;
+        }
+    }
+
+    @Test
+    public void testOutline() throws Exception {
+        // two voxels that are far apart (the outline does not use a dense grid)
+        LongHullManager<String> longHullManager = new LongHullManager<String>();
+        longHullManager.update(-500000, 3, 7, "a");
+        longHullManager.update(500000, 3, 7, "b");
+        // a 2x1 block (the outline is merged into maximal segments)
+        longHullManager.update(0, 3, 7, "c");
+        longHullManager.update(1, 3, 7, "d");
+        SimpleVector[][] outline = longHullManager.getOutline(0);
+        assert outline.length == 12;
+        float length = 0;
+        for (SimpleVector[] line : outline) {
+            length += line[0].distance(line[1]) / VitcoSettings.VOXEL_SIZE;
+            // the lines are in the xy plane
+            assert line[0].z == line[1].z;
+        }
+        assert Math.round(length) == 4 + 4 + 6;
+        // the outline is updated with the changes
+        assert longHullManager.clearPosition(-500000, 3, 7);
+        assert longHullManager.getOutline(0).length == 8;
+        longHullManager.clear();
+        assert longHullManager.getOutline(0).length == 0;
+    }
+}
@@ -3,6 +3,8 @@ package com.vitco.low.triangulate;
 import com.vitco.Main;
 import com.vitco.low.triangulate.util.Grid2PolyHelper;
 import com.vitco.low.triangulate.util.HopcroftKarp;
+import com.vitco.util.misc.IntegerTools;
+import gnu.trove.list.array.TIntArrayList;
 import org.poly2tri.geometry.polygon.PolygonPoint;
 import org.poly2tri.triangulation.delaunay.DelaunayTriangle;
 
@@ -30,6 +32,9 @@ public class Grid2TriGreedyOptimal {
         // get polygons
         short[][][] polys = Grid2PolyHelper.convert(bits);
 
+        // buffers that are reused for all polygons
+        DiagonalGraph graph = new DiagonalGraph();
+
         // loop over polygons
         for (short[][] poly : polys) {
 
@@ -56,136 +61,29 @@ public class Grid2TriGreedyOptimal {
                 }
             }
 
-            // find the "good diagonals"
-            ArrayList<Point[]> diagonals = new ArrayList<Point[]>();
-            for (Point p1 : concavePointList) {
-                for (Point p2 : concavePointList) {
-                    if (p1.x == p2.x && p1.y < p2.y) {
-                        // check if they are connected by a line
-                        boolean connected = true;
-                        for (int i = Math.min(p1.y, p2.y), len = Math.max(p1.y, p2.y); i < len; i++) {
-                            if (!bits[p1.x][i] || !bits[p1.x-1][i]) {
-                                connected = false;
-                                break;
-                            }
-                        }
-                        if (connected) {
-                            diagonals.add(new Point[] {p1,p2});
-                        }
-                    }
-                    if (p1.y == p2.y && p1.x < p2.x) {
-                        // check if they are connected by a line
-                        boolean connected = true;
-                        for (int i = Math.min(p1.x, p2.x), len = Math.max(p1.x, p2.x); i < len; i++) {
-                            if (!bits[i][p1.y] || !bits[i][p1.y-1]) {
-                                connected = false;
-                                break;
-                            }
-                        }
-                        if (connected) {
-                            diagonals.add(new Point[] {p1,p2});
-                        }
-                    }
-                }
-            }
-
-            // compute the bipartite graph mapping
-            HashMap<Integer, ArrayList<Integer>> mapOtoU = new HashMap<Integer, ArrayList<Integer>>();
-            HashMap<Integer, ArrayList<Integer>> mapUtoO = new HashMap<Integer, ArrayList<Integer>>();
-            for (int i1 = 0; i1 < diagonals.size(); i1++) {
-                Point[] d1 = diagonals.get(i1);
-                ArrayList<Integer> mappedTo = new ArrayList<Integer>();
-                if (d1[0].x == d1[1].x) {
-                    mapOtoU.put(i1, mappedTo);
-                } else {
-                    mapUtoO.put(i1, mappedTo);
-                }
-                for (int i2 = 0; i2 < diagonals.size(); i2++) {
-                    Point[] d2 = diagonals.get(i2);
-                    if (d1 != d2) {
-                        if (d1[0].x <= d2[1].x && d1[1].x >= d2[0].x &&
-                                d1[0].y <= d2[1].y && d1[1].y >= d2[0].y) {
-                            mappedTo.add(i2);
-                        }
-                    }
-                }
-            }
+            // find the "good diagonals" (vertical diagonals first)
+            graph.findDiagonals(bits, concavePointList);
 
-//            // -- debug print
-//            System.out.println("mapOtoU");
-//            for (Map.Entry<Integer, ArrayList<Integer>> entry : mapOtoU.entrySet()) {
-//                System.out.print(entry.getKey()+1);
-//                System.out.print(" -> ");
-//                for (Integer mappedTo : entry.getValue()) {
-//                    System.out.print((mappedTo+1) + ", ");
-//                }
-//                System.out.println();
-//            }
-//            System.out.println("------");
-//
-//            // -- debug print
-//            System.out.println("mapUtoO");
-//            for (Map.Entry<Integer, ArrayList<Integer>> entry : mapUtoO.entrySet()) {
-//                System.out.print(entry.getKey()+1);
-//                System.out.print(" -> ");
-//                for (Integer mappedTo : entry.getValue()) {
-//                    System.out.print((mappedTo+1) + ", ");
-//                }
-//                System.out.println();
-//            }
-//            System.out.println("------");
+            // compute the bipartite graph mapping (vertical diagonals to intersecting horizontal diagonals)
+            graph.buildIntersectionGraph(lenX, lenY);
 
             // 1. find a maximum matching with Hopcroft-Karp
-            HashMap<Integer, Integer> matching = HopcroftKarp.findMaximumMatching(mapOtoU);
-            HashMap<Integer, Integer> revMatching = new HashMap<Integer, Integer>();
-            for (Map.Entry<Integer, Integer> entry : matching.entrySet()) {
-                revMatching.put(entry.getValue(), entry.getKey());
-            }
-
-//            // -- debug
-//            System.out.println("Oben");
-//            for (Integer key : mapOtoU.keySet()) {
-//                System.out.print((key+1) + ", ");
-//            }
-//            System.out.println();
-//            System.out.println("------");
-//
-//            // -- debug
-//            System.out.println("Unten");
-//            for (Integer key : mapUtoO.keySet()) {
-//                System.out.print((key+1) + ", ");
-//            }
-//            System.out.println();
-//            System.out.println("------");
-//
-//            // -- debug
-//            System.out.println("Maximum Matching");
-//            for (Map.Entry<Integer, Integer> match : matching.entrySet()) {
-//                System.out.println((match.getKey()+1) + " -> " + (match.getValue()+1));
-//            }
-//            System.out.println("------");
-
-            // ---------
+            graph.matcher.findMaximumMatching(graph.countO, graph.countU, graph.offsets, graph.targets);
 
             // compute a maximal independent set using koenigs theorem
-            HashSet<Integer> maxIndependentSet = computeMaximalIndependetSet(mapOtoU, mapUtoO, matching, revMatching);
-
-//            // -- debug
-//            System.out.println("Maximal Independent Set");
-//            for (Integer vertex : maxIndependentSet) {
-//                System.out.print((vertex+1) + ", ");
-//            }
-//            System.out.println();
-//            System.out.println("------");
-
-            // -------------
+            boolean[] maxIndependentSet = graph.computeMaximalIndependentSet();
+            int maxIndependentSetSize = 0;
 
             // extract the point mappings for our edges
             HashMap<Point, Point> edgeMapping = new HashMap<Point, Point>();
-            for (Integer vertex : maxIndependentSet) {
-                Point[] diag = diagonals.get(vertex);
-                edgeMapping.put(diag[0], diag[1]);
-                edgeMapping.put(diag[1], diag[0]);
+            for (int i = 0, len = graph.countO + graph.countU; i < len; i++) {
+                if (maxIndependentSet[i]) {
+                    Point p1 = new Point(graph.diagonals.getQuick(i * 4), graph.diagonals.getQuick(i * 4 + 1));
+                    Point p2 = new Point(graph.diagonals.getQuick(i * 4 + 2), graph.diagonals.getQuick(i * 4 + 3));
+                    edgeMapping.put(p1, p2);
+                    edgeMapping.put(p2, p1);
+                    maxIndependentSetSize++;
+                }
             }
 
             // extract point information
@@ -327,7 +225,7 @@ public class Grid2TriGreedyOptimal {
                 for (short[] outline : poly) {
                     verticeCount += outline.length/2-1;
                 }
-                assert rectangleCount == verticeCount/2 + poly.length-1 - maxIndependentSet.size() - 1;
+                assert rectangleCount == verticeCount/2 + poly.length-1 - maxIndependentSetSize - 1;
             }
 
 //            // sweep over all points
@@ -346,102 +244,199 @@ public class Grid2TriGreedyOptimal {
         return result;
     }
 
-    // compute a maximal independent set using koenig's theorem
-    private static HashSet<Integer> computeMaximalIndependetSet(HashMap<Integer, ArrayList<Integer>> mapOtoU, HashMap<Integer, ArrayList<Integer>> mapUtoO,
-                                                                HashMap<Integer, Integer> matching, HashMap<Integer, Integer> revMatching) {
-        // use Koenig's theorem to find vertex cover
-        // 2. add all vertices not contained in matching from O to T
-        HashSet<Integer> T = new HashSet<Integer>(mapOtoU.keySet());
-        T.removeAll(matching.keySet());
-
-//            // -- debug
-//            System.out.println("Initial T");
-//            for (Integer val : T) {
-//                System.out.print((val+1) + ", ");
-//            }
-//            System.out.println();
-//            System.out.println("------");
-
-        // recently added vertices
-        HashSet<Integer> recentlyAdded = new HashSet<Integer>(T);
-        HashSet<Integer> recentlyAddedTmp = new HashSet<Integer>();
-
-        // true if we still need to check for more vertices
-        boolean verticesAdded;
-
-        // repeat until no more new vertices are found
-        do {
-            verticesAdded = false;
-            // 3. we now move from recently added vertices to vertices in U on all not in maximum matching contained edges
-            for (Integer vertex : recentlyAdded) {
-                ArrayList<Integer> mapsTo = mapOtoU.get(vertex);
-                Integer mapsToInMaxMatching = matching.get(vertex);
-                for (Integer target : mapsTo) {
-                    // if this matching is not contained in maximum matching
-                    if (!target.equals(mapsToInMaxMatching)) {
-                        if (T.add(target)) {
-                            verticesAdded = true;
+    // Holds the good diagonals of a polygon and their intersection graph. All buffers are
+    // reused when processing the next polygon.
+    private static final class DiagonalGraph {
+        // the diagonals stored as x1, y1, x2, y2 (vertical diagonals first, sorted by x)
+        private final TIntArrayList diagonals = new TIntArrayList();
+        // number of vertical ("O") and horizontal ("U") diagonals
+        private int countO = 0;
+        private int countU = 0;
+
+        // intersection graph in CSR format (vertical diagonal -> horizontal diagonals)
+        private int[] offsets = new int[1];
+        private int[] targets = new int[16];
+
+        // the matching algorithm (reuses internal buffers)
+        private final HopcroftKarp matcher = new HopcroftKarp();
+
+        // temporary buffers
+        private int[] sortBuffer = new int[0];
+        private int[] activeAtY = new int[0];
+        private int[] startHead = new int[0];
+        private int[] endHead = new int[0];
+        private int[] startNext = new int[0];
+        private int[] endNext = new int[0];
+        private int[] queue = new int[0];
+
+        // find the good diagonals, i.e. the axis aligned lines inside the polygon that connect two
+        // concave points. Only neighbouring concave points on one line can be connected (otherwise
+        // the line would pass through a concave point, which always borders an empty cell).
+        private void findDiagonals(boolean[][] bits, HashSet<Point> concavePointList) {
+            diagonals.resetQuick();
+            int count = concavePointList.size();
+            if (sortBuffer.length < count) {
+                sortBuffer = new int[count];
+            }
+            // vertical diagonals (sorted by x, then y)
+            int i = 0;
+            for (Point p : concavePointList) {
+                sortBuffer[i++] = IntegerTools.makeInt(p.x, p.y);
+            }
+            Arrays.sort(sortBuffer, 0, count);
+            for (i = 1; i < count; i++) {
+                int x = sortBuffer[i] >> 16;
+                if (x == sortBuffer[i - 1] >> 16) {
+                    int y1 = sortBuffer[i - 1] & 0xFFFF;
+                    int y2 = sortBuffer[i] & 0xFFFF;
+                    // check if they are connected by a line
+                    boolean connected = true;
+                    for (int y = y1; y < y2; y++) {
+                        if (!bits[x][y] || !bits[x - 1][y]) {
+                            connected = false;
+                            break;
                         }
-                        T.add(target);
-                        recentlyAddedTmp.add(target);
+                    }
+                    if (connected) {
+                        diagonals.add(x);
+                        diagonals.add(y1);
+                        diagonals.add(x);
+                        diagonals.add(y2);
                     }
                 }
             }
-            recentlyAdded.clear();
-            recentlyAdded.addAll(recentlyAddedTmp);
-            recentlyAddedTmp.clear();
-
-            // check if we need to continue
-            if (!verticesAdded) {
-                break;
+            countO = diagonals.size() / 4;
+            // horizontal diagonals (sorted by y, then x)
+            i = 0;
+            for (Point p : concavePointList) {
+                sortBuffer[i++] = IntegerTools.makeInt(p.y, p.x);
             }
-
-            verticesAdded = false;
-            // 4. we now move from recently added vertices to vertices in O on all in maximum matching contained edges
-            for (Integer vertex : recentlyAdded) {
-                Integer mapsToInMaxMatching = revMatching.get(vertex);
-                if (mapsToInMaxMatching != null) {
-                    if (T.add(mapsToInMaxMatching)) {
-                        verticesAdded = true;
+            Arrays.sort(sortBuffer, 0, count);
+            for (i = 1; i < count; i++) {
+                int y = sortBuffer[i] >> 16;
+                if (y == sortBuffer[i - 1] >> 16) {
+                    int x1 = sortBuffer[i - 1] & 0xFFFF;
+                    int x2 = sortBuffer[i] & 0xFFFF;
+                    // check if they are connected by a line
+                    boolean connected = true;
+                    for (int x = x1; x < x2; x++) {
+                        if (!bits[x][y] || !bits[x][y - 1]) {
+                            connected = false;
+                            break;
+                        }
+                    }
+                    if (connected) {
+                        diagonals.add(x1);
+                        diagonals.add(y);
+                        diagonals.add(x2);
+                        diagonals.add(y);
                     }
-                    recentlyAddedTmp.add(mapsToInMaxMatching);
                 }
             }
-            recentlyAdded.clear();
-            recentlyAdded.addAll(recentlyAddedTmp);
-            recentlyAddedTmp.clear();
+            countU = diagonals.size() / 4 - countO;
+        }
 
-        } while (verticesAdded);
+        // Compute which vertical diagonals intersect (or touch) which horizontal diagonals. This uses
+        // a sweep line in x direction that holds the currently "active" horizontal diagonal for every y.
+        // Since concave points belong to at most one horizontal diagonal, there is at most one active
+        // diagonal per y value.
+        private void buildIntersectionGraph(int lenX, int lenY) {
+            if (activeAtY.length < lenY + 1) {
+                activeAtY = new int[lenY + 1];
+            }
+            Arrays.fill(activeAtY, 0, lenY + 1, -1);
+            if (startHead.length < lenX + 1) {
+                startHead = new int[lenX + 1];
+                endHead = new int[lenX + 1];
+            }
+            Arrays.fill(startHead, 0, lenX + 1, -1);
+            Arrays.fill(endHead, 0, lenX + 1, -1);
+            if (startNext.length < countU) {
+                startNext = new int[countU];
+                endNext = new int[countU];
+            }
+            if (offsets.length < countO + 1) {
+                offsets = new int[countO + 1];
+            }
 
-//            // -- debug
-//            System.out.println("Final T");
-//            for (Integer val : T) {
-//                System.out.print((val+1) + ", ");
-//            }
-//            System.out.println();
-//            System.out.println("------");
-
-        // compute the minimal vertex cover
-        HashSet<Integer> minVertexCover = new HashSet<Integer>(mapOtoU.keySet());
-        minVertexCover.removeAll(T);
-        HashSet<Integer> tmp = new HashSet<Integer>(mapUtoO.keySet());
-        tmp.retainAll(T);
-        minVertexCover.addAll(tmp);
-
-//            // -- debug
-//            System.out.println("Minimal Vertex Cover");
-//            for (Integer vertex : minVertexCover) {
-//                System.out.print((vertex+1) + ", ");
-//            }
-//            System.out.println();
-//            System.out.println("------");
+            // bucket the horizontal diagonals by their start and end x value
+            for (int u = 0; u < countU; u++) {
+                int base = (countO + u) * 4;
+                int x1 = diagonals.getQuick(base);
+                int x2 = diagonals.getQuick(base + 2);
+                startNext[u] = startHead[x1];
+                startHead[x1] = u;
+                endNext[u] = endHead[x2];
+                endHead[x2] = u;
+            }
 
-        // compute the maximal independent set
-        HashSet<Integer> maxIndependentSet = new HashSet<Integer>(mapOtoU.keySet());
-        maxIndependentSet.addAll(mapUtoO.keySet());
-        maxIndependentSet.removeAll(minVertexCover);
+            // sweep (the vertical diagonals are already sorted by x)
+            int edgeCount = 0;
+            int o = 0;
+            offsets[0] = 0;
+            for (int x = 0; x <= lenX; x++) {
+                for (int u = startHead[x]; u != -1; u = startNext[u]) {
+                    activeAtY[diagonals.getQuick((countO + u) * 4 + 1)] = u;
+                }
+                while (o < countO && diagonals.getQuick(o * 4) == x) {
+                    for (int y = diagonals.getQuick(o * 4 + 1), y2 = diagonals.getQuick(o * 4 + 3); y <= y2; y++) {
+                        int u = activeAtY[y];
+                        if (u != -1) {
+                            if (edgeCount == targets.length) {
+                                targets = Arrays.copyOf(targets, targets.length * 2);
+                            }
+                            targets[edgeCount++] = u;
+                        }
+                    }
+                    offsets[++o] = edgeCount;
+                }
+                for (int u = endHead[x]; u != -1; u = endNext[u]) {
+                    activeAtY[diagonals.getQuick((countO + u) * 4 + 1)] = -1;
+                }
+            }
+        }
 
-        return maxIndependentSet;
+        // Compute a maximal independent set using koenig's theorem. The result is indexed
+        // like the diagonals (vertical diagonals first).
+        private boolean[] computeMaximalIndependentSet() {
+            int[] matchU = matcher.getMatchU();
+            int[] matchV = matcher.getMatchV();
+            // T is stored as "reached" flags (vertical diagonals first)
+            boolean[] reached = new boolean[countO + countU];
+            if (queue.length < countO) {
+                queue = new int[countO];
+            }
+            int head = 0;
+            int tail = 0;
+            // 2. add all vertices not contained in matching from O to T
+            for (int o = 0; o < countO; o++) {
+                if (matchU[o] == HopcroftKarp.UNMATCHED) {
+                    reached[o] = true;
+                    queue[tail++] = o;
+                }
+            }
+            while (head < tail) {
+                int o = queue[head++];
+                // 3. move from O to U on all edges that are not contained in the maximum matching
+                for (int e = offsets[o], end = offsets[o + 1]; e < end; e++) {
+                    int u = targets[e];
+                    if (u != matchU[o] && !reached[countO + u]) {
+                        reached[countO + u] = true;
+                        // 4. move from U to O on the edge that is contained in the maximum matching
+                        int next = matchV[u];
+                        if (next != HopcroftKarp.UNMATCHED && !reached[next]) {
+                            reached[next] = true;
+                            queue[tail++] = next;
+                        }
+                    }
+                }
+            }
+            // the minimal vertex cover is (O \ T) + (U n T), so the
+            // maximal independent set is (O n T) + (U \ T)
+            for (int u = countO, len = countO + countU; u < len; u++) {
+                reached[u] = !reached[u];
+            }
+            return reached;
+        }
     }
-
 }
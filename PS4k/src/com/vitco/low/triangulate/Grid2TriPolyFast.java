@@ -32,8 +32,13 @@ public class Grid2TriPolyFast {
 
     // ==============
 
-    // helper - we need only one context for all conversion (faster)
-    private final static TriangulationContext tcx = Poly2Tri.createContext(TriangulationAlgorithm.DTSweep);
+    // helper - we need only one context per thread for all conversion (faster)
+    private final static ThreadLocal<TriangulationContext<?>> context = new ThreadLocal<TriangulationContext<?>>() {
+        @Override
+        protected TriangulationContext<?> initialValue() {
+            return Poly2Tri.createContext(TriangulationAlgorithm.DTSweep);
+        }
+    };
 
     // triangulate a polygon, the input data is interpolated to allow Poly2Tri to process it.
     // Hence the output data is slightly "off". This can be fixed by rounding the output data, don't use (int)
@@ -90,13 +95,11 @@ public class Grid2TriPolyFast {
             }
 
             // do the triangulation and add the triangles for this polygon
-            // Note: This needs to be synchronized to prevent multiple instances
-            // from accessing the tcx context at once
-            synchronized (tcx) {
-                tcx.prepareTriangulation(polyR);
-                Poly2Tri.triangulate(tcx);
-                tcx.clear();
-            }
+            // Note: Every thread uses its own context, so planes can be triangulated concurrently
+            TriangulationContext<?> tcx = context.get();
+            tcx.prepareTriangulation(polyR);
+            Poly2Tri.triangulate(tcx);
+            tcx.clear();
             result.addAll(polyR.getTriangles());
 
         }
@@ -5,6 +5,7 @@ import gnu.trove.iterator.TIntIterator;
 import gnu.trove.map.hash.TIntIntHashMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -12,13 +13,171 @@ import java.util.HashMap;
  *
  * Reference: http://en.wikipedia.org/wiki/Hopcroft%E2%80%93Karp_algorithm
  *
- * Adapted from
+ * The static method is adapted from
  * https://github.com/pierre-dejoue/kart-match/blob/master/src/fr/neuf/perso/pdejoue/kart_match/HopcroftKarp.java
+ *
+ * The instance methods work on a graph in compressed sparse row format (primitive arrays) and
+ * reuse their internal buffers between calls, so one instance should be used for many graphs.
  */
+public class HopcroftKarp {
 
-// todo: make faster!
+    // marks a vertex that is not matched
+    public static final int UNMATCHED = -1;
 
-public class HopcroftKarp {
+    // distance value for vertices that are not reachable in the current phase
+    private static final int INFINITE = Integer.MAX_VALUE;
+
+    // u --> v (or UNMATCHED)
+    private int[] matchU = new int[0];
+    // v --> u (or UNMATCHED)
+    private int[] matchV = new int[0];
+    // bfs layer of the vertices in U
+    private int[] dist = new int[0];
+    // bfs queue for vertices in U
+    private int[] queue = new int[0];
+    // dfs stack (vertices in U) and the current edge position for every vertex in U
+    private int[] stack = new int[0];
+    private int[] edgePos = new int[0];
+
+    // the size of the last matched graph
+    private int countU = 0;
+    private int countV = 0;
+
+    // make sure the buffers can hold the requested graph size
+    private void ensureCapacity(int countU, int countV) {
+        if (matchU.length < countU) {
+            int size = Math.max(countU, matchU.length * 2);
+            matchU = new int[size];
+            dist = new int[size];
+            queue = new int[size];
+            stack = new int[size];
+            edgePos = new int[size];
+        }
+        if (matchV.length < countV) {
+            matchV = new int[Math.max(countV, matchV.length * 2)];
+        }
+    }
+
+    // Find a maximum matching for the graph with the vertices 0...countU-1 in U and 0...countV-1 in V.
+    // The edges of vertex u are stored in targets[offsets[u]] ... targets[offsets[u+1]-1] (CSR format).
+    // Returns the size of the matching. The matching can be retrieved with getMatchU() and getMatchV().
+    public final int findMaximumMatching(int countU, int countV, int[] offsets, int[] targets) {
+        ensureCapacity(countU, countV);
+        this.countU = countU;
+        this.countV = countV;
+        Arrays.fill(matchU, 0, countU, UNMATCHED);
+        Arrays.fill(matchV, 0, countV, UNMATCHED);
+
+        int size = 0;
+
+        // greedy initialisation, this usually matches most of the vertices already
+        for (int u = 0; u < countU; u++) {
+            for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                int v = targets[e];
+                if (matchV[v] == UNMATCHED) {
+                    matchV[v] = u;
+                    matchU[u] = v;
+                    size++;
+                    break;
+                }
+            }
+        }
+
+        // loop as long as we can find at least one augmenting path
+        while (buildLayers(offsets, targets)) {
+            for (int u = 0; u < countU; u++) {
+                if (matchU[u] == UNMATCHED && augment(u, offsets, targets)) {
+                    size++;
+                }
+            }
+        }
+
+        return size;
+    }
+
+    // Use BFS to build the alternating layers starting from all free vertices in U.
+    // Returns true if at least one free vertex in V was reached.
+    private boolean buildLayers(int[] offsets, int[] targets) {
+        int head = 0;
+        int tail = 0;
+        for (int u = 0; u < countU; u++) {
+            if (matchU[u] == UNMATCHED) {
+                dist[u] = 0;
+                queue[tail++] = u;
+            } else {
+                dist[u] = INFINITE;
+            }
+        }
+        boolean found = false;
+        while (head < tail) {
+            int u = queue[head++];
+            int nextDist = dist[u] + 1;
+            for (int e = offsets[u], end = offsets[u + 1]; e < end; e++) {
+                int w = matchV[targets[e]];
+                if (w == UNMATCHED) {
+                    found = true;
+                } else if (dist[w] == INFINITE) {
+                    dist[w] = nextDist;
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return found;
+    }
+
+    // Use iterative DFS along the layers to find an augmenting path starting at the free vertex root.
+    // Vertices that are exhausted are removed from the layer structure (dist set to INFINITE).
+    // Returns true if an augmenting path was found (and applied).
+    private boolean augment(int root, int[] offsets, int[] targets) {
+        int top = 0;
+        stack[top++] = root;
+        edgePos[root] = offsets[root];
+        while (top > 0) {
+            int u = stack[top - 1];
+            int end = offsets[u + 1];
+            boolean descended = false;
+            while (edgePos[u] < end) {
+                int v = targets[edgePos[u]];
+                int w = matchV[v];
+                if (w == UNMATCHED) {
+                    // found an augmenting path, flip all the edges on the stack
+                    for (int i = top - 1; i >= 0; i--) {
+                        int pu = stack[i];
+                        int pv = targets[edgePos[pu]];
+                        matchU[pu] = pv;
+                        matchV[pv] = pu;
+                    }
+                    return true;
+                }
+                if (dist[w] == dist[u] + 1) {
+                    edgePos[w] = offsets[w];
+                    stack[top++] = w;
+                    descended = true;
+                    break;
+                }
+                edgePos[u]++;
+            }
+            if (!descended) {
+                // dead end, remove this vertex from the layers
+                dist[u] = INFINITE;
+                top--;
+                if (top > 0) {
+                    edgePos[stack[top - 1]]++;
+                }
+            }
+        }
+        return false;
+    }
+
+    // get the matching u --> v (only the first countU entries are valid)
+    public final int[] getMatchU() {
+        return matchU;
+    }
+
+    // get the matching v --> u (only the first countV entries are valid)
+    public final int[] getMatchV() {
+        return matchV;
+    }
 
     // The Hopcroft-Karp algorithm
     public static HashMap<Integer, Integer> findMaximumMatching(HashMap<Integer, ArrayList<Integer>> graph) {
@@ -0,0 +1,60 @@
+package com.vitco.low.triangulate.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Test the primitive (CSR) matching against the map based implementation.
+ */
+public class HopcroftKarpTest {
+
+    @Test
+    public void testRandomGraphs() throws Exception {
+        // the same instance is reused to make sure the buffers are reset correctly
+        HopcroftKarp matcher = new HopcroftKarp();
+        for (int i = 0; i < 2000; i++) {
+            Random rand = new Random(i);
+            int countU = rand.nextInt(60) + 1;
+            int countV = rand.nextInt(60) + 1;
+            int degree = rand.nextInt(5) + 1;
+
+            // build the graph in both formats (V vertices are offset for the map based implementation)
+            HashMap<Integer, ArrayList<Integer>> graph = new HashMap<Integer, ArrayList<Integer>>();
+            int[] offsets = new int[countU + 1];
+            int[] targets = new int[countU * degree];
+            int edgeCount = 0;
+            for (int u = 0; u < countU; u++) {
+                ArrayList<Integer> list = new ArrayList<Integer>();
+                for (int j = rand.nextInt(degree + 1); j > 0; j--) {
+                    int v = rand.nextInt(countV);
+                    if (!list.contains(countU + v)) {
+                        list.add(countU + v);
+                        targets[edgeCount++] = v;
+                    }
+                }
+                graph.put(u, list);
+                offsets[u + 1] = edgeCount;
+            }
+
+            int size = matcher.findMaximumMatching(countU, countV, offsets, targets);
+            assert size == HopcroftKarp.findMaximumMatching(graph).size();
+
+            // validate the matching
+            int[] matchU = matcher.getMatchU();
+            int[] matchV = matcher.getMatchV();
+            int matched = 0;
+            for (int u = 0; u < countU; u++) {
+                int v = matchU[u];
+                if (v != HopcroftKarp.UNMATCHED) {
+                    assert matchV[v] == u;
+                    assert graph.get(u).contains(countU + v);
+                    matched++;
+                }
+            }
+            assert matched == size;
+        }
+    }
+}
@@ -16,10 +16,36 @@ public abstract class AsyncAction implements Runnable {
     public final String name;
 
     // can be overriden to delay execution of this AsyncAction
+    // Note: actions that are not ready are only checked again when another action
+    // is added or finished (or when the ready time is reached)
     public boolean ready() {
         return true;
     }
 
+    // can be overriden if ready() becomes true at a certain time (System.currentTimeMillis())
+    // without another action being executed first, zero if there is no such time
+    public long getReadyTime() {
+        return 0;
+    }
+
+    // priorities (lanes) of actions, actions with a higher priority are executed first
+    public static final int PRIORITY_INTERACTIVE = 0;
+    public static final int PRIORITY_DEFAULT = 1;
+    public static final int PRIORITY_BACKGROUND = 2;
+
+    // can be overriden to change the priority of this AsyncAction
+    public int getPriority() {
+        return PRIORITY_DEFAULT;
+    }
+
+    // can be overriden to declare the resources (domains) this AsyncAction uses, e.g. a world
+    // or a view. Actions with disjoint domains can be executed concurrently. Null means
+    // that the action can use anything and needs to be executed exclusively.
+    // Note: Reading the voxel data needs no domain, it is synchronized by the data itself
+    public String[] getDomains() {
+        return null;
+    }
+
     // giving a name to an async action guarantees that
     // there are not a lot of delayed actions with the
     // same name queueing up in the AsyncActionManager
@@ -5,13 +5,28 @@ import com.vitco.manager.thread.ThreadManagerInterface;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * Manages Async Actions
+ *
+ * Actions with the same name are coalesced while they are queued. The queued actions are
+ * executed by priority (one lane per priority) and in order of adding within a lane. Actions
+ * that are not ready wait until another action is added or finished, recheckIdle() is
+ * called or their ready time is reached, the worker does not poll.
+ *
+ * Actions can declare the resource domains they use. Actions with disjoint domains are
+ * executed concurrently, actions that share a domain are executed in order. Actions that
+ * do not declare domains are executed exclusively.
  */
 public class AsyncActionManager {
 
@@ -22,39 +37,219 @@ public class AsyncActionManager {
         this.threadManager = threadManager;
     }
 
-    // list of new action
-    private final ArrayList<AsyncAction> newActions = new ArrayList<AsyncAction>();
+    // a queued action
+    private static final class Entry {
+        // the action that is executed (replaced when an action with the same name is added)
+        private AsyncAction action;
+        // the type of the action (used for the statistics)
+        private final String type;
+        // when the action was first added (System.nanoTime())
+        private final long added = System.nanoTime();
+        // true if the action was removed before it was executed
+        private boolean removed = false;
 
-    // list of actions
-    private final ArrayList<String> stack = new ArrayList<String>();
-    // retry to execute when the main stack is empty
-    private final ArrayList<String> idleStack = new ArrayList<String>();
+        private Entry(AsyncAction action) {
+            this.action = action;
+            this.type = getType(action.name);
+        }
+    }
+
+    // latency statistics of an action type
+    private static final class Latency {
+        private int count = 0;
+        private long waitTotal = 0;
+        private long waitMax = 0;
+        private long runTotal = 0;
+        private long runMax = 0;
+    }
 
-    // list of current action names
-    private final HashMap<String, AsyncAction> actionNames = new HashMap<String, AsyncAction>();
+    // helper - the type of an action is the name without trailing digits (e.g. "repaint0" -> "repaint")
+    private static String getType(String name) {
+        int end = name.length();
+        while (end > 0 && Character.isDigit(name.charAt(end - 1))) {
+            end--;
+        }
+        return end == 0 ? "unnamed" : name.substring(0, end);
+    }
+
+    // synchronizes all the data below
+    private final Object lock = new Object();
+
+    // queued actions by name
+    private final HashMap<String, Entry> actionNames = new HashMap<String, Entry>();
+    // the lanes (index is the priority)
+    private final ArrayList<ArrayDeque<Entry>> lanes = new ArrayList<ArrayDeque<Entry>>();
+    {
+        for (int i = AsyncAction.PRIORITY_INTERACTIVE; i <= AsyncAction.PRIORITY_BACKGROUND; i++) {
+            lanes.add(new ArrayDeque<Entry>());
+        }
+    }
+    // actions that were not ready yet
+    private final ArrayList<Entry> idleActions = new ArrayList<Entry>();
+    // true if the idle actions need to be checked again
+    private boolean checkIdle = false;
+    // earliest ready time of the idle actions (zero if none is known)
+    private long idleReadyTime = 0;
+    // amount of actions that are executed
+    private int runningCount = 0;
+    // true while an action without domains is executed
+    private boolean exclusiveRunning = false;
+    // the domains of the actions that are executed
+    private final HashSet<String> busyDomains = new HashSet<String>();
+
+    // latency statistics by action type
+    private final HashMap<String, Latency> statistics = new HashMap<String, Latency>();
 
     public final void removeAsyncAction(String actionName) {
-        if (null != actionNames.remove(actionName)) {
-            stack.remove(actionName);
-            idleStack.remove(actionName);
+        synchronized (lock) {
+            Entry entry = actionNames.remove(actionName);
+            if (entry != null) {
+                // the entry is skipped when it is reached
+                entry.removed = true;
+            }
         }
     }
 
     // Note: re-adding an action does not ensure that the action
     // is at the end of the queue!
     public final void addAsyncAction(AsyncAction action) {
-        synchronized (newActions) {
-            newActions.add(action);
+        synchronized (lock) {
+            Entry entry = actionNames.get(action.name);
+            if (entry != null) {
+                entry.action = action;
+            } else {
+                entry = new Entry(action);
+                actionNames.put(action.name, entry);
+                lanes.get(getLane(action)).add(entry);
+            }
+            checkIdle = true;
+            lock.notify();
         }
-        synchronized (workerThread) {
-            workerThread.notify();
+    }
+
+    // check the actions that are not ready again (call this when their readiness
+    // changed without an action being added or finished, e.g. the mouse was released)
+    public final void recheckIdle() {
+        synchronized (lock) {
+            checkIdle = true;
+            lock.notify();
+        }
+    }
+
+    // obtain the latency statistics (queue time and execution time) per action type
+    public final String getStatistics() {
+        StringBuilder result = new StringBuilder();
+        synchronized (lock) {
+            for (Map.Entry<String, Latency> entry : new TreeMap<String, Latency>(statistics).entrySet()) {
+                Latency latency = entry.getValue();
+                result.append(String.format("%s: %d executed, queued %.1fms avg / %.1fms max, " +
+                        "executed %.1fms avg / %.1fms max%n", entry.getKey(), latency.count,
+                        latency.waitTotal / (latency.count * 1e6), latency.waitMax / 1e6,
+                        latency.runTotal / (latency.count * 1e6), latency.runMax / 1e6));
+            }
+        }
+        return result.toString();
+    }
+
+    // helper - the lane of an action
+    private static int getLane(AsyncAction action) {
+        return Math.max(AsyncAction.PRIORITY_INTERACTIVE,
+                Math.min(AsyncAction.PRIORITY_BACKGROUND, action.getPriority()));
+    }
+
+    // helper - move the idle actions that are ready back into their lane
+    private void checkIdleActions() {
+        checkIdle = false;
+        idleReadyTime = 0;
+        for (Iterator<Entry> it = idleActions.iterator(); it.hasNext();) {
+            Entry entry = it.next();
+            if (entry.removed) {
+                it.remove();
+            } else if (entry.action.ready()) {
+                it.remove();
+                lanes.get(getLane(entry.action)).add(entry);
+            } else {
+                updateIdleReadyTime(entry.action);
+            }
         }
     }
 
-    // needs to be one as those tasks can not be executed in parallel!
+    // helper - remember the ready time of an idle action
+    private void updateIdleReadyTime(AsyncAction action) {
+        long readyTime = action.getReadyTime();
+        if (readyTime > 0 && (idleReadyTime == 0 || readyTime < idleReadyTime)) {
+            idleReadyTime = readyTime;
+        }
+    }
+
+    // helper - true if an action with these domains can be started, skipped contains the
+    // domains of the actions before this action that can not be started yet
+    private boolean canStart(String[] domains, HashSet<String> skipped) {
+        if (domains == null) {
+            return runningCount == 0 && skipped.isEmpty();
+        }
+        if (exclusiveRunning) {
+            return false;
+        }
+        for (String domain : domains) {
+            if (busyDomains.contains(domain) || skipped.contains(domain)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // helper - obtain the next action that is ready and can be started (or null)
+    private Entry pollStartable() {
+        // domains of skipped actions (later actions that use them need to wait to keep the order)
+        HashSet<String> skipped = new HashSet<String>();
+        for (ArrayDeque<Entry> lane : lanes) {
+            for (Iterator<Entry> it = lane.iterator(); it.hasNext();) {
+                Entry entry = it.next();
+                if (entry.removed) {
+                    it.remove();
+                    continue;
+                }
+                if (!entry.action.ready()) {
+                    it.remove();
+                    idleActions.add(entry);
+                    updateIdleReadyTime(entry.action);
+                    continue;
+                }
+                String[] domains = entry.action.getDomains();
+                if (canStart(domains, skipped)) {
+                    it.remove();
+                    return entry;
+                }
+                if (domains == null) {
+                    // nothing can overtake an exclusive action
+                    return null;
+                }
+                Collections.addAll(skipped, domains);
+            }
+        }
+        return null;
+    }
+
+    // helper - record the latency of an executed action
+    private void record(Entry entry, long started, long finished) {
+        Latency latency = statistics.get(entry.type);
+        if (latency == null) {
+            latency = new Latency();
+            statistics.put(entry.type, latency);
+        }
+        latency.count++;
+        latency.waitTotal += started - entry.added;
+        latency.waitMax = Math.max(latency.waitMax, started - entry.added);
+        latency.runTotal += finished - started;
+        latency.runMax = Math.max(latency.runMax, finished - started);
+    }
+
+    // actions are only executed in parallel if their domains are disjoint
     // Note: ExecutorService is much faster than using a new thread to
     // execute each AsyncAction
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()));
 
     private final LifeTimeThread workerThread = new LifeTimeThread() {
 
@@ -68,56 +263,62 @@ public class AsyncActionManager {
 
         @Override
         public void loop() throws InterruptedException {
-            // add new tasks
-            synchronized (newActions) {
-                if (!newActions.isEmpty()) {
-                    for (AsyncAction action : newActions) {
-                        String actionName = action.name;
-                        if (null == actionNames.put(actionName, action)) {
-                            stack.add(actionName);
-                        }
+            final Entry entry;
+            final String[] domains;
+            synchronized (lock) {
+                while (true) {
+                    if (checkIdle || (idleReadyTime != 0 && System.currentTimeMillis() >= idleReadyTime)) {
+                        checkIdleActions();
+                    }
+                    Entry startable = pollStartable();
+                    if (startable != null) {
+                        entry = startable;
+                        break;
                     }
-                    newActions.clear();
+                    // wait for the next event (or the next known ready time)
+                    long timeout = idleReadyTime == 0 ? 0 :
+                            Math.max(1, idleReadyTime - System.currentTimeMillis());
+                    lock.wait(timeout);
                 }
-            }
-            // handle stack execution
-            if (!stack.isEmpty()) {
-                // fetch action
-                String actionName = stack.remove(0);
-                final AsyncAction action = actionNames.get(actionName);
-                if (action.ready()) {
-                    // remove first in case the action adds
-                    // itself to the cue again (e.g. for refreshWorld())
-                    actionNames.remove(actionName);
-                    executor.execute(action);
+                // remove first in case the action adds
+                // itself to the cue again (e.g. for refreshWorld())
+                actionNames.remove(entry.action.name);
+                // reserve the domains
+                domains = entry.action.getDomains();
+                if (domains == null) {
+                    exclusiveRunning = true;
                 } else {
-                    idleStack.add(actionName);
+                    Collections.addAll(busyDomains, domains);
                 }
-            } else {
-                // -- the main stack is empty
-                // add <ready> idle stack back to main stack
-                if (!idleStack.isEmpty()) {
-                    for (String asyncAction : idleStack) {
-                        if (actionNames.get(asyncAction).ready()) {
-                            stack.add(asyncAction);
-                        }
-                    }
-                    idleStack.removeAll(stack);
-                }
-
-                if (stack.isEmpty()) {
-                    synchronized (workerThread) {
-                        // sometimes notify is "too early"/fails(?), so we need a timeout here
-                        if (idleStack.isEmpty()) {
-                            // no actions waiting, we can be "lazy"
-                            workerThread.wait(500);
-                        } else {
-                            // there are some actions not ready yet, so we should check often
-                            workerThread.wait(50);
+                runningCount++;
+            }
+            final AsyncAction action = entry.action;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long started = System.nanoTime();
+                    try {
+                        action.run();
+                    } finally {
+                        long finished = System.nanoTime();
+                        synchronized (lock) {
+                            record(entry, started, finished);
+                            // release the domains
+                            if (domains == null) {
+                                exclusiveRunning = false;
+                            } else {
+                                for (String domain : domains) {
+                                    busyDomains.remove(domain);
+                                }
+                            }
+                            runningCount--;
+                            // the action might have changed the readiness of idle actions
+                            checkIdle = true;
+                            lock.notify();
                         }
                     }
                 }
-            }
+            });
         }
     };
 
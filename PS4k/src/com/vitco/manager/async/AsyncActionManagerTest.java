@@ -0,0 +1,198 @@
+package com.vitco.manager.async;
+
+import com.vitco.manager.thread.ThreadManager;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the order, coalescing and delaying of async actions.
+ */
+public class AsyncActionManagerTest {
+
+    // helper - action that records its name when executed
+    private static AsyncAction create(final String name, final int priority, final List<String> executed) {
+        return new AsyncAction(name) {
+            @Override
+            public void performAction() {
+                executed.add(name);
+            }
+
+            @Override
+            public int getPriority() {
+                return priority;
+            }
+        };
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        AsyncActionManager asyncActionManager = new AsyncActionManager();
+        ThreadManager threadManager = new ThreadManager();
+        asyncActionManager.setThreadManager(threadManager);
+        asyncActionManager.init();
+
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        // block the execution while the other actions are added
+        asyncActionManager.addAsyncAction(new AsyncAction("block") {
+            @Override
+            public void performAction() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        asyncActionManager.addAsyncAction(create("background", AsyncAction.PRIORITY_BACKGROUND, executed));
+        asyncActionManager.addAsyncAction(create("default", AsyncAction.PRIORITY_DEFAULT, executed));
+        asyncActionManager.addAsyncAction(create("removed", AsyncAction.PRIORITY_DEFAULT, executed));
+        asyncActionManager.addAsyncAction(create("repaint", AsyncAction.PRIORITY_INTERACTIVE, executed));
+        // coalesced with the queued action
+        asyncActionManager.addAsyncAction(create("default", AsyncAction.PRIORITY_DEFAULT, executed));
+        asyncActionManager.removeAsyncAction("removed");
+        // delayed action that is only ready after some time
+        final long readyTime = System.currentTimeMillis() + 200;
+        asyncActionManager.addAsyncAction(new AsyncAction("delayed") {
+            @Override
+            public void performAction() {
+                executed.add("delayed");
+                done.countDown();
+            }
+
+            @Override
+            public boolean ready() {
+                return System.currentTimeMillis() >= readyTime;
+            }
+
+            @Override
+            public long getReadyTime() {
+                return readyTime;
+            }
+        });
+        blocked.countDown();
+
+        assert done.await(5, TimeUnit.SECONDS);
+        assert System.currentTimeMillis() >= readyTime;
+        assert executed.equals(Arrays.asList("repaint", "default", "background", "delayed"));
+        // the coalesced action is executed once
+        assert asyncActionManager.getStatistics().contains("default: 1 executed");
+    }
+
+    // helper - action that uses domains and waits for the barrier before recording its name
+    private static AsyncAction create(final String name, final String[] domains,
+                                      final CyclicBarrier barrier, final List<String> executed) {
+        return new AsyncAction(name) {
+            @Override
+            public void performAction() {
+                try {
+                    if (barrier != null) {
+                        barrier.await(5, TimeUnit.SECONDS);
+                    }
+                    executed.add(name);
+                } catch (Exception e) {
+                    executed.add(name + " failed");
+                }
+            }
+
+            @Override
+            public String[] getDomains() {
+                return domains;
+            }
+        };
+    }
+
+    @Test
+    public void testDomains() throws Exception {
+        AsyncActionManager asyncActionManager = new AsyncActionManager();
+        asyncActionManager.setThreadManager(new ThreadManager());
+        asyncActionManager.init();
+
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch done = new CountDownLatch(1);
+        // the actions with disjoint domains need to run concurrently to pass the barrier
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        asyncActionManager.addAsyncAction(create("world0", new String[] {"view0"}, barrier, executed));
+        // same domain, needs to wait for the first action
+        asyncActionManager.addAsyncAction(create("repaint0", new String[] {"view0", "render"}, null, executed));
+        asyncActionManager.addAsyncAction(create("world1", new String[] {"view1"}, barrier, executed));
+        // exclusive action, needs to wait for all actions before
+        asyncActionManager.addAsyncAction(new AsyncAction("exclusive") {
+            @Override
+            public void performAction() {
+                executed.add("exclusive");
+                done.countDown();
+            }
+        });
+
+        assert done.await(10, TimeUnit.SECONDS);
+        assert executed.size() == 4;
+        assert !executed.contains("world0 failed") && !executed.contains("world1 failed");
+        assert executed.indexOf("repaint0") > executed.indexOf("world0");
+        assert executed.get(3).equals("exclusive");
+    }
+
+    // helper - action that waits while the mouse is pressed (like the repaint of a view)
+    private static AsyncAction createRepaint(final boolean[] mouseDown, final CountDownLatch done) {
+        return new AsyncAction("repaint") {
+            @Override
+            public void performAction() {
+                done.countDown();
+            }
+
+            @Override
+            public boolean ready() {
+                synchronized (mouseDown) {
+                    return !mouseDown[0];
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testWaitingActions() throws Exception {
+        AsyncActionManager asyncActionManager = new AsyncActionManager();
+        asyncActionManager.setThreadManager(new ThreadManager());
+        asyncActionManager.init();
+
+        // the waiting action is executed when the mouse is released by another action
+        final boolean[] mouseDown = new boolean[] {true};
+        CountDownLatch done = new CountDownLatch(1);
+        asyncActionManager.addAsyncAction(createRepaint(mouseDown, done));
+        assert !done.await(200, TimeUnit.MILLISECONDS);
+        asyncActionManager.addAsyncAction(new AsyncAction() {
+            @Override
+            public void performAction() {
+                synchronized (mouseDown) {
+                    mouseDown[0] = false;
+                }
+            }
+        });
+        assert done.await(5, TimeUnit.SECONDS);
+
+        // the waiting action is executed when the mouse is released outside
+        // of an action and the idle actions are checked again
+        synchronized (mouseDown) {
+            mouseDown[0] = true;
+        }
+        done = new CountDownLatch(1);
+        asyncActionManager.addAsyncAction(createRepaint(mouseDown, done));
+        assert !done.await(200, TimeUnit.MILLISECONDS);
+        synchronized (mouseDown) {
+            mouseDown[0] = false;
+        }
+        // (nothing wakes the waiting action yet)
+        assert !done.await(200, TimeUnit.MILLISECONDS);
+        asyncActionManager.recheckIdle();
+        assert done.await(5, TimeUnit.SECONDS);
+    }
+}
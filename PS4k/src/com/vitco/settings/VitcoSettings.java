@@ -66,7 +66,9 @@ public final class VitcoSettings {
 
     // cursor
     public static final Cursor CURSOR_DEFAULT = Cursor.getDefaultCursor();
-    public static final Cursor CURSOR_BLANK = Toolkit.getDefaultToolkit().createCustomCursor(
+    // (no custom cursors can be created without a display, e.g. for command line usage)
+    public static final Cursor CURSOR_BLANK = GraphicsEnvironment.isHeadless() ? CURSOR_DEFAULT :
+            Toolkit.getDefaultToolkit().createCustomCursor(
             new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB), new Point(0, 0), "blank cursor");
 
     // initial settings
@@ -146,7 +146,7 @@ public class ProgressDialog extends JDialog {
                     }
                     return null;
                 }
-            }.execute();
+            }.start();
 
             // start the worker
             worker.addPropertyChangeListener(new PropertyChangeListener() {
@@ -171,7 +171,7 @@ public class ProgressDialog extends JDialog {
                 }
 
             });
-            worker.execute();
+            worker.start();
 
             // show the dialog
             thisInstance.pack();
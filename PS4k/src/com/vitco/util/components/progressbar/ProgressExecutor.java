@@ -0,0 +1,152 @@
+package com.vitco.util.components.progressbar;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes long running jobs (ProgressWorker) and their sub tasks (ProgressTask).
+ *
+ * Virtual threads are used if the jvm supports them (they are looked up by reflection), so
+ * every job and task gets its own thread. Otherwise the jobs and tasks are executed by a pool of
+ * (daemon) platform threads with one thread per processor (at least two). A thread that waits
+ * for its tasks executes the tasks that were not started yet, so waiting jobs and tasks can not
+ * block the pool.
+ */
+public final class ProgressExecutor {
+
+    // prevent instantiation
+    private ProgressExecutor() {}
+
+    // true if the executor uses virtual threads
+    private static final boolean VIRTUAL;
+    // the executor for all jobs and tasks
+    private static final ExecutorService executor;
+
+    // static constructor
+    static {
+        ExecutorService virtualExecutor = null;
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            virtualExecutor = (ExecutorService) method.invoke(null);
+        } catch (Exception ignored) {
+            // virtual threads are not available
+        }
+        VIRTUAL = virtualExecutor != null;
+        if (VIRTUAL) {
+            executor = virtualExecutor;
+        } else {
+            int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threadCount, threadCount, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ProgressExecutor-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // the threads are stopped when they are not used
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+    }
+
+    // true if the jobs are executed with virtual threads
+    public static boolean usesVirtualThreads() {
+        return VIRTUAL;
+    }
+
+    // execute a job
+    public static void execute(Runnable job) {
+        executor.execute(job);
+    }
+
+    // execute the tasks concurrently and wait for all of them, the results are in the order of the tasks.
+    // The progress of the tasks is combined and reported to the reporter (can be null). If a task fails,
+    // the reporter is cancelled or the waiting thread is interrupted, the other tasks are cancelled.
+    public static <T> List<T> invokeAll(ProgressReporter reporter, List<? extends ProgressTask<T>> tasks) throws Exception {
+        final ProgressGroup group = new ProgressGroup(reporter, tasks);
+        final LinkedBlockingQueue<Future<T>> completed = new LinkedBlockingQueue<Future<T>>();
+        ArrayList<FutureTask<T>> futures = new ArrayList<FutureTask<T>>();
+        HashMap<Future<T>, Integer> indices = new HashMap<Future<T>, Integer>();
+        for (int i = 0; i < tasks.size(); i++) {
+            final ProgressTask<T> task = tasks.get(i);
+            task.setGroup(group);
+            FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        return task.call();
+                    } catch (Exception e) {
+                        // stop the other tasks right away (the waiting thread might run one of them)
+                        group.cancel();
+                        throw e;
+                    } finally {
+                        task.setProgress(100);
+                    }
+                }
+            }) {
+                @Override
+                protected void done() {
+                    completed.add(this);
+                }
+            };
+            futures.add(future);
+            indices.put(future, i);
+            executor.execute(future);
+        }
+        ArrayList<T> results = new ArrayList<T>();
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(null);
+        }
+        try {
+            int handled = 0;
+            // run the tasks that were not started yet (this does nothing for started tasks)
+            for (FutureTask<T> future : futures) {
+                future.run();
+                for (Future<T> done = completed.poll(); done != null; done = completed.poll()) {
+                    results.set(indices.get(done), done.get());
+                    handled++;
+                }
+            }
+            // handle the remaining tasks in the order they finish (to notice failures early)
+            for (; handled < tasks.size(); handled++) {
+                Future<T> done = completed.take();
+                results.set(indices.get(done), done.get());
+            }
+        } catch (ExecutionException e) {
+            cancel(group, indices.keySet());
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        } catch (InterruptedException e) {
+            cancel(group, indices.keySet());
+            throw e;
+        }
+        return results;
+    }
+
+    // helper - cancel the tasks of a group
+    private static void cancel(ProgressGroup group, Iterable<? extends Future<?>> futures) {
+        group.cancel();
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+}
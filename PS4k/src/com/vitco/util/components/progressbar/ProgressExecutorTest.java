@@ -0,0 +1,143 @@
+package com.vitco.util.components.progressbar;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test the execution of jobs and sub tasks with the ProgressExecutor.
+ */
+public class ProgressExecutorTest {
+
+    @Test
+    public void testInvokeAll() throws Exception {
+        ArrayList<ProgressTask<Integer>> tasks = new ArrayList<ProgressTask<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            final int value = i;
+            tasks.add(new ProgressTask<Integer>() {
+                @Override
+                protected Integer call() throws Exception {
+                    // finish in a different order than started
+                    Thread.sleep((20 - value) * 2);
+                    setProgress(50);
+                    return value * value;
+                }
+            });
+        }
+        List<Integer> results = ProgressExecutor.invokeAll(null, tasks);
+        assert results.size() == 20;
+        for (int i = 0; i < 20; i++) {
+            assert results.get(i) == i * i;
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        ArrayList<ProgressTask<Object>> tasks = new ArrayList<ProgressTask<Object>>();
+        // task that runs until it is cancelled
+        tasks.add(new ProgressTask<Object>() {
+            @Override
+            protected Object call() throws Exception {
+                started.countDown();
+                while (!isCancelled()) {
+                    Thread.yield();
+                }
+                stopped.countDown();
+                return null;
+            }
+        });
+        // task that fails
+        tasks.add(new ProgressTask<Object>() {
+            @Override
+            protected Object call() throws Exception {
+                assert started.await(5, TimeUnit.SECONDS);
+                throw new IOException("failed");
+            }
+        });
+        boolean failed = false;
+        try {
+            ProgressExecutor.invokeAll(null, tasks);
+        } catch (IOException e) {
+            failed = e.getMessage().equals("failed");
+        }
+        assert failed;
+        // the other task was cancelled
+        assert stopped.await(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testWorker() throws Exception {
+        ProgressWorker worker = new ProgressWorker() {
+            @Override
+            protected Object doInBackground() throws Exception {
+                return ProgressExecutor.usesVirtualThreads() == Thread.currentThread().getClass().getName().contains("Virtual");
+            }
+        };
+        worker.start();
+        assert (Boolean) worker.get(5, TimeUnit.SECONDS);
+    }
+
+    // helper - tasks that record their thread and run nested tasks (depth levels)
+    private static ArrayList<ProgressTask<Integer>> createNested(final int count, final int depth, final Set<String> threads) {
+        ArrayList<ProgressTask<Integer>> tasks = new ArrayList<ProgressTask<Integer>>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new ProgressTask<Integer>() {
+                @Override
+                protected Integer call() throws Exception {
+                    threads.add(Thread.currentThread().getName());
+                    Thread.sleep(5);
+                    int sum = 1;
+                    if (depth > 0) {
+                        for (int value : ProgressExecutor.invokeAll(null, createNested(count, depth - 1, threads))) {
+                            sum += value;
+                        }
+                    }
+                    return sum;
+                }
+            });
+        }
+        return tasks;
+    }
+
+    @Test
+    public void testNested() throws Exception {
+        // more jobs than threads, every job waits for nested tasks
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+        final int jobCount = 8;
+        final CountDownLatch done = new CountDownLatch(jobCount);
+        final List<Integer> results = Collections.synchronizedList(new ArrayList<Integer>());
+        for (int i = 0; i < jobCount; i++) {
+            ProgressExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int sum = 0;
+                        for (int value : ProgressExecutor.invokeAll(null, createNested(3, 2, threads))) {
+                            sum += value;
+                        }
+                        results.add(sum);
+                    } catch (Exception e) {
+                        results.add(-1);
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        assert done.await(30, TimeUnit.SECONDS);
+        // 3 tasks with 3 nested tasks with 3 nested tasks each
+        assert results.equals(Collections.nCopies(jobCount, 3 + 9 + 27));
+        if (!ProgressExecutor.usesVirtualThreads()) {
+            // the platform threads are bounded
+            assert threads.size() <= Math.max(2, Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.vitco.util.components.progressbar;
+
+import java.util.List;
+
+/**
+ * The tasks of a job that are executed together, combines their progress and cancellation.
+ */
+final class ProgressGroup {
+
+    // the reporter the combined progress is reported to (can be null)
+    private final ProgressReporter reporter;
+    // the tasks of this group
+    private final List<? extends ProgressTask<?>> tasks;
+    // true if the tasks of this group should stop
+    private volatile boolean cancelled = false;
+
+    // constructor
+    ProgressGroup(ProgressReporter reporter, List<? extends ProgressTask<?>> tasks) {
+        this.reporter = reporter;
+        this.tasks = tasks;
+    }
+
+    // stop the tasks of this group
+    void cancel() {
+        cancelled = true;
+    }
+
+    // true if the group or the job was cancelled
+    boolean isCancelled() {
+        return cancelled || (reporter != null && reporter.isCancelled());
+    }
+
+    // report the average progress of the tasks
+    void updateProgress() {
+        if (reporter != null && !tasks.isEmpty()) {
+            float sum = 0;
+            for (ProgressTask<?> task : tasks) {
+                sum += task.getProgress();
+            }
+            reporter.setProgress(sum / tasks.size());
+        }
+    }
+}
@@ -2,12 +2,15 @@ package com.vitco.util.components.progressbar;
 
 import com.vitco.layout.content.console.ConsoleInterface;
 
+import java.util.List;
+
 /**
  * Should be implemented by any class that lives inside a ProgressWorker
  * to report their status.
  */
 public abstract class ProgressReporter {
-    // reference to the dialog that should be used for reporting.
+    // reference to the dialog that should be used for reporting
+    // (can be null, e.g. when running without user interface)
     private final ProgressDialog dialog;
     // grant access to console for any progress reporter
     protected final ConsoleInterface console;
@@ -31,17 +34,26 @@ public abstract class ProgressReporter {
     // set the current activity and whether the progress should
     // be automatically increased (for fast tasks only)
     public final void setActivity(String activity, boolean autoIncrease) {
-        dialog.setActivity(activity, autoIncrease);
+        if (dialog != null) {
+            dialog.setActivity(activity, autoIncrease);
+        }
     }
 
     // returns true if the task is canceled (this needs to be checked by the task doing the work)
     public final boolean isCancelled() {
-        return dialog.isCancelled();
+        return dialog != null && dialog.isCancelled();
     }
 
     // set the progress status
     public final void setProgress(float percent) {
-        dialog.setProgress(percent);
+        if (dialog != null) {
+            dialog.setProgress(percent);
+        }
+    }
+
+    // execute sub tasks concurrently and wait for them (their progress is combined)
+    public final <T> List<T> invokeAll(List<? extends ProgressTask<T>> tasks) throws Exception {
+        return ProgressExecutor.invokeAll(this, tasks);
     }
 
 }
@@ -0,0 +1,43 @@
+package com.vitco.util.components.progressbar;
+
+/**
+ * A sub task (e.g. per layer, per plane or per file) of a job that is executed concurrently
+ * with the other sub tasks of the job (see ProgressExecutor.invokeAll).
+ *
+ * The task reports its own progress, the progress of all tasks of the job is combined.
+ */
+public abstract class ProgressTask<T> {
+
+    // the group this task is executed in (set when the task is started)
+    private volatile ProgressGroup group = null;
+    // the progress of this task (0 to 100)
+    private volatile float progress = 0;
+
+    // the work of this task
+    protected abstract T call() throws Exception;
+
+    // set the group this task is executed in
+    final void setGroup(ProgressGroup group) {
+        this.group = group;
+    }
+
+    // get the progress of this task
+    final float getProgress() {
+        return progress;
+    }
+
+    // set the progress of this task (0 to 100)
+    protected final void setProgress(float percent) {
+        progress = percent;
+        ProgressGroup group = this.group;
+        if (group != null) {
+            group.updateProgress();
+        }
+    }
+
+    // returns true if this task should stop (this needs to be checked by the task doing the work)
+    protected final boolean isCancelled() {
+        ProgressGroup group = this.group;
+        return Thread.currentThread().isInterrupted() || (group != null && group.isCancelled());
+    }
+}
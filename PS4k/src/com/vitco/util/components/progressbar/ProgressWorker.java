@@ -10,4 +10,10 @@ public abstract class ProgressWorker extends SwingWorker<Object, Object> {
     @Override
     protected abstract Object doInBackground() throws Exception;
 
+    // start this worker with the ProgressExecutor (instead of the limited
+    // shared executor of execute(), so workers do not block each other)
+    public final void start() {
+        ProgressExecutor.execute(this);
+    }
+
 }
@@ -0,0 +1,214 @@
+package com.vitco.util.file;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered reader for a file.
+ *
+ * The file is read in large blocks into a direct buffer with little endian byte order,
+ * so the "Rev" (little endian) methods need no byte swapping. Big files are memory
+ * mapped window by window instead (no copying and no heap usage). The big endian
+ * methods behave like the ones of a DataInputStream.
+ */
+public class ChannelReader {
+
+    // files of at least this size are memory mapped
+    private static final long MAP_THRESHOLD = 1 << 24;
+    // the size of the mapped windows
+    private static final int MAP_WINDOW = 1 << 26;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+
+    // the length of the file if it is memory mapped (-1 otherwise)
+    private final long mappedLength;
+
+    // the position of the first buffered byte in the file
+    private long bufferStart = 0;
+
+    // constructor
+    protected ChannelReader(File file, int bufferSize) throws FileNotFoundException {
+        channel = new RandomAccessFile(file, "r").getChannel();
+        long length;
+        try {
+            length = channel.size();
+        } catch (IOException e) {
+            length = 0;
+        }
+        if (length >= MAP_THRESHOLD) {
+            mappedLength = length;
+            buffer = ByteBuffer.allocate(0);
+        } else {
+            mappedLength = -1;
+            buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(0);
+        }
+    }
+
+    // make sure that at least "count" bytes are buffered, returns false if the end of the file is reached before
+    private boolean fill(int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+        if (mappedLength != -1) {
+            // map the next window (starting at the current position)
+            bufferStart += buffer.position();
+            long size = Math.max(0, Math.min(MAP_WINDOW, mappedLength - bufferStart));
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, bufferStart, size).order(ByteOrder.LITTLE_ENDIAN);
+            return buffer.remaining() >= count;
+        }
+        bufferStart += buffer.position();
+        buffer.compact();
+        while (buffer.position() < count) {
+            if (channel.read(buffer, bufferStart + buffer.position()) == -1) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= count;
+    }
+
+    // helper - throw exception if the data is not available
+    private void require(int count) throws IOException {
+        if (!fill(count)) {
+            throw new EOFException();
+        }
+    }
+
+    // ---------------
+
+    // read a byte, returns -1 if the end of the file is reached
+    public int read() throws IOException {
+        return fill(1) ? buffer.get() & 0xFF : -1;
+    }
+
+    // read into the array, returns the amount of bytes read or -1 if the end of the file is reached
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    // read into the array, returns the amount of bytes read or -1 if the end of the file is reached
+    public int read(byte[] b, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len && fill(1)) {
+            int count = Math.min(len - total, buffer.remaining());
+            buffer.get(b, off + total, count);
+            total += count;
+        }
+        return total == 0 && len > 0 ? -1 : total;
+    }
+
+    // fill the array completely
+    public void readFully(byte[] b) throws IOException {
+        if (read(b, 0, b.length) != b.length && b.length > 0) {
+            throw new EOFException();
+        }
+    }
+
+    // read little endian integers into the array
+    public void readIntsRev(int[] dst, int off, int len) throws IOException {
+        while (len > 0) {
+            require(4);
+            int count = Math.min(len, buffer.remaining() / 4);
+            IntBuffer view = buffer.asIntBuffer();
+            view.get(dst, off, count);
+            buffer.position(buffer.position() + count * 4);
+            off += count;
+            len -= count;
+        }
+    }
+
+    public byte readByte() throws IOException {
+        require(1);
+        return buffer.get();
+    }
+
+    public short readShortRev() throws IOException {
+        require(2);
+        return buffer.getShort();
+    }
+
+    public short readShort() throws IOException {
+        return Short.reverseBytes(readShortRev());
+    }
+
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    public int readIntRev() throws IOException {
+        require(4);
+        return buffer.getInt();
+    }
+
+    public int readInt() throws IOException {
+        return Integer.reverseBytes(readIntRev());
+    }
+
+    public long readLongRev() throws IOException {
+        require(8);
+        return buffer.getLong();
+    }
+
+    public long readLong() throws IOException {
+        return Long.reverseBytes(readLongRev());
+    }
+
+    public float readFloatRev() throws IOException {
+        require(4);
+        return buffer.getFloat();
+    }
+
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    // ---------------
+
+    // skip bytes, returns the amount of bytes skipped (limited by the end of the file)
+    public long skip(long n) throws IOException {
+        long pos = getFilePointer();
+        long target = Math.min(pos + Math.max(0, n), length());
+        seek(target);
+        return target - pos;
+    }
+
+    // the current position in the file
+    public long getFilePointer() {
+        return bufferStart + buffer.position();
+    }
+
+    // move to a position in the file
+    public void seek(long pos) throws IOException {
+        if (pos >= bufferStart && pos <= bufferStart + buffer.limit()) {
+            // the position is buffered
+            buffer.position((int) (pos - bufferStart));
+        } else {
+            bufferStart = pos;
+            buffer.clear();
+            buffer.limit(0);
+        }
+    }
+
+    // the length of the file
+    public long length() throws IOException {
+        return channel.size();
+    }
+
+    // close the file
+    public void close() throws IOException {
+        channel.close();
+    }
+}
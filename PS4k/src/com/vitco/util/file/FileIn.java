@@ -2,14 +2,18 @@ package com.vitco.util.file;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * To read a file (binary or not)
  */
-public class FileIn  {
+public class FileIn extends ChannelReader {
 
-    private final SaveDataInputStream in;
+    // the buffer size (the file is read in blocks of this size)
+    private static final int BUFFER_SIZE = 1 << 20;
 
     private final File file;
     public final File getInternalFile() {
@@ -18,7 +22,7 @@ public class FileIn  {
 
     // constructor
     public FileIn(File file) throws FileNotFoundException {
-        in = new SaveDataInputStream(new FileInputStream(file));
+        super(file, BUFFER_SIZE);
         this.file = file;
     }
 
@@ -27,43 +31,36 @@ public class FileIn  {
         this(new File(filename));
     }
 
+    // returns null if eof is reached
     public String readLine() throws IOException {
-        return in.readLineSave();
-    }
-
-    public byte readByte() throws IOException {
-        return in.readByte();
-    }
-
-    public int read(byte[] b) throws IOException {
-        return in.read(b);
-    }
-
-    public int readInt() throws IOException {
-        return in.readInt();
-    }
-
-    public int readIntRev() throws IOException {
-        return Integer.reverseBytes(in.readInt());
-    }
-
-    public float readFloat() throws IOException {
-        return in.readFloat();
-    }
-
-    public float readFloatRev() throws IOException {
-        return Float.intBitsToFloat(
-                Integer.reverseBytes(Float.floatToIntBits (in.readFloat()))
-        );
-    }
+        StringBuilder lineBuf = new StringBuilder();
+        int c1, c2;
+
+        loop: while (true) {
+            c1 = read();
+            switch (c1) {
+                case '\n':
+                    break loop;
+                case -1:
+                    return null;
+                case '\r':
+                    c2 = read();
+                    if (c2 != '\n' && c2 != -1) {
+                        // unread the character
+                        seek(getFilePointer() - 1);
+                    }
+                    break loop;
+                default:
+                    lineBuf.append((char)c1);
+            }
+        }
 
-    public double readDouble() throws IOException {
-        return in.readDouble();
+        return lineBuf.toString();
     }
 
     public String readUTF8String(int length) throws IOException {
         byte[] bytes = new byte[length];
-        if (length != in.read(bytes)) {
+        if (length != read(bytes)) {
             return null;
         }
         return new String(bytes, "UTF-8");
@@ -71,7 +68,7 @@ public class FileIn  {
 
     public String readASCIIString(int length) throws IOException {
         byte[] bytes = new byte[length];
-        if (length != in.read(bytes)) {
+        if (length != read(bytes)) {
             return null;
         }
         return new String(bytes, "ASCII");
@@ -79,34 +76,18 @@ public class FileIn  {
 
     // read space terminated string
     public String readSpaceString() throws java.io.IOException {
-        String rtn = "";
+        StringBuilder rtn = new StringBuilder();
         int ch;
         do {
-            ch = in.read();
+            ch = read();
             if (ch != 32 && ch != -1)
-                rtn += (char)ch;
+                rtn.append((char)ch);
         } while (ch != 32 && ch != -1);
-        return ch != -1 ? rtn : null;
-    }
-
-    public long readLong() throws IOException {
-        return in.readLong();
-    }
-
-    public char readChar() throws IOException {
-        return in.readChar();
+        return ch != -1 ? rtn.toString() : null;
     }
 
     public int readByteUnsigned() throws IOException {
-        return in.read();
-    }
-
-    public short readShort() throws IOException {
-        return in.readShort();
-    }
-
-    public short readShortRev() throws IOException {
-        return Short.reverseBytes(in.readShort());
+        return read();
     }
 
     public int readShortUnsigned() throws IOException {
@@ -119,7 +100,7 @@ public class FileIn  {
 
     // finalize
     public void finish() throws IOException {
-        in.close();
+        close();
     }
 
     public int readIntRevUnsigned() throws IOException {
@@ -130,18 +111,14 @@ public class FileIn  {
         return readInt() & 0xffffff;
     }
 
-    public long readLongRev() throws IOException {
-        return Long.reverseBytes(readLong());
-    }
-
     public boolean skipBytes(int mainContentSize) throws IOException {
-        return mainContentSize == in.skip(mainContentSize);
+        return mainContentSize == skip(mainContentSize);
     }
 
     public BufferedImage readImage() throws IOException {
         int length = readIntRev();
         byte[] bytes = new byte[length];
-        if (length != in.read(bytes)) {
+        if (length != read(bytes)) {
             return null;
         }
         return ImageIO.read(new ByteArrayInputStream(bytes));
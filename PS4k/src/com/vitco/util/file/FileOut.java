@@ -7,69 +7,130 @@ import com.googlecode.pngtastic.core.PngOptimizer;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
-
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered writer for a file (or a byte array stream). The data is collected
+ * in a large buffer with little endian byte order, so the "Rev" (little endian)
+ * methods need no byte swapping.
+ */
 public class FileOut {
-    private final DataOutputStream p;
+
+    // the buffer size for files
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
 
     // constructor
     public FileOut(String filename) throws FileNotFoundException {
-        p = new DataOutputStream(new FileOutputStream(filename));
+        channel = new FileOutputStream(filename).getChannel();
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
     }
 
     // alternative constructor
+    // Note: The data is only guaranteed to be in the stream after finish() is called
     public FileOut(ByteArrayOutputStream b) {
-        this.p = new DataOutputStream(b);
+        channel = Channels.newChannel(b);
+        buffer = ByteBuffer.allocate(1 << 13).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // write the buffered data
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // make sure that the buffer can take "count" more bytes
+    private void ensure(int count) throws IOException {
+        if (buffer.remaining() < count) {
+            flush();
+        }
     }
 
     // attach another ByteArrayOutputStream
     public void writeBytes(byte[] bytes) throws IOException {
-        p.write(bytes);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    // write part of a byte array
+    public void writeBytes(byte[] bytes, int off, int len) throws IOException {
+        if (len > buffer.capacity()) {
+            // write big arrays directly
+            flush();
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes, off, len);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        } else {
+            ensure(len);
+            buffer.put(bytes, off, len);
+        }
+    }
+
+    // write integers reversed
+    public void writeIntsRev(int[] data, int off, int len) throws IOException {
+        while (len > 0) {
+            ensure(4);
+            int count = Math.min(len, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(data, off, count);
+            buffer.position(buffer.position() + count * 4);
+            off += count;
+            len -= count;
+        }
     }
 
     // write text
     public void writeASCIIString(String text) throws IOException {
-        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(p, "ASCII"));
-        bw.write(text);
-        bw.flush();
+        writeBytes(text.getBytes("ASCII"));
     }
 
     // write text
     public void writeUTF8String(String text) throws IOException {
-        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(p, "UTF8"));
-        bw.write(text);
-        bw.flush();
+        writeBytes(text.getBytes("UTF8"));
     }
 
     // write a line of text
     public void writeLine(String text) throws IOException {
-        p.writeBytes(text + "\r\n");
+        writeBytes(text + "\r\n");
     }
 
     // write integer revered
     public void writeIntRev(int data) throws IOException {
-        p.writeInt(Integer.reverseBytes(data));
+        ensure(4);
+        buffer.putInt(data);
     }
 
     // write short reversed
     public void writeShortRev(short data) throws IOException {
-        p.writeShort(Short.reverseBytes(data));
+        ensure(2);
+        buffer.putShort(data);
     }
 
     // write float reversed
     public void writeFloatRev(float data) throws IOException {
-        p.writeFloat(Float.intBitsToFloat(
-                Integer.reverseBytes(Float.floatToIntBits (data))
-        ));
+        ensure(4);
+        buffer.putFloat(data);
     }
 
     // write byte
     public void writeByte(byte data) throws IOException {
-        p.writeByte(data);
+        ensure(1);
+        buffer.put(data);
     }
 
-    // write bytes
+    // write bytes (only the low byte of every character is written)
     public void writeBytes(String bytes) throws IOException {
-        p.writeBytes(bytes);
+        int len = bytes.length();
+        for (int i = 0; i < len; i++) {
+            writeByte((byte) bytes.charAt(i));
+        }
     }
 
     // write an image file
@@ -83,7 +144,7 @@ public class FileOut {
         // write the size
         this.writeIntRev(contentLength);
         // write the data
-        p.write(tmp.toByteArray());
+        writeBytes(tmp.toByteArray());
     }
 
     // write an image file
@@ -99,7 +160,7 @@ public class FileOut {
         // write the size
         this.writeIntRev(contentLength);
         // write the data
-        p.write(bytes);
+        writeBytes(bytes);
     }
 
     // write an image file compressed
@@ -139,11 +200,15 @@ public class FileOut {
         this.writeIntRev(contentLength);
 
         // write the data
-        p.write(data);
+        writeBytes(data);
     }
 
     // finalize
     public void finish() throws IOException {
-        p.close();
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
     }
 }
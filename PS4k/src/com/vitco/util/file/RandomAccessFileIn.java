@@ -3,28 +3,36 @@ package com.vitco.util.file;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
- * RandomAccessFile with additional functionaly
+ * Buffered random access reader with additional functionaly
  */
-public class RandomAccessFileIn extends RandomAccessFile {
+public class RandomAccessFileIn extends ChannelReader {
+
+    // the buffer size (smaller than for sequential reading, since the
+    // buffer is discarded when seeking outside of it)
+    private static final int BUFFER_SIZE = 1 << 16;
+
     // constructor
     public RandomAccessFileIn(String name, String mode) throws FileNotFoundException {
-        super(name, mode);
+        this(new File(name), mode);
     }
 
-    // constructor
+    // constructor (only the read mode is supported)
     public RandomAccessFileIn(File file, String mode) throws FileNotFoundException {
-        super(file, mode);
+        super(checkMode(file, mode), BUFFER_SIZE);
     }
 
-    public int readIntRevUnsigned() throws IOException {
-        return readIntRev() & 0xffffff;
+    // helper - make sure the mode is supported
+    private static File checkMode(File file, String mode) {
+        if (!"r".equals(mode)) {
+            throw new IllegalArgumentException("Only the mode \"r\" is supported.");
+        }
+        return file;
     }
 
-    public int readIntRev() throws IOException {
-        return Integer.reverseBytes(this.readInt());
+    public int readIntRevUnsigned() throws IOException {
+        return readIntRev() & 0xffffff;
     }
 
     public int readUInt8() throws IOException {
@@ -49,6 +57,10 @@ public class RandomAccessFileIn extends RandomAccessFile {
         }
     }
 
+    public int skipBytes(int n) throws IOException {
+        return (int) skip(n);
+    }
+
     public String readASCII(int length) throws IOException {
         byte[] bytes = new byte[length];
         if (length != this.read(bytes)) {
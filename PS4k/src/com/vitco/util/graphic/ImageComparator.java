@@ -1,7 +1,6 @@
 package com.vitco.util.graphic;
 
 import com.vitco.util.misc.ArrayUtil;
-import com.vitco.util.misc.IntegerTools;
 import gnu.trove.iterator.TIntIntIterator;
 import gnu.trove.iterator.TIntIterator;
 import gnu.trove.map.hash.TIntIntHashMap;
@@ -27,8 +26,11 @@ public class ImageComparator {
     private final TIntObjectHashMap<TIntIntHashMap> colorsPerRow = new TIntObjectHashMap<TIntIntHashMap>();
     private final TIntObjectHashMap<TIntIntHashMap> colorsPerCol = new TIntObjectHashMap<TIntIntHashMap>();
 
-    // stores all the pixels of the encapsulated image
-    private final TIntIntHashMap pixels = new TIntIntHashMap();
+    // stores all the pixels of the encapsulated image (in the different orientations, created when needed)
+    private final Raster[] rasters = new Raster[8];
+
+    // the first position of every color (created when needed)
+    private TIntIntHashMap firstPositions = null;
 
     // dimension of this image
     private final int width;
@@ -74,44 +76,68 @@ public class ImageComparator {
 
     // constructor
     public ImageComparator(Collection<int[]> pixels) {
+        this(toPixelRaster(pixels));
+    }
+
+    // helper - convert pixels (x, y, color) into a raster
+    private static PixelRaster toPixelRaster(Collection<int[]> pixels) {
+        int width = 0;
+        int height = 0;
+        for (int[] pixel : pixels) {
+            width = Math.max(pixel[0] + 1, width);
+            height = Math.max(pixel[1] + 1, height);
+        }
+        PixelRaster result = new PixelRaster(width, height);
+        for (int[] pixel : pixels) {
+            result.set(pixel[0], pixel[1], pixel[2]);
+        }
+        return result;
+    }
+
+    // constructor
+    public ImageComparator(PixelRaster pixels) {
         // image dimension (updated from the pixel data)
         int width = 0;
         int height = 0;
 
         // extract colors and count
-        for (int[] pixel : pixels) {
-            // set global color count
-            int count = colors.get(pixel[2]);
-            colors.put(pixel[2], count+1);
-
-            // set row count
-            TIntIntHashMap row = colorsPerRow.get(pixel[1]);
-            if (row == null) {
-                row = new TIntIntHashMap();
-                colorsPerRow.put(pixel[1], row);
-            }
-            count = row.get(pixel[2]);
-            row.put(pixel[2], count+1);
-
-            // set col count
-            TIntIntHashMap col = colorsPerCol.get(pixel[0]);
-            if (col == null) {
-                col = new TIntIntHashMap();
-                colorsPerCol.put(pixel[0], col);
-            }
-            count = col.get(pixel[2]);
-            col.put(pixel[2], count+1);
+        for (int y = 0, rasterHeight = pixels.getHeight(); y < rasterHeight; y++) {
+            for (int x = 0, rasterWidth = pixels.getWidth(); x < rasterWidth; x++) {
+                if (!pixels.isSet(x, y)) {
+                    continue;
+                }
+                int color = pixels.getColor(x, y);
 
-            // update pixel buffer (for fast access)
-            this.pixels.put(IntegerTools.makeInt(pixel[0], pixel[1]), pixel[2]);
+                // set global color count
+                int count = colors.get(color);
+                colors.put(color, count+1);
 
-            // update width and height
-            width = Math.max(pixel[0], width);
-            height = Math.max(pixel[1], height);
+                // set row count
+                TIntIntHashMap row = colorsPerRow.get(y);
+                if (row == null) {
+                    row = new TIntIntHashMap();
+                    colorsPerRow.put(y, row);
+                }
+                count = row.get(color);
+                row.put(color, count+1);
+
+                // set col count
+                TIntIntHashMap col = colorsPerCol.get(x);
+                if (col == null) {
+                    col = new TIntIntHashMap();
+                    colorsPerCol.put(x, col);
+                }
+                count = col.get(color);
+                col.put(color, count+1);
+
+                // update width and height
+                width = Math.max(x, width);
+                height = Math.max(y, height);
+            }
         }
 
         // set pixel and color count
-        this.pixelCount = pixels.size();
+        this.pixelCount = pixels.getCount();
         this.colorCount = colors.size();
 
         // finalize the size
@@ -119,10 +145,240 @@ public class ImageComparator {
         this.heightM = height;
         this.width = width + 1;
         this.height = height + 1;
+
+        // create the pixel buffer (for fast access)
+        int[] raster = new int[this.width * this.height];
+        for (int y = 0; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                if (pixels.isSet(x, y)) {
+                    assert pixels.getColor(x, y) != 0;
+                    raster[y * this.width + x] = pixels.getColor(x, y);
+                }
+            }
+        }
+        rasters[0] = new Raster(this.width, this.height, raster);
+    }
+
+    // =================
+
+    // Dense representation of an image in a certain orientation. The set pixels of every row are
+    // stored as runs and every row has prefix hashes, so two segments can be compared in constant time.
+    private static final class Raster {
+        // the base of the polynomial hash
+        private static final long BASE = 0x100000001B3L;
+
+        private final int width;
+        private final int height;
+        // the colors (0 for pixels that are not set)
+        private final int[] pixels;
+        // the runs of set pixels, the runs of row y are stored at rowOffset[y] to rowOffset[y + 1] - 1
+        // (start inclusive, end exclusive)
+        private final int[] rowOffset;
+        private final int[] runStart;
+        private final int[] runEnd;
+        // prefix hashes of the rows and the powers of the base (created when needed)
+        private long[] prefix = null;
+        private long[] pow = null;
+
+        private Raster(int width, int height, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+            // count the runs
+            int count = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0, i = y * width; x < width; x++, i++) {
+                    if (pixels[i] != 0 && (x == 0 || pixels[i - 1] == 0)) {
+                        count++;
+                    }
+                }
+            }
+            // store the runs
+            rowOffset = new int[height + 1];
+            runStart = new int[count];
+            runEnd = new int[count];
+            count = 0;
+            for (int y = 0; y < height; y++) {
+                rowOffset[y] = count;
+                for (int x = 0, i = y * width; x < width; x++, i++) {
+                    if (pixels[i] != 0) {
+                        if (x == 0 || pixels[i - 1] == 0) {
+                            runStart[count++] = x;
+                        }
+                        runEnd[count - 1] = x + 1;
+                    }
+                }
+            }
+            rowOffset[height] = count;
+        }
+
+        // create the prefix hashes
+        private void prepareHashes() {
+            if (prefix == null) {
+                pow = new long[width + 1];
+                pow[0] = 1;
+                for (int i = 1; i <= width; i++) {
+                    pow[i] = pow[i - 1] * BASE;
+                }
+                prefix = new long[height * (width + 1)];
+                for (int y = 0; y < height; y++) {
+                    int offset = y * (width + 1);
+                    for (int x = 0; x < width; x++) {
+                        // Note: this mapping is a bijection (only "not set" maps to zero)
+                        prefix[offset + x + 1] = prefix[offset + x] * BASE + pixels[y * width + x] * 0x9E3779B97F4A7C15L;
+                    }
+                }
+            }
+        }
+
+        // hash of a segment in a row
+        private long hash(int x, int y, int length) {
+            int offset = y * (width + 1) + x;
+            return prefix[offset + length] - prefix[offset] * pow[length];
+        }
+
+        // check if this image is contained in the other image at the position (x, y)
+        private boolean isContainedAt(Raster other, int x, int y) {
+            if (x < 0 || y < 0 || x + width > other.width || y + height > other.height) {
+                return false;
+            }
+            // compare the runs using the hashes
+            for (int v = 0; v < height; v++) {
+                for (int r = rowOffset[v]; r < rowOffset[v + 1]; r++) {
+                    int length = runEnd[r] - runStart[r];
+                    if (hash(runStart[r], v, length) != other.hash(x + runStart[r], y + v, length)) {
+                        return false;
+                    }
+                }
+            }
+            // verify the match
+            for (int v = 0; v < height; v++) {
+                for (int r = rowOffset[v]; r < rowOffset[v + 1]; r++) {
+                    for (int u = runStart[r]; u < runEnd[r]; u++) {
+                        if (pixels[v * width + u] != other.pixels[(y + v) * other.width + x + u]) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        // compute the amount of pixels that overlap if the other image is placed at
+        // the position (x, y), returns -1 if any overlapping pixels have different colors
+        private int getOverlap(Raster other, int x, int y, int minY, int maxY, boolean verify) {
+            int result = 0;
+            for (int j = minY; j < maxY; j++) {
+                int v = j - y;
+                // walk the runs of both rows
+                int r1 = rowOffset[j];
+                int r2 = other.rowOffset[v];
+                int end1 = rowOffset[j + 1];
+                int end2 = other.rowOffset[v + 1];
+                while (r1 < end1 && r2 < end2) {
+                    int start = Math.max(runStart[r1], other.runStart[r2] + x);
+                    int end = Math.min(runEnd[r1], other.runEnd[r2] + x);
+                    if (start < end) {
+                        if (verify) {
+                            for (int i = start; i < end; i++) {
+                                if (pixels[j * width + i] != other.pixels[v * other.width + i - x]) {
+                                    return -1;
+                                }
+                            }
+                        } else if (hash(start, j, end - start) != other.hash(start - x, v, end - start)) {
+                            return -1;
+                        }
+                        result += end - start;
+                    }
+                    // advance the run that ends first
+                    if (runEnd[r1] < other.runEnd[r2] + x) {
+                        r1++;
+                    } else {
+                        r2++;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    // get the pixels in a certain orientation (see getPosition() for the orientation ids)
+    private Raster getRaster(int type) {
+        Raster result = rasters[type];
+        if (result == null) {
+            Raster raster = rasters[0];
+            boolean swap = type == 1 || type == 3 || type == 5 || type == 7;
+            int w = swap ? height : width;
+            int h = swap ? width : height;
+            int[] pixels = new int[w * h];
+            for (int v = 0; v < h; v++) {
+                for (int u = 0; u < w; u++) {
+                    int x;
+                    int y;
+                    switch (type) {
+                        case 4: x = widthM - u; y = v; break;
+                        case 2: x = widthM - u; y = heightM - v; break;
+                        case 6: x = u; y = heightM - v; break;
+                        case 7: x = v; y = u; break;
+                        case 1: x = v; y = heightM - u; break;
+                        case 3: x = widthM - v; y = u; break;
+                        default: x = widthM - v; y = heightM - u; break; // case 5
+                    }
+                    pixels[v * w + u] = raster.pixels[y * width + x];
+                }
+            }
+            result = new Raster(w, h, pixels);
+            rasters[type] = result;
+        }
+        result.prepareHashes();
+        return result;
     }
 
     // ===========================
 
+    // get the different colors of this image
+    public final int[] getColors() {
+        return colors.keys();
+    }
+
+    // helper - hash of a single pixel
+    private static long hashPixel(int x, int y, int color) {
+        long h = x * 0x9E3779B97F4A7C15L + y * 0xC2B2AE3D27D4EB4FL + color * 0x165667B19E3779F9L;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // compute a fingerprint of this image that does not depend on the orientation
+    // (images that are equal in any orientation have the same fingerprint)
+    public final long getFingerprint() {
+        long[] hashes = new long[8];
+        int[] raster = rasters[0].pixels;
+        for (int i = 0; i < raster.length; i++) {
+            int color = raster[i];
+            if (color == 0) {
+                continue;
+            }
+            int x = i % width;
+            int y = i / width;
+            // the order of the pixels does not matter for the sum
+            hashes[0] += hashPixel(x, y, color);
+            hashes[1] += hashPixel(heightM - y, x, color);
+            hashes[2] += hashPixel(widthM - x, heightM - y, color);
+            hashes[3] += hashPixel(y, widthM - x, color);
+            hashes[4] += hashPixel(widthM - x, y, color);
+            hashes[5] += hashPixel(heightM - y, widthM - x, color);
+            hashes[6] += hashPixel(x, heightM - y, color);
+            hashes[7] += hashPixel(y, x, color);
+        }
+        long result = Long.MAX_VALUE;
+        for (int i = 0; i < 8; i++) {
+            // include the dimension of the orientation
+            result = Math.min(result, hashes[i] + (i % 2 == 0 ? hashPixel(width, height, 0) : hashPixel(height, width, 0)));
+        }
+        return result;
+    }
+
     // compute the Jaccard similarity coefficient (using the colors)
     public final float jaccard(ImageComparator other) {
         TIntHashSet uniqueColors = new TIntHashSet(this.colors.keySet());
@@ -144,84 +400,20 @@ public class ImageComparator {
 
     // =================
 
-    // helper - check if a certain pixel is "ok" (matches
-    // or "not set") for a specific matching
-    private static void checkPixel(
-            int x, int y, ImageComparator one, ImageComparator two,
-            int i, int j, boolean[] matched, int[] pixelOverlapTmp,
-            boolean flip
-    ) {
-        // compute point in static image ("one")
-        int p1 = IntegerTools.makeInt(i, j);
-
-        for (int k = 0; k < 4; k ++) {
-            // only proceed if this check has not already failed
-            if (matched[k]) {
-                // compute the corresponding pixel in image "two"
-                int p2;
-                if (flip) {
-                    // -- check for overlap of corresponding pixel
-                    // 0 : check for "rotation 1" (1)
-                    // 1 : check for "rotation 3" (3)
-                    // 2 : check for "flipped and rotation 1" (5)
-                    // 3 : check for "flipped and rotation 3" (7)
-                    switch (k) {
-                        case 0: p2 = IntegerTools.makeInt(j - y, two.height - 1 - (i - x)); break;
-                        case 1: p2 = IntegerTools.makeInt(two.width - 1 - (j - y), i - x); break;
-                        case 2: p2 = IntegerTools.makeInt(two.width - 1 - (j - y), two.height - 1 - (i - x)); break;
-                        default: p2 = IntegerTools.makeInt(j - y, i - x); break;
-                    }
-                } else {
-                    // -- check for overlap of corresponding pixel
-                    // 0 : check for "default orientation" (0)
-                    // 1 : check for "twice rotated" (2)
-                    // 2 : check for "flipped" (4)
-                    // 3 : check for "flipped and twice rotated" (6)
-                    switch (k) {
-                        case 0: p2 = IntegerTools.makeInt(i - x, j - y); break;
-                        case 1: p2 = IntegerTools.makeInt(two.width - 1 - (i - x), two.height - 1 - (j - y)); break;
-                        case 2: p2 = IntegerTools.makeInt(two.width - 1 - (i - x), j - y); break;
-                        default: p2 = IntegerTools.makeInt(i - x, two.height - 1 - (j - y)); break;
-                    }
-                }
-                // check for containment
-                if (one.pixels.containsKey(p1) && two.pixels.containsKey(p2)) {
-                    if (one.pixels.get(p1) == two.pixels.get(p2)) {
-                        pixelOverlapTmp[k]++;
-                    } else {
-                        matched[k] = false;
-                    }
-                }
-            }
-        }
-    }
-
     // helper - check if a certain offset allows placing
     // the second image onto the first one
     private static void checkPosition(
-            int x, int y, ImageComparator one, ImageComparator two,
+            int x, int y, ImageComparator one, Raster[] two,
             int[] area, int[] size, int originalWidth, int originalHeight,
             int[] pixelOverlap, int[] result,
             boolean flip
     ) {
-        // compute intersection area
-        int minX = Math.max(0, x);
-        int minY = Math.max(0, y);
-        int maxX, maxY;
-        int widthTmp, heightTmp;
-        if (flip) {
-            maxX = Math.min(one.width, x + two.height);
-            maxY = Math.min(one.height, y + two.width);
-            // compute new width, height and pixel count
-            widthTmp = Math.max(one.width, x + two.height) - Math.min(0, x);
-            heightTmp = Math.max(one.height, y + two.width) - Math.min(0, y);
-        } else {
-            maxX = Math.min(one.width, x + two.width);
-            maxY = Math.min(one.height, y + two.height);
-            // compute new width, height and pixel count
-            widthTmp = Math.max(one.width, x + two.width) - Math.min(0, x);
-            heightTmp = Math.max(one.height, y + two.height) - Math.min(0, y);
-        }
+        // the dimension of the second image (in this orientation)
+        int twoWidth = two[0].width;
+        int twoHeight = two[0].height;
+        // compute new width, height and pixel count
+        int widthTmp = Math.max(one.width, x + twoWidth) - Math.min(0, x);
+        int heightTmp = Math.max(one.height, y + twoHeight) - Math.min(0, y);
 
         int areaTmp = widthTmp * heightTmp;
         // do some restriction checking
@@ -229,31 +421,27 @@ public class ImageComparator {
                 // ensure that the image can not only grow into one direction
                 (widthTmp < heightTmp * 3 || (originalWidth != size[0] && size[0] >= widthTmp)) &&
                 (heightTmp < widthTmp * 3 || (originalHeight != size[1] && size[1] >= heightTmp))) {
-            // initialize variables
-            boolean[] matched = new boolean[] {true, true, true, true};
-            int[] pixelOverlapTmp = new int[4];
-            // loop over all intersection points
-            loop: for (int i = minX; i < maxX; i++) {
-                for (int j = minY; j < maxY; j++) {
-                    checkPixel(x, y, one, two, i, j, matched, pixelOverlapTmp, flip);
-                    // if all overlap checks have already failed we can break the loop
-                    if (!matched[0] && !matched[1] && !matched[2] && !matched[3]) {
-                        break loop;
-                    }
-                }
-            }
-
+            // compute intersection area
+            int minY = Math.max(0, y);
+            int maxY = Math.min(one.height, y + twoHeight);
+            Raster raster = one.rasters[0];
             // check if matches are better
             for (int k = 0; k < 4; k ++) {
-                if (matched[k]) {
-                    if (area[0] > areaTmp || pixelOverlapTmp[k] > pixelOverlap[0]) {
+                // the overlapping pixels need to be equal
+                int pixelOverlapTmp = raster.getOverlap(two[k], x, y, minY, maxY, false);
+                if (pixelOverlapTmp > 0) {
+                    // rule out hash collisions
+                    pixelOverlapTmp = raster.getOverlap(two[k], x, y, minY, maxY, true);
+                }
+                if (pixelOverlapTmp != -1) {
+                    if (area[0] > areaTmp || pixelOverlapTmp > pixelOverlap[0]) {
                         result[0] = x;
                         result[1] = y;
                         result[2] = k * 2 + (flip ? 1 : 0);
                         area[0] = areaTmp;
                         size[0] = widthTmp;
                         size[1] = heightTmp;
-                        pixelOverlap[0] = pixelOverlapTmp[k];
+                        pixelOverlap[0] = pixelOverlapTmp;
                     }
                 }
             }
@@ -279,18 +467,30 @@ public class ImageComparator {
 
         int[] originalSize = size.clone();
 
+        one.getRaster(0);
+
         // loop over all "non flipped" start positions
+        // 0 : check for "default orientation" (0)
+        // 1 : check for "twice rotated" (2)
+        // 2 : check for "flipped" (4)
+        // 3 : check for "flipped and twice rotated" (6)
+        Raster[] rasters = new Raster[] {two.getRaster(0), two.getRaster(2), two.getRaster(4), two.getRaster(6)};
         for (int x = -two.width + 1; x < one.width; x++) {
             for (int y = -two.height + 1; y < one.height; y++) {
-                checkPosition(x,y,one,two,area,size,originalSize[0],originalSize[1],pixelOverlap,result, false);
+                checkPosition(x,y,one,rasters,area,size,originalSize[0],originalSize[1],pixelOverlap,result, false);
             }
         }
 
         // loop over all "flipped" start positions
         // (i.e. the width and height of "two" are swapped)
+        // 0 : check for "rotation 1" (1)
+        // 1 : check for "rotation 3" (3)
+        // 2 : check for "flipped and rotation 1" (5)
+        // 3 : check for "flipped and rotation 3" (7)
+        rasters = new Raster[] {two.getRaster(1), two.getRaster(3), two.getRaster(5), two.getRaster(7)};
         for (int x = -two.height + 1; x <= one.width; x++) {
             for (int y = -two.width + 1; y < one.height; y++) {
-                checkPosition(x,y,one,two,area,size,originalSize[0],originalSize[1],pixelOverlap,result, true);
+                checkPosition(x,y,one,rasters,area,size,originalSize[0],originalSize[1],pixelOverlap,result, true);
             }
         }
 
@@ -302,34 +502,12 @@ public class ImageComparator {
     // helper - check if child is contained in this image for a certain orientation given by "type" (explaination see below)
     private int[] getPosition(ImageComparator child, ArrayList<Integer> one, ArrayList<Integer> two, int[] restriction, int type) {
         if (restriction == null || ArrayUtil.contains(restriction, type)) {
+            Raster parent = getRaster(0);
+            // the child in the orientation
+            Raster raster = child.getRaster(type);
             for (int x : one) {
                 for (int y : two) {
-                    // loop over all child pixels
-                    boolean match = true;
-                    for (TIntIntIterator pixel = child.pixels.iterator(); pixel.hasNext(); ) {
-                        pixel.advance();
-                        // check for containment in parent
-                        short[] childPos = IntegerTools.getShorts(pixel.key());
-                        int color;
-                        switch (type) {
-                            // 0 - original, 1 - rotated x 1, 2 - rotated x 2, 3 - rotated x 3,
-                            // 4 - flipped, 5 - flipped & rotated x 1, 6 - flipped & rotated x 2, 7 - flipped & rotated x 3
-                            case 0: color = this.pixels.get(IntegerTools.makeInt(x + childPos[0], y + childPos[1])); break;
-                            case 4: color = this.pixels.get(IntegerTools.makeInt(x + (child.widthM - childPos[0]), y + childPos[1])); break;
-                            case 2: color = this.pixels.get(IntegerTools.makeInt(x + (child.widthM - childPos[0]), y + (child.heightM - childPos[1]))); break;
-                            case 6: color = this.pixels.get(IntegerTools.makeInt(x + childPos[0], y + (child.heightM - childPos[1]))); break;
-                            case 7: color = this.pixels.get(IntegerTools.makeInt(x + childPos[1], y + childPos[0])); break;
-                            case 1: color = this.pixels.get(IntegerTools.makeInt(x + (child.heightM - childPos[1]), y + childPos[0])); break;
-                            case 3: color = this.pixels.get(IntegerTools.makeInt(x + childPos[1], y + (child.widthM - childPos[0]))); break;
-                            default: color = this.pixels.get(IntegerTools.makeInt(x + (child.heightM - childPos[1]), y + (child.widthM - childPos[0]))); break; // case 5
-                        }
-                        // Note: "color" might be null
-                        if (pixel.value() != color) {
-                            match = false;
-                            break;
-                        }
-                    }
-                    if (match) {
+                    if (raster.isContainedAt(parent, x, y)) {
                         return new int[]{x, y, type};
                     }
                 }
@@ -354,16 +532,18 @@ public class ImageComparator {
                 if (this.pixelCount == 1) {
                     return new int[] {0,0,0};
                 } else {
-                    // find location
-                    for (TIntIntIterator it = this.pixels.iterator(); it.hasNext();) {
-                        it.advance();
-                        if (it.value() == color) {
-                            short[] p = IntegerTools.getShorts(it.key());
-                            return new int[]{p[0], p[1], 0};
+                    // find location (the first pixel with this color)
+                    if (firstPositions == null) {
+                        firstPositions = new TIntIntHashMap();
+                        int[] raster = rasters[0].pixels;
+                        for (int i = raster.length - 1; i >= 0; i--) {
+                            if (raster[i] != 0) {
+                                firstPositions.put(raster[i], i);
+                            }
                         }
                     }
-                    // this should never be reached since the color is present
-                    assert false;
+                    int p = firstPositions.get(color);
+                    return new int[]{p % width, p / width, 0};
                 }
             }
             // color is not present
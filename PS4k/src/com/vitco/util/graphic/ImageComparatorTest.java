@@ -3,9 +3,15 @@ package com.vitco.util.graphic;
 import org.junit.Test;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Test Image comparator functionality
@@ -115,4 +121,136 @@ public class ImageComparatorTest {
         assert getResult("needle.png", "haystack_small.png", new int[] {7})[2] == 7;
 
     }
+
+    // ===========================
+    // generated images, the expected results are stored in ImageComparatorTest.txt
+    // (computed with the previous implementation that compared the images pixel by pixel)
+
+    // helper - create an image with color bands (pixels as x, y, color)
+    private static ArrayList<int[]> createImage(int width, int height, Random rand) {
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int band = (x / 3 + y / 4) % 5;
+                result.add(new int[] {x, y, new Color(band * 50, rand.nextInt(3) * 40, 128).getRGB()});
+            }
+        }
+        return result;
+    }
+
+    // helper - rotate (type % 4 times) and flip (type >= 4) the pixels
+    private static ArrayList<int[]> orient(ArrayList<int[]> pixels, int type) {
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        for (int[] pixel : pixels) {
+            result.add(pixel.clone());
+        }
+        for (int i = 0; i < type % 4 + (type >= 4 ? 1 : 0); i++) {
+            int maxX = 0;
+            int maxY = 0;
+            for (int[] pixel : result) {
+                maxX = Math.max(maxX, pixel[0]);
+                maxY = Math.max(maxY, pixel[1]);
+            }
+            for (int[] pixel : result) {
+                if (i == type % 4) {
+                    pixel[0] = maxX - pixel[0]; // flip
+                } else {
+                    int x = pixel[0];
+                    pixel[0] = maxY - pixel[1]; // rotate
+                    pixel[1] = x;
+                }
+            }
+        }
+        return result;
+    }
+
+    // helper - cut a triangle out of the image (the pixels are relative to the triangle)
+    private static ArrayList<int[]> cut(int[][] image, Random rand) {
+        int[][] points;
+        do {
+            int x = rand.nextInt(image.length);
+            int y = rand.nextInt(image[0].length);
+            int w = Math.min(image.length - x, 2 + rand.nextInt(12));
+            int h = Math.min(image[0].length - y, 2 + rand.nextInt(12));
+            points = G2DUtil.getTriangleGridIntersection(x, y, x + w, y, x, y + h);
+        } while (points.length < 3);
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        for (int[] p : points) {
+            minX = Math.min(minX, p[0]);
+            minY = Math.min(minY, p[1]);
+        }
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        for (int[] p : points) {
+            if (p[0] < image.length && p[1] < image[0].length) {
+                result.add(new int[] {p[0] - minX, p[1] - minY, image[p[0]][p[1]]});
+            }
+        }
+        return result;
+    }
+
+    // helper - the test cases (the image and triangles that are cut from it, in random orientations
+    // and some of them with a changed pixel so that they are not contained)
+    private static ArrayList<ArrayList<int[]>> createCases() {
+        Random rand = new Random(0);
+        ArrayList<ArrayList<int[]>> result = new ArrayList<ArrayList<int[]>>();
+        ArrayList<int[]> image = createImage(40, 30, rand);
+        int[][] colors = new int[40][30];
+        for (int[] pixel : image) {
+            colors[pixel[0]][pixel[1]] = pixel[2];
+        }
+        result.add(image);
+        for (int i = 0; i < 120; i++) {
+            ArrayList<int[]> child = orient(cut(colors, rand), rand.nextInt(8));
+            if (i % 4 == 0) {
+                child.get(rand.nextInt(child.size()))[2] ^= 0x10;
+            }
+            result.add(child);
+        }
+        return result;
+    }
+
+    // helper - read the expected results of a type
+    private static ArrayList<int[]> readExpected(String type) throws IOException {
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                ImageComparatorTest.class.getResourceAsStream("ImageComparatorTest.txt"), "UTF-8"));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] values = line.split(" ");
+                if (values[0].equals(type)) {
+                    result.add(values[1].equals("-") ? null : new int[] {
+                            Integer.parseInt(values[1]), Integer.parseInt(values[2]), Integer.parseInt(values[3])
+                    });
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    @Test
+    public void testGetPositionGenerated() throws Exception {
+        ArrayList<ArrayList<int[]>> cases = createCases();
+        ArrayList<int[]> expected = readExpected("position");
+        assert expected.size() == cases.size() - 1;
+        ImageComparator parent = new ImageComparator(cases.get(0));
+        for (int i = 1; i < cases.size(); i++) {
+            int[] result = parent.getPosition(new ImageComparator(cases.get(i)), null);
+            assert Arrays.equals(result, expected.get(i - 1)) : "Case " + i;
+        }
+    }
+
+    @Test
+    public void testGetMergePointGenerated() throws Exception {
+        ArrayList<ArrayList<int[]>> cases = createCases();
+        ArrayList<int[]> expected = readExpected("merge");
+        assert expected.size() == cases.size() / 2;
+        for (int i = 0; i < expected.size(); i++) {
+            int[] result = ImageComparator.getMergePoint(
+                    new ImageComparator(cases.get(i % 8 == 0 ? 0 : i * 2)), new ImageComparator(cases.get(i * 2 + 1)));
+            assert Arrays.equals(result, expected.get(i)) : "Case " + i;
+        }
+    }
 }
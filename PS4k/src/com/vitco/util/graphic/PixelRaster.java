@@ -0,0 +1,115 @@
+package com.vitco.util.graphic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Dense pixel storage for small (triangle) textures.
+ *
+ * The colors are stored in a flat array (row by row) and a bitmap marks which pixels
+ * are set, so no objects are allocated per pixel. Positions outside the raster are
+ * considered as "not set".
+ */
+public final class PixelRaster {
+
+    // dimension of the raster
+    private int width;
+    private int height;
+
+    // the colors of the pixels (index y * width + x)
+    private int[] colors;
+    // the pixels that are set (one bit per pixel)
+    private long[] coverage;
+
+    // amount of pixels that are set
+    private int count = 0;
+
+    // constructor
+    public PixelRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+        colors = new int[width * height];
+        coverage = new long[(width * height + 63) >> 6];
+    }
+
+    // copy constructor (the new raster might be larger than the copied raster)
+    public PixelRaster(PixelRaster other, int width, int height) {
+        this(width, height);
+        for (int y = 0; y < other.height; y++) {
+            for (int x = 0; x < other.width; x++) {
+                if (other.isSet(x, y)) {
+                    set(x, y, other.getColor(x, y));
+                }
+            }
+        }
+    }
+
+    // take over the content of another raster
+    public final void replace(PixelRaster other) {
+        width = other.width;
+        height = other.height;
+        colors = other.colors;
+        coverage = other.coverage;
+        count = other.count;
+    }
+
+    // --------------
+
+    public final int getWidth() {
+        return width;
+    }
+
+    public final int getHeight() {
+        return height;
+    }
+
+    // amount of pixels that are set
+    public final int getCount() {
+        return count;
+    }
+
+    // check if a pixel is set
+    public final boolean isSet(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        int i = y * width + x;
+        return (coverage[i >> 6] & (1L << i)) != 0;
+    }
+
+    // obtain the color of a pixel (only valid if the pixel is set)
+    public final int getColor(int x, int y) {
+        return colors[y * width + x];
+    }
+
+    // set a pixel
+    public final void set(int x, int y, int color) {
+        assert x >= 0 && y >= 0 && x < width && y < height;
+        int i = y * width + x;
+        long bit = 1L << i;
+        if ((coverage[i >> 6] & bit) == 0) {
+            coverage[i >> 6] |= bit;
+            count++;
+        }
+        colors[i] = color;
+    }
+
+    // remove all pixels
+    public final void clear() {
+        Arrays.fill(coverage, 0);
+        count = 0;
+    }
+
+    // obtain the pixels that are set, the format is (x, y, color)
+    public final ArrayList<int[]> getPixels() {
+        ArrayList<int[]> result = new ArrayList<int[]>(count);
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i++) {
+                if ((coverage[i >> 6] & (1L << i)) != 0) {
+                    result.add(new int[] {x, y, colors[i]});
+                }
+            }
+        }
+        return result;
+    }
+}
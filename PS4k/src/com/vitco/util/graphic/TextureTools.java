@@ -1,8 +1,5 @@
 package com.vitco.util.graphic;
 
-import com.vitco.util.misc.IntegerTools;
-import gnu.trove.map.hash.TIntObjectHashMap;
-
 /**
  * Basic and Advanced functionality for textures.
  */
@@ -10,20 +7,22 @@ public class TextureTools {
 
     // helper - determine "offsets" for a texture
     // Note: "Front width offset" means how many "equal" columns are at the left side of the texture (similar for others...)
-    public static int[] getOffsets(int width, int height, boolean checkHeight, TIntObjectHashMap<int[]> pixels) {
+    public static int[] getOffsets(int width, int height, boolean checkHeight, PixelRaster pixels) {
         int[] result = new int[]{0, width};
 
         if (checkHeight) {
             // fetch front offset
-            Integer[] scanline = new Integer[width];
+            int[] scanline = new int[width];
+            boolean[] known = new boolean[width];
             loop:
             for (int y = 0; y < height; y++) {
                 for (int x = 0; x < width; x++) {
-                    int[] pixel = pixels.get(IntegerTools.makeInt(x, y));
-                    if (pixel != null) {
-                        if (scanline[x] == null) {
-                            scanline[x] = pixel[2];
-                        } else if (scanline[x] != pixel[2]) {
+                    if (pixels.isSet(x, y)) {
+                        int color = pixels.getColor(x, y);
+                        if (!known[x]) {
+                            known[x] = true;
+                            scanline[x] = color;
+                        } else if (scanline[x] != color) {
                             break loop;
                         }
                     }
@@ -32,15 +31,17 @@ public class TextureTools {
             }
 
             // fetch back offset
-            scanline = new Integer[width];
+            scanline = new int[width];
+            known = new boolean[width];
             loop:
             for (int y = height - 1; y >= 0; y--) {
                 for (int x = 0; x < width; x++) {
-                    int[] pixel = pixels.get(IntegerTools.makeInt(x, y));
-                    if (pixel != null) {
-                        if (scanline[x] == null) {
-                            scanline[x] = pixel[2];
-                        } else if (scanline[x] != pixel[2]) {
+                    if (pixels.isSet(x, y)) {
+                        int color = pixels.getColor(x, y);
+                        if (!known[x]) {
+                            known[x] = true;
+                            scanline[x] = color;
+                        } else if (scanline[x] != color) {
                             break loop;
                         }
                     }
@@ -61,15 +62,17 @@ public class TextureTools {
             }
         } else {
             // fetch front offset
-            Integer[] scanline = new Integer[height];
+            int[] scanline = new int[height];
+            boolean[] known = new boolean[height];
             loop:
             for (int x = 0; x < width; x++) {
                 for (int y = 0; y < height; y++) {
-                    int[] pixel = pixels.get(IntegerTools.makeInt(x, y));
-                    if (pixel != null) {
-                        if (scanline[y] == null) {
-                            scanline[y] = pixel[2];
-                        } else if (scanline[y] != pixel[2]) {
+                    if (pixels.isSet(x, y)) {
+                        int color = pixels.getColor(x, y);
+                        if (!known[y]) {
+                            known[y] = true;
+                            scanline[y] = color;
+                        } else if (scanline[y] != color) {
                             break loop;
                         }
                     }
@@ -78,15 +81,17 @@ public class TextureTools {
             }
 
             // fetch back offset
-            scanline = new Integer[height];
+            scanline = new int[height];
+            known = new boolean[height];
             loop:
             for (int x = width - 1; x >= 0; x--) {
                 for (int y = 0; y < height; y++) {
-                    int[] pixel = pixels.get(IntegerTools.makeInt(x, y));
-                    if (pixel != null) {
-                        if (scanline[y] == null) {
-                            scanline[y] = pixel[2];
-                        } else if (scanline[y] != pixel[2]) {
+                    if (pixels.isSet(x, y)) {
+                        int color = pixels.getColor(x, y);
+                        if (!known[y]) {
+                            known[y] = true;
+                            scanline[y] = color;
+                        } else if (scanline[y] != color) {
                             break loop;
                         }
                     }
@@ -113,7 +118,7 @@ public class TextureTools {
     // helper - compress function (with offsets that are ignored)
     // returns the new dimension and the compression factor (by that the valid area was compressed)
     // format (width, height, factor)
-    public static int[] compress(int width, int height, int front, int back, boolean useHeight, TIntObjectHashMap<int[]> pixels) {
+    public static int[] compress(int width, int height, int front, int back, boolean useHeight, PixelRaster pixels) {
         int factor = 1;
         // compute inside dist
         int dist = back - front;
@@ -122,59 +127,54 @@ public class TextureTools {
                 for (int d = 1, len = dist / 2 + 1; d < len; d++) {
                     loop:
                     if (dist % d == 0) {
-                        // potential new pixel representation
-                        TIntObjectHashMap<int[]> result = new TIntObjectHashMap<int[]>();
                         // the step width that would be compressed to one pixel
                         int stepSize = dist / d;
-                        // loop over all steps
+                        // check that the pixel color is consistent through all steps
                         for (int y = 0; y < d; y++) {
                             // loop over width
                             for (int x = 0; x < width; x++) {
-                                Integer lastColor = null;
+                                boolean found = false;
+                                int lastColor = 0;
                                 // loop over step
-                                for (int i = 0; i < stepSize; i++) {
-                                    // compute the current point
-                                    int p = IntegerTools.makeInt(x, front + y * stepSize + i);
-                                    // obtain the pixel
-                                    int[] pixel = pixels.get(p);
-                                    if (pixel != null) {
-                                        // check if the pixel color is consistent through this step
-                                        if (lastColor == null) {
-                                            lastColor = pixel[2];
-                                            result.put(IntegerTools.makeInt(x, front + y), new int[]{x, front + y, pixel[2]});
-                                        } else {
-                                            if (lastColor != pixel[2]) {
-                                                break loop;
-                                            }
+                                for (int i = 0, py = front + y * stepSize; i < stepSize; i++, py++) {
+                                    if (pixels.isSet(x, py)) {
+                                        if (!found) {
+                                            found = true;
+                                            lastColor = pixels.getColor(x, py);
+                                        } else if (lastColor != pixels.getColor(x, py)) {
+                                            break loop;
                                         }
                                     }
                                 }
                             }
                         }
-                        // -- loop was successful
-                        // add offset pixel to result array
+                        // -- check was successful
+                        int newHeight = front + (height - back) + d;
+                        PixelRaster result = new PixelRaster(width, newHeight);
                         for (int x = 0; x < width; x++) {
+                            // add offset pixel to result array
                             for (int y = 0; y < front; y++) {
-                                int p = IntegerTools.makeInt(x, y);
-                                int[] pixel = pixels.get(p);
-                                if (pixel != null) {
-                                    result.put(p, pixel);
+                                if (pixels.isSet(x, y)) {
+                                    result.set(x, y, pixels.getColor(x, y));
+                                }
+                            }
+                            // add the first pixel of every step
+                            for (int y = 0; y < d; y++) {
+                                for (int i = 0, py = front + y * stepSize; i < stepSize; i++, py++) {
+                                    if (pixels.isSet(x, py)) {
+                                        result.set(x, front + y, pixels.getColor(x, py));
+                                        break;
+                                    }
                                 }
                             }
                             for (int y = back; y < height; y++) {
-                                int p = IntegerTools.makeInt(x, y);
-                                int[] pixel = pixels.get(p);
-                                if (pixel != null) {
-                                    int[] newPixel = new int[]{
-                                            x , y - dist + dist / stepSize, pixel[2]
-                                    };
-                                    result.put(IntegerTools.makeInt(newPixel[0], newPixel[1]), newPixel);
+                                if (pixels.isSet(x, y)) {
+                                    result.set(x, y - dist + d, pixels.getColor(x, y));
                                 }
                             }
                         }
-                        pixels.clear();
-                        pixels.putAll(result);
-                        height = front + (height - back) + dist / stepSize;
+                        pixels.replace(result);
+                        height = newHeight;
                         factor = stepSize;
                         break;
                     }
@@ -183,59 +183,54 @@ public class TextureTools {
                 for (int d = 1, len = dist / 2 + 1; d < len; d++) {
                     loop:
                     if (dist % d == 0) {
-                        // potential new pixel representation
-                        TIntObjectHashMap<int[]> result = new TIntObjectHashMap<int[]>();
                         // the step width that would be compressed to one pixel
                         int stepSize = dist / d;
-                        // loop over all steps
+                        // check that the pixel color is consistent through all steps
                         for (int x = 0; x < d; x++) {
                             // loop over height
                             for (int y = 0; y < height; y++) {
-                                Integer lastColor = null;
+                                boolean found = false;
+                                int lastColor = 0;
                                 // loop over step
-                                for (int i = 0; i < stepSize; i++) {
-                                    // compute the current point
-                                    int p = IntegerTools.makeInt(front + x * stepSize + i, y);
-                                    // obtain the pixel
-                                    int[] pixel = pixels.get(p);
-                                    if (pixel != null) {
-                                        // check if the pixel color is consistent through this step
-                                        if (lastColor == null) {
-                                            lastColor = pixel[2];
-                                            result.put(IntegerTools.makeInt(front + x, y), new int[]{front + x, y, pixel[2]});
-                                        } else {
-                                            if (lastColor != pixel[2]) {
-                                                break loop;
-                                            }
+                                for (int i = 0, px = front + x * stepSize; i < stepSize; i++, px++) {
+                                    if (pixels.isSet(px, y)) {
+                                        if (!found) {
+                                            found = true;
+                                            lastColor = pixels.getColor(px, y);
+                                        } else if (lastColor != pixels.getColor(px, y)) {
+                                            break loop;
                                         }
                                     }
                                 }
                             }
                         }
-                        // -- loop was successful
-                        // add offset pixel to result array
+                        // -- check was successful
+                        int newWidth = front + (width - back) + d;
+                        PixelRaster result = new PixelRaster(newWidth, height);
                         for (int y = 0; y < height; y++) {
+                            // add offset pixel to result array
                             for (int x = 0; x < front; x++) {
-                                int p = IntegerTools.makeInt(x, y);
-                                int[] pixel = pixels.get(p);
-                                if (pixel != null) {
-                                    result.put(p, pixel);
+                                if (pixels.isSet(x, y)) {
+                                    result.set(x, y, pixels.getColor(x, y));
+                                }
+                            }
+                            // add the first pixel of every step
+                            for (int x = 0; x < d; x++) {
+                                for (int i = 0, px = front + x * stepSize; i < stepSize; i++, px++) {
+                                    if (pixels.isSet(px, y)) {
+                                        result.set(front + x, y, pixels.getColor(px, y));
+                                        break;
+                                    }
                                 }
                             }
                             for (int x = back; x < width; x++) {
-                                int p = IntegerTools.makeInt(x, y);
-                                int[] pixel = pixels.get(p);
-                                if (pixel != null) {
-                                    int[] newPixel = new int[]{
-                                            x - dist + dist / stepSize, y, pixel[2]
-                                    };
-                                    result.put(IntegerTools.makeInt(newPixel[0], newPixel[1]), newPixel);
+                                if (pixels.isSet(x, y)) {
+                                    result.set(x - dist + d, y, pixels.getColor(x, y));
                                 }
                             }
                         }
-                        pixels.clear();
-                        pixels.putAll(result);
-                        width = front + (width - back) + dist / stepSize;
+                        pixels.replace(result);
+                        width = newWidth;
                         factor = stepSize;
                         break;
                     }
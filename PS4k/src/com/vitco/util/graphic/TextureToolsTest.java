@@ -1,7 +1,5 @@
 package com.vitco.util.graphic;
 
-import com.vitco.util.misc.IntegerTools;
-import gnu.trove.map.hash.TIntObjectHashMap;
 import org.junit.Test;
 
 import javax.imageio.ImageIO;
@@ -16,14 +14,14 @@ public class TextureToolsTest {
     // helper - test compression for a specific image
     private void compress(String image) throws IOException {
         BufferedImage img = ImageIO.read(new File("C:\\Users\\flux\\Dropbox\\java\\VoxelShop\\Test Files\\Texture Compression\\" + image + ".png"));
-        // create hashmap
-        TIntObjectHashMap<int[]> pixels = new TIntObjectHashMap<int[]>();
+        // create raster
+        PixelRaster pixels = new PixelRaster(img.getWidth(), img.getHeight());
         for (int x = 0, width = img.getWidth(); x < width; x++) {
             for (int y = 0, height = img.getHeight(); y < height; y++) {
                 int rgb = img.getRGB(x,y);
                 // check that this is not a fully transparent pixel
                 if (((rgb >> 24) & 0xff) != 0) {
-                    pixels.put(IntegerTools.makeInt(x, y), new int[]{x, y, rgb});
+                    pixels.set(x, y, rgb);
                 }
             }
         }
@@ -70,7 +68,7 @@ public class TextureToolsTest {
         }
         // write final image
         BufferedImage imgResult = new BufferedImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
-        for (int[] pixel : pixels.valueCollection()) {
+        for (int[] pixel : pixels.getPixels()) {
             imgResult.setRGB(pixel[0], pixel[1], pixel[2]);
         }
         ImageIO.write(imgResult, "png", new File("C:\\Users\\flux\\Dropbox\\java\\VoxelShop\\Test Files\\Texture Compression\\" + image + "_result.png"));
@@ -86,14 +84,14 @@ public class TextureToolsTest {
     // helper - obtain offset result for an image
     private int[] getOffsets(String image, boolean useHeight) throws IOException {
         BufferedImage img = ImageIO.read(new File("C:\\Users\\flux\\Dropbox\\java\\VoxelShop\\Test Files\\Texture Compression\\" + image + ".png"));
-        // create hashmap
-        TIntObjectHashMap<int[]> pixels = new TIntObjectHashMap<int[]>();
+        // create raster
+        PixelRaster pixels = new PixelRaster(img.getWidth(), img.getHeight());
         for (int x = 0, width = img.getWidth(); x < width; x++) {
             for (int y = 0, height = img.getHeight(); y < height; y++) {
                 int rgb = img.getRGB(x,y);
                 // check that this is not a fully transparent pixel
                 if (((rgb >> 24) & 0xff) != 0) {
-                    pixels.put(IntegerTools.makeInt(x, y), new int[]{x, y, rgb});
+                    pixels.set(x, y, rgb);
                 }
             }
         }
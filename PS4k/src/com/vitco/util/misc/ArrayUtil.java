@@ -1,5 +1,7 @@
 package com.vitco.util.misc;
 
+import java.util.Arrays;
+
 /**
  * Some Array help function.
  */
@@ -14,4 +16,35 @@ public class ArrayUtil {
         }
         return false;
     }
+
+    // sort an int array in ascending order (radix sort, faster than Arrays.sort for large arrays)
+    public static void radixSort(final int[] array) {
+        if (array.length < 10000) {
+            Arrays.sort(array);
+            return;
+        }
+        int[] buffer = new int[array.length];
+        int[] count = new int[65537];
+        // sort by the lower 16 bits
+        for (int value : array) {
+            count[(value & 0xFFFF) + 1]++;
+        }
+        for (int i = 1; i < count.length; i++) {
+            count[i] += count[i - 1];
+        }
+        for (int value : array) {
+            buffer[count[value & 0xFFFF]++] = value;
+        }
+        // sort by the upper 16 bits (the sign bit is flipped to sort negative values first)
+        Arrays.fill(count, 0);
+        for (int value : buffer) {
+            count[((value >>> 16) ^ 0x8000) + 1]++;
+        }
+        for (int i = 1; i < count.length; i++) {
+            count[i] += count[i - 1];
+        }
+        for (int value : buffer) {
+            array[count[(value >>> 16) ^ 0x8000]++] = value;
+        }
+    }
 }
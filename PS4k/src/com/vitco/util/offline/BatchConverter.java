@@ -0,0 +1,311 @@
+package com.vitco.util.offline;
+
+import com.vitco.core.data.Data;
+import com.vitco.core.data.VoxelSource;
+import com.vitco.export.*;
+import com.vitco.importer.*;
+import com.vitco.layout.content.console.ConsoleInterface;
+import com.vitco.manager.error.ErrorHandlerInterface;
+import com.vitco.manager.lang.LangSelectorInterface;
+import com.vitco.util.file.FileTools;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Converts voxel files from the command line (no user interface required).
+ *
+ * Usage: BatchConverter [-format vsd|kv6|qb|pnx|vox|voxgame] [-out directory] [-threads n] files or directories...
+ *
+ * The files are converted concurrently on a work stealing pool. Every conversion reserves memory
+ * relative to the size of its input file, so only as many files are loaded at once as fit into
+ * the heap. The timings are reported per file and in total.
+ */
+public class BatchConverter {
+
+    // the file extensions that can be imported
+    private static final String[] IMPORT_FORMATS = new String[] {
+            "binvox", "kv6", "kvx", "pnx", "qb", "vox", "rawvox", "vxl"
+    };
+
+    // the file extensions that can be exported
+    private static final String[] EXPORT_FORMATS = new String[] {
+            "vsd", "kv6", "qb", "pnx", "vox", "voxgame"
+    };
+
+    // the memory that is reserved per byte of input file (voxel objects are much bigger than their
+    // file representation, especially for run length encoded formats)
+    private static final long MEMORY_PER_BYTE = 64;
+
+    // ----------------
+
+    // the format that is exported to
+    private final String format;
+    // the output directory (null to write next to the input file)
+    private final File outDir;
+    // limits the memory that is used by the running conversions (in KB)
+    private final Semaphore memory;
+    private final int memoryBudget;
+
+    // statistics
+    private final AtomicInteger converted = new AtomicInteger(0);
+    private final AtomicLong bytesRead = new AtomicLong(0);
+    private final AtomicLong voxelCount = new AtomicLong(0);
+
+    // constructor
+    public BatchConverter(String format, File outDir) {
+        this.format = format;
+        this.outDir = outDir;
+        memoryBudget = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 1024 * 3 / 4);
+        memory = new Semaphore(memoryBudget);
+    }
+
+    // helper - the extension of a file (lower case)
+    private static String getExtension(File file) {
+        String name = file.getName();
+        int pos = name.lastIndexOf('.');
+        return pos == -1 ? "" : name.substring(pos + 1).toLowerCase(Locale.ENGLISH);
+    }
+
+    // helper - read a file, returns null if the format is not supported
+    private static AbstractImporter createImporter(File file) throws IOException {
+        String ext = getExtension(file);
+        String name = FileTools.extractNameWithoutExtension(file);
+        if ("binvox".equals(ext)) {
+            return new BinVoxImporter(file, name);
+        } else if ("kv6".equals(ext)) {
+            return new Kv6Importer(file, name);
+        } else if ("kvx".equals(ext)) {
+            return new KvxImporter(file, name);
+        } else if ("pnx".equals(ext)) {
+            return new PnxImporter(file, name);
+        } else if ("qb".equals(ext)) {
+            return new QbImporter(file, name);
+        } else if ("vox".equals(ext)) {
+            return new VoxImporter(file, name);
+        } else if ("rawvox".equals(ext)) {
+            return new RawVoxImporter(file, name);
+        } else if ("vxl".equals(ext)) {
+            return new CCVxlImporter(file, name);
+        }
+        return null;
+    }
+
+    // helper - true if the imported voxels are shifted to their center (same as the import in the editor)
+    private static boolean shiftToCenter(File file) {
+        String ext = getExtension(file);
+        return "binvox".equals(ext) || "vox".equals(ext) || "rawvox".equals(ext) || "vxl".equals(ext);
+    }
+
+    // helper - the shift that is applied to the imported voxels
+    private static int[] getShift(AbstractImporter importer, File file) {
+        if (shiftToCenter(file)) {
+            int[] center = importer.getWeightedCenter();
+            int[] highest = importer.getHighest();
+            return new int[] {-center[0], -highest[1], -center[2]};
+        }
+        return new int[] {0, 0, 0};
+    }
+
+    // helper - the file that is written for an input file (the input extension is
+    // kept if several input files would be written to the same file)
+    private File getTarget(File file, HashSet<File> taken) {
+        File dir = outDir != null ? outDir : file.getAbsoluteFile().getParentFile();
+        File result = new File(dir, FileTools.changeExtension(file.getName(), "." + format)).getAbsoluteFile();
+        if (!taken.add(result)) {
+            result = new File(dir, file.getName() + "." + format).getAbsoluteFile();
+            taken.add(result);
+        }
+        return result;
+    }
+
+    // convert a single file, returns the amount of converted voxels
+    private int convert(File file, File target) throws IOException {
+        if (target.getAbsoluteFile().equals(file.getAbsoluteFile())) {
+            throw new IOException("The file would overwrite itself.");
+        }
+        AbstractImporter importer = createImporter(file);
+        if (importer == null || !importer.hasLoaded()) {
+            throw new IOException("Failed to read the file.");
+        }
+        int[] shift = getShift(importer, file);
+
+        if ("vsd".equals(format)) {
+            // the vsd format is written by the data itself
+            Data data = new Data();
+            final String[] error = new String[] {null};
+            data.setErrorHandler(new ErrorHandlerInterface() {
+                @Override
+                public void handle(Throwable e) {
+                    error[0] = e.toString();
+                }
+                @Override
+                public void setLangSelector(LangSelectorInterface langSelector) {}
+                @Override
+                public void setDebugReportUrl(String debugReportUrl) {}
+                @Override
+                public void setConsole(ConsoleInterface console) {}
+                @Override
+                public void uncaughtException(Thread t, Throwable e) {
+                    handle(e);
+                }
+            });
+            // remove the initial layer
+            data.deleteLayer(data.getLayers()[0]);
+            StreamingImport.importLayers(importer, data, shift);
+            if (!data.saveToFile(target)) {
+                throw new IOException("Failed to write the file" + (error[0] != null ? " (" + error[0] + ")." : "."));
+            }
+            return importer.getVoxelCount();
+        }
+
+        // fill a data source without user interface
+        VoxelSource source = new VoxelSource();
+        int count = 0;
+        for (AbstractImporter.Layer layer : importer.getVoxel()) {
+            source.addLayer(layer.name, layer.isVisible());
+            for (int i = 0, size = layer.size(); i < size; i++) {
+                if (source.addVoxel(new int[] {
+                        layer.getX(i) + shift[0],
+                        layer.getY(i) + shift[1],
+                        layer.getZ(i) + shift[2]
+                }, new Color(layer.getColor(i)))) {
+                    count++;
+                }
+            }
+        }
+        importer = null; // the voxels are no longer needed
+
+        AbstractExporter exporter;
+        if ("kv6".equals(format)) {
+            exporter = new Kv6Exporter(target, source, null, null);
+        } else if ("qb".equals(format)) {
+            exporter = new QbExporter(target, source, null, null);
+        } else if ("pnx".equals(format)) {
+            exporter = new PnxExporter(target, source, null, null);
+        } else if ("vox".equals(format)) {
+            exporter = new VoxVoxLapExporter(target, source, null, null);
+        } else {
+            exporter = new VoxGameExporter(target, source, null, null);
+        }
+        if (!exporter.writeData()) {
+            throw new IOException("Failed to write the file.");
+        }
+        return count;
+    }
+
+    // convert a file and report the result (reserves the memory for the conversion)
+    private void process(File file, File target) {
+        int reserved = (int) Math.min(memoryBudget, Math.max(1, file.length() * MEMORY_PER_BYTE / 1024));
+        memory.acquireUninterruptibly(reserved);
+        try {
+            long time = System.nanoTime();
+            int count = convert(file, target);
+            long duration = System.nanoTime() - time;
+            converted.incrementAndGet();
+            bytesRead.addAndGet(file.length());
+            voxelCount.addAndGet(count);
+            System.out.println(String.format(Locale.US, "%-40s -> %-40s %9d voxel %7dms",
+                    file.getName(), target.getName(), count, duration / 1000000));
+        } catch (Exception e) {
+            System.err.println(String.format(Locale.US, "%-40s failed: %s", file.getName(), e.toString()));
+        } finally {
+            memory.release(reserved);
+        }
+    }
+
+    // convert all files, returns the amount of files that were converted
+    public final int convertAll(List<File> files, int threads) {
+        long time = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+            HashSet<File> taken = new HashSet<File>();
+            for (final File file : files) {
+                final File target = getTarget(file, taken);
+                tasks.add(pool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        process(file, target);
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - time) / 1e9;
+        double megaBytes = bytesRead.get() / (1024d * 1024d);
+        System.out.println(String.format(Locale.US,
+                "Converted %d of %d files (%.2f MB, %d voxel) in %.2fs :: %.2f MB/s, %.0f voxel/s",
+                converted.get(), files.size(), megaBytes, voxelCount.get(), seconds,
+                megaBytes / seconds, voxelCount.get() / seconds));
+        return converted.get();
+    }
+
+    // ----------------
+
+    // helper - collect the files that can be imported (directories are searched recursively)
+    private static void collectFiles(File file, List<File> result) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    collectFiles(child, result);
+                }
+            }
+        } else if (Arrays.asList(IMPORT_FORMATS).contains(getExtension(file))) {
+            result.add(file);
+        }
+    }
+
+    // print the usage
+    private static void printUsage() {
+        System.out.println("Usage: BatchConverter [-format " + Arrays.toString(EXPORT_FORMATS) +
+                "] [-out directory] [-threads n] files or directories...");
+        System.out.println("Supported input formats: " + Arrays.toString(IMPORT_FORMATS));
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        String format = "vsd";
+        File outDir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ArrayList<File> files = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            if ("-format".equals(args[i]) && i + 1 < args.length) {
+                format = args[++i].toLowerCase(Locale.ENGLISH);
+            } else if ("-out".equals(args[i]) && i + 1 < args.length) {
+                outDir = new File(args[++i]);
+            } else if ("-threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                collectFiles(new File(args[i]), files);
+            }
+        }
+        if (files.isEmpty() || !Arrays.asList(EXPORT_FORMATS).contains(format)) {
+            printUsage();
+            System.exit(1);
+        }
+        if (outDir != null && !outDir.isDirectory() && !outDir.mkdirs()) {
+            System.err.println("Failed to create the output directory.");
+            System.exit(1);
+        }
+        int converted = new BatchConverter(format, outDir).convertAll(files, threads);
+        System.exit(converted == files.size() ? 0 : 2);
+    }
+}
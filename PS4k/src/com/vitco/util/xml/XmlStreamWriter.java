@@ -0,0 +1,304 @@
+package com.vitco.util.xml;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * Writes a xml file element by element (UTF-8, indented).
+ *
+ * Nothing is kept in memory except for the open elements and the output buffer,
+ * so huge documents (e.g. long number lists) can be written with constant memory.
+ * Numbers are formatted directly into the buffer.
+ */
+public class XmlStreamWriter {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // the size of the output buffer
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // the maximum amount of fraction digits that are written for floats
+    private static final int FRACTION_DIGITS = 9;
+    // floats with an absolute value above this are written with Float.toString()
+    private static final float MAX_FIXED_FLOAT = 1e9f;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // the names of the open elements
+    private final ArrayList<String> open = new ArrayList<String>();
+    // true if the start tag of the current element is not closed yet
+    private boolean startTagOpen = false;
+    // true if the current element contains text
+    private boolean hasText = false;
+
+    // used to format numbers
+    private final byte[] digits = new byte[20];
+
+    // constructor
+    public XmlStreamWriter(File file) throws IOException {
+        channel = new FileOutputStream(file).getChannel();
+        writeAscii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    }
+
+    // ---------------
+    // low level output
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        for (int off = 0; off < bytes.length; ) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(buffer.remaining(), bytes.length - off);
+            buffer.put(bytes, off, count);
+            off += count;
+        }
+    }
+
+    // write a string that only contains ascii characters
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            put((byte) value.charAt(i));
+        }
+    }
+
+    // write escaped text
+    private void writeEscaped(String value, boolean attribute) throws IOException {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&': writeAscii("&amp;"); break;
+                case '<': writeAscii("&lt;"); break;
+                case '>': writeAscii("&gt;"); break;
+                case '"':
+                    if (attribute) {
+                        writeAscii("&quot;");
+                    } else {
+                        put((byte) c);
+                    }
+                    break;
+                default:
+                    if (c < 0x80) {
+                        put((byte) c);
+                    } else {
+                        // encode the remaining characters at once
+                        writeEscapedUnicode(value.substring(i), attribute);
+                        return;
+                    }
+                    break;
+            }
+        }
+    }
+
+    // helper - write escaped text that contains non ascii characters
+    private void writeEscapedUnicode(String value, boolean attribute) throws IOException {
+        String escaped = value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        if (attribute) {
+            escaped = escaped.replace("\"", "&quot;");
+        }
+        put(escaped.getBytes(UTF8));
+    }
+
+    // write a line break and the indentation for the current depth
+    private void newLine() throws IOException {
+        put((byte) '\n');
+        for (int i = 0, len = open.size() * 4; i < len; i++) {
+            put((byte) ' ');
+        }
+    }
+
+    // close the start tag of the current element
+    private void closeStartTag() throws IOException {
+        if (startTagOpen) {
+            put((byte) '>');
+            startTagOpen = false;
+        }
+    }
+
+    // ---------------
+    // elements
+
+    // open a new element, attributes are given as "name=value"
+    public final void start(String name, String... attributes) throws IOException {
+        closeStartTag();
+        if (!open.isEmpty()) {
+            newLine();
+        }
+        put((byte) '<');
+        writeAscii(name);
+        for (String attribute : attributes) {
+            String[] toSet = attribute.split("=", 2);
+            put((byte) ' ');
+            writeAscii(toSet[0]);
+            writeAscii("=\"");
+            writeEscaped(toSet[1], true);
+            put((byte) '"');
+        }
+        open.add(name);
+        startTagOpen = true;
+        hasText = false;
+    }
+
+    // close the current element
+    public final void end() throws IOException {
+        String name = open.remove(open.size() - 1);
+        if (startTagOpen) {
+            writeAscii("/>");
+            startTagOpen = false;
+        } else {
+            if (!hasText) {
+                newLine();
+            }
+            writeAscii("</");
+            writeAscii(name);
+            put((byte) '>');
+        }
+        hasText = false;
+    }
+
+    // write an element that only contains text
+    public final void element(String name, String text, String... attributes) throws IOException {
+        start(name, attributes);
+        text(text);
+        end();
+    }
+
+    // write an element without content
+    public final void emptyElement(String name, String... attributes) throws IOException {
+        start(name, attributes);
+        end();
+    }
+
+    // ---------------
+    // text content
+
+    // write text into the current element
+    public final void text(String value) throws IOException {
+        closeStartTag();
+        hasText = true;
+        writeEscaped(value, false);
+    }
+
+    // write a character into the current element
+    public final void text(char value) throws IOException {
+        closeStartTag();
+        hasText = true;
+        if (value < 0x80 && value != '&' && value != '<' && value != '>') {
+            put((byte) value);
+        } else {
+            writeEscaped(String.valueOf(value), false);
+        }
+    }
+
+    // write a number into the current element
+    public final void text(long value) throws IOException {
+        closeStartTag();
+        hasText = true;
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeAscii(Long.toString(value));
+                return;
+            }
+            put((byte) '-');
+            value = -value;
+        }
+        int pos = digits.length;
+        do {
+            digits[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (; pos < digits.length; pos++) {
+            put(digits[pos]);
+        }
+    }
+
+    // helper - true if the decimal (the nearest double to the fixed point value) is read back as the float
+    private static boolean readsBackAs(double decimal, float value) {
+        float parsed = (float) decimal;
+        if (Float.floatToIntBits(value < 0 ? -parsed : parsed) != Float.floatToIntBits(value)) {
+            return false;
+        }
+        // if the double is exactly between two floats the fixed point value might be on the other side
+        float lower = parsed <= decimal ? parsed : Math.nextAfter(parsed, Double.NEGATIVE_INFINITY);
+        float upper = Math.nextAfter(lower, Double.POSITIVE_INFINITY);
+        return decimal != ((double) lower + (double) upper) / 2;
+    }
+
+    // write a float into the current element (fixed point with the fewest fraction digits, up to
+    // nine, that are read back as the same float), other floats are written with Float.toString()
+    public final void text(float value) throws IOException {
+        long scaled = 0;
+        long scale = 1;
+        int count = 0;
+        boolean fixed = false;
+        if (!Float.isNaN(value) && !Float.isInfinite(value) && Math.abs(value) < MAX_FIXED_FLOAT) {
+            double abs = Math.abs((double) value);
+            while (true) {
+                scaled = Math.round(abs * scale);
+                fixed = readsBackAs(scaled / (double) scale, value);
+                if (fixed || count == FRACTION_DIGITS) {
+                    break;
+                }
+                scale *= 10;
+                count++;
+            }
+        }
+        if (!fixed) {
+            closeStartTag();
+            hasText = true;
+            writeAscii(Float.toString(value));
+            return;
+        }
+        long integer = scaled / scale;
+        long fraction = scaled % scale;
+        if (value < 0) {
+            text('-');
+        }
+        text(integer);
+        if (fraction != 0) {
+            put((byte) '.');
+            for (int i = count - 1; i >= 0; i--) {
+                digits[i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            for (int i = 0; i < count; i++) {
+                put(digits[i]);
+            }
+        }
+    }
+
+    // ---------------
+
+    // close all open elements and the file
+    public final void close() throws IOException {
+        try {
+            while (!open.isEmpty()) {
+                end();
+            }
+            put((byte) '\n');
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
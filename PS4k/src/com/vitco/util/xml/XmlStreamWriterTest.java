@@ -0,0 +1,98 @@
+package com.vitco.util.xml;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test that the written floats are read back with the same value.
+ */
+public class XmlStreamWriterTest {
+
+    // helper - write the floats and read them back
+    private static float[] roundTrip(float[] values) throws Exception {
+        File file = File.createTempFile("writer", ".xml");
+        try {
+            XmlStreamWriter writer = new XmlStreamWriter(file);
+            writer.start("values");
+            for (float value : values) {
+                writer.start("value");
+                writer.text(value);
+                writer.end();
+            }
+            writer.close();
+
+            String content = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+            Matcher matcher = Pattern.compile("<value>([^<]*)</value>").matcher(content);
+            float[] result = new float[values.length];
+            for (int i = 0; i < result.length; i++) {
+                assert matcher.find();
+                result[i] = Float.parseFloat(matcher.group(1));
+            }
+            assert !matcher.find();
+            return result;
+        } finally {
+            boolean deleted = file.delete();
+            assert deleted;
+        }
+    }
+
+    // helper - check that the floats are read back with the same bits
+    private static void check(float[] values) throws Exception {
+        float[] result = roundTrip(values);
+        for (int i = 0; i < values.length; i++) {
+            assert Float.floatToIntBits(result[i]) == Float.floatToIntBits(values[i]) : values[i] + " != " + result[i];
+        }
+    }
+
+    @Test
+    public void testFloats() throws Exception {
+        // subnormal, small, regular and large values
+        check(new float[] {
+                Float.MIN_VALUE, -Float.MIN_VALUE, 1e-40f, Float.MIN_NORMAL,
+                4.8828125E-4f, 1e-7f, -3.3e-5f, 0.0078125f, 0.1f, 1 / 3f, -2.5f, 0f, -0f, 1f, 100f,
+                999999.94f, 123456.79f, 1e9f, -1.5e10f, 3.4e38f, Float.MAX_VALUE,
+                Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY
+        });
+        // random bit patterns (all magnitudes)
+        Random rand = new Random(3);
+        float[] values = new float[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Float.intBitsToFloat(rand.nextInt());
+        }
+        check(values);
+        // random values in the usual range of coordinates
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (rand.nextFloat() - 0.5f) * (float) Math.pow(10, rand.nextInt(8) - 4);
+        }
+        check(values);
+    }
+
+    @Test
+    public void testFixedPoint() throws Exception {
+        // the values are written with fixed point if possible
+        File file = File.createTempFile("writer", ".xml");
+        try {
+            XmlStreamWriter writer = new XmlStreamWriter(file);
+            writer.start("value");
+            writer.text(0.1f);
+            writer.text(' ');
+            writer.text(-2.5f);
+            writer.text(' ');
+            writer.text(4.8828125E-4f);
+            writer.end();
+            writer.close();
+            String content = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+            // (the last value needs more than nine fraction digits)
+            assert content.contains("<value>0.1 -2.5 4.8828125E-4</value>") : content;
+        } finally {
+            boolean deleted = file.delete();
+            assert deleted;
+        }
+    }
+}